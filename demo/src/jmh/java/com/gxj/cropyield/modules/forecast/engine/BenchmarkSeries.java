@@ -0,0 +1,66 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成产量序列：线性趋势 + 周期波动 + 高斯噪声，并附带与产量相关的气象特征
+ * 固定随机种子，保证不同版本之间的基准结果可比
+ */
+final class BenchmarkSeries {
+
+    static final String[] WEATHER_FEATURES = {
+        "avgTemperature", "precipitation", "sunshineHours", "frostDays",
+        "humidity", "windSpeed", "heatDays", "soilMoisture"
+    };
+
+    private static final long SEED = 20240601L;
+
+    private BenchmarkSeries() {
+    }
+
+    static double[] values(int length) {
+        Random random = new Random(SEED);
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            double trend = 4500 + 12.5 * i;
+            double season = 180 * Math.sin(2 * Math.PI * i / 7d);
+            values[i] = Math.max(1d, trend + season + random.nextGaussian() * 120);
+        }
+        return values;
+    }
+
+    static List<ForecastEngineRequest.HistoryPoint> history(int length) {
+        Random random = new Random(SEED + 1);
+        double[] values = values(length);
+        List<ForecastEngineRequest.HistoryPoint> history = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            Map<String, Double> features = new HashMap<>();
+            for (int f = 0; f < WEATHER_FEATURES.length; f++) {
+                features.put(WEATHER_FEATURES[f], values[i] * (0.001 * (f + 1)) + random.nextGaussian());
+            }
+            // 周期编号从1000开始，保证至少四位数字可被解析为年份
+            history.add(new ForecastEngineRequest.HistoryPoint(String.valueOf(1000 + i), values[i], features));
+        }
+        return history;
+    }
+
+    /**
+     * 带截距列的标准化设计矩阵，形状为 length × (特征数 + 1)
+     */
+    static double[][] designMatrix(int length) {
+        Random random = new Random(SEED + 2);
+        int columns = WEATHER_FEATURES.length + 1;
+        double[][] design = new double[length][columns];
+        for (int i = 0; i < length; i++) {
+            design[i][0] = 1d;
+            for (int j = 1; j < columns; j++) {
+                design[i][j] = random.nextGaussian();
+            }
+        }
+        return design;
+    }
+}
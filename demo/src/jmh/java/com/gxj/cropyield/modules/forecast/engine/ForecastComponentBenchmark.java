@@ -0,0 +1,79 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预测引擎内部热点的微基准：滚动拟合评估、滞后特征增强与列式计算、岭回归正规方程求解与留一交叉验证
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForecastComponentBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int seriesLength;
+
+    private LocalForecastEngine engine;
+    private DoubleSeries series;
+    private List<ForecastEngineRequest.HistoryPoint> history;
+    private double[][] designMatrix;
+    private double[] outputs;
+    private final Map<String, Object> parameters = Map.of();
+
+    @Setup
+    public void setUp() {
+        engine = new LocalForecastEngine();
+        outputs = BenchmarkSeries.values(seriesLength);
+        series = DoubleSeries.wrap(outputs.clone());
+        history = BenchmarkSeries.history(seriesLength);
+        designMatrix = BenchmarkSeries.designMatrix(seriesLength);
+    }
+
+    @Benchmark
+    public void evaluateModelFitArima(Blackhole blackhole) {
+        blackhole.consume(engine.evaluateModelFit(series, parameters, true));
+    }
+
+    @Benchmark
+    public void evaluateModelFitProphet(Blackhole blackhole) {
+        blackhole.consume(engine.evaluateModelFit(series, parameters, false));
+    }
+
+    @Benchmark
+    public List<ForecastEngineRequest.HistoryPoint> enhanceWithLagFeatures() {
+        return LagFeatureEnhancer.enhanceWithLagFeatures(history);
+    }
+
+    @Benchmark
+    public LagFeatureMatrix computeLagFeatureMatrix() {
+        return LagFeatureMatrix.compute(outputs);
+    }
+
+    @Benchmark
+    public double[] solveRidgeNormalEquation() {
+        return engine.solveRidgeNormalEquation(designMatrix, outputs, 0.1d);
+    }
+
+    @Benchmark
+    public RidgeRegressionSolver.CrossValidation crossValidateRidge() {
+        return new RidgeRegressionSolver(designMatrix, outputs).crossValidate(0.1d);
+    }
+}
@@ -0,0 +1,58 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预测引擎端到端基准：按模型类型与序列长度测量 {@link LocalForecastEngine#forecast} 的耗时
+ * <p>LSTM 与气象回归在长序列上耗时较长，可通过 -p modelCode=ARIMA -p seriesLength=100 等参数缩小范围。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ForecastEngineBenchmark {
+
+    @Param({"ARIMA", "PROPHET", "WEATHER_REGRESSION", "LSTM"})
+    public String modelCode;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int seriesLength;
+
+    private LocalForecastEngine engine;
+    private ForecastEngineRequest request;
+
+    @Setup
+    public void setUp() {
+        engine = new LocalForecastEngine();
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("seed", 42);
+        request = new ForecastEngineRequest(
+            modelCode,
+            "YEARLY",
+            3,
+            BenchmarkSeries.history(seriesLength),
+            parameters
+        );
+    }
+
+    @Benchmark
+    public ForecastEngineResponse forecast() {
+        return engine.forecast(request);
+    }
+}
@@ -0,0 +1,124 @@
+package com.gxj.cropyield.common.admission;
+
+import com.gxj.cropyield.common.config.AdmissionProperties;
+import com.gxj.cropyield.common.exception.BusinessException;
+import com.gxj.cropyield.common.response.ResultCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 计算任务准入控制：预测训练与数据导入等重计算任务按预估代价从全局预算中申请许可，预算不足时排队等待，
+ * 超过等待上限则以 429 拒绝，而不是把任务压回请求线程执行
+ * <p>请求线程（存在 Web 请求上下文）只短暂等待，保证轻量接口的响应时间不受计算高峰影响；
+ * 异步任务与队列消费者等后台线程可以等待更久。预算为公平信号量，代价大的任务不会被小任务持续插队饿死。</p>
+ */
+@Component
+public class AdmissionController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionController.class);
+
+    /**
+     * 排队期间检查取消的间隔
+     */
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    public enum Workload {
+        FORECAST("预测"),
+        IMPORT("数据导入");
+
+        private final String label;
+
+        Workload(String label) {
+            this.label = label;
+        }
+    }
+
+    private final int capacity;
+    private final Duration requestMaxWait;
+    private final Duration backgroundMaxWait;
+    private final Semaphore budget;
+
+    public AdmissionController(AdmissionProperties properties) {
+        this.capacity = Math.max(1, properties.getCapacity());
+        this.requestMaxWait = properties.getRequestMaxWait();
+        this.backgroundMaxWait = properties.getBackgroundMaxWait();
+        this.budget = new Semaphore(capacity, true);
+        log.info("计算任务准入控制初始化完成 - 预算: {}, 请求线程最长等待: {}, 后台线程最长等待: {}",
+            capacity, requestMaxWait, backgroundMaxWait);
+    }
+
+    public Permit acquire(Workload workload, int cost) {
+        return acquire(workload, cost, () -> { });
+    }
+
+    /**
+     * 申请 cost 个代价单位的许可，代价超过总预算时按总预算计；checkpoint 在排队期间周期性调用，可抛出异常放弃等待
+     */
+    public Permit acquire(Workload workload, int cost, Runnable checkpoint) {
+        int units = Math.max(1, Math.min(cost, capacity));
+        Duration maxWait = RequestContextHolder.getRequestAttributes() != null ? requestMaxWait : backgroundMaxWait;
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        boolean acquired;
+        try {
+            // 带超时的申请遵循公平顺序，零等待时也不会越过已在排队的任务
+            acquired = budget.tryAcquire(units, 0L, TimeUnit.NANOSECONDS);
+            while (!acquired) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                checkpoint.run();
+                acquired = budget.tryAcquire(units, Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.TOO_MANY_REQUESTS, workload.label + "任务在等待计算资源时被中断");
+        }
+        if (!acquired) {
+            log.warn("计算资源不足，拒绝{}任务 - 代价: {}, 剩余预算: {}/{}, 已等待: {}",
+                workload.label, units, budget.availablePermits(), capacity, maxWait);
+            throw new BusinessException(ResultCode.TOO_MANY_REQUESTS,
+                "系统计算资源繁忙，" + workload.label + "任务暂时无法执行，请稍后重试");
+        }
+        return new Permit(units);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int availableUnits() {
+        return budget.availablePermits();
+    }
+
+    /**
+     * 已获得的许可，关闭时归还预算；重复关闭只归还一次
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final int units;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int units) {
+            this.units = units;
+        }
+
+        public int units() {
+            return units;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                budget.release(units);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.gxj.cropyield.common.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+/**
+ * 全局配置模块的配置类，配置计算任务准入控制的预算与各类任务的代价。
+ * <p>核心方法：getCapacity、getRequestMaxWait、getBackgroundMaxWait、getModelCost、getLstmCost、getTuningCost、getImportSizePerUnit。</p>
+ */
+
+@ConfigurationProperties(prefix = "admission")
+public class AdmissionProperties {
+
+    /**
+     * 全局计算预算（代价单位），约等于可同时满载的 CPU 核数 × 2
+     */
+    private int capacity = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * 请求线程上等待预算的最长时间，超过后返回 429
+     */
+    private Duration requestMaxWait = Duration.ofSeconds(2);
+
+    /**
+     * 后台线程（异步任务、队列消费者）上等待预算的最长时间
+     */
+    private Duration backgroundMaxWait = Duration.ofMinutes(10);
+
+    /**
+     * ARIMA / Prophet / 气象回归训练一次的代价
+     */
+    private int modelCost = 1;
+
+    /**
+     * LSTM 训练一次的代价，网络训练会占用多个核心
+     */
+    private int lstmCost = 4;
+
+    /**
+     * 开启超参数调优时额外的代价
+     */
+    private int tuningCost = 2;
+
+    /**
+     * 数据导入文件每多少大小计一个代价单位
+     */
+    private DataSize importSizePerUnit = DataSize.ofMegabytes(8);
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public Duration getRequestMaxWait() {
+        return requestMaxWait;
+    }
+
+    public void setRequestMaxWait(Duration requestMaxWait) {
+        this.requestMaxWait = requestMaxWait;
+    }
+
+    public Duration getBackgroundMaxWait() {
+        return backgroundMaxWait;
+    }
+
+    public void setBackgroundMaxWait(Duration backgroundMaxWait) {
+        this.backgroundMaxWait = backgroundMaxWait;
+    }
+
+    public int getModelCost() {
+        return modelCost;
+    }
+
+    public void setModelCost(int modelCost) {
+        this.modelCost = modelCost;
+    }
+
+    public int getLstmCost() {
+        return lstmCost;
+    }
+
+    public void setLstmCost(int lstmCost) {
+        this.lstmCost = lstmCost;
+    }
+
+    public int getTuningCost() {
+        return tuningCost;
+    }
+
+    public void setTuningCost(int tuningCost) {
+        this.tuningCost = tuningCost;
+    }
+
+    public DataSize getImportSizePerUnit() {
+        return importSizePerUnit;
+    }
+
+    public void setImportSizePerUnit(DataSize importSizePerUnit) {
+        this.importSizePerUnit = importSizePerUnit;
+    }
+}
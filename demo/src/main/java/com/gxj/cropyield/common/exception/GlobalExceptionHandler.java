@@ -2,6 +2,7 @@ package com.gxj.cropyield.common.exception;
 
 import com.gxj.cropyield.common.response.ApiResponse;
 import com.gxj.cropyield.common.response.ResultCode;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -28,6 +29,15 @@ public class GlobalExceptionHandler {
             .body(ApiResponse.failure(code, ex.getMessage()));
     }
 
+    /**
+     * 线程池队列已满时不再由请求线程代为执行，直接返回 429
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ApiResponse<Void>> handleTaskRejectedException(TaskRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .body(ApiResponse.failure(ResultCode.TOO_MANY_REQUESTS, "系统繁忙，任务队列已满，请稍后重试"));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Void>> handleValidationException(MethodArgumentNotValidException ex) {
         String message = ex.getBindingResult().getFieldErrors().stream()
@@ -9,6 +9,7 @@ public enum ResultCode {
     UNAUTHORIZED(401, "unauthorized"),
     FORBIDDEN(403, "forbidden"),
     NOT_FOUND(404, "not_found"),
+    TOO_MANY_REQUESTS(429, "too_many_requests"),
     SERVER_ERROR(500, "server_error");
 
     private final int code;
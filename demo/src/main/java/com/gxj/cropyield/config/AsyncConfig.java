@@ -1,15 +1,24 @@
 package com.gxj.cropyield.config;
 
+import com.gxj.cropyield.common.config.AdmissionProperties;
+import com.gxj.cropyield.datamanagement.config.DataImportProperties;
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadPoolExecutor;
 
 /**
@@ -17,17 +26,34 @@ import java.util.concurrent.ThreadPoolExecutor;
  * 
  * 用于处理耗时较长的操作，如LSTM模型训练、数据导入等
  * 避免阻塞主线程，提升系统响应速度
+ * 各线程池队列满时拒绝新任务（返回 429），重计算任务另由 AdmissionController 按全局预算准入
+ * 
+ * spring.threads.virtual.enabled=true 且运行在 JDK 21 及以上时，I/O 型执行器（通用异步、数据导入、邮件、
+ * 外部 HTTP 调用）改为每任务一个虚拟线程，并以并发上限代替线程池容量；预测训练执行器始终使用有界的平台线程池
  */
 @Configuration
 @EnableAsync
+@EnableConfigurationProperties({AdmissionProperties.class, DataImportProperties.class})
 public class AsyncConfig implements AsyncConfigurer {
     
     private static final Logger log = LoggerFactory.getLogger(AsyncConfig.class);
     
+    private final boolean virtualThreads;
+    
+    public AsyncConfig(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        if (!virtualThreads && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("已开启虚拟线程，但当前运行的 JDK {} 不支持，I/O 型执行器仍使用平台线程池", Runtime.version().feature());
+        }
+    }
+    
 
     @Bean(name = "taskExecutor")
     @Override
     public Executor getAsyncExecutor() {
+        if (virtualThreads) {
+            return virtualExecutor("async-forecast-", 500, true, 60);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         // 核心线程数：系统启动时创建的线程数
@@ -45,8 +71,8 @@ public class AsyncConfig implements AsyncConfigurer {
         // 线程空闲时间：超过核心线程数的线程在空闲时的存活时间
         executor.setKeepAliveSeconds(60);
         
-        // 拒绝策略：当队列满时，由调用线程执行任务
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 拒绝策略：队列满时拒绝任务并向调用方返回 429，不在请求线程上执行耗时任务
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         
         // 等待所有任务完成后再关闭线程池
         executor.setWaitForTasksToCompleteOnShutdown(true);
@@ -64,16 +90,18 @@ public class AsyncConfig implements AsyncConfigurer {
     
 
     @Bean(name = "forecastExecutor")
-    public Executor getForecastExecutor() {
+    public Executor getForecastExecutor(ForecastEngineProperties forecastProperties) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         // 预测任务通常耗时较长，使用较小的线程池
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
+        // 训练是 CPU 密集型计算，开启虚拟线程时也保持有界的平台线程池
+        int maxPoolSize = Math.max(1, forecastProperties.getAsyncParallelism());
+        executor.setCorePoolSize(Math.min(2, maxPoolSize));
+        executor.setMaxPoolSize(maxPoolSize);
         executor.setQueueCapacity(50);
         executor.setThreadNamePrefix("forecast-task-");
         executor.setKeepAliveSeconds(120);
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(120);
         
@@ -87,15 +115,21 @@ public class AsyncConfig implements AsyncConfigurer {
     
 
     @Bean(name = "importExecutor")
-    public Executor getImportExecutor() {
+    public Executor getImportExecutor(DataImportProperties importProperties) {
+        // 每个导入任务的流水线各阶段需同时占有线程，线程数按同时执行的任务数计算，排队由 DataImportService 负责
+        int threads = Math.max(1, importProperties.getConcurrentJobs()) * DataImportProperties.THREADS_PER_JOB;
+        if (virtualThreads) {
+            // 解析与入库的计算量已由 AdmissionController 按文件大小限流，这里只限制同时进行的导入数
+            return virtualExecutor("import-task-", threads, true, 60);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
-        executor.setCorePoolSize(3);
-        executor.setMaxPoolSize(6);
-        executor.setQueueCapacity(20);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads);
         executor.setThreadNamePrefix("import-task-");
         executor.setKeepAliveSeconds(60);
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
         
@@ -107,9 +141,30 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
     
+    /**
+     * 导入校验专用的 ForkJoin 池：各批次的校验只做正则匹配与数值解析，不访问数据库，属于纯计算，
+     * 始终使用平台线程，各导入任务共享
+     */
+    @Bean(name = "importValidationExecutor", destroyMethod = "shutdownNow")
+    public ForkJoinPool getImportValidationExecutor(DataImportProperties importProperties) {
+        int parallelism = Math.max(1, importProperties.getValidationParallelism());
+        ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("import-validate-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        
+        log.info("导入校验线程池初始化完成 - 并行度: {}, 并行校验: {}", parallelism, importProperties.isParallelValidation());
+        
+        return pool;
+    }
+    
 
     @Bean(name = "mailTaskExecutor")
     public Executor getMailTaskExecutor() {
+        if (virtualThreads) {
+            return virtualExecutor("mail-task-", 200, true, 30);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         // 邮件发送通常很快，使用较小的线程池
@@ -118,7 +173,7 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("mail-task-");
         executor.setKeepAliveSeconds(60);
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
         
@@ -131,6 +186,54 @@ public class AsyncConfig implements AsyncConfigurer {
     }
     
 
+    /**
+     * 外部 HTTP 调用（如和风天气预报）专用执行器，使 I/O 等待不占用预测计算线程；
+     * 达到上限时拒绝提交，由提交方决定改在何处执行，批量预测会改在批量计算线程上发起调用
+     */
+    @Bean(name = "ioTaskExecutor")
+    public Executor getIoTaskExecutor() {
+        if (virtualThreads) {
+            return virtualExecutor("io-task-", 256, true, 30);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(32);
+        executor.setQueueCapacity(256);
+        executor.setThreadNamePrefix("io-task-");
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        // 提交方可能是 Tomcat 请求线程，队列已满时拒绝而不是由提交方执行
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        
+        executor.initialize();
+        
+        log.info("I/O 任务执行器初始化完成 - 核心线程: {}, 最大线程: {}, 队列容量: {}", 
+                executor.getCorePoolSize(), executor.getMaxPoolSize(), executor.getQueueCapacity());
+        
+        return executor;
+    }
+    
+    /**
+     * 虚拟线程执行器：每个任务一个虚拟线程，concurrencyLimit 限制同时执行的任务数；
+     * reject 为 true 时达到上限直接拒绝（与平台线程池的 AbortPolicy 一致），否则阻塞提交方
+     */
+    private SimpleAsyncTaskExecutor virtualExecutor(String threadNamePrefix, int concurrencyLimit,
+                                                    boolean reject, int awaitTerminationSeconds) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setRejectTasksWhenLimitReached(reject);
+        executor.setTaskTerminationTimeout(awaitTerminationSeconds * 1000L);
+        
+        log.info("虚拟线程执行器初始化完成 - 名称前缀: {}, 并发上限: {}", threadNamePrefix, concurrencyLimit);
+        
+        return executor;
+    }
+    
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return (throwable, method, params) -> {
@@ -2,6 +2,13 @@ package com.gxj.cropyield.datamanagement;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gxj.cropyield.common.admission.AdmissionController;
+import com.gxj.cropyield.common.config.AdmissionProperties;
+import com.gxj.cropyield.common.exception.BusinessException;
+import com.gxj.cropyield.common.response.ResultCode;
+import com.gxj.cropyield.datamanagement.config.DataImportProperties;
 import com.gxj.cropyield.datamanagement.dto.DataImportErrorView;
 import com.gxj.cropyield.datamanagement.dto.DataImportJobDetailView;
 import com.gxj.cropyield.datamanagement.dto.DataImportJobPageResponse;
@@ -19,10 +26,11 @@ import com.gxj.cropyield.modules.dataset.dto.WeatherRecordImportPreview;
 import com.gxj.cropyield.modules.dataset.entity.DatasetFile;
 import com.gxj.cropyield.modules.dataset.entity.DatasetFile.DatasetType;
 import com.gxj.cropyield.modules.dataset.repository.DatasetFileRepository;
+import com.gxj.cropyield.modules.forecast.engine.ForecastModelCache;
+import com.gxj.cropyield.modules.forecast.service.impl.WeatherFeatureStore;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.apache.commons.text.similarity.JaroWinklerSimilarity;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.DateUtil;
@@ -31,15 +39,22 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
@@ -47,14 +62,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.nio.charset.MalformedInputException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.Normalizer;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
@@ -70,19 +89,31 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 /**
  * 数据导入模块的业务接口，定义数据导入相关的核心业务操作。
- * <p>核心方法：deleteTasks、submitImport、mapToView、listJobs、getJobDetail、processJobAsync、ensureDatasetFile、updateDatasetFileMetadata。</p>
+ * <p>核心方法：deleteTasks、submitImport、mapToView、listJobs、getJobDetail、processJob、ensureDatasetFile、updateDatasetFileMetadata。</p>
+ * <p>上传请求只保存文件并登记任务后立即返回；任务在导入执行器上按 解析 → 校验 → 维度解析 → 分批写入 的流水线执行，
+ * 阶段之间以有界队列相连，同时执行的任务数与排队任务数均有上限。</p>
  */
 
 @Service
 public class DataImportService {
 
+    private static final Logger log = LoggerFactory.getLogger(DataImportService.class);
+
     private static final int MIN_YEAR = 1978;
     private static final int PREVIEW_LIMIT = 10;
     private static final int MAX_WARNING_STORE = 50;
@@ -123,7 +154,7 @@ public class DataImportService {
             "区",
             "旗"
     );
-    private static final JaroWinklerSimilarity SIMILARITY = new JaroWinklerSimilarity();
+    private static final int HEADER_CACHE_SIZE = 2000;
     private static final Pattern NUMBER_PATTERN = Pattern.compile("[-+]?\\d+(\\.\\d+)?");
 
     private final CropRepository cropRepository;
@@ -132,19 +163,68 @@ public class DataImportService {
     private final DataImportJobRepository jobRepository;
     private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
+    private final ForecastModelCache forecastModelCache;
+    private final WeatherFeatureStore weatherFeatureStore;
+    private final AdmissionController admissionController;
+    private final AdmissionProperties admissionProperties;
+    private final DataImportProperties importProperties;
+    private final Executor importExecutor;
+    private final Executor validationExecutor;
+    private final ReentrantLock dimensionLock = new ReentrantLock();
+    private final HeaderMatcher headerMatcher = new HeaderMatcher(HEADER_SYNONYMS, HEADER_CACHE_SIZE);
+    private final Cache<List<String>, HeaderMapping> headerMappings = Caffeine.newBuilder()
+            .maximumSize(HEADER_CACHE_SIZE)
+            .build();
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Long> pendingJobs;
+    private final Semaphore jobSlots;
+    private final String nodeId;
 
     public DataImportService(CropRepository cropRepository,
                              RegionRepository regionRepository,
                              DatasetFileRepository datasetFileRepository,
                              DataImportJobRepository jobRepository,
                              JdbcTemplate jdbcTemplate,
-                             ObjectMapper objectMapper) {
+                             ObjectMapper objectMapper,
+                             ForecastModelCache forecastModelCache,
+                             WeatherFeatureStore weatherFeatureStore,
+                             AdmissionController admissionController,
+                             AdmissionProperties admissionProperties,
+                             DataImportProperties importProperties,
+                             @Qualifier("importExecutor") Executor importExecutor,
+                             @Qualifier("importValidationExecutor") Executor validationExecutor,
+                             PlatformTransactionManager transactionManager) {
         this.cropRepository = cropRepository;
         this.regionRepository = regionRepository;
         this.datasetFileRepository = datasetFileRepository;
         this.jobRepository = jobRepository;
         this.jdbcTemplate = jdbcTemplate;
         this.objectMapper = objectMapper;
+        this.forecastModelCache = forecastModelCache;
+        this.weatherFeatureStore = weatherFeatureStore;
+        this.admissionController = admissionController;
+        this.admissionProperties = admissionProperties;
+        this.importProperties = importProperties;
+        this.importExecutor = importExecutor;
+        this.validationExecutor = validationExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pendingJobs = new ArrayBlockingQueue<>(Math.max(1, importProperties.getPendingJobs()));
+        this.jobSlots = new Semaphore(Math.max(1, importProperties.getConcurrentJobs()));
+        this.nodeId = resolveNodeId(importProperties.getNodeId());
+    }
+
+    /**
+     * 未配置节点标识时取主机名，进程重启后仍能认出自己名下的任务
+     */
+    private static String resolveNodeId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured.trim();
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException exception) {
+            return "node";
+        }
     }
 
     @Transactional
@@ -164,6 +244,25 @@ public class DataImportService {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("请上传包含数据的文件");
         }
+        if (pendingJobs.remainingCapacity() == 0) {
+            throw new BusinessException(ResultCode.TOO_MANY_REQUESTS, "导入任务排队已满，请稍后重试");
+        }
+        DataImportJob job = createJob(file, datasetType, datasetName, datasetDescription);
+        // 上传请求只保存文件并登记任务，解析与入库在导入执行器上异步进行
+        if (!pendingJobs.offer(job.getId())) {
+            markFailed(job.getId(), "导入任务排队已满，请稍后重新上传");
+            throw new BusinessException(ResultCode.TOO_MANY_REQUESTS, "导入任务排队已满，请稍后重试");
+        }
+        dispatchPendingJobs();
+        return mapToView(job);
+    }
+
+    private int importCost(long fileSize) {
+        long bytesPerUnit = Math.max(1L, admissionProperties.getImportSizePerUnit().toBytes());
+        return (int) Math.min(Integer.MAX_VALUE, 1L + fileSize / bytesPerUnit);
+    }
+
+    private DataImportJob createJob(MultipartFile file, DatasetType datasetType, String datasetName, String datasetDescription) {
         String safeDatasetName = Optional.ofNullable(datasetName)
                 .map(String::trim)
                 .filter(s -> !s.isEmpty())
@@ -187,11 +286,119 @@ public class DataImportService {
         job.setStoragePath(savedPath.toString());
         job.setStatus(DataImportJobStatus.QUEUED);
         job.setMessage("任务已创建，等待异步执行");
-        jobRepository.save(job);
+        job.setOwnerNode(nodeId);
+        job.setOwnerHeartbeatAt(LocalDateTime.now());
+        return jobRepository.save(job);
+    }
+
+    /**
+     * 有空闲的任务名额时从等待队列取出任务交给导入执行器；新任务入队与任务结束后都会调用，排队的任务不会被遗漏
+     */
+    private void dispatchPendingJobs() {
+        while (!pendingJobs.isEmpty() && jobSlots.tryAcquire()) {
+            Long jobId = pendingJobs.poll();
+            if (jobId == null) {
+                jobSlots.release();
+                return;
+            }
+            try {
+                importExecutor.execute(() -> {
+                    try {
+                        processJob(jobId);
+                    } finally {
+                        jobSlots.release();
+                        dispatchPendingJobs();
+                    }
+                });
+            } catch (RejectedExecutionException exception) {
+                jobSlots.release();
+                log.warn("导入执行器拒绝任务 - jobId: {}, 原因: {}", jobId, exception.getMessage());
+                markFailed(jobId, "导入执行器繁忙，任务未能启动，请稍后重新上传");
+            }
+        }
+    }
 
-        processJobAsync(job.getId());
+    /**
+     * 启动后恢复本节点名下未完成的任务：排队中的任务重新放入等待队列，执行中的任务已随上一个进程中断，标记为失败
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverJobsOnStartup() {
+        recoverJobs(true);
+    }
 
-        return mapToView(job);
+    /**
+     * 每分钟刷新本节点任务的心跳，补回等待队列已满时未能入队的本节点任务，并接管心跳超过 stale-job-timeout 的节点遗留的任务
+     */
+    @Scheduled(cron = "0 * * * * ?")
+    public void recoverStaleJobs() {
+        recoverJobs(false);
+    }
+
+    /**
+     * 等待队列只保存在内存中，上传文件保存在提交节点的本地磁盘，因此任务只由其归属节点放入等待队列，
+     * 排队再久也不会被其他节点领取；归属节点心跳超过 stale-job-timeout 即视为下线，由一个实例条件更新接管，
+     * 本机能读到上传文件时继续执行，否则标记为失败
+     */
+    private void recoverJobs(boolean startup) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime deadBefore = now.minus(importProperties.getStaleJobTimeout());
+            jobRepository.touchOwnedJobs(nodeId, List.of(DataImportJobStatus.QUEUED, DataImportJobStatus.RUNNING), now);
+            int interrupted = 0;
+            if (startup) {
+                for (DataImportJob job : jobRepository.findByStatusAndOwnerNode(DataImportJobStatus.RUNNING, nodeId)) {
+                    if (markInterrupted(job.getId())) {
+                        interrupted++;
+                    }
+                }
+            }
+            for (DataImportJob job : jobRepository.findOrphaned(DataImportJobStatus.RUNNING, nodeId, deadBefore)) {
+                if (jobRepository.takeOver(job.getId(), nodeId, deadBefore, now) > 0 && markInterrupted(job.getId())) {
+                    interrupted++;
+                }
+            }
+            int adopted = 0;
+            for (DataImportJob job : jobRepository.findOrphaned(DataImportJobStatus.QUEUED, nodeId, deadBefore)) {
+                if (jobRepository.takeOver(job.getId(), nodeId, deadBefore, now) == 0) {
+                    continue;
+                }
+                adopted++;
+                if (job.getStoragePath() == null || !Files.exists(Paths.get(job.getStoragePath()))) {
+                    if (jobRepository.compareAndSetOwnedStatus(job.getId(), nodeId,
+                            DataImportJobStatus.QUEUED, DataImportJobStatus.FAILED) > 0) {
+                        markFailed(job.getId(), "提交任务的节点已下线，当前节点读取不到导入文件，请重新上传");
+                    }
+                }
+            }
+            int requeued = 0;
+            List<DataImportJob> owned = jobRepository.findByStatusAndOwnerNode(DataImportJobStatus.QUEUED, nodeId);
+            for (DataImportJob job : owned.stream().sorted(Comparator.comparing(DataImportJob::getId)).toList()) {
+                if (pendingJobs.contains(job.getId())) {
+                    continue;
+                }
+                // 等待队列已满时保持排队状态，留待下一轮恢复
+                if (!pendingJobs.offer(job.getId())) {
+                    break;
+                }
+                requeued++;
+            }
+            if (requeued > 0 || interrupted > 0 || adopted > 0) {
+                log.info("恢复导入任务 - 节点: {}, 重新入队: {}, 标记中断: {}, 接管下线节点任务: {}",
+                        nodeId, requeued, interrupted, adopted);
+            }
+        } catch (DataAccessException exception) {
+            log.warn("恢复导入任务失败 - 原因: {}", exception.getMessage());
+        }
+        dispatchPendingJobs();
+    }
+
+    private boolean markInterrupted(Long jobId) {
+        if (jobRepository.compareAndSetOwnedStatus(jobId, nodeId,
+                DataImportJobStatus.RUNNING, DataImportJobStatus.FAILED) == 0) {
+            return false;
+        }
+        markFailed(jobId, "导入任务执行中断（服务重启或执行节点下线），请重新上传");
+        return true;
     }
 
     public DataImportJobPageResponse listJobs(String status, String keyword, int page, int size) {
@@ -228,55 +435,87 @@ public class DataImportService {
         return new DataImportJobDetailView(mapToView(job), warnings, errors, preview);
     }
 
-    @Async("importTaskExecutor")
-    @Transactional
-    public void processJobAsync(Long jobId) {
-        DataImportJob job = jobRepository.findById(jobId)
-                .orElseThrow(() -> new IllegalArgumentException("未找到导入任务"));
-        job.setStatus(DataImportJobStatus.RUNNING);
-        job.setStartedAt(LocalDateTime.now());
-        job.setMessage("正在解析导入文件");
-        jobRepository.save(job);
-
+    /**
+     * 在导入执行器上执行一个导入任务：先按文件大小申请计算预算，再以分阶段流水线解析、校验、解析维度并分批写入；
+     * 任务状态在各自的短事务中更新，不持有贯穿整个导入的长事务
+     */
+    private void processJob(Long jobId) {
+        // 恢复时可能重复派发同一任务，只有仍归属本节点且把状态从 QUEUED 改为 RUNNING 的一方执行
+        if (jobRepository.compareAndSetOwnedStatus(jobId, nodeId,
+                DataImportJobStatus.QUEUED, DataImportJobStatus.RUNNING) == 0) {
+            return;
+        }
+        DataImportJob job = updateJob(jobId, current -> {
+            current.setStartedAt(LocalDateTime.now());
+            current.setMessage("正在解析导入文件");
+        });
+        if (job == null) {
+            return;
+        }
         try {
             Path filePath = Paths.get(job.getStoragePath());
             if (!Files.exists(filePath)) {
                 throw new IllegalStateException("导入文件不存在或已被移除");
             }
-            List<ParsedRecord> parsedRecords = parseFile(filePath);
-            job.setTotalRows(parsedRecords.size());
-            job.setMessage("正在进行数据校验与清洗");
-            jobRepository.save(job);
-
-            ImportResult result = switch (job.getDatasetType()) {
-                case WEATHER -> processWeatherRecords(job, parsedRecords);
-                default -> processYieldRecords(job, parsedRecords);
-            };
-
-            job.clearErrors();
-            result.errors().stream().limit(MAX_ERROR_STORE).forEach(job::addError);
-            job.setProcessedRows(result.inserted() + result.updated());
-            job.setInsertedRows(result.inserted());
-            job.setUpdatedRows(result.updated());
-            job.setFailedRows(result.failed());
-            job.setSkippedRows(result.skipped());
-            job.setWarningCount(result.warnings().size());
-            job.setWarningsPayload(writePayload(limitList(result.warnings(), MAX_WARNING_STORE)));
-            job.setPreviewPayload(writePreview(result.preview()));
-            job.setFinishedAt(LocalDateTime.now());
-            job.setStatus(DataImportJobStatus.SUCCEEDED);
-            job.setMessage(buildCompletionMessage(job));
-            jobRepository.save(job);
+            ImportResult result;
+            try (AdmissionController.Permit ignored = admissionController.acquire(
+                    AdmissionController.Workload.IMPORT, importCost(Files.size(filePath)))) {
+                result = switch (job.getDatasetType()) {
+                    case WEATHER -> processWeatherRecords(job, filePath);
+                    default -> processYieldRecords(job, filePath);
+                };
+            }
 
-            if (result.datasetFile() != null) {
-                updateDatasetFileMetadata(result.datasetFile(), job);
+            DataImportJob finished = updateJob(jobId, current -> {
+                current.clearErrors();
+                result.errors().forEach(current::addError);
+                current.setDatasetFileId(result.datasetFile() != null ? result.datasetFile().getId() : current.getDatasetFileId());
+                current.setTotalRows(result.total());
+                current.setProcessedRows(result.inserted() + result.updated());
+                current.setInsertedRows(result.inserted());
+                current.setUpdatedRows(result.updated());
+                current.setFailedRows(result.failed());
+                current.setSkippedRows(result.skipped());
+                current.setWarningCount(result.warningCount());
+                current.setWarningsPayload(writePayload(result.warnings()));
+                current.setPreviewPayload(writePreview(result.preview()));
+                current.setFinishedAt(LocalDateTime.now());
+                current.setStatus(DataImportJobStatus.SUCCEEDED);
+                current.setMessage(buildCompletionMessage(current));
+            });
+
+            if (finished != null && result.datasetFile() != null) {
+                updateDatasetFileMetadata(result.datasetFile(), finished);
             }
         } catch (Exception exception) {
+            log.warn("导入任务失败 - jobId: {}, 原因: {}", jobId, exception.getMessage());
+            markFailed(jobId, "导入失败：" + exception.getMessage());
+        }
+    }
+
+    /**
+     * 在独立的短事务中加载并修改导入任务，任务已被删除时返回 null
+     */
+    private DataImportJob updateJob(Long jobId, Consumer<DataImportJob> update) {
+        return transactionTemplate.execute(status -> jobRepository.findById(jobId)
+                .map(job -> {
+                    update.accept(job);
+                    return jobRepository.save(job);
+                })
+                .orElse(null));
+    }
+
+    /**
+     * 标记任务失败；每个批次单独提交，已写入的行数由 ChunkWriter 随进度保存，失败时保留并在消息中说明
+     */
+    private void markFailed(Long jobId, String message) {
+        updateJob(jobId, job -> {
             job.setStatus(DataImportJobStatus.FAILED);
             job.setFinishedAt(LocalDateTime.now());
-            job.setMessage("导入失败：" + exception.getMessage());
-            jobRepository.save(job);
-        }
+            int written = Optional.ofNullable(job.getProcessedRows()).orElse(0);
+            String detail = written > 0 ? message + "（此前已提交的 " + written + " 条数据已写入，未回滚）" : message;
+            job.setMessage(detail.length() > 512 ? detail.substring(0, 512) : detail);
+        });
     }
 
     private DatasetFile ensureDatasetFile(DataImportJob job) {
@@ -306,89 +545,118 @@ public class DataImportService {
         datasetFileRepository.save(datasetFile);
     }
 
-    private ImportResult processYieldRecords(DataImportJob job, List<ParsedRecord> parsedRecords) {
-        List<String> warnings = new ArrayList<>();
-        List<DataImportJobError> errorEntities = new ArrayList<>();
-        List<ValidRecord> validRecords = new ArrayList<>();
-        List<YieldRecordResponse> preview = new ArrayList<>();
-
-        Map<String, Crop> cropCache = new HashMap<>();
-        Map<String, Region> regionCache = new HashMap<>();
-        AtomicInteger failedCounter = new AtomicInteger();
-
-        for (ParsedRecord record : parsedRecords) {
-            Optional<ValidRecord> validated = validateYieldRecord(record, warnings, errorEntities, cropCache, regionCache, failedCounter);
-            if (validated.isPresent()) {
-                ValidRecord valid = validated.get();
-                validRecords.add(valid);
-                if (preview.size() < PREVIEW_LIMIT) {
-                    preview.add(toYieldPreview(valid));
-                }
-            }
-        }
-
-        DatasetFile datasetFile = null;
-        int inserted = 0;
-        int updated = 0;
-        if (!validRecords.isEmpty()) {
-            datasetFile = ensureDatasetFile(job);
-            if (datasetFile != null) {
-                job.setDatasetFileId(datasetFile.getId());
-            }
-            job.setMessage("正在批量写入数据库");
-            jobRepository.save(job);
-            UpsertResult result = upsertYieldRecords(validRecords, datasetFile);
-            inserted = result.inserted();
-            updated = result.updated();
-        }
+    private ImportResult processYieldRecords(DataImportJob job, Path filePath) throws Exception {
+        DimensionIndex dimensions = new DimensionIndex(true);
+        ChunkWriter<ValidRecord> writer = new ChunkWriter<>(job, this::upsertYieldRecords, this::toYieldPreview,
+                this::invalidateForecastModels);
 
-        int processed = inserted + updated;
-        int failedRows = failedCounter.get();
-        int skippedRows = Math.max(job.getTotalRows() - processed - failedRows, 0);
+        this.<YieldRow, ValidRecord>validationStage(ImportPipeline.from(parseSource(filePath)), this::validateYieldRecord)
+                .then("维度解析", (ImportChunk<YieldRow, ValidRecord> chunk) -> {
+                    dimensions.addMissingCrops(chunk.normalized.stream().map(YieldRow::cropSpec).toList(), chunk.warnings);
+                    dimensions.addMissingRegions(chunk.normalized.stream().map(YieldRow::regionSpec).toList(), chunk.warnings);
+                    return resolveChunk(chunk, row -> resolveYieldRow(row, dimensions));
+                })
+                .runInto(writer::write, importExecutor, importProperties.getQueueCapacity());
 
-        return new ImportResult(inserted, updated, failedRows, skippedRows, warnings, errorEntities, new ArrayList<>(preview), datasetFile);
+        return writer.result();
     }
 
-    private ImportResult processWeatherRecords(DataImportJob job, List<ParsedRecord> parsedRecords) {
-        List<String> warnings = new ArrayList<>();
-        List<DataImportJobError> errorEntities = new ArrayList<>();
-        List<ValidWeatherRecord> validRecords = new ArrayList<>();
-        List<WeatherRecordImportPreview> preview = new ArrayList<>();
-
-        Map<String, Region> regionCache = new HashMap<>();
-        AtomicInteger failedCounter = new AtomicInteger();
+    private ImportResult processWeatherRecords(DataImportJob job, Path filePath) throws Exception {
+        DimensionIndex dimensions = new DimensionIndex(false);
+        Map<Long, Set<YearMonth>> touchedMonths = new HashMap<>();
+        ChunkWriter<ValidWeatherRecord> writer = new ChunkWriter<>(job, this::upsertWeatherRecords, this::toWeatherPreview,
+                records -> {
+                    for (ValidWeatherRecord record : records) {
+                        touchedMonths.computeIfAbsent(record.region().getId(), key -> new HashSet<>())
+                                .add(YearMonth.from(record.recordDate()));
+                    }
+                });
 
-        for (ParsedRecord record : parsedRecords) {
-            Optional<ValidWeatherRecord> validated = validateWeatherRecord(record, warnings, errorEntities, regionCache, failedCounter);
-            if (validated.isPresent()) {
-                ValidWeatherRecord valid = validated.get();
-                validRecords.add(valid);
-                if (preview.size() < PREVIEW_LIMIT) {
-                    preview.add(toWeatherPreview(valid));
+        this.<WeatherRow, ValidWeatherRecord>validationStage(ImportPipeline.from(parseSource(filePath)), this::validateWeatherRecord)
+                .then("维度解析", (ImportChunk<WeatherRow, ValidWeatherRecord> chunk) -> {
+                    dimensions.addMissingRegions(chunk.normalized.stream().map(WeatherRow::regionSpec).toList(), chunk.warnings);
+                    return resolveChunk(chunk, row -> resolveWeatherRow(row, dimensions));
+                })
+                .runInto(writer::write, importExecutor, importProperties.getQueueCapacity());
+
+        if (!touchedMonths.isEmpty()) {
+            weatherFeatureStore.refreshMonths(touchedMonths);
+            touchedMonths.keySet().forEach(forecastModelCache::invalidateRegion);
+        }
+        return writer.result();
+    }
+
+    /**
+     * 流水线的数据源：边读文件边按 chunkSize 行切分为批次，已发出的批次不再由解析阶段持有
+     */
+    private ImportPipeline.Source<List<ParsedRecord>> parseSource(Path filePath) {
+        int chunkSize = Math.max(1, importProperties.getChunkSize());
+        return emitter -> {
+            List<List<ParsedRecord>> buffer = new ArrayList<>(1);
+            buffer.add(new ArrayList<>(chunkSize));
+            parseFile(filePath, record -> {
+                List<ParsedRecord> chunk = buffer.get(0);
+                chunk.add(record);
+                if (chunk.size() >= chunkSize) {
+                    emitter.accept(chunk);
+                    buffer.set(0, new ArrayList<>(chunkSize));
                 }
+            });
+            if (!buffer.get(0).isEmpty()) {
+                emitter.accept(buffer.get(0));
             }
-        }
+        };
+    }
 
-        DatasetFile datasetFile = null;
-        int inserted = 0;
-        int updated = 0;
-        if (!validRecords.isEmpty()) {
-            datasetFile = ensureDatasetFile(job);
-            if (datasetFile != null) {
-                job.setDatasetFileId(datasetFile.getId());
+    /**
+     * 添加校验阶段：开启并行校验时各批次分发到校验线程池，按批次顺序输出，
+     * 因此写入阶段合并的错误、警告与预览仍按行号排列
+     */
+    private <N, V> ImportPipeline<ImportChunk<N, V>> validationStage(ImportPipeline<List<ParsedRecord>> pipeline,
+                                                                     RowValidator<N> validator) {
+        Function<List<ParsedRecord>, ImportChunk<N, V>> validate = rows -> validateChunk(rows, validator);
+        if (!importProperties.isParallelValidation()) {
+            return pipeline.then("校验", validate);
+        }
+        return pipeline.thenParallel("校验", validate, validationExecutor,
+                Math.max(1, importProperties.getValidationParallelism()));
+    }
+
+    /**
+     * 校验阶段：逐行校验与清洗，不访问数据库，也不读写共享状态，可在多个线程上同时执行
+     */
+    private <N, V> ImportChunk<N, V> validateChunk(List<ParsedRecord> rows, RowValidator<N> validator) {
+        ImportChunk<N, V> chunk = new ImportChunk<>(rows.size());
+        List<N> normalized = new ArrayList<>(rows.size());
+        for (ParsedRecord record : rows) {
+            validator.validate(record, chunk.warnings, chunk.errors, chunk.failed).ifPresent(normalized::add);
+        }
+        chunk.normalized = normalized;
+        return chunk;
+    }
+
+    /**
+     * 维度解析阶段：缺失的作物、地区已由 {@link DimensionIndex} 批量新建，这里逐行替换为基础库实体
+     */
+    private <N, V> ImportChunk<N, V> resolveChunk(ImportChunk<N, V> chunk, Function<N, V> resolver) {
+        List<V> valid = new ArrayList<>(chunk.normalized.size());
+        for (N row : chunk.normalized) {
+            valid.add(resolver.apply(row));
+        }
+        chunk.normalized = null;
+        chunk.valid = valid;
+        return chunk;
+    }
+
+    private void invalidateForecastModels(List<ValidRecord> records) {
+        Set<List<Long>> scopes = new HashSet<>();
+        for (ValidRecord record : records) {
+            Long regionId = record.region().getId();
+            Long cropId = record.crop().getId();
+            if (scopes.add(List.of(regionId, cropId))) {
+                forecastModelCache.invalidate(regionId, cropId);
             }
-            job.setMessage("正在批量写入数据库");
-            jobRepository.save(job);
-            UpsertResult result = upsertWeatherRecords(validRecords, datasetFile);
-            inserted = result.inserted();
-            updated = result.updated();
         }
-
-        int processed = inserted + updated;
-        int failedRows = failedCounter.get();
-        int skippedRows = Math.max(job.getTotalRows() - processed - failedRows, 0);
-
-        return new ImportResult(inserted, updated, failedRows, skippedRows, warnings, errorEntities, new ArrayList<>(preview), datasetFile);
     }
 
     private UpsertResult upsertYieldRecords(List<ValidRecord> records, DatasetFile datasetFile) {
@@ -538,12 +806,10 @@ public class DataImportService {
         return new HashSet<>(keys);
     }
 
-    private Optional<ValidRecord> validateYieldRecord(ParsedRecord record,
-                                                      List<String> warnings,
-                                                      List<DataImportJobError> errors,
-                                                      Map<String, Crop> cropCache,
-                                                      Map<String, Region> regionCache,
-                                                      AtomicInteger failedCounter) {
+    private Optional<YieldRow> validateYieldRecord(ParsedRecord record,
+                                                   List<String> warnings,
+                                                   List<DataImportJobError> errors,
+                                                   AtomicInteger failedCounter) {
         Map<String, String> values = record.values();
         Map<String, Function<Double, Double>> converters = record.converters();
 
@@ -606,21 +872,24 @@ public class DataImportService {
         }
 
         LocalDate collectedAt = parseDate(values.get("collectedAt"));
-
-        Crop crop = resolveCrop(cropName, values.get("cropCategory"), values.get("cropDescription"), cropCache, warnings, record.rowNumber());
-        Region region = resolveRegion(regionName, values.get("regionLevel"), values.get("regionParentName"), values.get("regionDescription"), regionCache, warnings, record.rowNumber());
-
         String dataSource = trimToNull(values.get("dataSource"));
 
-        ValidRecord validRecord = new ValidRecord(record.rowNumber(), crop, region, year, round(sownArea), round(production), round(yieldPerHectare), dataSource, collectedAt);
-        return Optional.of(validRecord);
+        YieldRow row = new YieldRow(record.rowNumber(), cropName, values.get("cropCategory"), values.get("cropDescription"),
+                regionName, values.get("regionLevel"), values.get("regionParentName"), values.get("regionDescription"),
+                year, round(sownArea), round(production), round(yieldPerHectare), dataSource, collectedAt);
+        return Optional.of(row);
+    }
+
+    private ValidRecord resolveYieldRow(YieldRow row, DimensionIndex dimensions) {
+        Crop crop = dimensions.crop(row.cropName());
+        Region region = dimensions.region(row.regionName());
+        return new ValidRecord(row.rowNumber(), crop, region, row.year(), row.sownArea(), row.production(), row.yieldPerHectare(), row.dataSource(), row.collectedAt());
     }
 
-    private Optional<ValidWeatherRecord> validateWeatherRecord(ParsedRecord record,
-                                                               List<String> warnings,
-                                                               List<DataImportJobError> errors,
-                                                               Map<String, Region> regionCache,
-                                                               AtomicInteger failedCounter) {
+    private Optional<WeatherRow> validateWeatherRecord(ParsedRecord record,
+                                                       List<String> warnings,
+                                                       List<DataImportJobError> errors,
+                                                       AtomicInteger failedCounter) {
         Map<String, String> values = record.values();
 
         String regionName = trimToNull(values.get("regionName"));
@@ -659,14 +928,13 @@ public class DataImportService {
             sunshineHours = null;
         }
 
-        Region region = resolveRegion(regionName, null, null, null, regionCache, warnings, record.rowNumber());
         String weatherText = trimToNull(values.get("weatherText"));
         String wind = trimToNull(values.get("wind"));
         String dataSource = trimToNull(values.get("dataSource"));
 
-        ValidWeatherRecord validRecord = new ValidWeatherRecord(
+        WeatherRow row = new WeatherRow(
                 record.rowNumber(),
-                region,
+                regionName,
                 recordDate,
                 round(maxTemperature),
                 round(minTemperature),
@@ -675,79 +943,13 @@ public class DataImportService {
                 round(sunshineHours),
                 dataSource
         );
-        return Optional.of(validRecord);
+        return Optional.of(row);
     }
 
-    private Crop resolveCrop(String cropName,
-                             String cropCategory,
-                             String cropDescription,
-                             Map<String, Crop> cache,
-                             List<String> warnings,
-                             int rowNumber) {
-        String key = normalizeKey(cropName);
-        if (cache.containsKey(key)) {
-            return cache.get(key);
-        }
-        Crop crop = cropRepository.findByNameIgnoreCase(cropName)
-                .orElseGet(() -> {
-                    Crop created = new Crop();
-                    created.setCode(generateUniqueCropCode(cropName));
-                    created.setName(cropName);
-                    created.setCategory(Optional.ofNullable(trimToNull(cropCategory)).orElse("未分类"));
-                    created.setDescription(Optional.ofNullable(trimToNull(cropDescription)).orElse("由导入任务自动创建"));
-                    warnings.add("第" + rowNumber + "行：新增作物“" + cropName + "”已写入基础库");
-                    return cropRepository.save(created);
-                });
-        cache.put(key, crop);
-        return crop;
-    }
-
-    private Region resolveRegion(String regionName,
-                                 String levelValue,
-                                 String parentName,
-                                 String description,
-                                 Map<String, Region> cache,
-                                 List<String> warnings,
-                                 int rowNumber) {
-        String key = normalizeKey(regionName);
-        if (cache.containsKey(key)) {
-            return cache.get(key);
-        }
-        Region region = findRegionByFlexibleName(regionName)
-                .orElseGet(() -> {
-                    Region created = new Region();
-                    created.setCode(generateUniqueRegionCode(regionName, parentName));
-                    created.setName(regionName);
-                    created.setLevel(Optional.ofNullable(normalizeRegionLevel(levelValue)).orElse("PREFECTURE"));
-                    created.setParentName(trimToNull(parentName));
-                    created.setParentCode(resolveParentCode(parentName));
-                    created.setDescription(Optional.ofNullable(trimToNull(description)).orElse("由导入任务自动创建"));
-                    warnings.add("第" + rowNumber + "行：新增地区“" + regionName + "”已写入基础库");
-                    return regionRepository.save(created);
-                });
-        cache.put(key, region);
-        return region;
-    }
-
-    private String resolveParentCode(String parentName) {
-        return Optional.ofNullable(trimToNull(parentName))
-                .flatMap(this::findRegionByFlexibleName)
-                .map(Region::getCode)
-                .orElse(null);
-    }
-
-    private Optional<Region> findRegionByFlexibleName(String regionName) {
-        String trimmed = trimToNull(regionName);
-        if (trimmed == null) {
-            return Optional.empty();
-        }
-        for (String candidate : buildRegionNameCandidates(trimmed)) {
-            Optional<Region> found = regionRepository.findByNameIgnoreCase(candidate);
-            if (found.isPresent()) {
-                return found;
-            }
-        }
-        return Optional.empty();
+    private ValidWeatherRecord resolveWeatherRow(WeatherRow row, DimensionIndex dimensions) {
+        Region region = dimensions.region(row.regionName());
+        return new ValidWeatherRecord(row.rowNumber(), region, row.recordDate(), row.maxTemperature(), row.minTemperature(),
+                row.weatherText(), row.wind(), row.sunshineHours(), row.dataSource());
     }
 
     private List<String> buildRegionNameCandidates(String regionName) {
@@ -824,18 +1026,24 @@ public class DataImportService {
         return specification;
     }
 
-    private List<ParsedRecord> parseFile(Path path) throws IOException {
+    private void parseFile(Path path, Consumer<ParsedRecord> sink) throws IOException {
         String filename = Optional.ofNullable(path.getFileName()).map(Path::toString).orElse("").toLowerCase(Locale.ROOT);
         if (filename.endsWith(".csv")) {
-            return parseCsv(path);
+            parseCsv(path, sink);
+            return;
+        }
+        if (filename.endsWith(".xlsx") && importProperties.isXlsxStreaming()) {
+            parseXlsx(path, sink);
+            return;
         }
         if (filename.endsWith(".xls") || filename.endsWith(".xlsx")) {
-            return parseExcel(path);
+            parseExcel(path, sink);
+            return;
         }
         throw new IllegalArgumentException("暂不支持的文件类型，请上传 CSV 或 Excel 文件");
     }
 
-    private List<ParsedRecord> parseCsv(Path path) throws IOException {
+    private void parseCsv(Path path, Consumer<ParsedRecord> sink) throws IOException {
         CSVFormat format = buildCsvFormat(path);
         try (Reader reader = createUtf8Reader(path);
              CSVParser parser = format.parse(reader)) {
@@ -844,7 +1052,6 @@ public class DataImportService {
                     .map(this::sanitizeHeader)
                     .toList();
             HeaderMapping mapping = buildHeaderMapping(sanitizedHeaders);
-            List<ParsedRecord> records = new ArrayList<>();
             for (CSVRecord csvRecord : parser) {
                 Map<String, String> valueMap = new HashMap<>();
                 for (int index = 0; index < sanitizedHeaders.size(); index++) {
@@ -857,9 +1064,8 @@ public class DataImportService {
                 if (valueMap.values().stream().allMatch(this::isBlank)) {
                     continue;
                 }
-                records.add(new ParsedRecord((int) csvRecord.getRecordNumber() + 1, valueMap, mapping.converterMap()));
+                sink.accept(new ParsedRecord((int) csvRecord.getRecordNumber() + 1, valueMap, mapping.converterMap()));
             }
-            return records;
         } catch (MalformedInputException exception) {
             throw new IllegalArgumentException("CSV 文件不是 UTF-8 编码", exception);
         }
@@ -911,16 +1117,39 @@ public class DataImportService {
         return count;
     }
 
-    private List<ParsedRecord> parseExcel(Path path) throws IOException {
+    /**
+     * 以 SAX 事件模型逐行读取 .xlsx，第一行为表头
+     */
+    private void parseXlsx(Path path, Consumer<ParsedRecord> sink) throws IOException {
+        HeaderMapping[] mapping = new HeaderMapping[1];
+        XlsxStreamingReader.read(path, (rowNumber, cells) -> {
+            if (mapping[0] == null) {
+                mapping[0] = buildHeaderMapping(cells.stream().map(this::sanitizeHeader).toList());
+                return;
+            }
+            Map<String, String> valueMap = new HashMap<>();
+            mapping[0].matches().forEach((columnIndex, match) -> valueMap.put(match.canonicalName(),
+                    columnIndex < cells.size() ? trimToNull(cells.get(columnIndex)) : null));
+            if (valueMap.values().stream().allMatch(this::isBlank)) {
+                return;
+            }
+            sink.accept(new ParsedRecord(rowNumber, valueMap, mapping[0].converterMap()));
+        });
+    }
+
+    /**
+     * 按 Workbook 整体加载读取，用于 .xls 以及关闭流式读取时的 .xlsx
+     */
+    private void parseExcel(Path path, Consumer<ParsedRecord> sink) throws IOException {
         try (InputStream inputStream = Files.newInputStream(path);
              Workbook workbook = WorkbookFactory.create(inputStream)) {
             if (workbook.getNumberOfSheets() == 0) {
-                return List.of();
+                return;
             }
             Sheet sheet = workbook.getSheetAt(0);
             Row headerRow = sheet.getRow(sheet.getFirstRowNum());
             if (headerRow == null) {
-                return List.of();
+                return;
             }
 
             List<String> headers = new ArrayList<>();
@@ -932,7 +1161,6 @@ public class DataImportService {
                     .toList();
             HeaderMapping mapping = buildHeaderMapping(sanitizedHeaders);
 
-            List<ParsedRecord> records = new ArrayList<>();
             FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
             for (int rowIndex = headerRow.getRowNum() + 1; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
                 Row row = sheet.getRow(rowIndex);
@@ -951,9 +1179,8 @@ public class DataImportService {
                 if (valueMap.values().stream().allMatch(this::isBlank)) {
                     continue;
                 }
-                records.add(new ParsedRecord(rowIndex + 1, valueMap, mapping.converterMap()));
+                sink.accept(new ParsedRecord(rowIndex + 1, valueMap, mapping.converterMap()));
             }
-            return records;
         } catch (IllegalArgumentException exception) {
             if (exception.getCause() instanceof MalformedInputException) {
                 throw new IllegalArgumentException("Excel 文件不是 UTF-8 编码", exception);
@@ -962,7 +1189,14 @@ public class DataImportService {
         }
     }
 
+    /**
+     * 按表头签名（清洗后的完整表头列表）复用此前导入时得到的列映射，同一模板的文件重复导入时不再逐列匹配
+     */
     private HeaderMapping buildHeaderMapping(List<String> headers) {
+        return headerMappings.get(Collections.unmodifiableList(new ArrayList<>(headers)), this::matchHeaders);
+    }
+
+    private HeaderMapping matchHeaders(List<String> headers) {
         Map<Integer, ColumnMatch> matches = new LinkedHashMap<>();
         Map<String, Function<Double, Double>> converters = new HashMap<>();
         Set<String> assigned = new HashSet<>();
@@ -976,43 +1210,18 @@ public class DataImportService {
             converters.put(match.canonicalName(), match.converter());
             assigned.add(match.canonicalName());
         }
-        return new HeaderMapping(matches, converters);
+        return new HeaderMapping(Collections.unmodifiableMap(matches), Collections.unmodifiableMap(converters));
     }
 
     private ColumnMatch matchHeader(String header) {
         if (header == null) {
             return null;
         }
-        String normalized = normalizeKey(header);
-        for (Map.Entry<String, List<String>> entry : HEADER_SYNONYMS.entrySet()) {
-            for (String alias : entry.getValue()) {
-                if (normalized.equals(alias)) {
-                    return new ColumnMatch(entry.getKey(), resolveConverter(header, entry.getKey()));
-                }
-            }
-        }
-        for (Map.Entry<String, List<String>> entry : HEADER_SYNONYMS.entrySet()) {
-            for (String alias : entry.getValue()) {
-                if (normalized.contains(alias) || alias.contains(normalized)) {
-                    return new ColumnMatch(entry.getKey(), resolveConverter(header, entry.getKey()));
-                }
-            }
-        }
-        double bestScore = 0;
-        String bestKey = null;
-        for (Map.Entry<String, List<String>> entry : HEADER_SYNONYMS.entrySet()) {
-            for (String alias : entry.getValue()) {
-                double score = SIMILARITY.apply(normalized, alias);
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestKey = entry.getKey();
-                }
-            }
-        }
-        if (bestScore >= 0.82 && bestKey != null) {
-            return new ColumnMatch(bestKey, resolveConverter(header, bestKey));
+        String canonicalName = headerMatcher.match(normalizeKey(header));
+        if (canonicalName == null) {
+            return null;
         }
-        return null;
+        return new ColumnMatch(canonicalName, resolveConverter(header, canonicalName));
     }
 
     private Function<Double, Double> resolveConverter(String header, String canonicalName) {
@@ -1165,11 +1374,13 @@ public class DataImportService {
         }
     }
 
-    private List<String> limitList(List<String> source, int limit) {
-        if (source.size() <= limit) {
-            return source;
+    private static <E> void addLimited(List<E> target, List<E> source, int limit) {
+        for (E element : source) {
+            if (target.size() >= limit) {
+                return;
+            }
+            target.add(element);
         }
-        return new ArrayList<>(source.subList(0, limit));
     }
 
     private Double applyConverter(Function<Double, Double> operator, Double value) {
@@ -1221,7 +1432,9 @@ public class DataImportService {
             String timestamp = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").format(LocalDateTime.now());
             String filename = timestamp + "_" + safeBase + extension;
             Path target = root.resolve(filename);
-            Files.write(target, file.getBytes());
+            try (InputStream inputStream = file.getInputStream()) {
+                Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+            }
             return target;
         } catch (IOException exception) {
             throw new IllegalArgumentException("保存导入文件失败", exception);
@@ -1482,29 +1695,6 @@ public class DataImportService {
         return trimmed.toUpperCase(Locale.ROOT);
     }
 
-    private String generateUniqueCropCode(String name) {
-        String base = slugify(name);
-        String candidate = base;
-        int counter = 1;
-        while (cropRepository.findByCode(candidate).isPresent()) {
-            candidate = base + "_" + counter++;
-        }
-        return candidate;
-    }
-
-    private String generateUniqueRegionCode(String name, String parentName) {
-        String base = slugify(name);
-        String prefix = Optional.ofNullable(resolveParentCode(parentName))
-                .map(code -> code + "-")
-                .orElse("");
-        String candidate = prefix + base;
-        int counter = 1;
-        while (regionRepository.findByCode(candidate).isPresent()) {
-            candidate = prefix + base + "-" + counter++;
-        }
-        return candidate;
-    }
-
     private String slugify(String value) {
         String trimmed = Optional.ofNullable(trimToNull(value)).orElse("DATA");
         String normalized = Normalizer.normalize(trimmed, Normalizer.Form.NFD)
@@ -1593,6 +1783,355 @@ public class DataImportService {
     private record ParsedRecord(int rowNumber, Map<String, String> values, Map<String, Function<Double, Double>> converters) {
     }
 
+    /**
+     * 逐行校验函数，通过校验时返回规范化后的行，否则记录错误并累加失败行数
+     */
+    @FunctionalInterface
+    private interface RowValidator<N> {
+        Optional<N> validate(ParsedRecord record, List<String> warnings, List<DataImportJobError> errors, AtomicInteger failedCounter);
+    }
+
+    /**
+     * 流水线中的一个批次：校验阶段填充规范化的行，维度解析阶段将其替换为待写入的记录；
+     * 各阶段产生的告警与错误随批次传递，由写入阶段按批次顺序汇总
+     */
+    private static final class ImportChunk<N, V> {
+        private final int rows;
+        private final List<String> warnings = new ArrayList<>();
+        private final List<DataImportJobError> errors = new ArrayList<>();
+        private final AtomicInteger failed = new AtomicInteger();
+        private List<N> normalized = List.of();
+        private List<V> valid = List.of();
+
+        private ImportChunk(int rows) {
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * 写入阶段：在任务线程上按批次顺序写库，每个批次一个事务；只保留有限条告警、错误与预览，内存不随文件大小增长
+     */
+    private final class ChunkWriter<V> {
+        private final DataImportJob job;
+        private final BiFunction<List<V>, DatasetFile, UpsertResult> upsert;
+        private final Function<V, ?> previewMapper;
+        private final Consumer<List<V>> afterWrite;
+        private final List<String> warnings = new ArrayList<>();
+        private final List<DataImportJobError> errors = new ArrayList<>();
+        private final List<Object> preview = new ArrayList<>();
+        private DatasetFile datasetFile;
+        private int total;
+        private int inserted;
+        private int updated;
+        private int failed;
+        private int warningCount;
+
+        private ChunkWriter(DataImportJob job,
+                            BiFunction<List<V>, DatasetFile, UpsertResult> upsert,
+                            Function<V, ?> previewMapper,
+                            Consumer<List<V>> afterWrite) {
+            this.job = job;
+            this.upsert = upsert;
+            this.previewMapper = previewMapper;
+            this.afterWrite = afterWrite;
+        }
+
+        private void write(ImportChunk<?, V> chunk) {
+            total += chunk.rows;
+            failed += chunk.failed.get();
+            warningCount += chunk.warnings.size();
+            addLimited(warnings, chunk.warnings, MAX_WARNING_STORE);
+            addLimited(errors, chunk.errors, MAX_ERROR_STORE);
+            for (V record : chunk.valid) {
+                if (preview.size() >= PREVIEW_LIMIT) {
+                    break;
+                }
+                preview.add(previewMapper.apply(record));
+            }
+            if (!chunk.valid.isEmpty()) {
+                if (datasetFile == null) {
+                    datasetFile = ensureDatasetFile(job);
+                }
+                UpsertResult result = transactionTemplate.execute(status -> upsert.apply(chunk.valid, datasetFile));
+                if (result != null) {
+                    inserted += result.inserted();
+                    updated += result.updated();
+                }
+                afterWrite.accept(chunk.valid);
+            }
+            // 每个批次都保存进度，任务中途失败时已提交的行数得以保留
+            int written = inserted + updated;
+            int insertedSoFar = inserted;
+            int updatedSoFar = updated;
+            Long datasetFileId = datasetFile != null ? datasetFile.getId() : null;
+            updateJob(job.getId(), current -> {
+                if (datasetFileId != null) {
+                    current.setDatasetFileId(datasetFileId);
+                }
+                current.setProcessedRows(written);
+                current.setInsertedRows(insertedSoFar);
+                current.setUpdatedRows(updatedSoFar);
+                current.setFailedRows(failed);
+                current.setMessage("正在批量写入数据库，已写入" + written + "条");
+            });
+        }
+
+        private ImportResult result() {
+            int skipped = Math.max(total - inserted - updated - failed, 0);
+            return new ImportResult(total, inserted, updated, failed, skipped, warningCount, warnings, errors, preview, datasetFile);
+        }
+    }
+
+    /**
+     * 导入任务内的作物、地区索引：任务开始时一次性加载基础库，按规范化名称查找，地区按
+     * {@link #buildRegionNameCandidates} 生成的后缀变体依次匹配；每个批次中未命中的名称去重后一次批量写入，
+     * 编码在内存中分配，不再逐行查询、逐个保存或循环探测编码
+     * <p>仅由维度解析阶段的单个线程使用；新建时持有 dimensionLock，并重新核对其他任务在此期间新建的同名数据。</p>
+     */
+    private final class DimensionIndex {
+        private final Map<String, Crop> crops = new HashMap<>();
+        private final Map<String, Region> regions = new HashMap<>();
+        private final Map<String, Crop> cropsByRawName = new HashMap<>();
+        private final Map<String, Region> regionsByRawName = new HashMap<>();
+        private final Set<String> cropCodes = new HashSet<>();
+        private final Set<String> regionCodes = new HashSet<>();
+
+        private DimensionIndex(boolean loadCrops) {
+            if (loadCrops) {
+                cropRepository.findAll().forEach(this::indexCrop);
+            }
+            regionRepository.findAll().forEach(this::indexRegion);
+        }
+
+        private Crop crop(String name) {
+            Crop crop = cropsByRawName.get(name);
+            if (crop == null) {
+                crop = crops.get(normalizeKey(name));
+                if (crop != null) {
+                    cropsByRawName.put(name, crop);
+                }
+            }
+            return crop;
+        }
+
+        /**
+         * 同一文件中地区名称重复出现很多次，按原始名称记住匹配结果，避免逐行重复生成后缀变体
+         */
+        private Region region(String name) {
+            Region region = regionsByRawName.get(name);
+            if (region == null) {
+                region = findByCandidates(name, regions);
+                if (region != null) {
+                    regionsByRawName.put(name, region);
+                }
+            }
+            return region;
+        }
+
+        private <E> E findByCandidates(String name, Map<String, E> index) {
+            for (String candidate : buildRegionNameCandidates(name)) {
+                E found = index.get(normalizeKey(candidate));
+                if (found != null) {
+                    return found;
+                }
+            }
+            return null;
+        }
+
+        private void addMissingCrops(List<CropSpec> specs, List<String> warnings) {
+            Map<String, CropSpec> missing = new LinkedHashMap<>();
+            for (CropSpec spec : specs) {
+                if (crop(spec.name()) == null) {
+                    missing.putIfAbsent(normalizeKey(spec.name()), spec);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            dimensionLock.lock();
+            try {
+                cropRepository.findByNameIn(missing.values().stream().map(CropSpec::name).toList()).forEach(this::indexCrop);
+                missing.keySet().removeIf(crops::containsKey);
+                if (missing.isEmpty()) {
+                    return;
+                }
+                cropCodes.addAll(jdbcTemplate.queryForList("SELECT code FROM base_crop", String.class));
+                List<Crop> created = new ArrayList<>(missing.size());
+                for (CropSpec spec : missing.values()) {
+                    Crop crop = new Crop();
+                    crop.setCode(allocateCode(slugify(spec.name()), "_", cropCodes));
+                    crop.setName(spec.name());
+                    crop.setCategory(Optional.ofNullable(trimToNull(spec.category())).orElse("未分类"));
+                    crop.setDescription(Optional.ofNullable(trimToNull(spec.description())).orElse("由导入任务自动创建"));
+                    created.add(crop);
+                }
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO base_crop (code, name, category, description, created_at, updated_at)
+                        VALUES (?, ?, ?, ?, NOW(), NOW())
+                        """, created, created.size(), (preparedStatement, crop) -> {
+                    preparedStatement.setString(1, crop.getCode());
+                    preparedStatement.setString(2, crop.getName());
+                    preparedStatement.setString(3, crop.getCategory());
+                    preparedStatement.setString(4, crop.getDescription());
+                });
+                cropRepository.findByCodeIn(created.stream().map(Crop::getCode).toList()).forEach(this::indexCrop);
+                missing.values().forEach(spec -> warnings.add("第" + spec.rowNumber() + "行：新增作物“" + spec.name() + "”已写入基础库"));
+            } catch (DataAccessException exception) {
+                throw new IllegalStateException("写入作物基础数据失败", exception);
+            } finally {
+                dimensionLock.unlock();
+            }
+        }
+
+        private void addMissingRegions(List<RegionSpec> specs, List<String> warnings) {
+            // 本批已收录的地区按名称的全部后缀变体登记，“海淀”与“海淀区”只新建一个
+            Map<String, RegionSpec> accepted = new HashMap<>();
+            List<RegionSpec> missing = new ArrayList<>();
+            for (RegionSpec spec : specs) {
+                if (region(spec.name()) == null && findByCandidates(spec.name(), accepted) == null) {
+                    buildRegionNameCandidates(spec.name())
+                            .forEach(candidate -> accepted.putIfAbsent(normalizeKey(candidate), spec));
+                    missing.add(spec);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            dimensionLock.lock();
+            try {
+                Set<String> candidates = new LinkedHashSet<>();
+                missing.forEach(spec -> candidates.addAll(buildRegionNameCandidates(spec.name())));
+                regionRepository.findByNameIn(candidates).forEach(this::indexRegion);
+                missing.removeIf(spec -> region(spec.name()) != null);
+                if (missing.isEmpty()) {
+                    return;
+                }
+                regionCodes.addAll(jdbcTemplate.queryForList("SELECT code FROM base_region", String.class));
+                List<Region> created = new ArrayList<>(missing.size());
+                // 上级地区可能与下级在同一批次中新建：上级先分配编码，下级按本批分配的编码引用
+                Map<String, String> createdCodes = new HashMap<>();
+                for (RegionSpec spec : parentsFirst(missing)) {
+                    String parentCode = Optional.ofNullable(region(spec.parentName())).map(Region::getCode)
+                            .orElseGet(() -> findByCandidates(spec.parentName(), createdCodes));
+                    String prefix = parentCode != null ? parentCode + "-" : "";
+                    Region region = new Region();
+                    region.setCode(allocateCode(prefix + slugify(spec.name()), "-", regionCodes));
+                    region.setName(spec.name());
+                    region.setLevel(Optional.ofNullable(normalizeRegionLevel(spec.level())).orElse("PREFECTURE"));
+                    region.setParentName(trimToNull(spec.parentName()));
+                    region.setParentCode(parentCode);
+                    region.setDescription(Optional.ofNullable(trimToNull(spec.description())).orElse("由导入任务自动创建"));
+                    created.add(region);
+                    createdCodes.put(normalizeKey(spec.name()), region.getCode());
+                }
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO base_region (code, name, level, parent_code, parent_name, description, created_at, updated_at)
+                        VALUES (?, ?, ?, ?, ?, ?, NOW(), NOW())
+                        """, created, created.size(), (preparedStatement, region) -> {
+                    preparedStatement.setString(1, region.getCode());
+                    preparedStatement.setString(2, region.getName());
+                    preparedStatement.setString(3, region.getLevel());
+                    preparedStatement.setString(4, region.getParentCode());
+                    preparedStatement.setString(5, region.getParentName());
+                    preparedStatement.setString(6, region.getDescription());
+                });
+                regionRepository.findByCodeIn(created.stream().map(Region::getCode).toList()).forEach(this::indexRegion);
+                missing.forEach(spec -> warnings.add("第" + spec.rowNumber() + "行：新增地区“" + spec.name() + "”已写入基础库"));
+            } catch (DataAccessException exception) {
+                throw new IllegalStateException("写入地区基础数据失败", exception);
+            } finally {
+                dimensionLock.unlock();
+            }
+        }
+
+        /**
+         * 按上级链在本批中的深度排序，上级地区排在下级之前，同一深度保持原有顺序
+         */
+        private List<RegionSpec> parentsFirst(List<RegionSpec> specs) {
+            Map<String, RegionSpec> byCandidate = new HashMap<>();
+            specs.forEach(spec -> buildRegionNameCandidates(spec.name())
+                    .forEach(candidate -> byCandidate.putIfAbsent(normalizeKey(candidate), spec)));
+            Map<RegionSpec, Integer> depths = new HashMap<>();
+            for (RegionSpec spec : specs) {
+                int depth = 0;
+                RegionSpec parent = findByCandidates(spec.parentName(), byCandidate);
+                // 名称成环或以自身为上级时深度不超过批次大小
+                while (parent != null && parent != spec && depth < specs.size()) {
+                    depth++;
+                    parent = findByCandidates(parent.parentName(), byCandidate);
+                }
+                depths.put(spec, depth);
+            }
+            List<RegionSpec> ordered = new ArrayList<>(specs);
+            ordered.sort(Comparator.comparingInt(depths::get));
+            return ordered;
+        }
+
+        private void indexCrop(Crop crop) {
+            crops.putIfAbsent(normalizeKey(crop.getName()), crop);
+            cropCodes.add(crop.getCode());
+        }
+
+        private void indexRegion(Region region) {
+            regions.putIfAbsent(normalizeKey(region.getName()), region);
+            regionCodes.add(region.getCode());
+        }
+
+        private String allocateCode(String base, String separator, Set<String> usedCodes) {
+            String candidate = base;
+            int counter = 1;
+            while (!usedCodes.add(candidate)) {
+                candidate = base + separator + counter++;
+            }
+            return candidate;
+        }
+    }
+
+    private record YieldRow(int rowNumber,
+                            String cropName,
+                            String cropCategory,
+                            String cropDescription,
+                            String regionName,
+                            String regionLevel,
+                            String regionParentName,
+                            String regionDescription,
+                            int year,
+                            Double sownArea,
+                            Double production,
+                            Double yieldPerHectare,
+                            String dataSource,
+                            LocalDate collectedAt) {
+
+        private CropSpec cropSpec() {
+            return new CropSpec(rowNumber, cropName, cropCategory, cropDescription);
+        }
+
+        private RegionSpec regionSpec() {
+            return new RegionSpec(rowNumber, regionName, regionLevel, regionParentName, regionDescription);
+        }
+    }
+
+    private record WeatherRow(int rowNumber,
+                              String regionName,
+                              LocalDate recordDate,
+                              Double maxTemperature,
+                              Double minTemperature,
+                              String weatherText,
+                              String wind,
+                              Double sunshineHours,
+                              String dataSource) {
+
+        private RegionSpec regionSpec() {
+            return new RegionSpec(rowNumber, regionName, null, null, null);
+        }
+    }
+
+    private record CropSpec(int rowNumber, String name, String category, String description) {
+    }
+
+    private record RegionSpec(int rowNumber, String name, String level, String parentName, String description) {
+    }
+
     private record ColumnMatch(String canonicalName, Function<Double, Double> converter) {
     }
 
@@ -1630,10 +2169,12 @@ public class DataImportService {
     private record UpsertResult(int inserted, int updated) {
     }
 
-    private record ImportResult(int inserted,
+    private record ImportResult(int total,
+                                int inserted,
                                 int updated,
                                 int failed,
                                 int skipped,
+                                int warningCount,
                                 List<String> warnings,
                                 List<DataImportJobError> errors,
                                 List<?> preview,
@@ -0,0 +1,124 @@
+package com.gxj.cropyield.datamanagement;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 导入列名匹配器：把标准字段的别名预编译为索引，依次按精确匹配、包含关系、Jaro-Winkler 相似度识别表头
+ * <p>精确匹配查别名哈希表；“表头包含别名”用别名字典树从表头每个位置向后匹配，“别名包含表头”查别名全部子串的哈希表，
+ * 命中多个别名时取别名序号最小者，与按同一顺序逐个扫描别名的结果一致。相似度匹配需与每个别名比较，
+ * 结果按规范化表头缓存，各导入任务共享。</p>
+ */
+final class HeaderMatcher {
+
+    static final double SIMILARITY_THRESHOLD = 0.82;
+
+    private static final JaroWinklerSimilarity SIMILARITY = new JaroWinklerSimilarity();
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final List<String> aliases = new ArrayList<>();
+    private final List<String> canonicalNames = new ArrayList<>();
+    private final Map<String, Integer> exact = new HashMap<>();
+    private final Map<String, Integer> aliasSubstrings = new HashMap<>();
+    private final TrieNode trie = new TrieNode();
+    private final Cache<String, Optional<String>> similarityCache;
+
+    /**
+     * @param synonyms 标准字段名到规范化别名的映射，按其迭代顺序为别名编号，序号越小优先级越高
+     */
+    HeaderMatcher(Map<String, List<String>> synonyms, long cacheMaximumSize) {
+        for (Map.Entry<String, List<String>> entry : synonyms.entrySet()) {
+            for (String alias : entry.getValue()) {
+                int ordinal = aliases.size();
+                aliases.add(alias);
+                canonicalNames.add(entry.getKey());
+                exact.putIfAbsent(alias, ordinal);
+                for (int start = 0; start < alias.length(); start++) {
+                    for (int end = start + 1; end <= alias.length(); end++) {
+                        aliasSubstrings.putIfAbsent(alias.substring(start, end), ordinal);
+                    }
+                }
+                trie.insert(alias, ordinal);
+            }
+        }
+        this.similarityCache = Caffeine.newBuilder()
+            .maximumSize(Math.max(cacheMaximumSize, 0L))
+            .build();
+    }
+
+    /**
+     * 返回规范化表头对应的标准字段名，无法识别时返回 null
+     */
+    String match(String normalized) {
+        if (normalized == null || normalized.isEmpty()) {
+            return null;
+        }
+        Integer exactOrdinal = exact.get(normalized);
+        if (exactOrdinal != null) {
+            return canonicalNames.get(exactOrdinal);
+        }
+        int containment = Math.min(trie.firstContainedIn(normalized),
+                aliasSubstrings.getOrDefault(normalized, NO_MATCH));
+        if (containment != NO_MATCH) {
+            return canonicalNames.get(containment);
+        }
+        return similarityCache.get(normalized, this::mostSimilar).orElse(null);
+    }
+
+    private Optional<String> mostSimilar(String normalized) {
+        double bestScore = 0;
+        int bestOrdinal = NO_MATCH;
+        for (int ordinal = 0; ordinal < aliases.size(); ordinal++) {
+            double score = SIMILARITY.apply(normalized, aliases.get(ordinal));
+            if (score > bestScore) {
+                bestScore = score;
+                bestOrdinal = ordinal;
+            }
+        }
+        if (bestScore >= SIMILARITY_THRESHOLD && bestOrdinal != NO_MATCH) {
+            return Optional.of(canonicalNames.get(bestOrdinal));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 别名字典树，节点记录在此结束的别名中最小的序号
+     */
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private int ordinal = NO_MATCH;
+
+        private void insert(String alias, int aliasOrdinal) {
+            TrieNode node = this;
+            for (int i = 0; i < alias.length(); i++) {
+                node = node.children.computeIfAbsent(alias.charAt(i), key -> new TrieNode());
+            }
+            node.ordinal = Math.min(node.ordinal, aliasOrdinal);
+        }
+
+        /**
+         * 从 text 的每个位置出发沿树向下匹配，返回 text 所包含的别名中最小的序号
+         */
+        private int firstContainedIn(String text) {
+            int best = NO_MATCH;
+            for (int start = 0; start < text.length(); start++) {
+                TrieNode node = this;
+                for (int i = start; i < text.length(); i++) {
+                    node = node.children.get(text.charAt(i));
+                    if (node == null) {
+                        break;
+                    }
+                    best = Math.min(best, node.ordinal);
+                }
+            }
+            return best;
+        }
+    }
+}
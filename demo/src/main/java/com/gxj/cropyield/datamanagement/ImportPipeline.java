@@ -0,0 +1,228 @@
+package com.gxj.cropyield.datamanagement;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+/**
+ * 数据导入的分阶段流水线：数据源与各中间阶段各在执行器上占用一个线程，最后的写入阶段在调用线程上执行，
+ * 相邻阶段之间以有界队列相连；下游处理不过来时上游在队列上阻塞，内存中同时存在的批次数有上限
+ * <p>任一阶段抛出异常后，其余阶段在下一次取放批次时退出，异常由 {@link #runInto} 原样抛出。
+ * 调用方需保证执行器有足够的空闲线程同时运行所有阶段，否则上游阶段排队时下游会一直等待。
+ * 用 {@link #thenParallel} 添加的阶段把批次分发到独立的工作池并行处理，结果仍按批次顺序交给下游。</p>
+ */
+final class ImportPipeline<T> {
+
+    private static final Object END = new Object();
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * 流水线的数据源，通过 emitter 逐个发出批次
+     */
+    @FunctionalInterface
+    interface Source<T> {
+        void produce(Consumer<T> emitter) throws Exception;
+    }
+
+    private record Stage(String name, Function<Object, Object> function, Executor workers, int maxInFlight) {
+    }
+
+    private final Source<?> source;
+    private final List<Stage> stages;
+
+    private ImportPipeline(Source<?> source, List<Stage> stages) {
+        this.source = source;
+        this.stages = stages;
+    }
+
+    static <T> ImportPipeline<T> from(Source<T> source) {
+        return new ImportPipeline<>(source, List.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    <R> ImportPipeline<R> then(String name, Function<? super T, ? extends R> function) {
+        List<Stage> next = new ArrayList<>(stages);
+        next.add(new Stage(name, item -> function.apply((T) item), null, 1));
+        return new ImportPipeline<>(source, List.copyOf(next));
+    }
+
+    /**
+     * 添加并行阶段：阶段线程只负责分发与按序收集，最多 maxInFlight 个批次同时在 workers 上处理，
+     * function 必须是线程安全的
+     */
+    @SuppressWarnings("unchecked")
+    <R> ImportPipeline<R> thenParallel(String name, Function<? super T, ? extends R> function, Executor workers, int maxInFlight) {
+        List<Stage> next = new ArrayList<>(stages);
+        next.add(new Stage(name, item -> function.apply((T) item), workers, Math.max(1, maxInFlight)));
+        return new ImportPipeline<>(source, List.copyOf(next));
+    }
+
+    /**
+     * 启动数据源与中间阶段，并在调用线程上把每个批次交给 sink，直到数据源发完且所有批次处理完毕
+     */
+    @SuppressWarnings("unchecked")
+    void runInto(Consumer<? super T> sink, Executor executor, int queueCapacity) throws Exception {
+        int capacity = Math.max(1, queueCapacity);
+        List<BlockingQueue<Object>> queues = new ArrayList<>();
+        for (int i = 0; i <= stages.size(); i++) {
+            queues.add(new ArrayBlockingQueue<>(capacity));
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        try {
+            workers.add(CompletableFuture.runAsync(() -> runSource(queues.get(0), failure), executor));
+            for (int i = 0; i < stages.size(); i++) {
+                Stage stage = stages.get(i);
+                BlockingQueue<Object> input = queues.get(i);
+                BlockingQueue<Object> output = queues.get(i + 1);
+                workers.add(CompletableFuture.runAsync(() -> runStage(stage, input, output, failure), executor));
+            }
+            BlockingQueue<Object> last = queues.get(stages.size());
+            Object item;
+            while ((item = take(last, failure)) != END) {
+                sink.accept((T) item);
+            }
+        } catch (Aborted ignored) {
+            // 上游阶段已失败，异常在下面统一抛出
+        } catch (Throwable ex) {
+            failure.compareAndSet(null, ex);
+        } finally {
+            for (CompletableFuture<Void> worker : workers) {
+                try {
+                    worker.join();
+                } catch (RuntimeException ignored) {
+                    // 各阶段的异常已记录在 failure 中
+                }
+            }
+        }
+        Throwable error = failure.get();
+        if (error instanceof Exception exception) {
+            throw exception;
+        }
+        if (error instanceof Error fatal) {
+            throw fatal;
+        }
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runSource(BlockingQueue<Object> output, AtomicReference<Throwable> failure) {
+        try {
+            ((Source<Object>) source).produce(item -> put(output, item, failure));
+            put(output, END, failure);
+        } catch (Aborted ignored) {
+            // 下游阶段已失败
+        } catch (Throwable ex) {
+            failure.compareAndSet(null, ex);
+        }
+    }
+
+    private void runStage(Stage stage,
+                          BlockingQueue<Object> input,
+                          BlockingQueue<Object> output,
+                          AtomicReference<Throwable> failure) {
+        try {
+            if (stage.workers() != null) {
+                runParallel(stage, input, output, failure);
+                return;
+            }
+            Object item;
+            while ((item = take(input, failure)) != END) {
+                put(output, stage.function().apply(item), failure);
+            }
+            put(output, END, failure);
+        } catch (Aborted ignored) {
+            // 其他阶段已失败
+        } catch (Throwable ex) {
+            failure.compareAndSet(null, ex);
+        }
+    }
+
+    /**
+     * 按到达顺序提交批次，处理中的批次达到上限时等待最早提交的一个完成并交给下游，保证输出顺序与输入一致
+     */
+    private void runParallel(Stage stage,
+                             BlockingQueue<Object> input,
+                             BlockingQueue<Object> output,
+                             AtomicReference<Throwable> failure) {
+        Deque<CompletableFuture<Object>> inFlight = new ArrayDeque<>(stage.maxInFlight());
+        Object item;
+        while ((item = take(input, failure)) != END) {
+            Object current = item;
+            inFlight.addLast(CompletableFuture.supplyAsync(() -> stage.function().apply(current), stage.workers()));
+            if (inFlight.size() >= stage.maxInFlight()) {
+                put(output, await(inFlight.removeFirst()), failure);
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            put(output, await(inFlight.removeFirst()), failure);
+        }
+        put(output, END, failure);
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object item, AtomicReference<Throwable> failure) {
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new Aborted();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, ex);
+            throw new Aborted();
+        }
+    }
+
+    private static Object take(BlockingQueue<Object> queue, AtomicReference<Throwable> failure) {
+        try {
+            Object item;
+            while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (failure.get() != null) {
+                    throw new Aborted();
+                }
+            }
+            return item;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, ex);
+            throw new Aborted();
+        }
+    }
+
+    /**
+     * 其他阶段失败后用于结束当前阶段，不携带堆栈
+     */
+    private static final class Aborted extends RuntimeException {
+
+        private Aborted() {
+            super(null, null, false, false);
+        }
+    }
+}
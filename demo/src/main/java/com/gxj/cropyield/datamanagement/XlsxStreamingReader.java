@@ -0,0 +1,126 @@
+package com.gxj.cropyield.datamanagement;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+/**
+ * 基于 POI 事件模型（SAX）的 XLSX 流式读取：只读取第一个工作表，逐行回调各单元格的文本，
+ * 不构建 Workbook 对象树，共享字符串表以只读方式加载，内存占用与行数无关
+ * <p>日期单元格输出为 yyyy-MM-dd，数值输出为不带科学计数法的原始值，与按 Workbook 读取时一致。</p>
+ */
+final class XlsxStreamingReader {
+
+    /**
+     * 行回调，rowNumber 从 1 开始；cells 按列下标排列，缺失的单元格为 null
+     */
+    @FunctionalInterface
+    interface RowHandler {
+        void row(int rowNumber, List<String> cells);
+    }
+
+    private XlsxStreamingReader() {
+    }
+
+    static void read(Path path, RowHandler handler) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(path.toFile(), PackageAccess.READ);
+        } catch (OpenXML4JException exception) {
+            throw new IllegalArgumentException("Excel 文件格式错误或已损坏", exception);
+        }
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                        new RowCollector(handler), new PlainValueFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException exception) {
+            throw new IllegalArgumentException("Excel 文件格式错误或已损坏", exception);
+        } finally {
+            // 只读打开的包用 revert 释放，close 会尝试保存
+            pkg.revert();
+        }
+    }
+
+    /**
+     * 把逐个单元格的回调按行汇总为列表
+     */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+        private int nextColumn;
+
+        private RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.row(rowNum + 1, new ArrayList<>(cells));
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            while (cells.size() < column) {
+                cells.add(null);
+            }
+            cells.add(formattedValue);
+            nextColumn = column + 1;
+        }
+    }
+
+    /**
+     * 日期格式的数值输出为 ISO 日期，其余数值输出原始值，不套用千分位、百分比等显示格式
+     */
+    private static final class PlainValueFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().toString();
+            }
+            String text = Double.toString(value);
+            if (text.contains("E")) {
+                return new BigDecimal(text).stripTrailingZeros().toPlainString();
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.gxj.cropyield.datamanagement.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+/**
+ * 数据导入模块的配置类，配置导入流水线的并发度、批次大小、阶段间队列容量、Excel 的读取方式以及并行校验。
+ * <p>核心方法：getConcurrentJobs、getPendingJobs、getChunkSize、getQueueCapacity、isXlsxStreaming、isParallelValidation、getValidationParallelism、getStaleJobTimeout、getNodeId。</p>
+ */
+
+@ConfigurationProperties(prefix = "data-import")
+public class DataImportProperties {
+
+    /**
+     * 每个导入任务在导入执行器上占用的线程数：解析、校验、维度解析各一个，写入在任务线程上执行
+     */
+    public static final int THREADS_PER_JOB = 4;
+
+    /**
+     * 同时执行的导入任务数，导入执行器按 concurrentJobs × THREADS_PER_JOB 配置线程数
+     */
+    private int concurrentJobs = 2;
+
+    /**
+     * 等待执行的导入任务上限，超过后上传请求返回 429
+     */
+    private int pendingJobs = 20;
+
+    /**
+     * 流水线中每个批次的行数，也是单次批量写库与提交事务的行数
+     */
+    private int chunkSize = 500;
+
+    /**
+     * 相邻两个阶段之间最多缓冲的批次数，上游处理更快时在此阻塞
+     */
+    private int queueCapacity = 4;
+
+    /**
+     * 为 true 时 .xlsx 以 SAX 事件模型逐行读取，内存占用与文件大小无关；为 false 时整体加载为 Workbook
+     */
+    private boolean xlsxStreaming = true;
+
+    /**
+     * 为 true 时校验阶段把批次分发到 importValidationExecutor 并行校验，结果按行号顺序合并
+     */
+    private boolean parallelValidation = true;
+
+    /**
+     * 并行校验的 ForkJoin 池并行度，也是单个任务同时校验的批次数上限，默认 CPU 核数
+     */
+    private int validationParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 任务归属节点超过该时长未刷新心跳（每分钟一次）即视为下线：其执行中的任务标记为失败，
+     * 排队中的任务由其他实例接管，接管节点读不到上传文件时标记为失败
+     */
+    private Duration staleJobTimeout = Duration.ofMinutes(30);
+
+    /**
+     * 本节点标识，记录在任务上作为归属节点，默认取主机名；同一主机运行多个实例时需分别配置
+     */
+    private String nodeId;
+
+    public int getConcurrentJobs() {
+        return concurrentJobs;
+    }
+
+    public void setConcurrentJobs(int concurrentJobs) {
+        this.concurrentJobs = concurrentJobs;
+    }
+
+    public int getPendingJobs() {
+        return pendingJobs;
+    }
+
+    public void setPendingJobs(int pendingJobs) {
+        this.pendingJobs = pendingJobs;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public boolean isXlsxStreaming() {
+        return xlsxStreaming;
+    }
+
+    public void setXlsxStreaming(boolean xlsxStreaming) {
+        this.xlsxStreaming = xlsxStreaming;
+    }
+
+    public boolean isParallelValidation() {
+        return parallelValidation;
+    }
+
+    public void setParallelValidation(boolean parallelValidation) {
+        this.parallelValidation = parallelValidation;
+    }
+
+    public int getValidationParallelism() {
+        return validationParallelism;
+    }
+
+    public void setValidationParallelism(int validationParallelism) {
+        this.validationParallelism = validationParallelism;
+    }
+
+    public Duration getStaleJobTimeout() {
+        return staleJobTimeout;
+    }
+
+    public void setStaleJobTimeout(Duration staleJobTimeout) {
+        this.staleJobTimeout = staleJobTimeout;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+}
@@ -54,6 +54,15 @@ public class DataImportJob extends BaseEntity {
     @Column(name = "storage_path", length = 512)
     private String storagePath;
 
+    /**
+     * 保存上传文件并负责执行任务的节点；归属与心跳只由仓库中的条件更新修改，实体保存时不覆盖
+     */
+    @Column(name = "owner_node", length = 128, updatable = false)
+    private String ownerNode;
+
+    @Column(name = "owner_heartbeat_at", updatable = false)
+    private LocalDateTime ownerHeartbeatAt;
+
     @Column(name = "total_rows")
     private Integer totalRows;
 
@@ -159,6 +168,22 @@ public class DataImportJob extends BaseEntity {
         this.storagePath = storagePath;
     }
 
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
+
+    public LocalDateTime getOwnerHeartbeatAt() {
+        return ownerHeartbeatAt;
+    }
+
+    public void setOwnerHeartbeatAt(LocalDateTime ownerHeartbeatAt) {
+        this.ownerHeartbeatAt = ownerHeartbeatAt;
+    }
+
     public Integer getTotalRows() {
         return totalRows;
     }
@@ -1,9 +1,15 @@
 package com.gxj.cropyield.datamanagement.repository;
 
 import com.gxj.cropyield.datamanagement.model.DataImportJob;
+import com.gxj.cropyield.datamanagement.model.DataImportJobStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -20,4 +26,53 @@ public interface DataImportJobRepository extends JpaRepository<DataImportJob, Lo
     List<DataImportJob> findByDatasetFileId(Long datasetFileId);
 
     List<DataImportJob> findByDatasetName(String datasetName);
+
+    List<DataImportJob> findByStatus(DataImportJobStatus status);
+
+    List<DataImportJob> findByStatusAndOwnerNode(DataImportJobStatus status, String ownerNode);
+
+    /**
+     * 归属其他节点且心跳早于 cutoff（该节点已下线），或没有归属节点的任务
+     */
+    @Query("select job from DataImportJob job where job.status = :status"
+            + " and (job.ownerNode is null or job.ownerNode <> :owner)"
+            + " and (job.ownerHeartbeatAt is null or job.ownerHeartbeatAt < :cutoff)")
+    List<DataImportJob> findOrphaned(@Param("status") DataImportJobStatus status,
+                                     @Param("owner") String owner,
+                                     @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 刷新 owner 名下未结束任务的心跳，同时保持 updated_at 不变
+     */
+    @Modifying
+    @Transactional
+    @Query("update DataImportJob job set job.ownerHeartbeatAt = :now, job.updatedAt = job.updatedAt"
+            + " where job.ownerNode = :owner and job.status in :statuses")
+    int touchOwnedJobs(@Param("owner") String owner,
+                       @Param("statuses") Collection<DataImportJobStatus> statuses,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * 仅当原归属节点的心跳仍早于 cutoff 时把任务改归 owner，多个实例同时接管时只有一个能成功，返回受影响行数
+     */
+    @Modifying
+    @Transactional
+    @Query("update DataImportJob job set job.ownerNode = :owner, job.ownerHeartbeatAt = :now"
+            + " where job.id = :id and (job.ownerHeartbeatAt is null or job.ownerHeartbeatAt < :cutoff)")
+    int takeOver(@Param("id") Long id,
+                 @Param("owner") String owner,
+                 @Param("cutoff") LocalDateTime cutoff,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * 仅当任务仍处于预期状态且归属 owner 时才更新，被其他节点接管的任务不会在原节点继续执行，返回受影响行数
+     */
+    @Modifying
+    @Transactional
+    @Query("update DataImportJob job set job.status = :target"
+            + " where job.id = :id and job.status = :expected and job.ownerNode = :owner")
+    int compareAndSetOwnedStatus(@Param("id") Long id,
+                                 @Param("owner") String owner,
+                                 @Param("expected") DataImportJobStatus expected,
+                                 @Param("target") DataImportJobStatus target);
 }
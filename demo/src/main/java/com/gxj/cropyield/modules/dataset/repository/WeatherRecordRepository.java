@@ -5,6 +5,8 @@ import java.time.LocalDate;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /**
  * 气象数据仓储。
@@ -14,4 +16,7 @@ public interface WeatherRecordRepository extends JpaRepository<WeatherRecord, Lo
     List<WeatherRecord> findByRegionId(Long regionId);
 
     List<WeatherRecord> findByRegionIdAndRecordDateBetween(Long regionId, LocalDate startDate, LocalDate endDate);
+
+    @Query("select distinct record.region.id from WeatherRecord record where record.datasetFile.id = :datasetFileId")
+    List<Long> findDistinctRegionIdsByDatasetFileId(@Param("datasetFileId") Long datasetFileId);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 /**
@@ -19,6 +20,10 @@ public interface YieldRecordRepository extends JpaRepository<YieldRecord, Long>
     @EntityGraph(attributePaths = {"crop", "region", "datasetFile"})
     List<YieldRecord> findByRegionIdAndCropIdOrderByYearAsc(Long regionId, Long cropId);
 
+    // 批量预测时一次性预取多个区域与作物的历史产量
+    @EntityGraph(attributePaths = {"crop", "region"})
+    List<YieldRecord> findByRegionIdInAndCropIdInOrderByYearAsc(Collection<Long> regionIds, Collection<Long> cropIds);
+
     Optional<YieldRecord> findByCropIdAndRegionIdAndYear(Long cropId, Long regionId, Integer year);
 
     List<YieldRecord> findTop5ByOrderByYearDesc();
@@ -9,10 +9,12 @@ import com.gxj.cropyield.modules.dataset.dto.DatasetFileRequest;
 import com.gxj.cropyield.modules.dataset.entity.DatasetFile;
 import com.gxj.cropyield.modules.dataset.entity.DatasetFile.DatasetType;
 import com.gxj.cropyield.modules.dataset.repository.DatasetFileRepository;
+import com.gxj.cropyield.modules.dataset.repository.WeatherRecordRepository;
 import com.gxj.cropyield.modules.dataset.repository.YieldRecordRepository;
 import com.gxj.cropyield.modules.dataset.service.DatasetFileService;
 import com.gxj.cropyield.modules.forecast.repository.ForecastRunRepository;
 import com.gxj.cropyield.modules.forecast.repository.ForecastTaskRepository;
+import com.gxj.cropyield.modules.forecast.service.impl.WeatherFeatureStore;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,6 +40,8 @@ public class DatasetFileServiceImpl implements DatasetFileService {
     private final RegionRepository regionRepository;
     private final ForecastTaskRepository forecastTaskRepository;
     private final ForecastRunRepository forecastRunRepository;
+    private final WeatherRecordRepository weatherRecordRepository;
+    private final WeatherFeatureStore weatherFeatureStore;
 
     public DatasetFileServiceImpl(DatasetFileRepository datasetFileRepository,
                                   YieldRecordRepository yieldRecordRepository,
@@ -45,7 +49,9 @@ public class DatasetFileServiceImpl implements DatasetFileService {
                                   CropRepository cropRepository,
                                   RegionRepository regionRepository,
                                   ForecastTaskRepository forecastTaskRepository,
-                                  ForecastRunRepository forecastRunRepository) {
+                                  ForecastRunRepository forecastRunRepository,
+                                  WeatherRecordRepository weatherRecordRepository,
+                                  WeatherFeatureStore weatherFeatureStore) {
         this.datasetFileRepository = datasetFileRepository;
         this.yieldRecordRepository = yieldRecordRepository;
         this.jobRepository = jobRepository;
@@ -53,6 +59,8 @@ public class DatasetFileServiceImpl implements DatasetFileService {
         this.regionRepository = regionRepository;
         this.forecastTaskRepository = forecastTaskRepository;
         this.forecastRunRepository = forecastRunRepository;
+        this.weatherRecordRepository = weatherRecordRepository;
+        this.weatherFeatureStore = weatherFeatureStore;
     }
 
     @Override
@@ -82,7 +90,11 @@ public class DatasetFileServiceImpl implements DatasetFileService {
         }
         Set<Long> candidateCropIds = new LinkedHashSet<>();
         Set<Long> candidateRegionIds = new LinkedHashSet<>();
+        Set<Long> weatherRegionIds = new LinkedHashSet<>();
         for (DatasetFile file : files) {
+            if (file.getType() == DatasetType.WEATHER && file.getId() != null) {
+                weatherRegionIds.addAll(weatherRecordRepository.findDistinctRegionIdsByDatasetFileId(file.getId()));
+            }
             archiveImportJobs(file);
             CleanupImpact impact = collectCleanupImpact(file);
             candidateCropIds.addAll(impact.cropIds());
@@ -91,6 +103,11 @@ public class DatasetFileServiceImpl implements DatasetFileService {
             recordDeletionJob(file, removed);
         }
         datasetFileRepository.deleteAll(files);
+        if (!weatherRegionIds.isEmpty()) {
+            // 气象记录随数据集级联删除，需先落库再重建受影响区域的月汇总
+            datasetFileRepository.flush();
+            weatherFeatureStore.rebuildRegions(weatherRegionIds);
+        }
         pruneBaseEntities(candidateCropIds, candidateRegionIds);
     }
 
@@ -37,12 +37,18 @@ public class ForecastDispatchScheduler {
             return;
         }
         log.info("Dispatching {} pending forecast tasks", pendingTasks.size());
-        pendingTasks.forEach(task -> {
+        int dispatched = 0;
+        for (ForecastTask task : pendingTasks) {
+            // 先抢占任务状态，多实例部署时已被其他实例派发的任务直接跳过
+            if (forecastTaskRepository.compareAndSetStatus(task.getId(),
+                    ForecastTask.TaskStatus.PENDING, ForecastTask.TaskStatus.RUNNING) == 0) {
+                continue;
+            }
             Map<String, Object> parameters = parseTaskParameters(task.getParameters());
             Integer forecastPeriods = parseInteger(parameters.get("forecastPeriods"));
             Integer historyYears = parseInteger(parameters.get("historyYears"));
             String frequency = parameters.getOrDefault("frequency", "YEAR").toString();
-            forecastTaskQueue.publish(new ForecastExecutionRequest(
+            boolean accepted = forecastTaskQueue.publish(new ForecastExecutionRequest(
                     task.getRegion().getId(),
                     task.getCrop().getId(),
                     task.getModel().getId(),
@@ -51,9 +57,16 @@ public class ForecastDispatchScheduler {
                     frequency,
                     parameters.isEmpty() ? Collections.emptyMap() : parameters
             ));
-            task.setStatus(ForecastTask.TaskStatus.RUNNING);
-        });
-        forecastTaskRepository.saveAll(pendingTasks);
+            if (!accepted) {
+                // 队列已满，归还当前任务，其余任务保持 PENDING，留待下一轮派发
+                forecastTaskRepository.compareAndSetStatus(task.getId(),
+                        ForecastTask.TaskStatus.RUNNING, ForecastTask.TaskStatus.PENDING);
+                log.warn("Forecast task queue is full, deferring {} pending tasks",
+                        pendingTasks.size() - dispatched);
+                break;
+            }
+            dispatched++;
+        }
     }
 
     private Map<String, Object> parseTaskParameters(String parameters) {
@@ -1,19 +1,29 @@
 package com.gxj.cropyield.modules.forecast.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+
 /**
  * 预测管理模块的配置类，配置预测管理相关的基础设施与框架行为。
- * <p>核心方法：forecastRestTemplate。</p>
+ * <p>核心方法：forecastRestTemplate、forecastCandidateExecutor、forecastTuningExecutor、forecastBatchExecutor、forecastWorkerExecutor。</p>
  */
 @Configuration
 @EnableConfigurationProperties(ForecastEngineProperties.class)
 public class ForecastEngineConfiguration {
 
+    private static final Logger log = LoggerFactory.getLogger(ForecastEngineConfiguration.class);
+
     @Bean
     public RestTemplate forecastRestTemplate(RestTemplateBuilder builder, ForecastEngineProperties properties) {
         return builder
@@ -21,4 +31,108 @@ public class ForecastEngineConfiguration {
             .setReadTimeout(properties.getReadTimeout())
             .build();
     }
+
+    /**
+     * 本地预测引擎专用的计算线程池，用于并行拟合自动选模的候选模型及其回测折
+     */
+    @Bean(name = "forecastCandidateExecutor")
+    public Executor forecastCandidateExecutor(ForecastEngineProperties properties) {
+        int parallelism = Math.max(1, properties.getCandidateParallelism());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism * 16);
+        executor.setThreadNamePrefix("forecast-candidate-");
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        // 队列已满时立即拒绝，由 LocalForecastEngine 把该候选模型当作失败剔除；在调用线程上计算会绕过单候选超时
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+
+        log.info("候选模型计算线程池初始化完成 - 并行度: {}, 单候选超时: {}",
+            parallelism, properties.getCandidateTimeout());
+        return executor;
+    }
+
+    /**
+     * ARIMA / Prophet 超参数调优专用的 ForkJoin 池，各候选参数的回测彼此独立，按工作窃取均衡到各核心；
+     * 抽样次数较多的自助法预测区间也在此分块并行
+     */
+    @Bean(name = "forecastTuningExecutor", destroyMethod = "shutdownNow")
+    public ForkJoinPool forecastTuningExecutor(ForecastEngineProperties properties) {
+        int parallelism = Math.max(1, properties.getTuning().getParallelism());
+        ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("forecast-tuning-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        log.info("超参数调优线程池初始化完成 - 并行度: {}, 默认开启: {}, 策略: {}",
+            parallelism, properties.getTuning().isEnabled(), properties.getTuning().getStrategy());
+        return pool;
+    }
+
+    /**
+     * 批量预测线程池中每个线程对应的队列容量
+     */
+    private static final int BATCH_QUEUE_PER_THREAD = 8;
+
+    /**
+     * 批量预测线程池可同时容纳的任务数（线程数与队列容量之和），批量预测据此限制在途组合数
+     */
+    public static int batchExecutorCapacity(ForecastEngineProperties properties) {
+        return Math.max(1, properties.getBatchParallelism()) * (1 + BATCH_QUEUE_PER_THREAD);
+    }
+
+    /**
+     * 单个批量请求最多占用的在途许可数：每个线程一个执行中、一个排队中的组合，
+     * 一个大批量请求能占满全部线程，但其余许可留给其他批量请求
+     */
+    public static int batchRequestSlots(ForecastEngineProperties properties) {
+        return Math.min(batchExecutorCapacity(properties), Math.max(1, properties.getBatchParallelism()) * 2);
+    }
+
+    /**
+     * 批量预测专用线程池，将各区域/作物组合的引擎计算分摊到多个核心
+     */
+    @Bean(name = "forecastBatchExecutor")
+    public Executor forecastBatchExecutor(ForecastEngineProperties properties) {
+        int parallelism = Math.max(1, properties.getBatchParallelism());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism * BATCH_QUEUE_PER_THREAD);
+        executor.setThreadNamePrefix("forecast-batch-");
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        // 批量预测按 batchExecutorCapacity 限制在途组合数，队列不会溢出；被拒绝的组合单独失败，不在请求线程上计算
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+
+        log.info("批量预测线程池初始化完成 - 并行度: {}", parallelism);
+        return executor;
+    }
+
+    /**
+     * 预测任务消费线程池，每个线程常驻并阻塞等待内存队列中的任务
+     */
+    @Bean(name = "forecastWorkerExecutor")
+    public Executor forecastWorkerExecutor(ForecastEngineProperties properties) {
+        int parallelism = Math.max(1, properties.getWorker().getParallelism());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("forecast-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(120);
+        executor.initialize();
+
+        log.info("预测任务消费线程池初始化完成 - 并行度: {}, 队列容量: {}",
+            parallelism, properties.getWorker().getQueueCapacity());
+        return executor;
+    }
 }
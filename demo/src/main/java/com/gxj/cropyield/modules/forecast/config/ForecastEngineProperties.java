@@ -2,10 +2,13 @@ package com.gxj.cropyield.modules.forecast.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import org.springframework.util.unit.DataSize;
+
 import java.time.Duration;
 /**
  * 预测管理模块的配置类，配置预测管理相关的基础设施与框架行为。
- * <p>核心方法：getBaseUrl、setBaseUrl、getConnectTimeout、setConnectTimeout、getReadTimeout、setReadTimeout。</p>
+ * <p>核心方法：getBaseUrl、setBaseUrl、getConnectTimeout、setConnectTimeout、getReadTimeout、setReadTimeout、
+ * getCandidateParallelism、getCandidateTimeout、getBatchParallelism、getAsyncParallelism、getAsyncTaskTimeout、getBatchTaskTimeout、getModelCache、getWorker、getTuning、getInterval、getArtefact、getLstm。</p>
  */
 
 @ConfigurationProperties(prefix = "forecast.engine")
@@ -17,6 +20,66 @@ public class ForecastEngineProperties {
 
     private Duration readTimeout = Duration.ofSeconds(8);
 
+    /**
+     * 自动选模时候选模型（及其回测折）并行计算的线程数
+     */
+    private int candidateParallelism = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * 单个候选模型的最长计算时间，超时的候选模型将被剔除
+     */
+    private Duration candidateTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 批量预测时并行调用预测引擎的线程数
+     */
+    private int batchParallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 异步预测任务线程池（forecastExecutor）的最大线程数
+     */
+    private int asyncParallelism = 5;
+
+    /**
+     * 异步预测任务从提交起的最长执行时间，超时后在下一个训练轮次或回测折处中止
+     */
+    private Duration asyncTaskTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 异步批量预测任务从提交起的最长执行时间，超时后未完成的组合记为失败，已完成的组合照常返回
+     */
+    private Duration batchTaskTimeout = Duration.ofMinutes(30);
+
+    /**
+     * 已训练模型缓存配置
+     */
+    private ModelCache modelCache = new ModelCache();
+
+    /**
+     * 预测任务队列消费者配置
+     */
+    private Worker worker = new Worker();
+
+    /**
+     * ARIMA / Prophet 超参数自动调优配置
+     */
+    private Tuning tuning = new Tuning();
+
+    /**
+     * 预测区间配置
+     */
+    private Interval interval = new Interval();
+
+    /**
+     * 已拟合模型制品持久化配置
+     */
+    private Artefact artefact = new Artefact();
+
+    /**
+     * LSTM 训练的 ND4J 工作区与线程配置
+     */
+    private Lstm lstm = new Lstm();
+
     public String getBaseUrl() {
         return baseUrl;
     }
@@ -40,4 +103,468 @@ public class ForecastEngineProperties {
     public void setReadTimeout(Duration readTimeout) {
         this.readTimeout = readTimeout;
     }
+
+    public int getCandidateParallelism() {
+        return candidateParallelism;
+    }
+
+    public void setCandidateParallelism(int candidateParallelism) {
+        this.candidateParallelism = candidateParallelism;
+    }
+
+    public Duration getCandidateTimeout() {
+        return candidateTimeout;
+    }
+
+    public void setCandidateTimeout(Duration candidateTimeout) {
+        this.candidateTimeout = candidateTimeout;
+    }
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public void setBatchParallelism(int batchParallelism) {
+        this.batchParallelism = batchParallelism;
+    }
+
+    public int getAsyncParallelism() {
+        return asyncParallelism;
+    }
+
+    public void setAsyncParallelism(int asyncParallelism) {
+        this.asyncParallelism = asyncParallelism;
+    }
+
+    public Duration getAsyncTaskTimeout() {
+        return asyncTaskTimeout;
+    }
+
+    public void setAsyncTaskTimeout(Duration asyncTaskTimeout) {
+        this.asyncTaskTimeout = asyncTaskTimeout;
+    }
+
+    public Duration getBatchTaskTimeout() {
+        return batchTaskTimeout;
+    }
+
+    public void setBatchTaskTimeout(Duration batchTaskTimeout) {
+        this.batchTaskTimeout = batchTaskTimeout;
+    }
+
+    public ModelCache getModelCache() {
+        return modelCache;
+    }
+
+    public void setModelCache(ModelCache modelCache) {
+        this.modelCache = modelCache;
+    }
+
+    public Worker getWorker() {
+        return worker;
+    }
+
+    public void setWorker(Worker worker) {
+        this.worker = worker;
+    }
+
+    public Tuning getTuning() {
+        return tuning;
+    }
+
+    public void setTuning(Tuning tuning) {
+        this.tuning = tuning;
+    }
+
+    public Interval getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Interval interval) {
+        this.interval = interval;
+    }
+
+    public Artefact getArtefact() {
+        return artefact;
+    }
+
+    public void setArtefact(Artefact artefact) {
+        this.artefact = artefact;
+    }
+
+    public Lstm getLstm() {
+        return lstm;
+    }
+
+    public void setLstm(Lstm lstm) {
+        this.lstm = lstm;
+    }
+
+    public static class ModelCache {
+
+        private boolean enabled = true;
+
+        /**
+         * 缓存总权重上限，权重约等于历史点数与预测点数之和
+         */
+        private long maximumWeight = 20_000;
+
+        /**
+         * 缓存项在最后一次访问后的保留时长
+         */
+        private Duration expireAfterAccess = Duration.ofHours(6);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public Duration getExpireAfterAccess() {
+            return expireAfterAccess;
+        }
+
+        public void setExpireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+        }
+    }
+
+    public static class Worker {
+
+        /**
+         * 任务队列实现：memory 为单实例内存队列，jdbc 为可在多实例间共享的数据库队列
+         */
+        private String queueType = "memory";
+
+        /**
+         * 同时消费预测任务的工作线程数
+         */
+        private int parallelism = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+        /**
+         * 队列容量（数据库队列按待执行与执行中的任务总数计算），队列已满时发布方需等待
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * 队列已满时发布方的最长等待时间，超时的任务留待下一轮派发
+         */
+        private Duration publishTimeout = Duration.ofSeconds(2);
+
+        /**
+         * 数据库队列每次领取的任务数
+         */
+        private int claimBatchSize = 4;
+
+        /**
+         * 数据库队列的租约时长（不少于 15 秒），持有租约的节点每隔三分之一租约时长续约，节点宕机后租约到期任务重新入队
+         */
+        private Duration leaseDuration = Duration.ofMinutes(5);
+
+        /**
+         * 单个任务的最大执行次数，超过后标记为失败
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 失败重试的初始退避时间，之后每次翻倍
+         */
+        private Duration retryBackoff = Duration.ofSeconds(30);
+
+        /**
+         * 数据库队列为空时两次领取之间的间隔
+         */
+        private Duration idlePollInterval = Duration.ofSeconds(1);
+
+        public String getQueueType() {
+            return queueType;
+        }
+
+        public void setQueueType(String queueType) {
+            this.queueType = queueType;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getPublishTimeout() {
+            return publishTimeout;
+        }
+
+        public void setPublishTimeout(Duration publishTimeout) {
+            this.publishTimeout = publishTimeout;
+        }
+
+        public int getClaimBatchSize() {
+            return claimBatchSize;
+        }
+
+        public void setClaimBatchSize(int claimBatchSize) {
+            this.claimBatchSize = claimBatchSize;
+        }
+
+        public Duration getLeaseDuration() {
+            return leaseDuration;
+        }
+
+        public void setLeaseDuration(Duration leaseDuration) {
+            this.leaseDuration = leaseDuration;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public Duration getIdlePollInterval() {
+            return idlePollInterval;
+        }
+
+        public void setIdlePollInterval(Duration idlePollInterval) {
+            this.idlePollInterval = idlePollInterval;
+        }
+    }
+
+    public static class Tuning {
+
+        /**
+         * 是否对未显式指定阶数/周期的 ARIMA 与 Prophet 请求默认开启调优；单个请求可用参数 autoTune 覆盖
+         */
+        private boolean enabled = false;
+
+        /**
+         * 搜索策略：grid 为全网格，halving 为逐次减半
+         */
+        private String strategy = "halving";
+
+        /**
+         * 并行评估候选参数的 ForkJoin 线程数
+         */
+        private int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        /**
+         * 按序列指纹缓存的调优结果条数上限
+         */
+        private long cacheMaximumSize = 2_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(String strategy) {
+            this.strategy = strategy;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public long getCacheMaximumSize() {
+            return cacheMaximumSize;
+        }
+
+        public void setCacheMaximumSize(long cacheMaximumSize) {
+            this.cacheMaximumSize = cacheMaximumSize;
+        }
+    }
+
+    public static class Interval {
+
+        /**
+         * 区间计算方式：bootstrap 为回测残差自助抽样，symmetric 为按历史波动给出的对称区间；
+         * 残差不足时 bootstrap 自动退回 symmetric
+         */
+        private String mode = "bootstrap";
+
+        /**
+         * 每个预测期的自助抽样次数
+         */
+        private int samples = 4_000;
+
+        /**
+         * 区间覆盖概率
+         */
+        private double level = 0.8;
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+
+        public void setSamples(int samples) {
+            this.samples = samples;
+        }
+
+        public double getLevel() {
+            return level;
+        }
+
+        public void setLevel(double level) {
+            this.level = level;
+        }
+    }
+
+    public static class Artefact {
+
+        /**
+         * 是否持久化已拟合模型并在训练请求指纹一致时直接用其预测；配置外部模型服务时不生效
+         */
+        private boolean enabled = true;
+
+        /**
+         * 内存中保留的反序列化模型制品数量（LRU）
+         */
+        private long cacheSize = 256;
+
+        /**
+         * 模型制品的有效期，超过后重新训练
+         */
+        private Duration maxAge = Duration.ofDays(30);
+
+        /**
+         * 模型制品的保留时长，超过该时长未重新训练的登记连同其文件被删除；通常不小于 max-age
+         */
+        private Duration retention = Duration.ofDays(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(long cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+    }
+
+    public static class Lstm {
+
+        /**
+         * 训练与推理的工作区模式：enabled 在每个线程上复用 ND4J 工作区内存；none 每次重新分配堆外内存，仅用于排查问题
+         */
+        private String workspaceMode = "enabled";
+
+        /**
+         * 单次 LSTM 计算可使用的 BLAS / OpenMP 线程数，0 表示按 CPU 核数除以候选模型、批量预测、异步预测与
+         * 队列消费线程数之和自动计算，避免这些线程池同时训练时原生线程数超过核心数
+         */
+        private int blasThreads = 0;
+
+        /**
+         * 每个线程上递推预测所用工作区的初始大小
+         */
+        private DataSize workspaceInitialSize = DataSize.ofMegabytes(8);
+
+        /**
+         * ND4J 触发 System.gc 回收堆外内存的最小间隔，使用工作区后不必频繁回收
+         */
+        private Duration gcWindow = Duration.ofSeconds(5);
+
+        public String getWorkspaceMode() {
+            return workspaceMode;
+        }
+
+        public void setWorkspaceMode(String workspaceMode) {
+            this.workspaceMode = workspaceMode;
+        }
+
+        public int getBlasThreads() {
+            return blasThreads;
+        }
+
+        public void setBlasThreads(int blasThreads) {
+            this.blasThreads = blasThreads;
+        }
+
+        public DataSize getWorkspaceInitialSize() {
+            return workspaceInitialSize;
+        }
+
+        public void setWorkspaceInitialSize(DataSize workspaceInitialSize) {
+            this.workspaceInitialSize = workspaceInitialSize;
+        }
+
+        public Duration getGcWindow() {
+            return gcWindow;
+        }
+
+        public void setGcWindow(Duration gcWindow) {
+            this.gcWindow = gcWindow;
+        }
+    }
 }
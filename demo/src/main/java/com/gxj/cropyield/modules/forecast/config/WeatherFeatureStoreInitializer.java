@@ -0,0 +1,36 @@
+package com.gxj.cropyield.modules.forecast.config;
+
+import com.gxj.cropyield.modules.forecast.service.impl.WeatherFeatureStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时为已有的逐日气象记录回填月汇总，升级后首次启动即可使用预计算特征。
+ */
+@Component
+public class WeatherFeatureStoreInitializer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherFeatureStoreInitializer.class);
+
+    private final WeatherFeatureStore weatherFeatureStore;
+
+    public WeatherFeatureStoreInitializer(WeatherFeatureStore weatherFeatureStore) {
+        this.weatherFeatureStore = weatherFeatureStore;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            int rows = weatherFeatureStore.rebuildIfEmpty();
+            if (rows > 0) {
+                log.info("Backfilled {} monthly weather aggregates", rows);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Unable to backfill monthly weather aggregates", ex);
+        }
+    }
+}
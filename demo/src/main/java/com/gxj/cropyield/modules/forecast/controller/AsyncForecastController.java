@@ -3,11 +3,16 @@ package com.gxj.cropyield.modules.forecast.controller;
 import com.gxj.cropyield.common.response.ApiResponse;
 import com.gxj.cropyield.modules.forecast.dto.AsyncTaskResponse;
 import com.gxj.cropyield.modules.forecast.dto.AsyncTaskStatusResponse;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchRequest;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchResponse;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
 import com.gxj.cropyield.modules.forecast.service.AsyncForecastService;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * 异步预测控制器
@@ -37,6 +42,22 @@ public class AsyncForecastController {
     }
     
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'AGRICULTURE_DEPT')")
+    public ResponseEntity<ApiResponse<AsyncTaskResponse>> submitBatchTask(
+            @Valid @RequestBody ForecastBatchRequest request) {
+        AsyncTaskResponse response = asyncForecastService.submitBatchTask(request);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+    
+
+    @GetMapping("/batch/{taskId}/result")
+    @PreAuthorize("hasAnyRole('ADMIN', 'AGRICULTURE_DEPT', 'FARMER')")
+    public ResponseEntity<ApiResponse<ForecastBatchResponse>> getBatchResult(@PathVariable String taskId) {
+        return ResponseEntity.ok(ApiResponse.success(asyncForecastService.getBatchResult(taskId)));
+    }
+    
+
     @GetMapping("/status/{taskId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'AGRICULTURE_DEPT', 'FARMER')")
     public ResponseEntity<ApiResponse<AsyncTaskStatusResponse>> getTaskStatus(
@@ -46,6 +67,13 @@ public class AsyncForecastController {
     }
     
 
+    @GetMapping(value = "/events/{taskId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'AGRICULTURE_DEPT', 'FARMER')")
+    public SseEmitter streamTaskProgress(@PathVariable String taskId) {
+        return asyncForecastService.subscribeProgress(taskId);
+    }
+    
+
     @DeleteMapping("/{taskId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'AGRICULTURE_DEPT')")
     public ResponseEntity<ApiResponse<String>> cancelTask(@PathVariable String taskId) {
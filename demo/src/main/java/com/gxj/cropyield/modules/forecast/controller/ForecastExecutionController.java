@@ -11,7 +11,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 /**
  * 预测管理模块的控制器，用于暴露预测管理相关的 REST 接口。
- * <p>核心方法：predict。</p>
+ * <p>核心方法：predict。批量预测以异步任务提交，见 AsyncForecastController。</p>
  */
 
 /**
@@ -2,8 +2,10 @@ package com.gxj.cropyield.modules.forecast.controller;
 
 import com.gxj.cropyield.common.response.ApiResponse;
 import com.gxj.cropyield.modules.forecast.dto.ForecastTaskRequest;
+import com.gxj.cropyield.modules.forecast.dto.ForecastWorkerStatsResponse;
 import com.gxj.cropyield.modules.forecast.entity.ForecastTask;
 import com.gxj.cropyield.modules.forecast.service.ForecastTaskService;
+import com.gxj.cropyield.modules.forecast.service.impl.ForecastTaskWorker;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -14,7 +16,7 @@ import org.springframework.web.bind.annotation.RestController;
 import java.util.List;
 /**
  * 预测管理模块的控制器，用于暴露预测管理相关的 REST 接口。
- * <p>核心方法：listTasks、createTask。</p>
+ * <p>核心方法：listTasks、createTask、workerStats。</p>
  */
 
 @RestController
@@ -22,9 +24,12 @@ import java.util.List;
 public class ForecastTaskController {
 
     private final ForecastTaskService forecastTaskService;
+    private final ForecastTaskWorker forecastTaskWorker;
 
-    public ForecastTaskController(ForecastTaskService forecastTaskService) {
+    public ForecastTaskController(ForecastTaskService forecastTaskService,
+                                  ForecastTaskWorker forecastTaskWorker) {
         this.forecastTaskService = forecastTaskService;
+        this.forecastTaskWorker = forecastTaskWorker;
     }
 
     @GetMapping
@@ -36,4 +41,9 @@ public class ForecastTaskController {
     public ApiResponse<ForecastTask> createTask(@Valid @RequestBody ForecastTaskRequest request) {
         return ApiResponse.success(forecastTaskService.create(request));
     }
+
+    @GetMapping("/worker-stats")
+    public ApiResponse<ForecastWorkerStatsResponse> workerStats() {
+        return ApiResponse.success(forecastTaskWorker.stats());
+    }
 }
@@ -0,0 +1,14 @@
+package com.gxj.cropyield.modules.forecast.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+/**
+ * 预测管理模块的数据传输对象（记录类型），一次提交多个区域/作物/模型组合的预测请求。
+ */
+
+public record ForecastBatchRequest(
+    @NotEmpty @Size(max = 1000) List<@Valid ForecastExecutionRequest> items
+) {
+}
@@ -0,0 +1,24 @@
+package com.gxj.cropyield.modules.forecast.dto;
+
+import java.util.List;
+/**
+ * 预测管理模块的数据传输对象（记录类型），按提交顺序返回批量预测中每个组合的执行结果。
+ */
+
+public record ForecastBatchResponse(
+    int total,
+    int succeeded,
+    int failed,
+    List<ItemResult> items
+) {
+
+    public record ItemResult(
+        Long regionId,
+        Long cropId,
+        Long modelId,
+        boolean success,
+        String errorMessage,
+        ForecastExecutionResponse result
+    ) {
+    }
+}
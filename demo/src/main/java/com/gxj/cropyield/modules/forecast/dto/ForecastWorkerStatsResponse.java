@@ -0,0 +1,16 @@
+package com.gxj.cropyield.modules.forecast.dto;
+/**
+ * 预测管理模块的数据传输对象（记录类型），描述预测任务消费者的运行状态。
+ */
+
+public record ForecastWorkerStatsResponse(
+    boolean running,
+    int parallelism,
+    int activeConsumers,
+    int queueDepth,
+    int queueCapacity,
+    int inFlight,
+    long completed,
+    long failed
+) {
+}
@@ -1,6 +1,6 @@
 package com.gxj.cropyield.modules.forecast.engine;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,8 +28,31 @@ class ArimaForecaster {
         if (historyValues == null || historyValues.size() < MIN_HISTORY) {
             return Optional.empty();
         }
-        if (periods <= 0) {
-            periods = 1;
+        return forecast(DoubleSeries.of(historyValues), periods, parameters).map(DoubleSeries::boxed);
+    }
+
+    /**
+     * 执行ARIMA预测（原始类型序列）
+     *
+     * @param history 历史数据
+     * @param periods 预测期数
+     * @param parameters 参数配置 (p, d, q)
+     * @return 预测结果
+     */
+    Optional<double[]> forecast(DoubleSeries history, int periods, Map<String, Object> parameters) {
+        return fit(history, parameters).flatMap(fitted -> forecast(history, periods, fitted));
+    }
+
+    /**
+     * 拟合ARIMA模型，得到可单独保存并复用的差分阶数与ARMA系数
+     *
+     * @param history 历史数据
+     * @param parameters 参数配置 (p, d, q)
+     * @return 拟合结果，数据不足或拟合失败时为空
+     */
+    Optional<Fitted> fit(DoubleSeries history, Map<String, Object> parameters) {
+        if (history == null || history.size() < MIN_HISTORY) {
+            return Optional.empty();
         }
 
         // 提取ARIMA参数
@@ -44,32 +67,55 @@ class ArimaForecaster {
 
         try {
             // 1. 差分处理（I部分）
-            List<Double> differenced = applyDifferencing(historyValues, d);
+            double[] differenced = applyDifferencing(history, d);
             
-            if (differenced.isEmpty()) {
+            if (differenced.length == 0) {
                 return Optional.empty();
             }
 
             // 2. 拟合ARMA模型
             ArmaModel model = fitArma(differenced, p, q);
-            
-            if (model == null) {
+            return model != null ? Optional.of(new Fitted(d, model)) : Optional.empty();
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 使用已拟合的模型预测，不再重新估计系数；history 须与拟合时使用的序列一致
+     *
+     * @param history 历史数据
+     * @param periods 预测期数
+     * @param fitted 已拟合的模型
+     * @return 预测结果
+     */
+    Optional<double[]> forecast(DoubleSeries history, int periods, Fitted fitted) {
+        if (history == null || history.size() < MIN_HISTORY || fitted == null) {
+            return Optional.empty();
+        }
+        if (periods <= 0) {
+            periods = 1;
+        }
+
+        try {
+            double[] differenced = applyDifferencing(history, fitted.d());
+            if (differenced.length == 0) {
                 return Optional.empty();
             }
 
             // 3. 预测差分后的值
-            List<Double> differencedForecast = predictArma(model, differenced, periods);
+            double[] differencedForecast = predictArma(fitted.model(), differenced, periods);
 
             // 4. 逆差分恢复原始尺度
-            List<Double> forecast = reverseDifferencing(differencedForecast, historyValues, d);
+            double[] forecast = reverseDifferencing(differencedForecast, history, fitted.d());
 
             // 5. 后处理：确保预测值合理
-            double lastActual = historyValues.get(historyValues.size() - 1);
-            double mean = historyValues.stream().mapToDouble(Double::doubleValue).average().orElse(lastActual);
-            double stdDev = calculateStdDev(historyValues, mean);
+            double lastActual = history.last();
+            double mean = history.mean();
+            double stdDev = history.populationStdDev(mean);
             
-            for (int i = 0; i < forecast.size(); i++) {
-                double value = forecast.get(i);
+            for (int i = 0; i < forecast.length; i++) {
+                double value = forecast[i];
                 
                 // 检查是否为有限数
                 if (!Double.isFinite(value)) {
@@ -90,13 +136,13 @@ class ArimaForecaster {
                     }
                 } else {
                     // 后续预测值不应该与前一个预测值相差太大
-                    double prevForecast = forecast.get(i - 1);
+                    double prevForecast = forecast[i - 1];
                     if (Math.abs(value - prevForecast) > maxChange) {
                         value = prevForecast + Math.signum(value - prevForecast) * maxChange;
                     }
                 }
                 
-                forecast.set(i, value);
+                forecast[i] = value;
             }
 
             return Optional.of(forecast);
@@ -106,67 +152,174 @@ class ArimaForecaster {
     }
     
     /**
-     * 计算标准差
+     * 增量滚动回测：对每个 i ∈ [startIndex, n)，以前 i 个点为训练集做单步预测
+     * 结果与逐个前缀调用 {@code forecast(historyValues.subList(0, i), 1, parameters)} 一致（浮点误差内），
+     * 但差分序列、自相关和残差统计量都由随序列追加而累积的前缀和推出，整体复杂度与历史长度成线性关系
+     *
+     * @param historyValues 历史数据
+     * @param startIndex 第一个被预测点的下标
+     * @param parameters 参数配置 (p, d, q)
+     * @return 长度为 n 的数组，下标 i 为以前 i 个点训练得到的预测值；无法预测时为 NaN
      */
-    private double calculateStdDev(List<Double> data, double mean) {
-        double sumSq = 0;
-        for (double value : data) {
-            sumSq += Math.pow(value - mean, 2);
+    double[] walkForwardOneStep(List<Double> historyValues, int startIndex, Map<String, Object> parameters) {
+        return walkForwardOneStep(DoubleSeries.of(historyValues), startIndex, parameters);
+    }
+
+    double[] walkForwardOneStep(DoubleSeries history, int startIndex, Map<String, Object> parameters) {
+        int n = history == null ? 0 : history.size();
+        double[] predictions = new double[n];
+        Arrays.fill(predictions, Double.NaN);
+        if (n < MIN_HISTORY) {
+            return predictions;
+        }
+
+        int p = Math.max(0, Math.min(extractIntParameter(parameters, "p", DEFAULT_P), 5));
+        int d = Math.max(0, Math.min(extractIntParameter(parameters, "d", DEFAULT_D), 2));
+        int q = Math.max(0, Math.min(extractIntParameter(parameters, "q", DEFAULT_Q), 5));
+
+        double[] original = history.toArray();
+        // 前缀i的d阶差分恰好是全序列d阶差分的前 i-d 项
+        double[] differenced = original;
+        for (int order = 0; order < d; order++) {
+            double[] next = new double[differenced.length - 1];
+            for (int i = 1; i < differenced.length; i++) {
+                next[i - 1] = differenced[i] - differenced[i - 1];
+            }
+            differenced = next;
         }
-        return Math.sqrt(sumSq / data.size());
+        LaggedSums sums = new LaggedSums(differenced, p + q);
+
+        double originalSum = 0;
+        double originalSumSq = 0;
+        double shift = original[0];
+        for (int i = 0; i < n; i++) {
+            if (i >= Math.max(startIndex, MIN_HISTORY)) {
+                double mean = shift + originalSum / i;
+                double variance = Math.max(0, originalSumSq / i - (originalSum / i) * (originalSum / i));
+                predictions[i] = predictNext(original, i, differenced, i - d, sums, p, d, q, mean, Math.sqrt(variance));
+            }
+            double centered = original[i] - shift;
+            originalSum += centered;
+            originalSumSq += centered * centered;
+        }
+        return predictions;
+    }
+
+    /**
+     * 基于前缀和为长度为 size 的前缀计算单步预测，步骤与 forecast 完全对应
+     */
+    private double predictNext(double[] original, int size, double[] differenced, int m, LaggedSums sums,
+                               int p, int d, int q, double mean, double stdDev) {
+        if (m < Math.max(p, q) + 1) {
+            return Double.NaN;
+        }
+        // AR系数：与 estimateArCoefficients 相同的简化 Yule-Walker
+        double[] acf = sums.autocorrelation(m, p);
+        double[] arCoeffs = new double[p];
+        if (p >= 1) {
+            arCoeffs[0] = acf[1];
+        }
+        for (int i = 1; i < p; i++) {
+            arCoeffs[i] = acf[Math.min(i + 1, acf.length - 1)] * 0.5;
+        }
+        // MA系数：残差 r_k = Σ c_u x_{k-u}（c_0 = 1, c_u = -a_{u-1}）的自相关
+        double[] filter = new double[p + 1];
+        filter[0] = 1d;
+        for (int u = 1; u <= p; u++) {
+            filter[u] = -arCoeffs[u - 1];
+        }
+        double[] maCoeffs = new double[q];
+        int residualCount = m - p;
+        if (q > 0 && residualCount > 0) {
+            double[] residualAcf = sums.filteredAutocorrelation(filter, p, m, q);
+            for (int i = 0; i < q && i + 1 < residualAcf.length; i++) {
+                maCoeffs[i] = -residualAcf[i + 1] * 0.5;
+            }
+        }
+
+        double armaMean = sums.mean(m);
+        double prediction = armaMean;
+        for (int i = 0; i < p; i++) {
+            int index = m - i - 1;
+            if (index >= 0) {
+                prediction += arCoeffs[i] * (differenced[index] - armaMean);
+            }
+        }
+        for (int i = 0; i < q; i++) {
+            int k = m - 1 - i;
+            if (k >= p) {
+                double residual = differenced[k];
+                for (int j = 0; j < p; j++) {
+                    residual -= arCoeffs[j] * differenced[k - j - 1];
+                }
+                prediction += maCoeffs[i] * residual;
+            }
+        }
+
+        // 逆差分：与 reverseDifferencing 对单步预测的处理一致
+        double value = prediction;
+        for (int order = 0; order < d; order++) {
+            double lastValue = original[size - d + order];
+            double integrated = lastValue + value;
+            value = Double.isFinite(integrated) ? integrated : lastValue;
+        }
+
+        double lastActual = original[size - 1];
+        if (!Double.isFinite(value)) {
+            value = lastActual;
+        }
+        if (value < 0) {
+            value = Math.max(0, lastActual * 0.95);
+        }
+        double maxChange = stdDev * 3;
+        if (Math.abs(value - lastActual) > maxChange) {
+            value = lastActual + Math.signum(value - lastActual) * maxChange;
+        }
+        return value;
     }
 
     /**
      * 应用差分
      */
-    private List<Double> applyDifferencing(List<Double> data, int d) {
-        List<Double> result = new ArrayList<>(data);
+    private double[] applyDifferencing(DoubleSeries data, int d) {
+        DoubleSeries result = data;
         
         for (int order = 0; order < d; order++) {
             if (result.size() <= 1) {
                 break;
             }
-            List<Double> differenced = new ArrayList<>();
-            for (int i = 1; i < result.size(); i++) {
-                differenced.add(result.get(i) - result.get(i - 1));
-            }
-            result = differenced;
+            result = result.differenced();
         }
         
-        return result;
+        return result.toArray();
     }
 
     /**
      * 逆差分
      */
-    private List<Double> reverseDifferencing(List<Double> differenced, List<Double> original, int d) {
+    private double[] reverseDifferencing(double[] differenced, DoubleSeries original, int d) {
+        double[] result = differenced.clone();
         if (d == 0) {
-            return new ArrayList<>(differenced);
+            return result;
         }
 
-        List<Double> result = new ArrayList<>(differenced);
-        
-        // 保存原始数据的最后d个值用于逆差分
-        List<Double> baseValues = new ArrayList<>();
-        for (int i = Math.max(0, original.size() - d); i < original.size(); i++) {
-            baseValues.add(original.get(i));
-        }
+        // 使用原始数据的最后d个值作为逆差分的基准值
+        int baseStart = Math.max(0, original.size() - d);
+        int baseCount = original.size() - baseStart;
         
         for (int order = 0; order < d; order++) {
-            List<Double> integrated = new ArrayList<>();
             // 使用正确的基准值
-            double lastValue = order < baseValues.size() ? baseValues.get(order) : original.get(original.size() - 1);
+            double lastValue = order < baseCount ? original.get(baseStart + order) : original.last();
             
-            for (double diff : result) {
-                double value = lastValue + diff;
+            for (int i = 0; i < result.length; i++) {
+                double value = lastValue + result[i];
                 // 添加数值稳定性检查
                 if (!Double.isFinite(value)) {
                     value = lastValue;  // 如果出现异常，保持不变
                 }
-                integrated.add(value);
+                result[i] = value;
                 lastValue = value;
             }
-            result = integrated;
         }
         
         return result;
@@ -175,8 +328,8 @@ class ArimaForecaster {
     /**
      * 拟合ARMA模型
      */
-    private ArmaModel fitArma(List<Double> data, int p, int q) {
-        if (data.size() < Math.max(p, q) + 1) {
+    private ArmaModel fitArma(double[] data, int p, int q) {
+        if (data.length < Math.max(p, q) + 1) {
             return null;
         }
 
@@ -184,13 +337,13 @@ class ArimaForecaster {
         double[] arCoeffs = estimateArCoefficients(data, p);
         
         // 计算残差
-        List<Double> residuals = calculateResiduals(data, arCoeffs, p);
+        double[] residuals = calculateResiduals(data, arCoeffs, p);
         
         // 使用最小二乘法估计MA参数
         double[] maCoeffs = estimateMaCoefficients(residuals, q);
         
         // 计算均值
-        double mean = data.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+        double mean = DoubleSeries.wrap(data).mean();
         
         return new ArmaModel(arCoeffs, maCoeffs, mean, residuals);
     }
@@ -198,12 +351,11 @@ class ArimaForecaster {
     /**
      * 估计AR系数
      */
-    private double[] estimateArCoefficients(List<Double> data, int p) {
+    private double[] estimateArCoefficients(double[] data, int p) {
         if (p == 0) {
             return new double[0];
         }
 
-        int n = data.size();
         double[] coeffs = new double[p];
         
         // 使用Yule-Walker方程估计AR系数
@@ -225,16 +377,17 @@ class ArimaForecaster {
     /**
      * 计算自相关系数
      */
-    private double[] calculateAutocorrelation(List<Double> data, int maxLag) {
-        int n = data.size();
-        double mean = data.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+    private double[] calculateAutocorrelation(double[] data, int maxLag) {
+        int n = data.length;
+        double mean = DoubleSeries.wrap(data).mean();
         
         double[] acf = new double[maxLag + 1];
         
         // 计算方差
         double variance = 0;
         for (double value : data) {
-            variance += Math.pow(value - mean, 2);
+            double diff = value - mean;
+            variance += diff * diff;
         }
         variance /= n;
         
@@ -246,7 +399,7 @@ class ArimaForecaster {
         for (int lag = 0; lag <= maxLag && lag < n; lag++) {
             double sum = 0;
             for (int i = 0; i < n - lag; i++) {
-                sum += (data.get(i) - mean) * (data.get(i + lag) - mean);
+                sum += (data[i] - mean) * (data[i + lag] - mean);
             }
             acf[lag] = sum / (n * variance);
         }
@@ -257,15 +410,15 @@ class ArimaForecaster {
     /**
      * 计算残差
      */
-    private List<Double> calculateResiduals(List<Double> data, double[] arCoeffs, int p) {
-        List<Double> residuals = new ArrayList<>();
+    private double[] calculateResiduals(double[] data, double[] arCoeffs, int p) {
+        double[] residuals = new double[Math.max(0, data.length - p)];
         
-        for (int i = p; i < data.size(); i++) {
+        for (int i = p; i < data.length; i++) {
             double predicted = 0;
             for (int j = 0; j < arCoeffs.length; j++) {
-                predicted += arCoeffs[j] * data.get(i - j - 1);
+                predicted += arCoeffs[j] * data[i - j - 1];
             }
-            residuals.add(data.get(i) - predicted);
+            residuals[i - p] = data[i] - predicted;
         }
         
         return residuals;
@@ -274,8 +427,8 @@ class ArimaForecaster {
     /**
      * 估计MA系数
      */
-    private double[] estimateMaCoefficients(List<Double> residuals, int q) {
-        if (q == 0 || residuals.isEmpty()) {
+    private double[] estimateMaCoefficients(double[] residuals, int q) {
+        if (q == 0 || residuals.length == 0) {
             return new double[0];
         }
 
@@ -294,33 +447,35 @@ class ArimaForecaster {
     /**
      * 使用ARMA模型预测
      */
-    private List<Double> predictArma(ArmaModel model, List<Double> history, int periods) {
-        List<Double> forecast = new ArrayList<>();
-        List<Double> extended = new ArrayList<>(history);
-        List<Double> errors = new ArrayList<>(model.residuals);
+    private double[] predictArma(ArmaModel model, double[] history, int periods) {
+        double[] forecast = new double[periods];
+        // 预测值依次追加到历史之后，未来误差假设为0（数组默认值）
+        double[] extended = Arrays.copyOf(history, history.length + periods);
+        double[] errors = Arrays.copyOf(model.residuals, model.residuals.length + periods);
         
         for (int step = 0; step < periods; step++) {
+            int extendedSize = history.length + step;
+            int errorSize = model.residuals.length + step;
             double prediction = model.mean;
             
             // AR部分
             for (int i = 0; i < model.arCoeffs.length; i++) {
-                int index = extended.size() - i - 1;
+                int index = extendedSize - i - 1;
                 if (index >= 0) {
-                    prediction += model.arCoeffs[i] * (extended.get(index) - model.mean);
+                    prediction += model.arCoeffs[i] * (extended[index] - model.mean);
                 }
             }
             
             // MA部分（使用历史误差）
             for (int i = 0; i < model.maCoeffs.length; i++) {
-                int index = errors.size() - i - 1;
+                int index = errorSize - i - 1;
                 if (index >= 0) {
-                    prediction += model.maCoeffs[i] * errors.get(index);
+                    prediction += model.maCoeffs[i] * errors[index];
                 }
             }
             
-            forecast.add(prediction);
-            extended.add(prediction);
-            errors.add(0.0);  // 未来误差假设为0
+            forecast[step] = prediction;
+            extended[extendedSize] = prediction;
         }
         
         return forecast;
@@ -344,20 +499,136 @@ class ArimaForecaster {
         }
     }
 
+    /**
+     * 已拟合的ARIMA模型：差分阶数与差分序列上的ARMA模型
+     */
+    record Fitted(int d, ArmaModel model) {
+    }
+
     /**
      * ARMA模型数据结构
      */
-    private static class ArmaModel {
+    static final class ArmaModel {
         final double[] arCoeffs;
         final double[] maCoeffs;
         final double mean;
-        final List<Double> residuals;
+        final double[] residuals;
 
-        ArmaModel(double[] arCoeffs, double[] maCoeffs, double mean, List<Double> residuals) {
+        ArmaModel(double[] arCoeffs, double[] maCoeffs, double mean, double[] residuals) {
             this.arCoeffs = arCoeffs;
             this.maCoeffs = maCoeffs;
             this.mean = mean;
             this.residuals = residuals;
         }
     }
+
+    /**
+     * 序列的前缀和与滞后乘积前缀和，可在 O(1) 时间内得到任意区间的 Σx 与 Σx_t·x_{t+L}
+     * 序列先平移首个值以降低大数相减带来的精度损失，自相关对平移不变
+     */
+    private static final class LaggedSums {
+        private final double shift;
+        private final double[] prefix;
+        private final double[][] laggedProducts;
+
+        LaggedSums(double[] data, int maxLag) {
+            int n = data.length;
+            this.shift = n > 0 ? data[0] : 0d;
+            this.prefix = new double[n + 1];
+            for (int i = 0; i < n; i++) {
+                prefix[i + 1] = prefix[i] + (data[i] - shift);
+            }
+            this.laggedProducts = new double[maxLag + 1][];
+            for (int lag = 0; lag <= maxLag; lag++) {
+                int length = Math.max(0, n - lag);
+                double[] products = new double[length + 1];
+                for (int t = 0; t < length; t++) {
+                    products[t + 1] = products[t] + (data[t] - shift) * (data[t + lag] - shift);
+                }
+                laggedProducts[lag] = products;
+            }
+        }
+
+        double mean(int m) {
+            return shift + prefix[m] / m;
+        }
+
+        /** Σ_{t=from}^{to-1} x_t */
+        private double sum(int from, int to) {
+            return prefix[to] - prefix[from];
+        }
+
+        /** Σ_{t=from}^{to-1} x_t·x_{t+lag} */
+        private double product(int lag, int from, int to) {
+            return laggedProducts[lag][to] - laggedProducts[lag][from];
+        }
+
+        /**
+         * 与 calculateAutocorrelation(data[0, m), maxLag) 一致
+         */
+        double[] autocorrelation(int m, int maxLag) {
+            double[] acf = new double[maxLag + 1];
+            double mean = prefix[m] / m;
+            double variance = (product(0, 0, m) - prefix[m] * mean) / m;
+            if (isZeroVariance(variance, mean)) {
+                return acf;
+            }
+            for (int lag = 0; lag <= maxLag && lag < m; lag++) {
+                double centered = product(lag, 0, m - lag)
+                    - mean * (sum(0, m - lag) + sum(lag, m))
+                    + (m - lag) * mean * mean;
+                acf[lag] = centered / (m * variance);
+            }
+            return acf;
+        }
+
+        /**
+         * 残差序列 r_k = Σ_u filter[u]·x_{k-u}（k ∈ [start, m)）的自相关，与 calculateAutocorrelation(residuals, maxLag) 一致
+         */
+        double[] filteredAutocorrelation(double[] filter, int start, int m, int maxLag) {
+            int count = m - start;
+            double[] acf = new double[maxLag + 1];
+            double total = filteredSum(filter, start, m);
+            double mean = total / count;
+            double variance = (filteredProduct(filter, 0, start, m) - total * mean) / count;
+            if (isZeroVariance(variance, mean)) {
+                return acf;
+            }
+            for (int lag = 0; lag <= maxLag && lag < count; lag++) {
+                double centered = filteredProduct(filter, lag, start, m - lag)
+                    - mean * (filteredSum(filter, start, m - lag) + filteredSum(filter, start + lag, m))
+                    + (count - lag) * mean * mean;
+                acf[lag] = centered / (count * variance);
+            }
+            return acf;
+        }
+
+        /** Σ_{k=from}^{to-1} r_k */
+        private double filteredSum(double[] filter, int from, int to) {
+            double total = 0;
+            for (int u = 0; u < filter.length; u++) {
+                total += filter[u] * sum(from - u, to - u);
+            }
+            return total;
+        }
+
+        /** Σ_{k=from}^{to-1} r_k·r_{k+lag} */
+        private double filteredProduct(double[] filter, int lag, int from, int to) {
+            double total = 0;
+            for (int u = 0; u < filter.length; u++) {
+                for (int v = 0; v < filter.length; v++) {
+                    int gap = lag + u - v;
+                    double cross = gap >= 0
+                        ? product(gap, from - u, to - u)
+                        : product(-gap, from + lag - v, to + lag - v);
+                    total += filter[u] * filter[v] * cross;
+                }
+            }
+            return total;
+        }
+
+        private static boolean isZeroVariance(double variance, double mean) {
+            return variance <= 1e-12 * Math.max(1d, mean * mean);
+        }
+    }
 }
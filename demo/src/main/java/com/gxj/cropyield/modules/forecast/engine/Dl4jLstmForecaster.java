@@ -1,29 +1,47 @@
 package com.gxj.cropyield.modules.forecast.engine;
 
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
 import org.deeplearning4j.nn.conf.layers.LSTM;
 import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.optimize.listeners.ScoreIterationListener;
+import org.deeplearning4j.util.ModelSerializer;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * 预测管理模块的业务组件，封装预测管理的算法或执行流程。
+ * <p>网络显式使用工作区模式：训练与推理的中间激活、梯度分配在按线程复用的 ND4J 工作区中，
+ * 递推预测的输入也放在线程级工作区里；BLAS / OpenMP 线程数按候选模型并行度限制，
+ * 多个训练同时运行时原生线程总数不超过核心数。</p>
  */
 
 class Dl4jLstmForecaster {
 
+    private static final Logger log = LoggerFactory.getLogger(Dl4jLstmForecaster.class);
+
     private static final int MIN_WINDOW_SIZE = 2;
     private static final int MAX_WINDOW_SIZE = 10;  // 降低到10
     private static final double EPSILON = 1e-9;
@@ -32,12 +50,55 @@ class Dl4jLstmForecaster {
     private static final int DEFAULT_EPOCHS = 20;  // 大幅降低到20
     private static final double DEFAULT_DROPOUT = 0.1;  // 降低dropout
     private static final int DEFAULT_SEED = 42;
+    private static final int DEFAULT_WARM_START_EPOCHS = 3;  // 热启动时的增量训练轮数
+    private static final String PROJECTION_WORKSPACE_ID = "LSTM_PROJECTION_WS";
+
+    /**
+     * ND4J 的线程数与堆外内存回收间隔是进程级设置，只在首次训练时应用一次
+     */
+    private static final AtomicBoolean RUNTIME_CONFIGURED = new AtomicBoolean();
+
+    private final Settings settings;
+    private final WorkspaceConfiguration projectionWorkspace;
+
+    Dl4jLstmForecaster() {
+        this(Settings.of(new ForecastEngineProperties()));
+    }
+
+    Dl4jLstmForecaster(Settings settings) {
+        this.settings = settings;
+        this.projectionWorkspace = settings.workspaceMode() == WorkspaceMode.ENABLED
+            ? WorkspaceConfiguration.builder()
+                .initialSize(settings.workspaceInitialBytes())
+                .policyAllocation(AllocationPolicy.STRICT)
+                .policyLearning(LearningPolicy.NONE)
+                .build()
+            : null;
+    }
 
     Optional<List<Double>> forecast(List<Double> historyValues, int periods) {
         return forecast(historyValues, periods, null);
     }
 
     Optional<List<Double>> forecast(List<Double> historyValues, int periods, Map<String, Object> parameters) {
+        if (historyValues == null) {
+            return Optional.empty();
+        }
+        return forecast(DoubleSeries.of(historyValues), periods, parameters, null)
+            .map(fitted -> DoubleSeries.boxed(fitted.values()));
+    }
+
+    /**
+     * 支持热启动的预测：warmStart 不为空且网络结构一致时，从其权重出发只训练少量增量轮次
+     * （参数 warmStartEpochs，默认 {@value #DEFAULT_WARM_START_EPOCHS}），否则从头训练
+     *
+     * @param warmStart 上一回测折训练得到的网络，可为空；面向用户的全量拟合应传空，从头训练完整轮次
+     * @return 预测值以及本次训练得到、可供下一次热启动的网络
+     */
+    Optional<FittedForecast> forecast(DoubleSeries historyValues,
+                                      int periods,
+                                      Map<String, Object> parameters,
+                                      WarmStart warmStart) {
         if (historyValues == null || historyValues.size() <= MIN_WINDOW_SIZE) {
             return Optional.empty();
         }
@@ -45,31 +106,30 @@ class Dl4jLstmForecaster {
             periods = 1;
         }
 
-        double min = historyValues.stream().mapToDouble(Double::doubleValue).min().orElse(0d);
-        double max = historyValues.stream().mapToDouble(Double::doubleValue).max().orElse(min);
+        double min = historyValues.min();
+        double max = historyValues.max();
         double range = Math.max(max - min, EPSILON);
         if (range <= EPSILON) {
-            return Optional.of(repeat(historyValues.get(historyValues.size() - 1), periods));
+            return Optional.of(new FittedForecast(repeat(historyValues.last(), periods), warmStart));
         }
 
-        // 改进窗口大小计算：更保守的策略
-        int windowSize = Math.min(MAX_WINDOW_SIZE, Math.max(MIN_WINDOW_SIZE, historyValues.size() / 3));
-        if (windowSize >= historyValues.size()) {
-            windowSize = Math.max(MIN_WINDOW_SIZE, historyValues.size() - 1);
-        }
+        int windowSize = windowSize(historyValues.size());
         if (windowSize < MIN_WINDOW_SIZE) {
             return Optional.empty();
         }
 
         // 使用更稳健的归一化方法（Min-Max归一化）
-        double[] scaledSeries = historyValues.stream()
-            .mapToDouble(v -> (v - min) / range)
-            .toArray();
-        int sampleCount = scaledSeries.length - windowSize;
+        int historySize = historyValues.size();
+        double[] scaledSeries = new double[historySize];
+        for (int i = 0; i < historySize; i++) {
+            scaledSeries[i] = (historyValues.get(i) - min) / range;
+        }
+        int sampleCount = historySize - windowSize;
         if (sampleCount <= 0) {
             return Optional.empty();
         }
 
+        configureRuntime(settings);
         DataSet trainingData = buildTrainingSet(scaledSeries, windowSize, sampleCount);
         
         // Extract parameters with improved defaults
@@ -84,19 +144,28 @@ class Dl4jLstmForecaster {
             Nd4j.getRandom().setSeed(seed);
         }
         
-        MultiLayerNetwork network = buildNetwork(learningRate, hiddenSize, dropout, seed);
-        network.init();
+        MultiLayerNetwork network;
+        int epochs;
+        if (warmStart != null && warmStart.isCompatible(learningRate, hiddenSize, dropout, seed)) {
+            // 热启动：LSTM权重与序列长度无关，可直接沿用上一折的网络，只做少量增量训练
+            network = warmStart.network().clone();
+            epochs = extractIntParameter(parameters, "warmStartEpochs", DEFAULT_WARM_START_EPOCHS);
+        } else {
+            network = buildNetwork(learningRate, hiddenSize, dropout, seed);
+            network.init();
+            // 改进的epoch计算：基于数据量和样本数
+            epochs = epochsParam != null ? epochsParam : calculateOptimalEpochs(sampleCount, historyValues.size());
+        }
         network.setListeners(new ScoreIterationListener(Math.max(10, sampleCount)));
         
-        // 改进的epoch计算：基于数据量和样本数
-        int epochs = epochsParam != null ? epochsParam : calculateOptimalEpochs(sampleCount, historyValues.size());
-        
         // 训练模型，添加早停机制
         double previousScore = Double.MAX_VALUE;
         int noImprovementCount = 0;
         for (int epoch = 0; epoch < epochs; epoch++) {
+            ForecastCancellation.checkpoint();
             network.fit(trainingData);
             double currentScore = network.score();
+            ForecastCancellation.reportProgress("LSTM训练", epoch + 1, epochs);
             
             // 早停：如果连续3轮没有改善，提前停止
             if (epoch > 5 && currentScore >= previousScore * 0.999) {
@@ -110,19 +179,45 @@ class Dl4jLstmForecaster {
             previousScore = currentScore;
         }
 
-        // 生成预测值，添加平滑处理
-        List<Double> normalizedWorking = new ArrayList<>();
-        for (double value : scaledSeries) {
-            normalizedWorking.add(value);
+        return project(network, historyValues, periods)
+            .map(values -> new FittedForecast(values, new WarmStart(network, learningRate, hiddenSize, dropout, seed)));
+    }
+
+    /**
+     * 用已训练的网络对 historyValues 之后的 periods 期做递推预测，不做任何训练；
+     * 归一化范围与窗口长度由 historyValues 重新计算，与训练时一致
+     */
+    Optional<double[]> project(MultiLayerNetwork network, DoubleSeries historyValues, int periods) {
+        if (historyValues == null || historyValues.size() <= MIN_WINDOW_SIZE) {
+            return Optional.empty();
+        }
+        if (periods <= 0) {
+            periods = 1;
         }
-        List<Double> forecasts = new ArrayList<>();
-        double lastActual = historyValues.get(historyValues.size() - 1);
+        double min = historyValues.min();
+        double max = historyValues.max();
+        double range = Math.max(max - min, EPSILON);
+        if (range <= EPSILON) {
+            return Optional.of(repeat(historyValues.last(), periods));
+        }
+        int windowSize = windowSize(historyValues.size());
+        if (windowSize < MIN_WINDOW_SIZE) {
+            return Optional.empty();
+        }
+        // 预留 periods 个位置，递推预测时直接追加归一化后的预测值
+        int historySize = historyValues.size();
+        double[] scaledSeries = new double[historySize + periods];
+        for (int i = 0; i < historySize; i++) {
+            scaledSeries[i] = (historyValues.get(i) - min) / range;
+        }
+
+        // 生成预测值，添加平滑处理
+        double[] forecasts = new double[periods];
+        double lastActual = historyValues.last();
+        double[] window = new double[windowSize];
         
         for (int step = 0; step < periods; step++) {
-            double[] window = new double[windowSize];
-            for (int i = 0; i < windowSize; i++) {
-                window[i] = normalizedWorking.get(normalizedWorking.size() - windowSize + i);
-            }
+            System.arraycopy(scaledSeries, historySize + step - windowSize, window, 0, windowSize);
             double prediction = predict(network, window);
             if (!Double.isFinite(prediction)) {
                 return Optional.empty();
@@ -143,18 +238,40 @@ class Dl4jLstmForecaster {
             } else {
                 // 后续预测值不应该与前一个预测值相差太大
                 double maxChange = range * 0.2;
-                double lastForecast = forecasts.get(forecasts.size() - 1);
+                double lastForecast = forecasts[step - 1];
                 if (Math.abs(denormalized - lastForecast) > maxChange) {
                     denormalized = lastForecast + Math.signum(denormalized - lastForecast) * maxChange;
                 }
             }
             
-            forecasts.add(denormalized);
-            normalizedWorking.add(prediction);
+            forecasts[step] = denormalized;
+            scaledSeries[historySize + step] = prediction;
         }
         return Optional.of(forecasts);
     }
 
+    /**
+     * 将网络结构与权重写入输出流（不含优化器状态）
+     */
+    static void writeNetwork(MultiLayerNetwork network, OutputStream out) throws IOException {
+        ModelSerializer.writeModel(network, out, false);
+    }
+
+    static MultiLayerNetwork readNetwork(InputStream in) throws IOException {
+        return ModelSerializer.restoreMultiLayerNetwork(in, false);
+    }
+
+    /**
+     * 改进窗口大小计算：更保守的策略；返回值小于 MIN_WINDOW_SIZE 表示数据不足
+     */
+    private static int windowSize(int historySize) {
+        int windowSize = Math.min(MAX_WINDOW_SIZE, Math.max(MIN_WINDOW_SIZE, historySize / 3));
+        if (windowSize >= historySize) {
+            windowSize = Math.max(MIN_WINDOW_SIZE, historySize - 1);
+        }
+        return windowSize;
+    }
+
     private DataSet buildTrainingSet(double[] scaledSeries, int windowSize, int sampleCount) {
         var features = Nd4j.create(sampleCount, 1, windowSize);
         var labels = Nd4j.create(sampleCount, 1, windowSize);
@@ -185,6 +302,8 @@ class Dl4jLstmForecaster {
             .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
             .weightInit(WeightInit.XAVIER)
             .updater(new Adam(learningRate))
+            .trainingWorkspaceMode(settings.workspaceMode())
+            .inferenceWorkspaceMode(settings.workspaceMode())
             .list(
                 new LSTM.Builder()
                     .activation(Activation.TANH)
@@ -258,7 +377,20 @@ class Dl4jLstmForecaster {
         }
     }
 
+    /**
+     * 单步预测的输入放在当前线程的工作区中，逐期递推时复用同一块内存；网络输出默认已脱离工作区
+     */
     private double predict(MultiLayerNetwork network, double[] window) {
+        if (projectionWorkspace == null) {
+            return output(network, window);
+        }
+        try (MemoryWorkspace ignored = Nd4j.getWorkspaceManager()
+            .getAndActivateWorkspace(projectionWorkspace, PROJECTION_WORKSPACE_ID)) {
+            return output(network, window);
+        }
+    }
+
+    private double output(MultiLayerNetwork network, double[] window) {
         var input = Nd4j.create(1, 1, window.length);
         for (int i = 0; i < window.length; i++) {
             input.putScalar(new int[]{0, 0, i}, window[i]);
@@ -267,11 +399,25 @@ class Dl4jLstmForecaster {
         return output.getDouble(0, 0, window.length - 1);
     }
 
-    private List<Double> repeat(double value, int periods) {
-        List<Double> results = new ArrayList<>();
-        for (int i = 0; i < periods; i++) {
-            results.add(value);
+    private static void configureRuntime(Settings settings) {
+        if (!RUNTIME_CONFIGURED.compareAndSet(false, true)) {
+            return;
         }
+        try {
+            Nd4j.getEnvironment().setMaxThreads(settings.blasThreads());
+            Nd4j.getEnvironment().setMaxMasterThreads(settings.blasThreads());
+            Nd4j.factory().blas().setMaxThreads(settings.blasThreads());
+            Nd4j.getMemoryManager().setAutoGcWindow((int) Math.min(Integer.MAX_VALUE, settings.gcWindowMillis()));
+            log.info("ND4J运行参数已设置 - 工作区模式: {}, BLAS线程数: {}, 堆外内存回收间隔: {}ms",
+                settings.workspaceMode(), settings.blasThreads(), settings.gcWindowMillis());
+        } catch (RuntimeException | LinkageError ex) {
+            log.warn("ND4J运行参数设置失败，使用默认线程配置: {}", ex.getMessage());
+        }
+    }
+
+    private double[] repeat(double value, int periods) {
+        double[] results = new double[periods];
+        Arrays.fill(results, value);
         return results;
     }
 
@@ -284,4 +430,59 @@ class Dl4jLstmForecaster {
         }
         return value;
     }
+
+    /**
+     * 带热启动网络的预测结果
+     */
+    record FittedForecast(double[] values, WarmStart warmStart) {
+    }
+
+    /**
+     * 训练完成的网络及其超参数，仅在超参数一致时才可用于热启动
+     */
+    record WarmStart(MultiLayerNetwork network, double learningRate, int hiddenSize, double dropout, int seed) {
+
+        boolean isCompatible(double learningRate, int hiddenSize, double dropout, int seed) {
+            return this.hiddenSize == hiddenSize
+                && this.seed == seed
+                && Double.compare(this.learningRate, learningRate) == 0
+                && Double.compare(this.dropout, dropout) == 0;
+        }
+    }
+
+    /**
+     * 工作区与线程配置，由 forecast.engine.lstm 解析而来
+     */
+    record Settings(WorkspaceMode workspaceMode, int blasThreads, long workspaceInitialBytes, long gcWindowMillis) {
+
+        /**
+         * blas-threads 未配置时按 {@link #defaultBlasThreads} 计算
+         */
+        static Settings of(ForecastEngineProperties properties) {
+            ForecastEngineProperties.Lstm lstm = properties.getLstm();
+            WorkspaceMode mode = "none".equalsIgnoreCase(lstm.getWorkspaceMode())
+                ? WorkspaceMode.NONE
+                : WorkspaceMode.ENABLED;
+            int blasThreads = lstm.getBlasThreads() > 0
+                ? lstm.getBlasThreads()
+                : defaultBlasThreads(Runtime.getRuntime().availableProcessors(), properties);
+            long workspaceBytes = lstm.getWorkspaceInitialSize() != null
+                ? lstm.getWorkspaceInitialSize().toBytes()
+                : 8L * 1024 * 1024;
+            long gcWindowMillis = lstm.getGcWindow() != null ? lstm.getGcWindow().toMillis() : 5_000L;
+            return new Settings(mode, blasThreads, workspaceBytes, gcWindowMillis);
+        }
+
+        /**
+         * CPU 核数除以可同时训练 LSTM 的线程总数：候选模型、批量预测、异步预测与队列消费线程池的线程数之和，
+         * 使这些线程池同时训练时原生线程总数不超过核心数
+         */
+        static int defaultBlasThreads(int cores, ForecastEngineProperties properties) {
+            int trainingSlots = Math.max(1, properties.getCandidateParallelism())
+                + Math.max(1, properties.getBatchParallelism())
+                + Math.max(1, properties.getAsyncParallelism())
+                + Math.max(1, properties.getWorker().getParallelism());
+            return Math.max(1, cores / trainingSlots);
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 基于 double[] 的只读时间序列，供预测引擎与各预测器在内部传递历史数据
+ * <p>前缀通过 {@link #prefix(int)} 以视图方式共享底层数组，滚动回测时不再为每个前缀复制并装箱一份 List。
+ * 仅在与外部接口交互时才通过 {@link #toList()} 装箱。</p>
+ */
+final class DoubleSeries {
+
+    private static final DoubleSeries EMPTY = new DoubleSeries(new double[0], 0);
+
+    private final double[] values;
+    private final int length;
+
+    private DoubleSeries(double[] values, int length) {
+        this.values = values;
+        this.length = length;
+    }
+
+    /**
+     * 复制装箱列表中的值；列表中不允许出现 null
+     */
+    static DoubleSeries of(List<Double> values) {
+        if (values == null || values.isEmpty()) {
+            return EMPTY;
+        }
+        double[] copy = new double[values.size()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = values.get(i);
+        }
+        return new DoubleSeries(copy, copy.length);
+    }
+
+    /**
+     * 直接包装数组（不复制），调用方此后不应再修改该数组
+     */
+    static DoubleSeries wrap(double[] values) {
+        Objects.requireNonNull(values, "values");
+        return values.length == 0 ? EMPTY : new DoubleSeries(values, values.length);
+    }
+
+    static List<Double> boxed(double[] values) {
+        List<Double> result = new ArrayList<>(values.length);
+        for (double value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    int size() {
+        return length;
+    }
+
+    boolean isEmpty() {
+        return length == 0;
+    }
+
+    double get(int index) {
+        Objects.checkIndex(index, length);
+        return values[index];
+    }
+
+    double last() {
+        return get(length - 1);
+    }
+
+    /**
+     * 前 size 个点构成的视图，与原序列共享底层数组
+     */
+    DoubleSeries prefix(int size) {
+        Objects.checkFromToIndex(0, size, length);
+        return size == length ? this : new DoubleSeries(values, size);
+    }
+
+    double sum() {
+        double total = 0d;
+        for (int i = 0; i < length; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    double mean() {
+        return length == 0 ? 0d : sum() / length;
+    }
+
+    double min() {
+        double result = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            result = Math.min(result, values[i]);
+        }
+        return result;
+    }
+
+    double max() {
+        double result = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            result = Math.max(result, values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 总体标准差 sqrt(Σ(x - mean)² / n)
+     */
+    double populationStdDev(double mean) {
+        if (length == 0) {
+            return 0d;
+        }
+        double sumSq = 0d;
+        for (int i = 0; i < length; i++) {
+            double diff = values[i] - mean;
+            sumSq += diff * diff;
+        }
+        return Math.sqrt(sumSq / length);
+    }
+
+    /**
+     * 样本标准差 sqrt(Σ(x - mean)² / (n - 1))，少于两个点时为 0
+     */
+    double sampleStdDev() {
+        if (length < 2) {
+            return 0d;
+        }
+        double mean = mean();
+        double sumSq = 0d;
+        for (int i = 0; i < length; i++) {
+            double diff = values[i] - mean;
+            sumSq += diff * diff;
+        }
+        return Math.sqrt(sumSq / (length - 1));
+    }
+
+    /**
+     * 一阶差分序列 x[i] - x[i-1]
+     */
+    DoubleSeries differenced() {
+        if (length <= 1) {
+            return EMPTY;
+        }
+        double[] result = new double[length - 1];
+        for (int i = 1; i < length; i++) {
+            result[i - 1] = values[i] - values[i - 1];
+        }
+        return new DoubleSeries(result, result.length);
+    }
+
+    double[] toArray() {
+        return Arrays.copyOf(values, length);
+    }
+
+    List<Double> toList() {
+        List<Double> result = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            result.add(values[i]);
+        }
+        return result;
+    }
+}
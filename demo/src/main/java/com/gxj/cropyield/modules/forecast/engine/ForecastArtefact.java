@@ -0,0 +1,249 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import com.gxj.cropyield.modules.forecast.entity.ForecastModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 已拟合模型的制品：ARIMA 系数、Prophet 趋势与季节性组件或 LSTM 网络权重，以及训练时得到的评估指标与回测残差。
+ * <p>制品与训练请求的指纹（见 {@link ForecastModelCache#fingerprint}）绑定，指纹一致时可直接用
+ * {@link LocalForecastEngine#score} 给出预测而无需重新训练和回测。二进制格式为带版本号的 DataOutput 流，
+ * LSTM 网络以 DL4J 自带的序列化格式内嵌。</p>
+ */
+public final class ForecastArtefact {
+
+    private static final int MAGIC = 0x43594641;
+    private static final int FORMAT_VERSION = 1;
+
+    private final ForecastModel.ModelType modelType;
+    private final String fingerprint;
+    private final Instant trainedAt;
+    private final ForecastEngineResponse.EvaluationMetrics metrics;
+    private final double[] residuals;
+    private final ArimaForecaster.Fitted arima;
+    private final ProphetForecaster.Fitted prophet;
+    private final Dl4jLstmForecaster.WarmStart lstm;
+
+    private ForecastArtefact(ForecastModel.ModelType modelType,
+                             String fingerprint,
+                             Instant trainedAt,
+                             ForecastEngineResponse.EvaluationMetrics metrics,
+                             double[] residuals,
+                             ArimaForecaster.Fitted arima,
+                             ProphetForecaster.Fitted prophet,
+                             Dl4jLstmForecaster.WarmStart lstm) {
+        this.modelType = modelType;
+        this.fingerprint = fingerprint;
+        this.trainedAt = trainedAt;
+        this.metrics = metrics;
+        this.residuals = residuals;
+        this.arima = arima;
+        this.prophet = prophet;
+        this.lstm = lstm;
+    }
+
+    static ForecastArtefact arima(String fingerprint,
+                                  ForecastEngineResponse.EvaluationMetrics metrics,
+                                  double[] residuals,
+                                  ArimaForecaster.Fitted fitted) {
+        return new ForecastArtefact(ForecastModel.ModelType.ARIMA, fingerprint, Instant.now(),
+            metrics, residuals, fitted, null, null);
+    }
+
+    static ForecastArtefact prophet(String fingerprint,
+                                    ForecastEngineResponse.EvaluationMetrics metrics,
+                                    double[] residuals,
+                                    ProphetForecaster.Fitted fitted) {
+        return new ForecastArtefact(ForecastModel.ModelType.PROPHET, fingerprint, Instant.now(),
+            metrics, residuals, null, fitted, null);
+    }
+
+    static ForecastArtefact lstm(String fingerprint,
+                                 ForecastEngineResponse.EvaluationMetrics metrics,
+                                 double[] residuals,
+                                 Dl4jLstmForecaster.WarmStart network) {
+        return new ForecastArtefact(ForecastModel.ModelType.LSTM, fingerprint, Instant.now(),
+            metrics, residuals, null, null, network);
+    }
+
+    public ForecastModel.ModelType modelType() {
+        return modelType;
+    }
+
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    public Instant trainedAt() {
+        return trainedAt;
+    }
+
+    public ForecastEngineResponse.EvaluationMetrics metrics() {
+        return metrics;
+    }
+
+    double[] residuals() {
+        return residuals;
+    }
+
+    ArimaForecaster.Fitted arima() {
+        return arima;
+    }
+
+    ProphetForecaster.Fitted prophet() {
+        return prophet;
+    }
+
+    Dl4jLstmForecaster.WarmStart lstm() {
+        return lstm;
+    }
+
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(modelType.name());
+            out.writeUTF(fingerprint);
+            out.writeLong(trainedAt.toEpochMilli());
+            writeNullable(out, metrics != null ? metrics.mae() : null);
+            writeNullable(out, metrics != null ? metrics.rmse() : null);
+            writeNullable(out, metrics != null ? metrics.mape() : null);
+            writeNullable(out, metrics != null ? metrics.r2() : null);
+            writeArray(out, residuals);
+            switch (modelType) {
+                case ARIMA -> {
+                    ArimaForecaster.ArmaModel model = arima.model();
+                    out.writeInt(arima.d());
+                    writeArray(out, model.arCoeffs);
+                    writeArray(out, model.maCoeffs);
+                    out.writeDouble(model.mean);
+                    writeArray(out, model.residuals);
+                }
+                case PROPHET -> {
+                    ProphetForecaster.TrendComponent trend = prophet.trend();
+                    out.writeDouble(trend.intercept);
+                    writeArray(out, trend.slopes);
+                    out.writeInt(trend.changepoints.size());
+                    for (Integer changepoint : trend.changepoints) {
+                        out.writeInt(changepoint);
+                    }
+                    out.writeDouble(trend.priorScale);
+                    ProphetForecaster.SeasonalityComponent seasonality = prophet.seasonality();
+                    out.writeInt(seasonality.period);
+                    writeArray(out, seasonality.pattern);
+                    out.writeDouble(seasonality.priorScale);
+                }
+                case LSTM -> {
+                    out.writeDouble(lstm.learningRate());
+                    out.writeInt(lstm.hiddenSize());
+                    out.writeDouble(lstm.dropout());
+                    out.writeInt(lstm.seed());
+                    ByteArrayOutputStream network = new ByteArrayOutputStream(16 * 1024);
+                    Dl4jLstmForecaster.writeNetwork(lstm.network(), network);
+                    out.writeInt(network.size());
+                    network.writeTo(out);
+                }
+                default -> throw new IOException("不支持序列化的模型类型: " + modelType);
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    public static ForecastArtefact fromBytes(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是有效的模型制品");
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("不支持的模型制品版本: " + version);
+            }
+            ForecastModel.ModelType modelType = ForecastModel.ModelType.valueOf(in.readUTF());
+            String fingerprint = in.readUTF();
+            Instant trainedAt = Instant.ofEpochMilli(in.readLong());
+            ForecastEngineResponse.EvaluationMetrics metrics = new ForecastEngineResponse.EvaluationMetrics(
+                readNullable(in), readNullable(in), readNullable(in), readNullable(in));
+            double[] residuals = readArray(in);
+            switch (modelType) {
+                case ARIMA -> {
+                    int d = in.readInt();
+                    ArimaForecaster.ArmaModel model = new ArimaForecaster.ArmaModel(
+                        readArray(in), readArray(in), in.readDouble(), readArray(in));
+                    return new ForecastArtefact(modelType, fingerprint, trainedAt, metrics, residuals,
+                        new ArimaForecaster.Fitted(d, model), null, null);
+                }
+                case PROPHET -> {
+                    double intercept = in.readDouble();
+                    double[] slopes = readArray(in);
+                    int changepointCount = in.readInt();
+                    List<Integer> changepoints = new ArrayList<>(changepointCount);
+                    for (int i = 0; i < changepointCount; i++) {
+                        changepoints.add(in.readInt());
+                    }
+                    ProphetForecaster.TrendComponent trend = new ProphetForecaster.TrendComponent(
+                        intercept, slopes, changepoints, in.readDouble());
+                    ProphetForecaster.SeasonalityComponent seasonality = new ProphetForecaster.SeasonalityComponent(
+                        in.readInt(), readArray(in), in.readDouble());
+                    return new ForecastArtefact(modelType, fingerprint, trainedAt, metrics, residuals,
+                        null, new ProphetForecaster.Fitted(trend, seasonality), null);
+                }
+                case LSTM -> {
+                    double learningRate = in.readDouble();
+                    int hiddenSize = in.readInt();
+                    double dropout = in.readDouble();
+                    int seed = in.readInt();
+                    byte[] network = new byte[in.readInt()];
+                    in.readFully(network);
+                    Dl4jLstmForecaster.WarmStart warmStart = new Dl4jLstmForecaster.WarmStart(
+                        Dl4jLstmForecaster.readNetwork(new ByteArrayInputStream(network)),
+                        learningRate, hiddenSize, dropout, seed);
+                    return new ForecastArtefact(modelType, fingerprint, trainedAt, metrics, residuals,
+                        null, null, warmStart);
+                }
+                default -> throw new IOException("不支持反序列化的模型类型: " + modelType);
+            }
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    private static void writeArray(DataOutputStream out, double[] values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static double[] readArray(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+}
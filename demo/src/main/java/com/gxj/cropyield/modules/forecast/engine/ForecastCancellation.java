@@ -0,0 +1,188 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 预测计算的协作式取消令牌，记录取消标记与截止时间，并可携带进度监听器
+ * <p>令牌通过 {@link #call(Supplier)} 绑定到当前线程；引擎在每个训练轮次、回测折之间调用 {@link #checkpoint()}，
+ * 已取消或超过截止时间时抛出 {@link ForecastCancelledException}，从而在一个轮次内释放计算线程。
+ * 子令牌继承父令牌的取消状态、截止时间与进度监听器，用于向候选模型线程池传递。</p>
+ */
+public final class ForecastCancellation {
+
+    private static final ForecastCancellation NONE = new ForecastCancellation(null, Long.MAX_VALUE, false);
+
+    private static final ThreadLocal<ForecastCancellation> CURRENT = new ThreadLocal<>();
+
+    private final ForecastCancellation parent;
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private volatile boolean cancelled;
+    private volatile ForecastProgressListener progressListener;
+
+    private ForecastCancellation(ForecastCancellation parent, long deadlineNanos, boolean hasDeadline) {
+        this.parent = parent;
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = hasDeadline;
+    }
+
+    /**
+     * 创建令牌；timeout 为 null 或非正数时不设截止时间
+     */
+    public static ForecastCancellation withTimeout(Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+            return new ForecastCancellation(null, Long.MAX_VALUE, false);
+        }
+        return new ForecastCancellation(null, System.nanoTime() + timeout.toNanos(), true);
+    }
+
+    /**
+     * 当前线程绑定的令牌，未绑定时返回永不取消的空令牌
+     */
+    static ForecastCancellation current() {
+        ForecastCancellation token = CURRENT.get();
+        return token != null ? token : NONE;
+    }
+
+    /**
+     * 检查当前线程的令牌，已取消或超时时抛出异常；也用于排队等待计算预算期间
+     */
+    public static void checkpoint() {
+        ForecastCancellation token = CURRENT.get();
+        if (token != null) {
+            token.throwIfStopped();
+        }
+    }
+
+    /**
+     * 向当前线程令牌的进度监听器上报进度，未绑定令牌或监听器时忽略
+     */
+    static void reportProgress(String stage, int completed, int total) {
+        ForecastCancellation token = CURRENT.get();
+        ForecastProgressListener listener = token != null ? token.listener() : null;
+        if (listener != null && total > 0) {
+            listener.onProgress(stage, completed, total);
+        }
+    }
+
+    /**
+     * 将任务作为第 index 个（共 count 个）子步骤执行，任务内部上报的进度按比例折算为整体进度
+     */
+    static <T> T withinStep(int index, int count, Supplier<T> task) {
+        ForecastCancellation token = CURRENT.get();
+        ForecastProgressListener listener = token != null ? token.listener() : null;
+        if (listener == null || count <= 0) {
+            return task.get();
+        }
+        ForecastCancellation step = token.child().onProgress((stage, completed, total) ->
+            listener.onProgress(stage, index * total + completed, count * total));
+        return step.call(task);
+    }
+
+    /**
+     * 创建 count 个可并行执行的子步骤，绑定 scope 的子令牌执行；整体进度为各子步骤完成比例之和，
+     * 并行的子步骤交替上报时整体进度也不会回退
+     */
+    static ParallelSteps parallelSteps(ForecastCancellation scope, int count) {
+        return new ParallelSteps(scope, count);
+    }
+
+    /**
+     * 创建子令牌：父令牌取消或超时时子令牌随之失效，子令牌单独取消不影响父令牌
+     */
+    ForecastCancellation child() {
+        return new ForecastCancellation(this, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * 在绑定本令牌的上下文中执行任务，结束后恢复线程原有的令牌
+     */
+    public <T> T call(Supplier<T> task) {
+        ForecastCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * 设置进度监听器，需在 {@link #call(Supplier)} 之前调用
+     */
+    public ForecastCancellation onProgress(ForecastProgressListener listener) {
+        this.progressListener = listener;
+        return this;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    public boolean isExpired() {
+        return (hasDeadline && System.nanoTime() - deadlineNanos >= 0) || (parent != null && parent.isExpired());
+    }
+
+    private ForecastProgressListener listener() {
+        if (progressListener != null) {
+            return progressListener;
+        }
+        return parent != null ? parent.listener() : null;
+    }
+
+    void throwIfStopped() {
+        if (isCancelled()) {
+            throw new ForecastCancelledException("预测任务已取消", false);
+        }
+        if (isExpired()) {
+            throw new ForecastCancelledException("预测任务执行超时", true);
+        }
+    }
+
+    /**
+     * 可在不同线程上并行执行的一组子步骤，共用一个进度汇总
+     */
+    static final class ParallelSteps {
+
+        private static final int SCALE = 1000;
+
+        private final ForecastCancellation scope;
+        private final ForecastProgressListener listener;
+        private final double[] fractions;
+
+        private ParallelSteps(ForecastCancellation scope, int count) {
+            this.scope = scope;
+            this.listener = scope.listener();
+            this.fractions = new double[Math.max(1, count)];
+        }
+
+        /**
+         * 在当前线程上将任务作为第 index 个子步骤执行
+         */
+        <T> T run(int index, Supplier<T> task) {
+            ForecastCancellation step = scope.child();
+            if (listener != null) {
+                step.onProgress((stage, completed, total) -> update(stage, index, (double) completed / total));
+            }
+            return step.call(task);
+        }
+
+        private synchronized void update(String stage, int index, double fraction) {
+            fractions[index] = Math.max(fractions[index], Math.min(1d, fraction));
+            double sum = 0d;
+            for (double value : fractions) {
+                sum += value;
+            }
+            listener.onProgress(stage, (int) Math.round(sum * SCALE), fractions.length * SCALE);
+        }
+    }
+}
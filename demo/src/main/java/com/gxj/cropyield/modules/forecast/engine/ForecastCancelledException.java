@@ -0,0 +1,18 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+/**
+ * 预测计算因取消或超过截止时间而中止
+ */
+public class ForecastCancelledException extends RuntimeException {
+
+    private final boolean timedOut;
+
+    public ForecastCancelledException(String message, boolean timedOut) {
+        super(message);
+        this.timedOut = timedOut;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+
+import java.util.Optional;
 /**
  * 预测管理模块的业务组件，封装预测管理的算法或执行流程。
  */
@@ -31,7 +33,34 @@ public class ForecastEngineClient {
     }
 
     public ForecastEngineResponse runForecast(ForecastEngineRequest request) {
-        if (StringUtils.hasText(properties.getBaseUrl())) {
+        ForecastEngineResponse remote = callRemote(request);
+        return remote != null ? remote : localForecastEngine.forecast(request);
+    }
+
+    /**
+     * 与 runForecast 相同，但由本地引擎训练时一并返回已拟合的模型制品；外部模型服务的结果不带制品
+     */
+    public TrainedForecast train(ForecastEngineRequest request) {
+        ForecastEngineResponse remote = callRemote(request);
+        return remote != null ? new TrainedForecast(remote, null) : localForecastEngine.train(request);
+    }
+
+    /**
+     * 用本地训练得到的模型制品免训练预测，见 {@link LocalForecastEngine#score}
+     */
+    public Optional<ForecastEngineResponse> score(ForecastEngineRequest request, ForecastArtefact artefact) {
+        return localForecastEngine.score(request, artefact);
+    }
+
+    /**
+     * 是否配置了外部模型服务；配置后预测优先由外部服务完成，本地模型制品不参与
+     */
+    public boolean isRemoteEnabled() {
+        return StringUtils.hasText(properties.getBaseUrl());
+    }
+
+    private ForecastEngineResponse callRemote(ForecastEngineRequest request) {
+        if (isRemoteEnabled()) {
             try {
                 ResponseEntity<ForecastEngineResponse> response = restTemplate.postForEntity(
                     properties.getBaseUrl(), request, ForecastEngineResponse.class);
@@ -43,6 +72,6 @@ public class ForecastEngineClient {
                 log.warn("调用外部模型服务失败，将使用内置回退逻辑: {}", ex.getMessage());
             }
         }
-        return localForecastEngine.forecast(request);
+        return null;
     }
 }
@@ -0,0 +1,265 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+/**
+ * 预测管理模块的业务组件，缓存已训练模型的预测结果与评估指标。
+ * <p>缓存键为模型类型、预测频率、预测期数、参数与历史序列的 SHA-256 指纹，序列未变化时重复请求直接命中；
+ * 同时按“区域-作物”维护二级索引，数据导入写入新产量后可整体失效。</p>
+ * <p>同一指纹同时只由一个调用方训练，其余调用方等待其结果；训练方被取消时由等待方接替训练。</p>
+ * <p>核心方法：getOrCompute、fingerprint、invalidate、invalidateRegion、invalidateAll。</p>
+ */
+
+@Component
+public class ForecastModelCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ForecastModelCache.class);
+
+    /**
+     * 等待其他调用方训练期间检查自身取消状态的间隔
+     */
+    private static final long WAIT_POLL_MILLIS = 200L;
+
+    private final boolean enabled;
+    private final Cache<String, CachedForecast> cache;
+    private final Map<Scope, Set<String>> scopeIndex = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<ForecastEngineResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 使用默认配置构建缓存，便于在非 Spring 环境下使用。
+     */
+    public ForecastModelCache() {
+        this(new ForecastEngineProperties());
+    }
+
+    @Autowired
+    public ForecastModelCache(ForecastEngineProperties properties) {
+        ForecastEngineProperties.ModelCache config = properties.getModelCache();
+        this.enabled = config.isEnabled() && config.getMaximumWeight() > 0;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(Math.max(config.getMaximumWeight(), 1L))
+            .weigher((String key, CachedForecast value) -> value.weight())
+            .expireAfterAccess(config.getExpireAfterAccess())
+            .removalListener((String key, CachedForecast value, RemovalCause cause) -> {
+                if (key != null && value != null && cause != RemovalCause.REPLACED) {
+                    detach(value.scope(), key);
+                }
+            })
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * 命中缓存时直接返回已训练模型的结果，相同指纹正在训练时等待其结果，否则执行训练并写入缓存。
+     */
+    public ForecastEngineResponse getOrCompute(Long regionId,
+                                               Long cropId,
+                                               ForecastEngineRequest request,
+                                               Supplier<ForecastEngineResponse> loader) {
+        if (!enabled || request == null) {
+            return loader.get();
+        }
+        String key = fingerprint(request);
+        while (true) {
+            CachedForecast cached = cache.getIfPresent(key);
+            if (cached != null) {
+                log.debug("预测模型缓存命中: model={}, region={}, crop={}", request.modelCode(), regionId, cropId);
+                return cached.response();
+            }
+            CompletableFuture<ForecastEngineResponse> training = new CompletableFuture<>();
+            CompletableFuture<ForecastEngineResponse> existing = inFlight.putIfAbsent(key, training);
+            if (existing == null) {
+                return train(key, new Scope(regionId, cropId), request, loader, training);
+            }
+            log.debug("相同指纹的模型正在训练，等待其结果: model={}, region={}, crop={}",
+                request.modelCode(), regionId, cropId);
+            try {
+                return awaitTraining(existing);
+            } catch (CancellationException ex) {
+                log.debug("训练方已取消，由当前调用方接替训练: model={}, region={}, crop={}",
+                    request.modelCode(), regionId, cropId);
+            }
+        }
+    }
+
+    /**
+     * 由当前调用方训练并把结果交给等待方；空结果同样交给等待方，但不写入缓存
+     */
+    private ForecastEngineResponse train(String key,
+                                         Scope scope,
+                                         ForecastEngineRequest request,
+                                         Supplier<ForecastEngineResponse> loader,
+                                         CompletableFuture<ForecastEngineResponse> training) {
+        try {
+            // 上一个训练方可能在本调用方查缓存之后才写入缓存并退出
+            CachedForecast cached = cache.getIfPresent(key);
+            ForecastEngineResponse response = cached != null ? cached.response() : loader.get();
+            if (cached == null && response != null && response.forecast() != null && !response.forecast().isEmpty()) {
+                scopeIndex.computeIfAbsent(scope, ignored -> ConcurrentHashMap.newKeySet()).add(key);
+                cache.put(key, new CachedForecast(scope, response, weigh(request, response)));
+            }
+            training.complete(response);
+            return response;
+        } catch (ForecastCancelledException ex) {
+            training.cancel(false);
+            throw ex;
+        } catch (RuntimeException | Error ex) {
+            training.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, training);
+        }
+    }
+
+    /**
+     * 等待其他调用方的训练结果，期间按当前线程的令牌响应取消；训练方失败时抛出相同的异常
+     */
+    private static ForecastEngineResponse awaitTraining(CompletableFuture<ForecastEngineResponse> training) {
+        while (true) {
+            ForecastCancellation.checkpoint();
+            try {
+                return training.get(WAIT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ignored) {
+                // 继续等待
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ForecastCancelledException("等待模型训练时线程被中断", false);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * 失效指定区域与作物下的全部缓存模型。
+     */
+    public void invalidate(Long regionId, Long cropId) {
+        Set<String> keys = scopeIndex.remove(new Scope(regionId, cropId));
+        if (keys != null && !keys.isEmpty()) {
+            cache.invalidateAll(keys);
+            log.debug("产量数据已更新，失效预测模型缓存 {} 项: region={}, crop={}", keys.size(), regionId, cropId);
+        }
+    }
+
+    /**
+     * 失效指定区域下全部作物的缓存模型，用于气象数据变更等区域级更新。
+     */
+    public void invalidateRegion(Long regionId) {
+        for (Scope scope : List.copyOf(scopeIndex.keySet())) {
+            if (Objects.equals(scope.regionId(), regionId)) {
+                invalidate(scope.regionId(), scope.cropId());
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        scopeIndex.clear();
+    }
+
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 计算请求指纹：参数按键排序后序列化，保证同一语义的请求得到相同的键。
+     */
+    public static String fingerprint(ForecastEngineRequest request) {
+        StringBuilder builder = new StringBuilder(256);
+        builder.append(request.modelCode()).append('|')
+            .append(request.frequency()).append('|')
+            .append(request.forecastPeriods()).append('|');
+        appendCanonical(builder, request.parameters());
+        builder.append('|');
+        if (request.history() != null) {
+            for (ForecastEngineRequest.HistoryPoint point : request.history()) {
+                builder.append(point.period()).append('=');
+                appendCanonical(builder, point.value());
+                builder.append(':');
+                appendCanonical(builder, point.features());
+                builder.append(';');
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(builder.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("当前运行环境不支持 SHA-256", ex);
+        }
+    }
+
+    private static void appendCanonical(StringBuilder builder, Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((key, item) -> sorted.put(String.valueOf(key), item));
+            builder.append('{');
+            sorted.forEach((key, item) -> {
+                builder.append(key).append('=');
+                appendCanonical(builder, item);
+                builder.append(',');
+            });
+            builder.append('}');
+        } else if (value instanceof Collection<?> collection) {
+            builder.append('[');
+            for (Object item : collection) {
+                appendCanonical(builder, item);
+                builder.append(',');
+            }
+            builder.append(']');
+        } else if (value instanceof Number number) {
+            builder.append(Double.doubleToLongBits(number.doubleValue()));
+        } else {
+            builder.append(value);
+        }
+    }
+
+    private static int weigh(ForecastEngineRequest request, ForecastEngineResponse response) {
+        int historySize = request.history() != null ? request.history().size() : 0;
+        return 1 + historySize + response.forecast().size() * 4;
+    }
+
+    private void detach(Scope scope, String key) {
+        scopeIndex.computeIfPresent(scope, (ignored, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private record Scope(Long regionId, Long cropId) {
+    }
+
+    private record CachedForecast(Scope scope, ForecastEngineResponse response, int weight) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+/**
+ * 预测计算进度监听器，由引擎在训练轮次、回测折与调参步骤之间回调
+ */
+@FunctionalInterface
+public interface ForecastProgressListener {
+
+    /**
+     * @param stage     当前阶段名称
+     * @param completed 已完成的步数
+     * @param total     总步数
+     */
+    void onProgress(String stage, int completed, int total);
+}
@@ -0,0 +1,267 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gxj.cropyield.modules.forecast.entity.ForecastModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * ARIMA / Prophet 超参数自动搜索：在参数网格上并行做滚动单步回测，按 RMSE 选出最优参数
+ * <p>支持全网格（GRID）与逐次减半（HALVING）两种调度：逐次减半先用较短的回测窗口筛掉大部分候选，
+ * 只有排名靠前的三分之一进入更长的窗口。同一序列与固定参数的搜索结果按指纹缓存，重复请求不再搜索。</p>
+ */
+final class HyperparameterTuner {
+
+    private static final Logger log = LoggerFactory.getLogger(HyperparameterTuner.class);
+
+    /**
+     * 逐次减半每一轮保留的比例为 1/HALVING_ETA
+     */
+    private static final int HALVING_ETA = 3;
+
+    private static final int[] ARIMA_P = {0, 1, 2, 3};
+    private static final int[] ARIMA_D = {0, 1, 2};
+    private static final int[] ARIMA_Q = {0, 1, 2};
+    private static final int[] PROPHET_SEASONALITY_PERIODS = {0, 2, 3, 4, 5, 6, 7, 8, 10, 12};
+
+    enum Strategy {
+        GRID,
+        HALVING;
+
+        /**
+         * 解析请求或配置中的策略名，true 表示使用默认策略，false / 无法识别时返回 null
+         */
+        static Strategy parse(Object value, Strategy defaultStrategy) {
+            if (value instanceof Boolean flag) {
+                return flag ? defaultStrategy : null;
+            }
+            if (value == null) {
+                return null;
+            }
+            String text = value.toString().trim().toUpperCase(Locale.ROOT);
+            if ("TRUE".equals(text)) {
+                return defaultStrategy;
+            }
+            try {
+                return Strategy.valueOf(text);
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 候选参数的评分函数：以最后 validationPoints 个点做回测，返回越小越好的分数，无法评估时返回 NaN
+     */
+    @FunctionalInterface
+    interface Scorer {
+        double score(Map<String, Object> parameters, int validationPoints);
+    }
+
+    private final Executor executor;
+    private final Cache<String, Map<String, Object>> cache;
+
+    HyperparameterTuner(Executor executor, long cacheMaximumSize) {
+        this.executor = executor;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(Math.max(cacheMaximumSize, 0L))
+            .build();
+    }
+
+    /**
+     * 生成搜索空间：请求中已显式给出的参数保持不变，只搜索其余维度；默认参数排在首位，分数相同时优先保留
+     */
+    static List<Map<String, Object>> searchSpace(ForecastModel.ModelType modelType,
+                                                 Map<String, Object> fixed,
+                                                 int historySize) {
+        Map<String, Object> given = fixed != null ? fixed : Collections.emptyMap();
+        List<Map<String, Object>> space = new ArrayList<>();
+        if (modelType == ForecastModel.ModelType.ARIMA) {
+            for (int p : given.containsKey("p") ? new int[]{-1} : ARIMA_P) {
+                for (int d : given.containsKey("d") ? new int[]{-1} : ARIMA_D) {
+                    for (int q : given.containsKey("q") ? new int[]{-1} : ARIMA_Q) {
+                        Map<String, Object> candidate = new LinkedHashMap<>();
+                        if (p >= 0) {
+                            candidate.put("p", p);
+                        }
+                        if (d >= 0) {
+                            candidate.put("d", d);
+                        }
+                        if (q >= 0) {
+                            candidate.put("q", q);
+                        }
+                        space.add(candidate);
+                    }
+                }
+            }
+            Map<String, Object> defaults = new LinkedHashMap<>(Map.of("p", 1, "d", 1, "q", 1));
+            defaults.keySet().removeAll(given.keySet());
+            moveToFront(space, defaults);
+        } else if (modelType == ForecastModel.ModelType.PROPHET && !given.containsKey("seasonalityPeriod")) {
+            for (int period : PROPHET_SEASONALITY_PERIODS) {
+                if (period == 0 || period <= historySize / 2) {
+                    space.add(Map.of("seasonalityPeriod", period));
+                }
+            }
+        }
+        return space.size() > 1 ? space : Collections.emptyList();
+    }
+
+    /**
+     * 搜索最优参数，返回合并了固定参数与最优候选的完整参数表；没有候选可评估时原样返回固定参数
+     */
+    Map<String, Object> tune(ForecastModel.ModelType modelType,
+                             DoubleSeries history,
+                             Map<String, Object> fixed,
+                             Strategy strategy,
+                             int validationPoints,
+                             Scorer scorer) {
+        Map<String, Object> base = fixed != null ? fixed : Collections.emptyMap();
+        List<Map<String, Object>> space = searchSpace(modelType, base, history.size());
+        if (space.isEmpty() || validationPoints < 2) {
+            return base;
+        }
+        String key = fingerprint(modelType, strategy, validationPoints, base, history);
+        Map<String, Object> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return merge(base, cached);
+        }
+
+        List<Integer> windows = strategy == Strategy.HALVING
+            ? halvingWindows(validationPoints)
+            : List.of(validationPoints);
+        List<Map<String, Object>> survivors = space;
+        Map<String, Object> best = null;
+        double bestScore = Double.NaN;
+        int evaluated = 0;
+        for (int rung = 0; rung < windows.size(); rung++) {
+            int window = windows.get(rung);
+            double[] scores = evaluate(survivors, base, window, scorer);
+            evaluated += survivors.size();
+            ForecastCancellation.reportProgress("参数调优", rung + 1, windows.size());
+
+            List<Integer> ranked = new ArrayList<>();
+            for (int i = 0; i < scores.length; i++) {
+                if (!Double.isNaN(scores[i])) {
+                    ranked.add(i);
+                }
+            }
+            if (ranked.isEmpty()) {
+                return base;
+            }
+            // 稳定排序：分数相同时保持搜索空间中的先后顺序，默认参数优先
+            ranked.sort(Comparator.comparingDouble(index -> scores[index]));
+            best = survivors.get(ranked.get(0));
+            bestScore = scores[ranked.get(0)];
+            if (rung < windows.size() - 1) {
+                int keep = Math.max(1, (ranked.size() + HALVING_ETA - 1) / HALVING_ETA);
+                List<Map<String, Object>> next = new ArrayList<>(keep);
+                for (int i = 0; i < keep; i++) {
+                    next.add(survivors.get(ranked.get(i)));
+                }
+                survivors = next;
+            }
+        }
+
+        log.debug("{} 参数调优完成: 策略={}, 评估 {} 次, 最优参数={}, RMSE={}",
+            modelType, strategy, evaluated, best, bestScore);
+        cache.put(key, best);
+        return merge(base, best);
+    }
+
+    private double[] evaluate(List<Map<String, Object>> candidates,
+                              Map<String, Object> base,
+                              int window,
+                              Scorer scorer) {
+        ForecastCancellation token = ForecastCancellation.current();
+        List<CompletableFuture<Double>> futures = new ArrayList<>(candidates.size());
+        for (Map<String, Object> candidate : candidates) {
+            Map<String, Object> parameters = merge(base, candidate);
+            futures.add(CompletableFuture.supplyAsync(() -> token.call(() -> {
+                token.throwIfStopped();
+                return scorer.score(parameters, window);
+            }), executor));
+        }
+        double[] scores = new double[candidates.size()];
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                Double score = futures.get(i).join();
+                scores[i] = score != null && Double.isFinite(score) ? score : Double.NaN;
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof ForecastCancelledException cancelled) {
+                    futures.forEach(future -> future.cancel(false));
+                    throw cancelled;
+                }
+                scores[i] = Double.NaN;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * 逐次减半的回测窗口：约 1/4、1/2 与完整窗口，窗口至少 2 个点且严格递增
+     */
+    private static List<Integer> halvingWindows(int validationPoints) {
+        List<Integer> windows = new ArrayList<>(3);
+        for (int divisor : new int[]{4, 2, 1}) {
+            int window = Math.max(2, validationPoints / divisor);
+            if (windows.isEmpty() || window > windows.get(windows.size() - 1)) {
+                windows.add(window);
+            }
+        }
+        return windows;
+    }
+
+    private static Map<String, Object> merge(Map<String, Object> base, Map<String, Object> candidate) {
+        Map<String, Object> merged = new HashMap<>(base);
+        merged.putAll(candidate);
+        return merged;
+    }
+
+    private static void moveToFront(List<Map<String, Object>> space, Map<String, Object> preferred) {
+        for (int i = 0; i < space.size(); i++) {
+            if (preferred.equals(space.get(i))) {
+                space.add(0, space.remove(i));
+                return;
+            }
+        }
+    }
+
+    private static String fingerprint(ForecastModel.ModelType modelType,
+                                      Strategy strategy,
+                                      int validationPoints,
+                                      Map<String, Object> base,
+                                      DoubleSeries history) {
+        StringBuilder builder = new StringBuilder(64 + history.size() * 17);
+        builder.append(modelType).append('|').append(strategy).append('|').append(validationPoints).append('|');
+        new TreeMap<>(base).forEach((name, value) -> builder.append(name).append('=').append(value).append(','));
+        builder.append('|');
+        for (int i = 0; i < history.size(); i++) {
+            builder.append(Long.toHexString(Double.doubleToLongBits(history.get(i)))).append(';');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(builder.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("当前运行环境不支持 SHA-256", ex);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 滞后特征的列式矩阵：一次顺序扫描计算全部滞后、移动平均、变化率与波动性特征
+ * <p>每列一个 double 数组，缺失值记为 NaN；窗口长度固定，整体为 O(n)。
+ * 每个点的特征以只读视图 {@link #row} 暴露，原有特征与滞后特征按需合并，不再为每个点复制一份 HashMap。</p>
+ */
+final class LagFeatureMatrix {
+
+    private static final String[] COLUMNS = {
+        "lag1_yield",
+        "lag2_yield",
+        "lag3_yield",
+        "moving_avg_3",
+        "moving_avg_5",
+        "yield_change_rate",
+        "avg_change_rate_2",
+        "yield_volatility_3",
+        "yield_volatility_5"
+    };
+
+    private static final Map<String, Integer> COLUMN_INDEX = new HashMap<>();
+
+    static {
+        for (int c = 0; c < COLUMNS.length; c++) {
+            COLUMN_INDEX.put(COLUMNS[c], c);
+        }
+    }
+
+    private static final int LAG1 = 0;
+    private static final int LAG2 = 1;
+    private static final int LAG3 = 2;
+    private static final int MOVING_AVG_3 = 3;
+    private static final int MOVING_AVG_5 = 4;
+    private static final int CHANGE_RATE = 5;
+    private static final int AVG_CHANGE_RATE_2 = 6;
+    private static final int VOLATILITY_3 = 7;
+    private static final int VOLATILITY_5 = 8;
+
+    private final double[][] columns;
+    private final int[] presentCounts;
+
+    private LagFeatureMatrix(double[][] columns, int[] presentCounts) {
+        this.columns = columns;
+        this.presentCounts = presentCounts;
+    }
+
+    /**
+     * 计算整条序列的滞后特征，values 中的 NaN 视为缺失
+     */
+    static LagFeatureMatrix compute(double[] values) {
+        int n = values.length;
+        double[][] columns = new double[COLUMNS.length][n];
+        int[] presentCounts = new int[n];
+        RollingWindow window3 = new RollingWindow(3);
+        RollingWindow window5 = new RollingWindow(5);
+
+        for (int i = 0; i < n; i++) {
+            window3.slide(values, i);
+            window5.slide(values, i);
+            double current = values[i];
+
+            columns[LAG1][i] = i >= 1 ? values[i - 1] : Double.NaN;
+            columns[LAG2][i] = i >= 2 ? values[i - 2] : Double.NaN;
+            columns[LAG3][i] = i >= 3 ? values[i - 3] : Double.NaN;
+            columns[MOVING_AVG_3][i] = i >= 2 ? window3.mean() : Double.NaN;
+            columns[MOVING_AVG_5][i] = i >= 4 ? window5.mean() : Double.NaN;
+            columns[CHANGE_RATE][i] = i >= 1 ? changeRate(current, values[i - 1], 1) : Double.NaN;
+            columns[AVG_CHANGE_RATE_2][i] = i >= 2 ? changeRate(current, values[i - 2], 2) : Double.NaN;
+            columns[VOLATILITY_3][i] = i >= 2 ? window3.populationStdDev() : Double.NaN;
+            columns[VOLATILITY_5][i] = i >= 4 ? window5.populationStdDev() : Double.NaN;
+
+            int present = 0;
+            for (double[] column : columns) {
+                if (!Double.isNaN(column[i])) {
+                    present++;
+                }
+            }
+            presentCounts[i] = present;
+        }
+        return new LagFeatureMatrix(columns, presentCounts);
+    }
+
+    /**
+     * 指定行的特征视图：同名时滞后特征覆盖原有特征，视图只读
+     */
+    Map<String, Double> row(int row, Map<String, Double> base) {
+        return new RowView(row, base != null ? base : Map.of());
+    }
+
+    private Double lagValue(int row, Object key) {
+        Integer column = COLUMN_INDEX.get(key);
+        if (column == null) {
+            return null;
+        }
+        double value = columns[column][row];
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static double changeRate(double current, double base, int years) {
+        if (Double.isNaN(current) || Double.isNaN(base) || base == 0) {
+            return Double.NaN;
+        }
+        return (current - base) / (years * base);
+    }
+
+    /**
+     * 单个点的特征视图，先遍历未被覆盖的原有特征，再遍历有效的滞后特征
+     */
+    private final class RowView extends AbstractMap<String, Double> {
+
+        private final int row;
+        private final Map<String, Double> base;
+        private Set<Entry<String, Double>> entries;
+
+        private RowView(int row, Map<String, Double> base) {
+            this.row = row;
+            this.base = base;
+        }
+
+        @Override
+        public Double get(Object key) {
+            Double lag = lagValue(row, key);
+            return lag != null ? lag : base.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return lagValue(row, key) != null || base.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            int size = base.size() + presentCounts[row];
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (!Double.isNaN(columns[c][row]) && base.containsKey(COLUMNS[c])) {
+                    size--;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, Double>> entrySet() {
+            if (entries == null) {
+                entries = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, Double>> iterator() {
+                        return new RowIterator(row, base.entrySet().iterator());
+                    }
+
+                    @Override
+                    public int size() {
+                        return RowView.this.size();
+                    }
+                };
+            }
+            return entries;
+        }
+    }
+
+    private final class RowIterator implements Iterator<Map.Entry<String, Double>> {
+
+        private final int row;
+        private final Iterator<Map.Entry<String, Double>> baseIterator;
+        private int column;
+        private Map.Entry<String, Double> next;
+
+        private RowIterator(int row, Iterator<Map.Entry<String, Double>> baseIterator) {
+            this.row = row;
+            this.baseIterator = baseIterator;
+            advance();
+        }
+
+        private void advance() {
+            while (baseIterator.hasNext()) {
+                Map.Entry<String, Double> entry = baseIterator.next();
+                if (lagValue(row, entry.getKey()) == null) {
+                    next = entry;
+                    return;
+                }
+            }
+            while (column < COLUMNS.length) {
+                int current = column++;
+                double value = columns[current][row];
+                if (!Double.isNaN(value)) {
+                    next = new AbstractMap.SimpleImmutableEntry<>(COLUMNS[current], value);
+                    return;
+                }
+            }
+            next = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, Double> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, Double> result = next;
+            advance();
+            return result;
+        }
+    }
+
+    /**
+     * 固定长度滑动窗口的非缺失值统计
+     * <p>窗口只有 3 或 5 个元素，每步直接在窗口内求和与离差平方和，结果与逐点计算完全一致，
+     * 不会像加减往复的累计和那样在数值跳变（如出现 0 产量）时积累舍入误差。</p>
+     */
+    private static final class RollingWindow {
+
+        private final int size;
+        private double mean;
+        private double sumSq;
+        private int count;
+
+        private RollingWindow(int size) {
+            this.size = size;
+        }
+
+        private void slide(double[] values, int index) {
+            int from = Math.max(0, index - size + 1);
+            double sum = 0d;
+            int valid = 0;
+            for (int i = from; i <= index; i++) {
+                if (!Double.isNaN(values[i])) {
+                    sum += values[i];
+                    valid++;
+                }
+            }
+            count = valid;
+            mean = valid > 0 ? sum / valid : Double.NaN;
+            double squares = 0d;
+            if (valid >= 2) {
+                for (int i = from; i <= index; i++) {
+                    if (!Double.isNaN(values[i])) {
+                        double diff = values[i] - mean;
+                        squares += diff * diff;
+                    }
+                }
+            }
+            sumSq = squares;
+        }
+
+        private double mean() {
+            return mean;
+        }
+
+        private double populationStdDev() {
+            return count >= 2 ? Math.sqrt(sumSq / count) : Double.NaN;
+        }
+    }
+}
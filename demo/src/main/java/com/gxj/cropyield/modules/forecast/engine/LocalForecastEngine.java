@@ -1,10 +1,17 @@
 package com.gxj.cropyield.modules.forecast.engine;
 
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
 import com.gxj.cropyield.modules.forecast.entity.ForecastModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -13,6 +20,15 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 /**
@@ -22,8 +38,11 @@ import java.util.regex.Pattern;
 @Component
 public class LocalForecastEngine {
 
+    private static final Logger log = LoggerFactory.getLogger(LocalForecastEngine.class);
     private static final Pattern QUARTER_PATTERN = Pattern.compile("^(\\d{4})[-_/]?Q([1-4])$");
     private static final int MIN_LSTM_HISTORY = 6;
+    private static final int MAX_TUNING_VALIDATION_POINTS = 24;
+    private static final int MAX_INTERVAL_RESIDUALS = 30;
 
     private static final class DoubleExponentialModel {
         private final double alpha;
@@ -57,17 +76,54 @@ public class LocalForecastEngine {
         }
     }
 
-    private final Dl4jLstmForecaster lstmForecaster = new Dl4jLstmForecaster();
+    private final Dl4jLstmForecaster lstmForecaster;
     private final ArimaForecaster arimaForecaster = new ArimaForecaster();
     private final ProphetForecaster prophetForecaster = new ProphetForecaster();
+    private final Executor candidateExecutor;
+    private final Duration candidateTimeout;
+    private final HyperparameterTuner hyperparameterTuner;
+    private final HyperparameterTuner.Strategy defaultTuningStrategy;
+    private final boolean tuningEnabledByDefault;
+    private final PredictionIntervals predictionIntervals;
+
+    /**
+     * 不依赖Spring容器的构造方式（单元测试、基准测试），候选模型在调用线程中顺序计算
+     */
+    public LocalForecastEngine() {
+        this(new ForecastEngineProperties(), Runnable::run, Runnable::run);
+    }
+
+    @Autowired
+    public LocalForecastEngine(ForecastEngineProperties properties,
+                               @Qualifier("forecastCandidateExecutor") Executor candidateExecutor,
+                               @Qualifier("forecastTuningExecutor") Executor tuningExecutor) {
+        this.lstmForecaster = new Dl4jLstmForecaster(Dl4jLstmForecaster.Settings.of(properties));
+        this.candidateExecutor = candidateExecutor;
+        this.candidateTimeout = properties.getCandidateTimeout() != null
+            ? properties.getCandidateTimeout()
+            : Duration.ofSeconds(60);
+        ForecastEngineProperties.Tuning tuning = properties.getTuning();
+        this.hyperparameterTuner = new HyperparameterTuner(tuningExecutor, tuning.getCacheMaximumSize());
+        HyperparameterTuner.Strategy strategy = HyperparameterTuner.Strategy.parse(tuning.getStrategy(), null);
+        this.defaultTuningStrategy = strategy != null ? strategy : HyperparameterTuner.Strategy.HALVING;
+        this.tuningEnabledByDefault = tuning.isEnabled();
+        ForecastEngineProperties.Interval interval = properties.getInterval();
+        this.predictionIntervals = "symmetric".equalsIgnoreCase(interval.getMode())
+            ? null
+            : new PredictionIntervals(tuningExecutor, interval.getSamples(), interval.getLevel());
+    }
+
     private static final class WeatherRegressionResult {
-        private final List<Double> forecast;
+        private final double[] forecast;
         private final ForecastEngineResponse.EvaluationMetrics metrics;
+        private final double[] residuals;
 
-        private WeatherRegressionResult(List<Double> forecast,
-                                        ForecastEngineResponse.EvaluationMetrics metrics) {
+        private WeatherRegressionResult(double[] forecast,
+                                        ForecastEngineResponse.EvaluationMetrics metrics,
+                                        double[] residuals) {
             this.forecast = forecast;
             this.metrics = metrics;
+            this.residuals = residuals;
         }
     }
 
@@ -77,37 +133,43 @@ public class LocalForecastEngine {
         private final Map<String, Double> featureMeans;
         private final Map<String, Double> featureStds;
         private final ForecastEngineResponse.EvaluationMetrics metrics;
+        private final double[] residuals;
 
         private RegressionFit(double[] coefficients,
                                List<String> featureKeys,
                                Map<String, Double> featureMeans,
                                Map<String, Double> featureStds,
-                               ForecastEngineResponse.EvaluationMetrics metrics) {
+                               ForecastEngineResponse.EvaluationMetrics metrics,
+                               double[] residuals) {
             this.coefficients = coefficients;
             this.featureKeys = featureKeys;
             this.featureMeans = featureMeans;
             this.featureStds = featureStds;
             this.metrics = metrics;
+            this.residuals = residuals;
         }
     }
 
     private static final class ForecastCandidate {
         private final String label;
-        private final List<Double> forecast;
+        private final double[] forecast;
         private final ForecastEngineResponse.EvaluationMetrics metrics;
         private final double rmseScore;
         private final double mapeScore;
+        private final double[] residuals;
 
         private ForecastCandidate(String label,
-                                   List<Double> forecast,
+                                   double[] forecast,
                                    ForecastEngineResponse.EvaluationMetrics metrics,
                                    double rmseScore,
-                                   double mapeScore) {
+                                   double mapeScore,
+                                   double[] residuals) {
             this.label = label;
             this.forecast = forecast;
             this.metrics = metrics;
             this.rmseScore = rmseScore;
             this.mapeScore = mapeScore;
+            this.residuals = residuals;
         }
     }
 
@@ -115,13 +177,37 @@ public class LocalForecastEngine {
         private final ForecastEngineResponse.EvaluationMetrics metrics;
         private final double rmseScore;
         private final double mapeScore;
+        /**
+         * 回测残差（实际值 - 预测值），无法得到时为 null
+         */
+        private final double[] residuals;
 
         private ForecastEvaluation(ForecastEngineResponse.EvaluationMetrics metrics,
                                    double rmseScore,
                                    double mapeScore) {
+            this(metrics, rmseScore, mapeScore, null);
+        }
+
+        private ForecastEvaluation(ForecastEngineResponse.EvaluationMetrics metrics,
+                                   double rmseScore,
+                                   double mapeScore,
+                                   double[] residuals) {
             this.metrics = metrics;
             this.rmseScore = rmseScore;
             this.mapeScore = mapeScore;
+            this.residuals = residuals;
+        }
+    }
+
+    private static final class LstmOutcome {
+        private final double[] forecast;
+        private final ForecastEvaluation evaluation;
+        private final Dl4jLstmForecaster.WarmStart network;
+
+        private LstmOutcome(double[] forecast, ForecastEvaluation evaluation, Dl4jLstmForecaster.WarmStart network) {
+            this.forecast = forecast;
+            this.evaluation = evaluation;
+            this.network = network;
         }
     }
 
@@ -140,27 +226,39 @@ public class LocalForecastEngine {
     }
 
     public ForecastEngineResponse forecast(ForecastEngineRequest request) {
+        return train(request).response();
+    }
+
+    /**
+     * 训练并预测，同时返回 ARIMA / Prophet / LSTM 的已拟合模型制品，供持久化后用 {@link #score} 免训练复用
+     */
+    public TrainedForecast train(ForecastEngineRequest request) {
         List<ForecastEngineRequest.HistoryPoint> historyPoints = request.history() != null
             ? request.history()
             : Collections.emptyList();
         if (historyPoints.isEmpty()) {
-            return new ForecastEngineResponse(
+            return new TrainedForecast(new ForecastEngineResponse(
                 generateRequestId(),
                 List.of(),
                 new ForecastEngineResponse.EvaluationMetrics(null, null, null, null)
-            );
+            ), null);
         }
 
+        ForecastCancellation.checkpoint();
         List<ForecastEngineRequest.HistoryPoint> sanitizedHistory = sanitizeHistory(historyPoints);
         ForecastModel.ModelType modelType = resolveModelType(request.modelCode());
         int forecastPeriods = Math.max(1, Math.min(request.forecastPeriods(), 3));
 
-        List<Double> historyValues = sanitizedHistory.stream()
-            .map(ForecastEngineRequest.HistoryPoint::value)
-            .toList();
+        double[] values = new double[sanitizedHistory.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sanitizedHistory.get(i).value();
+        }
+        DoubleSeries historyValues = DoubleSeries.wrap(values);
 
-        List<Double> rawForecast;
+        double[] rawForecast;
         ForecastEngineResponse.EvaluationMetrics metrics;
+        double[] residuals = null;
+        ForecastArtefact artefact = null;
         if (modelType == ForecastModel.ModelType.WEATHER_REGRESSION) {
             WeatherRegressionResult regressionResult = weatherRegressionForecast(
                 sanitizedHistory,
@@ -169,18 +267,23 @@ public class LocalForecastEngine {
                 request.parameters()
             );
             rawForecast = regressionResult.forecast;
+            residuals = regressionResult.residuals;
             metrics = regressionResult.metrics != null
                 ? regressionResult.metrics
                 : buildBaselineMetrics(historyValues);
         } else if (modelType == ForecastModel.ModelType.LSTM) {
             // Force LSTM when explicitly selected
-            Optional<List<Double>> lstmForecast = lstmForecaster.forecast(historyValues, forecastPeriods, request.parameters());
-            if (lstmForecast.isPresent()) {
-                rawForecast = lstmForecast.get();
-                ForecastEvaluation lstmEvaluation = evaluateLstmPerformance(historyValues, request.parameters());
-                metrics = lstmEvaluation != null
-                    ? lstmEvaluation.metrics
+            LstmOutcome lstmOutcome = fitLstmWithValidation(historyValues, forecastPeriods, request.parameters());
+            if (lstmOutcome.forecast != null) {
+                rawForecast = lstmOutcome.forecast;
+                metrics = lstmOutcome.evaluation != null
+                    ? lstmOutcome.evaluation.metrics
                     : buildBaselineMetrics(historyValues);
+                residuals = lstmOutcome.evaluation != null ? lstmOutcome.evaluation.residuals : null;
+                if (lstmOutcome.network != null) {
+                    artefact = ForecastArtefact.lstm(ForecastModelCache.fingerprint(request), metrics, residuals,
+                        lstmOutcome.network);
+                }
             } else {
                 // Fallback to exponential smoothing if LSTM fails
                 rawForecast = exponentialSmoothingForecast(historyValues, forecastPeriods);
@@ -188,13 +291,19 @@ public class LocalForecastEngine {
             }
         } else if (modelType == ForecastModel.ModelType.ARIMA) {
             // Use ARIMA forecaster
-            Optional<List<Double>> arimaForecast = arimaForecaster.forecast(historyValues, forecastPeriods, request.parameters());
+            Map<String, Object> arimaParameters = tuneParameters(modelType, historyValues, request.parameters());
+            Optional<ArimaForecaster.Fitted> arimaModel = arimaForecaster.fit(historyValues, arimaParameters);
+            Optional<double[]> arimaForecast = arimaModel
+                .flatMap(model -> arimaForecaster.forecast(historyValues, forecastPeriods, model));
             if (arimaForecast.isPresent()) {
                 rawForecast = arimaForecast.get();
-                ForecastEvaluation arimaEvaluation = evaluateArimaPerformance(historyValues, request.parameters());
+                ForecastEvaluation arimaEvaluation = evaluateArimaPerformance(historyValues, arimaParameters);
                 metrics = arimaEvaluation != null
                     ? arimaEvaluation.metrics
                     : buildBaselineMetrics(historyValues);
+                residuals = intervalResiduals(historyValues, arimaParameters, true);
+                artefact = ForecastArtefact.arima(ForecastModelCache.fingerprint(request), metrics, residuals,
+                    arimaModel.get());
             } else {
                 // Fallback to linear trend if ARIMA fails
                 rawForecast = linearTrendForecast(historyValues, forecastPeriods);
@@ -202,13 +311,19 @@ public class LocalForecastEngine {
             }
         } else if (modelType == ForecastModel.ModelType.PROPHET) {
             // Use Prophet forecaster
-            Optional<List<Double>> prophetForecast = prophetForecaster.forecast(historyValues, forecastPeriods, request.parameters());
+            Map<String, Object> prophetParameters = tuneParameters(modelType, historyValues, request.parameters());
+            Optional<ProphetForecaster.Fitted> prophetModel = prophetForecaster.fit(historyValues, prophetParameters);
+            Optional<double[]> prophetForecast = prophetModel
+                .flatMap(model -> prophetForecaster.forecast(historyValues, forecastPeriods, model));
             if (prophetForecast.isPresent()) {
                 rawForecast = prophetForecast.get();
-                ForecastEvaluation prophetEvaluation = evaluateProphetPerformance(historyValues, request.parameters());
+                ForecastEvaluation prophetEvaluation = evaluateProphetPerformance(historyValues, prophetParameters);
                 metrics = prophetEvaluation != null
                     ? prophetEvaluation.metrics
                     : buildBaselineMetrics(historyValues);
+                residuals = intervalResiduals(historyValues, prophetParameters, false);
+                artefact = ForecastArtefact.prophet(ForecastModelCache.fingerprint(request), metrics, residuals,
+                    prophetModel.get());
             } else {
                 // Fallback to exponential smoothing if Prophet fails
                 rawForecast = exponentialSmoothingForecast(historyValues, forecastPeriods);
@@ -216,62 +331,36 @@ public class LocalForecastEngine {
             }
         } else {
             // Auto-select best algorithm for other model types
-            List<ForecastCandidate> candidates = new ArrayList<>();
-
-            DoubleExponentialModel optimizedModel = fitDoubleExponentialModel(historyValues);
-            List<Double> smoothingForecast = optimizedModel != null
-                ? projectDoubleExponential(optimizedModel, forecastPeriods)
-                : exponentialSmoothingForecast(historyValues, forecastPeriods);
-            ForecastEvaluation smoothingEvaluation = null;
-            if (optimizedModel != null && optimizedModel.comparisons > 0) {
-                ForecastEngineResponse.EvaluationMetrics smoothingMetrics = new ForecastEngineResponse.EvaluationMetrics(
-                    round(optimizedModel.mae),
-                    round(optimizedModel.rmse),
-                    round(optimizedModel.mape),
-                    optimizedModel.r2 != null ? round(optimizedModel.r2) : null
-                );
-                smoothingEvaluation = new ForecastEvaluation(
-                    smoothingMetrics,
-                    optimizedModel.rmse,
-                    optimizedModel.mape
-                );
-            }
-            ForecastEngineResponse.EvaluationMetrics smoothingMetrics = smoothingEvaluation != null
-                ? smoothingEvaluation.metrics
-                : buildBaselineMetrics(historyValues);
-            candidates.add(new ForecastCandidate(
-                "DOUBLE_EXPONENTIAL",
-                smoothingForecast,
-                smoothingMetrics,
-                smoothingEvaluation != null ? smoothingEvaluation.rmseScore : scoreFromMetric(smoothingMetrics.rmse()),
-                smoothingEvaluation != null ? smoothingEvaluation.mapeScore : scoreFromMetric(smoothingMetrics.mape())
-            ));
-
-            List<Double> trendForecast = linearTrendForecast(historyValues, forecastPeriods);
-            ForecastEvaluation linearEvaluation = evaluateLinearTrendPerformance(historyValues);
-            ForecastEngineResponse.EvaluationMetrics linearMetrics = linearEvaluation != null
-                ? linearEvaluation.metrics
-                : buildBaselineMetrics(historyValues);
-            candidates.add(new ForecastCandidate(
-                "LINEAR_TREND",
-                trendForecast,
-                linearMetrics,
-                linearEvaluation != null ? linearEvaluation.rmseScore : scoreFromMetric(linearMetrics.rmse()),
-                linearEvaluation != null ? linearEvaluation.mapeScore : scoreFromMetric(linearMetrics.mape())
-            ));
+            // 候选模型在专用计算线程池中并行拟合，超时的候选模型直接剔除
+            long deadline = candidateDeadline();
+            Map<String, Object> parameters = request.parameters();
+            ForecastCancellation candidateScope = ForecastCancellation.current().child();
+            CompletableFuture<ForecastCandidate> smoothingFuture = submitCandidate(candidateScope,
+                () -> buildSmoothingCandidate(historyValues, forecastPeriods));
+            CompletableFuture<ForecastCandidate> linearFuture = submitCandidate(candidateScope,
+                () -> buildLinearTrendCandidate(historyValues, forecastPeriods));
+            CompletableFuture<LstmOutcome> lstmFuture = submitCandidate(candidateScope,
+                () -> fitLstmWithValidation(historyValues, forecastPeriods, parameters));
 
-            Optional<List<Double>> lstmForecast = lstmForecaster.forecast(historyValues, forecastPeriods, request.parameters());
-            if (lstmForecast.isPresent()) {
-                ForecastEvaluation lstmEvaluation = evaluateLstmPerformance(historyValues, request.parameters());
+            List<ForecastCandidate> candidates = new ArrayList<>();
+            awaitCandidate("DOUBLE_EXPONENTIAL", smoothingFuture, deadline).ifPresent(candidates::add);
+            awaitCandidate("LINEAR_TREND", linearFuture, deadline).ifPresent(candidates::add);
+
+            Optional<LstmOutcome> lstmOutcome = awaitCandidate("LSTM", lstmFuture, deadline);
+            // 超时被剔除的候选模型结果已无用，通知其在下一个训练轮次或回测折处停止
+            candidateScope.cancel();
+            if (lstmOutcome.isPresent() && lstmOutcome.get().forecast != null) {
+                ForecastEvaluation lstmEvaluation = lstmOutcome.get().evaluation;
                 ForecastEngineResponse.EvaluationMetrics lstmMetrics = lstmEvaluation != null
                     ? lstmEvaluation.metrics
                     : buildBaselineMetrics(historyValues);
                 candidates.add(new ForecastCandidate(
                     "LSTM",
-                    lstmForecast.get(),
+                    lstmOutcome.get().forecast,
                     lstmMetrics,
                     lstmEvaluation != null ? lstmEvaluation.rmseScore : scoreFromMetric(lstmMetrics.rmse()),
-                    lstmEvaluation != null ? lstmEvaluation.mapeScore : scoreFromMetric(lstmMetrics.mape())
+                    lstmEvaluation != null ? lstmEvaluation.mapeScore : scoreFromMetric(lstmMetrics.mape()),
+                    lstmEvaluation != null ? lstmEvaluation.residuals : null
                 ));
             }
 
@@ -282,16 +371,64 @@ public class LocalForecastEngine {
             } else {
                 rawForecast = bestCandidate.forecast;
                 metrics = bestCandidate.metrics;
+                residuals = bestCandidate.residuals;
             }
         }
-        List<String> nextPeriods = buildNextPeriods(sanitizedHistory, request.frequency(), rawForecast.size());
+        return new TrainedForecast(
+            buildResponse(sanitizedHistory, historyValues, request.frequency(), rawForecast, residuals, metrics),
+            artefact);
+    }
+
+    /**
+     * 用已拟合的模型制品直接预测，不做训练与回测；评估指标与区间所用残差取自制品。
+     * 制品须来自指纹相同的请求，模型类型不符或预测失败时返回空，由调用方退回训练
+     */
+    public Optional<ForecastEngineResponse> score(ForecastEngineRequest request, ForecastArtefact artefact) {
+        if (artefact == null || request.history() == null || request.history().isEmpty()
+            || artefact.modelType() != resolveModelType(request.modelCode())) {
+            return Optional.empty();
+        }
+        List<ForecastEngineRequest.HistoryPoint> sanitizedHistory = sanitizeHistory(request.history());
+        int forecastPeriods = Math.max(1, Math.min(request.forecastPeriods(), 3));
+        double[] values = new double[sanitizedHistory.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sanitizedHistory.get(i).value();
+        }
+        DoubleSeries historyValues = DoubleSeries.wrap(values);
+
+        Optional<double[]> rawForecast = switch (artefact.modelType()) {
+            case ARIMA -> arimaForecaster.forecast(historyValues, forecastPeriods, artefact.arima());
+            case PROPHET -> prophetForecaster.forecast(historyValues, forecastPeriods, artefact.prophet());
+            case LSTM -> {
+                // 网络推理会改写内部状态，同一制品的并发预测需串行
+                synchronized (artefact) {
+                    yield lstmForecaster.project(artefact.lstm().network(), historyValues, forecastPeriods);
+                }
+            }
+            default -> Optional.empty();
+        };
+        return rawForecast.map(forecast -> buildResponse(sanitizedHistory, historyValues, request.frequency(),
+            forecast, artefact.residuals(), artefact.metrics()));
+    }
 
-        double confidenceBand = computeConfidenceBand(historyValues);
-        List<ForecastEngineResponse.ForecastPoint> points = new ArrayList<>();
-        for (int i = 0; i < rawForecast.size(); i++) {
-            double value = rawForecast.get(i);
-            double lower = Math.max(0d, value - confidenceBand);
-            double upper = value + confidenceBand;
+    private ForecastEngineResponse buildResponse(List<ForecastEngineRequest.HistoryPoint> sanitizedHistory,
+                                                 DoubleSeries historyValues,
+                                                 String frequency,
+                                                 double[] rawForecast,
+                                                 double[] residuals,
+                                                 ForecastEngineResponse.EvaluationMetrics metrics) {
+        List<String> nextPeriods = buildNextPeriods(sanitizedHistory, frequency, rawForecast.length);
+
+        // 优先用回测残差自助抽样得到逐期区间，残差不足时退回按历史波动的对称区间
+        PredictionIntervals.Band band = predictionIntervals != null
+            ? predictionIntervals.bootstrap(rawForecast, residuals)
+            : null;
+        double confidenceBand = band == null ? computeConfidenceBand(historyValues) : 0d;
+        List<ForecastEngineResponse.ForecastPoint> points = new ArrayList<>(rawForecast.length);
+        for (int i = 0; i < rawForecast.length; i++) {
+            double value = rawForecast[i];
+            double lower = Math.max(0d, band != null ? band.lower()[i] : value - confidenceBand);
+            double upper = band != null ? band.upper()[i] : value + confidenceBand;
             points.add(new ForecastEngineResponse.ForecastPoint(
                 nextPeriods.get(i),
                 round(value),
@@ -331,7 +468,7 @@ public class LocalForecastEngine {
         return LagFeatureEnhancer.enhanceWithLagFeatures(result);
     }
 
-    private List<Double> linearTrendForecast(List<Double> historyValues, int periods) {
+    private double[] linearTrendForecast(DoubleSeries historyValues, int periods) {
         int n = historyValues.size();
         double sumX = 0;
         double sumY = 0;
@@ -349,19 +486,19 @@ public class LocalForecastEngine {
         double slope = denominator == 0 ? 0 : (n * sumXY - sumX * sumY) / denominator;
         double intercept = (sumY - slope * sumX) / n;
 
-        List<Double> results = new ArrayList<>();
+        double[] results = new double[periods];
         for (int i = 1; i <= periods; i++) {
             double x = n + i;
             double forecast = intercept + slope * x;
             if (forecast <= 0) {
                 forecast = historyValues.get(n - 1) * 0.9;
             }
-            results.add(forecast);
+            results[i - 1] = forecast;
         }
         return results;
     }
 
-    private List<Double> exponentialSmoothingForecast(List<Double> historyValues, int periods) {
+    private double[] exponentialSmoothingForecast(DoubleSeries historyValues, int periods) {
         double alpha = 0.6;
         double level = historyValues.get(0);
         double trend = 0;
@@ -371,16 +508,15 @@ public class LocalForecastEngine {
             level = alpha * value + (1 - alpha) * (level + trend);
             trend = 0.4 * (level - prevLevel) + (1 - 0.4) * trend;
         }
-        List<Double> results = new ArrayList<>();
+        double[] results = new double[periods];
         for (int i = 1; i <= periods; i++) {
-            double forecast = level + trend * i;
-            results.add(forecast);
+            results[i - 1] = level + trend * i;
         }
         return results;
     }
 
     private WeatherRegressionResult weatherRegressionForecast(List<ForecastEngineRequest.HistoryPoint> history,
-                                                               List<Double> historyValues,
+                                                               DoubleSeries historyValues,
                                                                int periods,
                                                                Map<String, Object> parameters) {
         List<ForecastEngineRequest.HistoryPoint> usable = new ArrayList<>();
@@ -400,7 +536,8 @@ public class LocalForecastEngine {
         if (usable.size() < 2) {
             return new WeatherRegressionResult(
                 linearTrendForecast(historyValues, periods),
-                buildBaselineMetrics(historyValues)
+                buildBaselineMetrics(historyValues),
+                null
             );
         }
 
@@ -411,7 +548,8 @@ public class LocalForecastEngine {
         if (featureNames.isEmpty()) {
             return new WeatherRegressionResult(
                 linearTrendForecast(historyValues, periods),
-                buildBaselineMetrics(historyValues)
+                buildBaselineMetrics(historyValues),
+                null
             );
         }
 
@@ -427,7 +565,8 @@ public class LocalForecastEngine {
         if (fit == null || fit.coefficients == null) {
             return new WeatherRegressionResult(
                 linearTrendForecast(historyValues, periods),
-                linearEvaluation != null ? linearEvaluation.metrics : buildBaselineMetrics(historyValues)
+                linearEvaluation != null ? linearEvaluation.metrics : buildBaselineMetrics(historyValues),
+                linearEvaluation != null ? linearEvaluation.residuals : null
             );
         }
 
@@ -444,7 +583,7 @@ public class LocalForecastEngine {
 
         int lastYear = years.get(years.size() - 1);
         Map<Integer, Map<String, Double>> providedFutureFeatures = extractFutureWeatherFeatures(parameters);
-        List<Double> forecast = new ArrayList<>();
+        double[] forecast = new double[periods];
         for (int step = 1; step <= periods; step++) {
             int targetYear = lastYear + step;
             double prediction = fit.coefficients[0];
@@ -468,9 +607,9 @@ public class LocalForecastEngine {
                 prediction += fit.coefficients[j + 1] * normalized;
             }
             if (!historyValues.isEmpty() && prediction <= 0) {
-                prediction = Math.max(historyValues.get(historyValues.size() - 1) * 0.9, 0d);
+                prediction = Math.max(historyValues.last() * 0.9, 0d);
             }
-            forecast.add(prediction);
+            forecast[step - 1] = prediction;
         }
 
         ForecastEngineResponse.EvaluationMetrics regressionMetrics = fit.metrics != null
@@ -484,13 +623,16 @@ public class LocalForecastEngine {
             preferRegression = true;
         }
 
-        List<Double> chosenForecast = preferRegression
+        double[] chosenForecast = preferRegression
             ? forecast
             : linearTrendForecast(historyValues, periods);
         ForecastEngineResponse.EvaluationMetrics metrics = preferRegression
             ? regressionMetrics
             : (linearEvaluation != null ? linearEvaluation.metrics : buildBaselineMetrics(historyValues));
-        return new WeatherRegressionResult(chosenForecast, metrics);
+        double[] residuals = preferRegression
+            ? fit.residuals
+            : (linearEvaluation != null ? linearEvaluation.residuals : null);
+        return new WeatherRegressionResult(chosenForecast, metrics, residuals);
     }
 
     private Map<Integer, Map<String, Double>> extractFutureWeatherFeatures(Map<String, Object> parameters) {
@@ -543,70 +685,6 @@ public class LocalForecastEngine {
         }
     }
 
-    private double[] solveNormalEquation(double[][] designMatrix, double[] outputs) {
-        if (designMatrix.length == 0) {
-            return null;
-        }
-        int columns = designMatrix[0].length;
-        double[][] xtx = new double[columns][columns];
-        double[] xty = new double[columns];
-        for (int i = 0; i < designMatrix.length; i++) {
-            for (int j = 0; j < columns; j++) {
-                xty[j] += designMatrix[i][j] * outputs[i];
-                for (int k = 0; k < columns; k++) {
-                    xtx[j][k] += designMatrix[i][j] * designMatrix[i][k];
-                }
-            }
-        }
-        return gaussianElimination(xtx, xty);
-    }
-
-    private double[] gaussianElimination(double[][] matrix, double[] vector) {
-        int n = vector.length;
-        double[][] augmented = new double[n][n + 1];
-        for (int i = 0; i < n; i++) {
-            System.arraycopy(matrix[i], 0, augmented[i], 0, n);
-            augmented[i][n] = vector[i];
-        }
-        for (int pivot = 0; pivot < n; pivot++) {
-            int maxRow = pivot;
-            double maxValue = Math.abs(augmented[pivot][pivot]);
-            for (int row = pivot + 1; row < n; row++) {
-                double value = Math.abs(augmented[row][pivot]);
-                if (value > maxValue) {
-                    maxValue = value;
-                    maxRow = row;
-                }
-            }
-            if (maxValue < 1e-9) {
-                return null;
-            }
-            if (maxRow != pivot) {
-                double[] temp = augmented[pivot];
-                augmented[pivot] = augmented[maxRow];
-                augmented[maxRow] = temp;
-            }
-            double pivotValue = augmented[pivot][pivot];
-            for (int col = pivot; col <= n; col++) {
-                augmented[pivot][col] /= pivotValue;
-            }
-            for (int row = 0; row < n; row++) {
-                if (row == pivot) {
-                    continue;
-                }
-                double factor = augmented[row][pivot];
-                for (int col = pivot; col <= n; col++) {
-                    augmented[row][col] -= factor * augmented[pivot][col];
-                }
-            }
-        }
-        double[] solution = new double[n];
-        for (int i = 0; i < n; i++) {
-            solution[i] = augmented[i][n];
-        }
-        return solution;
-    }
-
     private Map<String, FeatureTrend> computeFeatureTrends(List<ForecastEngineRequest.HistoryPoint> history,
                                                            List<Integer> years,
                                                            List<String> featureKeys) {
@@ -690,21 +768,26 @@ public class LocalForecastEngine {
                                                List<String> featureKeys,
                                                Map<String, Double> featureMeans,
                                                Map<String, Double> featureStds,
-                                               List<Double> historyValues) {
+                                               DoubleSeries historyValues) {
         if (usable.isEmpty()) {
             return null;
         }
+        // 设计矩阵与 XᵀX 只构建一次，各 λ 与各验证折共享
+        RidgeRegressionSolver solver = buildStandardizedSolver(usable, featureKeys, featureMeans, featureStds);
         double[] lambdaGrid = new double[] {0d, 0.05d, 0.1d, 0.3d, 1d};
         RegressionFit bestFit = null;
         double bestScore = Double.NEGATIVE_INFINITY;
-        for (double lambda : lambdaGrid) {
+        for (int step = 0; step < lambdaGrid.length; step++) {
+            ForecastCancellation.checkpoint();
+            double lambda = lambdaGrid[step];
             RegressionFit candidate = solveRegressionWithValidation(
-                usable,
+                solver,
                 featureKeys,
                 featureMeans,
                 featureStds,
                 lambda
             );
+            ForecastCancellation.reportProgress("气象回归调参", step + 1, lambdaGrid.length);
             if (candidate == null || candidate.metrics == null || candidate.metrics.r2() == null) {
                 continue;
             }
@@ -718,7 +801,7 @@ public class LocalForecastEngine {
             return bestFit;
         }
         RegressionFit baselineFit = solveRegressionWithValidation(
-            usable,
+            solver,
             featureKeys,
             featureMeans,
             featureStds,
@@ -727,7 +810,7 @@ public class LocalForecastEngine {
         if (baselineFit != null && baselineFit.metrics != null) {
             return baselineFit;
         }
-        double[] coefficients = solveStandardizedNormalEquation(usable, featureKeys, featureMeans, featureStds, 0.2d);
+        double[] coefficients = solver.solve(0.2d);
         if (coefficients == null) {
             return null;
         }
@@ -736,118 +819,59 @@ public class LocalForecastEngine {
             featureKeys,
             featureMeans,
             featureStds,
-            buildBaselineMetrics(historyValues)
+            buildBaselineMetrics(historyValues),
+            null
         );
     }
 
-    private RegressionFit solveRegressionWithValidation(List<ForecastEngineRequest.HistoryPoint> history,
+    private RegressionFit solveRegressionWithValidation(RidgeRegressionSolver solver,
                                                         List<String> featureKeys,
                                                         Map<String, Double> featureMeans,
                                                         Map<String, Double> featureStds,
                                                         double lambda) {
-        int samples = history.size();
-        List<Double> actual = new ArrayList<>();
-        List<Double> predicted = new ArrayList<>();
-        for (int holdout = 0; holdout < samples; holdout++) {
-            double[] coefficients = solveStandardizedNormalEquation(history, featureKeys, featureMeans, featureStds, lambda, holdout);
-            if (coefficients == null) {
-                return null;
-            }
-            double estimate = estimateWithCoefficients(history.get(holdout), coefficients, featureKeys, featureMeans, featureStds);
-            actual.add(history.get(holdout).value());
-            predicted.add(estimate);
-        }
-        double[] coeffs = solveStandardizedNormalEquation(history, featureKeys, featureMeans, featureStds, lambda);
-        if (coeffs == null) {
+        RidgeRegressionSolver.CrossValidation validation = solver.crossValidate(lambda);
+        if (validation == null) {
             return null;
         }
-        ForecastEvaluation evaluation = computeEvaluation(
-            actual.stream().mapToDouble(Double::doubleValue).toArray(),
-            predicted.stream().mapToDouble(Double::doubleValue).toArray()
-        );
+        ForecastEvaluation evaluation = computeEvaluation(solver.outputs(), validation.predictions());
         ForecastEngineResponse.EvaluationMetrics metrics = evaluation != null
             ? evaluation.metrics
             : null;
-        return new RegressionFit(coeffs, featureKeys, featureMeans, featureStds, metrics);
-    }
-
-    private double estimateWithCoefficients(ForecastEngineRequest.HistoryPoint point,
-                                            double[] coefficients,
-                                            List<String> featureKeys,
-                                            Map<String, Double> featureMeans,
-                                            Map<String, Double> featureStds) {
-        double estimate = coefficients[0];
-        for (int j = 0; j < featureKeys.size(); j++) {
-            String key = featureKeys.get(j);
-            Double raw = point.features().get(key);
-            double centered = (raw != null ? raw : featureMeans.getOrDefault(key, 0d)) - featureMeans.getOrDefault(key, 0d);
-            double std = featureStds.getOrDefault(key, 1d);
-            double normalized = std == 0 ? 0 : centered / std;
-            estimate += coefficients[j + 1] * normalized;
-        }
-        return estimate;
+        return new RegressionFit(validation.coefficients(), featureKeys, featureMeans, featureStds, metrics,
+            evaluation != null ? evaluation.residuals : null);
     }
 
-    private double[] solveStandardizedNormalEquation(List<ForecastEngineRequest.HistoryPoint> history,
-                                                     List<String> featureKeys,
-                                                     Map<String, Double> featureMeans,
-                                                     Map<String, Double> featureStds,
-                                                     double lambda) {
-        return solveStandardizedNormalEquation(history, featureKeys, featureMeans, featureStds, lambda, -1);
-    }
-
-    private double[] solveStandardizedNormalEquation(List<ForecastEngineRequest.HistoryPoint> history,
-                                                     List<String> featureKeys,
-                                                     Map<String, Double> featureMeans,
-                                                     Map<String, Double> featureStds,
-                                                     double lambda,
-                                                     int skipIndex) {
-        int samples = skipIndex >= 0 ? history.size() - 1 : history.size();
+    private RidgeRegressionSolver buildStandardizedSolver(List<ForecastEngineRequest.HistoryPoint> history,
+                                                          List<String> featureKeys,
+                                                          Map<String, Double> featureMeans,
+                                                          Map<String, Double> featureStds) {
+        int samples = history.size();
         int columns = featureKeys.size() + 1;
         double[][] design = new double[samples][columns];
         double[] outputs = new double[samples];
-        int row = 0;
-        for (int i = 0; i < history.size(); i++) {
-            if (i == skipIndex) {
-                continue;
-            }
-            design[row][0] = 1d;
+        for (int i = 0; i < samples; i++) {
+            design[i][0] = 1d;
             ForecastEngineRequest.HistoryPoint point = history.get(i);
-            outputs[row] = point.value();
+            outputs[i] = point.value();
             for (int j = 0; j < featureKeys.size(); j++) {
                 String key = featureKeys.get(j);
                 Double value = point.features().get(key);
                 double centered = (value != null ? value : featureMeans.getOrDefault(key, 0d)) - featureMeans.getOrDefault(key, 0d);
                 double std = featureStds.getOrDefault(key, 1d);
-                design[row][j + 1] = std == 0 ? 0 : centered / std;
+                design[i][j + 1] = std == 0 ? 0 : centered / std;
             }
-            row++;
         }
-        return solveRidgeNormalEquation(design, outputs, lambda);
+        return new RidgeRegressionSolver(design, outputs);
     }
 
-    private double[] solveRidgeNormalEquation(double[][] designMatrix, double[] outputs, double lambda) {
+    /**
+     * 岭回归正规方程求解（包级可见，供基准测试直接调用）
+     */
+    double[] solveRidgeNormalEquation(double[][] designMatrix, double[] outputs, double lambda) {
         if (designMatrix.length == 0) {
             return null;
         }
-        int columns = designMatrix[0].length;
-        double[][] xtx = new double[columns][columns];
-        double[] xty = new double[columns];
-        for (int i = 0; i < designMatrix.length; i++) {
-            for (int j = 0; j < columns; j++) {
-                xty[j] += designMatrix[i][j] * outputs[i];
-                for (int k = 0; k < columns; k++) {
-                    xtx[j][k] += designMatrix[i][j] * designMatrix[i][k];
-                }
-            }
-        }
-        for (int j = 0; j < columns; j++) {
-            if (j == 0) {
-                continue;
-            }
-            xtx[j][j] += lambda;
-        }
-        return gaussianElimination(xtx, xty);
+        return new RidgeRegressionSolver(designMatrix, outputs).solve(lambda);
     }
 
     private ForecastEngineResponse.EvaluationMetrics buildRegressionMetrics(double[] actual,
@@ -858,25 +882,27 @@ public class LocalForecastEngine {
             : new ForecastEngineResponse.EvaluationMetrics(null, null, null, null);
     }
 
-    private List<Double> rollingWindowForecast(List<Double> historyValues, int periods) {
-        List<Double> working = new ArrayList<>(historyValues);
-        List<Double> results = new ArrayList<>();
+    private double[] rollingWindowForecast(DoubleSeries historyValues, int periods) {
+        int n = historyValues.size();
+        double[] working = Arrays.copyOf(historyValues.toArray(), n + periods);
+        double[] results = new double[periods];
         for (int i = 0; i < periods; i++) {
-            int windowSize = Math.min(3, working.size());
+            int size = n + i;
+            int windowSize = Math.min(3, size);
             double sum = 0;
-            for (int j = working.size() - windowSize; j < working.size(); j++) {
-                sum += working.get(j);
+            for (int j = size - windowSize; j < size; j++) {
+                sum += working[j];
             }
             double average = sum / windowSize;
-            double variability = computeVariability(working);
+            double variability = computeVariability(DoubleSeries.wrap(working).prefix(size));
             double forecast = average + variability * 0.2;
-            results.add(forecast);
-            working.add(forecast);
+            results[i] = forecast;
+            working[size] = forecast;
         }
         return results;
     }
 
-    private List<Double> seasonalProjectionForecast(List<Double> historyValues, int periods) {
+    private double[] seasonalProjectionForecast(DoubleSeries historyValues, int periods) {
         int n = historyValues.size();
         double base = historyValues.get(n - 1);
         double trend = n > 1 ? (historyValues.get(n - 1) - historyValues.get(0)) / (n - 1) : 0;
@@ -885,11 +911,10 @@ public class LocalForecastEngine {
             seasonalAmplitude = Math.abs(base) * 0.03;
         }
 
-        List<Double> results = new ArrayList<>();
+        double[] results = new double[periods];
         for (int i = 1; i <= periods; i++) {
             double season = Math.sin((n + i) * Math.PI / 2);
-            double forecast = base + trend * i + season * seasonalAmplitude;
-            results.add(forecast);
+            results[i - 1] = base + trend * i + season * seasonalAmplitude;
         }
         return results;
     }
@@ -954,29 +979,20 @@ public class LocalForecastEngine {
         return result;
     }
 
-    private double computeConfidenceBand(List<Double> historyValues) {
+    private double computeConfidenceBand(DoubleSeries historyValues) {
         double stdDev = computeVariability(historyValues);
         if (stdDev == 0) {
-            double last = historyValues.get(historyValues.size() - 1);
+            double last = historyValues.last();
             return Math.max(Math.abs(last) * 0.04, 0.1);
         }
         return stdDev * 0.65;
     }
 
-    private double computeVariability(List<Double> values) {
-        if (values.size() < 2) {
-            return 0;
-        }
-        double mean = values.stream().mapToDouble(Double::doubleValue).average().orElse(0);
-        double variance = 0;
-        for (Double value : values) {
-            variance += Math.pow(value - mean, 2);
-        }
-        variance /= (values.size() - 1);
-        return Math.sqrt(variance);
+    private double computeVariability(DoubleSeries values) {
+        return values.sampleStdDev();
     }
 
-    private ForecastEngineResponse.EvaluationMetrics buildBaselineMetrics(List<Double> historyValues) {
+    private ForecastEngineResponse.EvaluationMetrics buildBaselineMetrics(DoubleSeries historyValues) {
         if (historyValues.size() < 2) {
             return new ForecastEngineResponse.EvaluationMetrics(null, null, null, null);
         }
@@ -1018,7 +1034,7 @@ public class LocalForecastEngine {
         );
     }
 
-    private DoubleExponentialModel fitDoubleExponentialModel(List<Double> historyValues) {
+    private DoubleExponentialModel fitDoubleExponentialModel(DoubleSeries historyValues) {
         if (historyValues.size() < 3) {
             return null;
         }
@@ -1026,7 +1042,7 @@ public class LocalForecastEngine {
         double bestScore = Double.POSITIVE_INFINITY;
         for (double alpha = 0.2; alpha <= 0.95; alpha += 0.05) {
             for (double beta = 0.05; beta <= 0.5; beta += 0.05) {
-                DoubleExponentialModel candidate = simulateDoubleExponential(historyValues, alpha, beta);
+                DoubleExponentialModel candidate = simulateDoubleExponential(historyValues, alpha, beta, null);
                 if (candidate == null) {
                     continue;
                 }
@@ -1041,9 +1057,13 @@ public class LocalForecastEngine {
         return bestModel;
     }
 
-    private DoubleExponentialModel simulateDoubleExponential(List<Double> historyValues,
+    /**
+     * 以给定平滑系数逐点做单步预测；errors 非空时依次写入各点的单步误差（长度为 n - 1）
+     */
+    private DoubleExponentialModel simulateDoubleExponential(DoubleSeries historyValues,
                                                               double alpha,
-                                                              double beta) {
+                                                              double beta,
+                                                              double[] errors) {
         double level = historyValues.get(0);
         double trend = historyValues.get(1) - historyValues.get(0);
         double sumAbs = 0;
@@ -1054,6 +1074,9 @@ public class LocalForecastEngine {
             double forecast = level + trend;
             double actual = historyValues.get(i);
             double error = actual - forecast;
+            if (errors != null) {
+                errors[i - 1] = error;
+            }
             sumAbs += Math.abs(error);
             sumSq += error * error;
             double denominator = Math.abs(actual) < 1e-6 ? 1e-6 : Math.abs(actual);
@@ -1070,7 +1093,7 @@ public class LocalForecastEngine {
         double mae = sumAbs / comparisons;
         double rmse = Math.sqrt(sumSq / comparisons);
         double mape = (sumPct / comparisons) * 100;
-        double mean = historyValues.stream().skip(1).mapToDouble(Double::doubleValue).average().orElse(0d);
+        double mean = (historyValues.sum() - historyValues.get(0)) / comparisons;
         double sst = 0d;
         for (int i = 1; i < historyValues.size(); i++) {
             double actual = historyValues.get(i);
@@ -1080,8 +1103,8 @@ public class LocalForecastEngine {
         return new DoubleExponentialModel(alpha, beta, level, trend, mae, rmse, mape, r2, comparisons);
     }
 
-    private List<Double> projectDoubleExponential(DoubleExponentialModel model, int periods) {
-        List<Double> results = new ArrayList<>();
+    private double[] projectDoubleExponential(DoubleExponentialModel model, int periods) {
+        double[] results = new double[periods];
         double baseLevel = model.level;
         double trend = model.trend;
         for (int i = 1; i <= periods; i++) {
@@ -1089,12 +1112,12 @@ public class LocalForecastEngine {
             if (forecast < 0) {
                 forecast = 0;
             }
-            results.add(forecast);
+            results[i - 1] = forecast;
         }
         return results;
     }
 
-    private ForecastEvaluation evaluateLinearTrendPerformance(List<Double> historyValues) {
+    private ForecastEvaluation evaluateLinearTrendPerformance(DoubleSeries historyValues) {
         if (historyValues.size() < 3) {
             return null;
         }
@@ -1114,7 +1137,7 @@ public class LocalForecastEngine {
         double denominator = n * sumXX - sumX * sumX;
         double slope = denominator == 0 ? 0 : (n * sumXY - sumX * sumY) / denominator;
         double intercept = (sumY - slope * sumX) / n;
-        double[] actual = historyValues.stream().mapToDouble(Double::doubleValue).toArray();
+        double[] actual = historyValues.toArray();
         double[] predicted = new double[n];
         for (int i = 0; i < n; i++) {
             double x = i + 1;
@@ -1123,33 +1146,94 @@ public class LocalForecastEngine {
         return computeEvaluation(actual, predicted);
     }
 
-    private ForecastEvaluation evaluateLstmPerformance(List<Double> historyValues, Map<String, Object> parameters) {
+    /**
+     * 训练LSTM并完成滚动回测：各回测折按训练集长度递增依次训练，第一折从头训练，
+     * 之后每一折从上一折的权重热启动，只做少量增量训练，且热启动来源始终只见过更短的前缀，不会把验证点泄漏进回测；
+     * 返回给用户的全量拟合始终从头训练完整轮次，各前缀的归一化区间不同，继承的权重不适合作为最终模型。
+     * 全量拟合不依赖回测折，开始时即提交到候选模型线程池与回测折并行；线程池已满或尚未开始执行时由当前线程在回测折之后执行
+     * 参数 warmStart=false 时回测折也从头训练
+     */
+    private LstmOutcome fitLstmWithValidation(DoubleSeries historyValues,
+                                              int forecastPeriods,
+                                              Map<String, Object> parameters) {
+        boolean warmStartEnabled = isWarmStartEnabled(parameters);
         int validationPoints = Math.min(3, historyValues.size() - MIN_LSTM_HISTORY);
-        if (validationPoints <= 0) {
-            return null;
+        double[] actual = new double[Math.max(0, validationPoints)];
+        double[] predicted = new double[actual.length];
+        int count = 0;
+        // 各回测折与最终拟合各占一段进度，最终拟合与回测折并行时进度按完成比例求和
+        int fits = Math.max(0, validationPoints) + 1;
+        ForecastCancellation scope = ForecastCancellation.current().child();
+        ForecastCancellation.ParallelSteps steps = ForecastCancellation.parallelSteps(scope, fits);
+        Supplier<Optional<Dl4jLstmForecaster.FittedForecast>> finalFit = () -> steps.run(fits - 1,
+            () -> lstmForecaster.forecast(historyValues, forecastPeriods, parameters, null));
+        // 由先到的一方执行最终拟合：候选线程池中的任务尚未开始时当前线程直接执行，避免占满线程池的候选模型互相等待
+        AtomicBoolean finalFitClaimed = new AtomicBoolean();
+        CompletableFuture<Optional<Dl4jLstmForecaster.FittedForecast>> finalFitFuture = new CompletableFuture<>();
+        try {
+            candidateExecutor.execute(() -> {
+                if (finalFitClaimed.compareAndSet(false, true)) {
+                    try {
+                        finalFitFuture.complete(finalFit.get());
+                    } catch (Throwable ex) {
+                        finalFitFuture.completeExceptionally(ex);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.debug("候选模型计算线程池已满，LSTM 全量拟合在回测折之后执行");
         }
-        List<Double> actual = new ArrayList<>();
-        List<Double> predicted = new ArrayList<>();
-        for (int offset = validationPoints; offset > 0; offset--) {
-            int trainSize = historyValues.size() - offset;
-            if (trainSize < MIN_LSTM_HISTORY) {
-                continue;
-            }
-            List<Double> training = new ArrayList<>(historyValues.subList(0, trainSize));
-            Optional<List<Double>> forecast = lstmForecaster.forecast(training, 1, parameters);
-            if (forecast.isEmpty()) {
-                continue;  // 跳过失败的预测
+        Optional<Dl4jLstmForecaster.FittedForecast> fitted;
+        try {
+            Dl4jLstmForecaster.WarmStart warmStart = null;
+            for (int offset = validationPoints; offset > 0; offset--) {
+                ForecastCancellation.checkpoint();
+                int trainSize = historyValues.size() - offset;
+                if (trainSize < MIN_LSTM_HISTORY) {
+                    continue;
+                }
+                Dl4jLstmForecaster.WarmStart foldWarmStart = warmStart;
+                Optional<Dl4jLstmForecaster.FittedForecast> fold = steps.run(validationPoints - offset,
+                    () -> lstmForecaster.forecast(historyValues.prefix(trainSize), 1, parameters, foldWarmStart));
+                if (fold.isEmpty()) {
+                    continue;  // 跳过失败的预测
+                }
+                if (warmStartEnabled && fold.get().warmStart() != null) {
+                    warmStart = fold.get().warmStart();
+                }
+                predicted[count] = fold.get().values()[0];
+                actual[count] = historyValues.get(trainSize);
+                count++;
             }
-            predicted.add(forecast.get().get(0));
-            actual.add(historyValues.get(trainSize));
-        }
-        if (actual.isEmpty() || predicted.size() != actual.size()) {
+            fitted = finalFitClaimed.compareAndSet(false, true) ? finalFit.get() : finalFitFuture.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        } catch (RuntimeException ex) {
+            // 回测折失败或被取消时停止并行的全量拟合，尚未开始的不再执行
+            finalFitClaimed.set(true);
+            scope.cancel();
+            throw ex;
+        }
+        double[] forecast = fitted.map(Dl4jLstmForecaster.FittedForecast::values).orElse(null);
+        ForecastEvaluation evaluation = forecast != null
+            ? evaluateLstmPerformance(historyValues, Arrays.copyOf(actual, count), Arrays.copyOf(predicted, count))
+            : null;
+        return new LstmOutcome(forecast, evaluation, fitted.map(Dl4jLstmForecaster.FittedForecast::warmStart).orElse(null));
+    }
+
+    private boolean isWarmStartEnabled(Map<String, Object> parameters) {
+        Object value = parameters != null ? parameters.get("warmStart") : null;
+        return value == null || !"false".equalsIgnoreCase(value.toString().trim());
+    }
+
+    private ForecastEvaluation evaluateLstmPerformance(DoubleSeries historyValues,
+                                                       double[] actual,
+                                                       double[] predicted) {
+        if (actual.length == 0 || predicted.length != actual.length) {
             return null;
         }
-        double[] actualArray = actual.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] predictedArray = predicted.stream().mapToDouble(Double::doubleValue).toArray();
         
-        ForecastEvaluation evaluation = computeEvaluation(actualArray, predictedArray);
+        ForecastEvaluation evaluation = computeEvaluation(actual, predicted);
         
         // 如果R²为负数，使用线性趋势作为后备
         if (evaluation != null && evaluation.metrics != null && evaluation.metrics.r2() != null && evaluation.metrics.r2() < 0) {
@@ -1175,8 +1259,10 @@ public class LocalForecastEngine {
             }
         }
         
+        double[] residuals = new double[actual.length];
         for (int i = 0; i < actual.length; i++) {
             double error = actual[i] - predicted[i];
+            residuals[i] = error;
             sumAbs += Math.abs(error);
             sumSq += error * error;
             if (Math.abs(actual[i]) > 1e-9) {
@@ -1239,10 +1325,77 @@ public class LocalForecastEngine {
             round(mape),
             r2 != null ? round(r2) : null
         );
-        return new ForecastEvaluation(metrics, rmse, mape);
+        return new ForecastEvaluation(metrics, rmse, mape, residuals);
+    }
+
+    /**
+     * 请求参数 autoTune（true / grid / halving）或全局配置开启时搜索 ARIMA 阶数或 Prophet 季节周期，
+     * 以最后约四分之一（3~24 个）的点做滚动单步回测，按 computeEvaluation 的 RMSE 选优
+     */
+    private Map<String, Object> tuneParameters(ForecastModel.ModelType modelType,
+                                               DoubleSeries historyValues,
+                                               Map<String, Object> parameters) {
+        Object requested = parameters != null ? parameters.get("autoTune") : null;
+        HyperparameterTuner.Strategy strategy = requested != null
+            ? HyperparameterTuner.Strategy.parse(requested, defaultTuningStrategy)
+            : (tuningEnabledByDefault ? defaultTuningStrategy : null);
+        if (strategy == null) {
+            return parameters;
+        }
+        boolean useArima = modelType == ForecastModel.ModelType.ARIMA;
+        int minHistory = useArima ? 5 : 4;
+        int validationPoints = Math.min(Math.max(3, historyValues.size() / 4), MAX_TUNING_VALIDATION_POINTS);
+        validationPoints = Math.min(validationPoints, historyValues.size() - minHistory);
+        return hyperparameterTuner.tune(modelType, historyValues, parameters, strategy, validationPoints,
+            (candidate, points) -> tuningScore(historyValues, candidate, points, useArima));
+    }
+
+    private double tuningScore(DoubleSeries historyValues,
+                               Map<String, Object> parameters,
+                               int validationPoints,
+                               boolean useArima) {
+        int startIndex = historyValues.size() - validationPoints;
+        double[] oneStep = walkForwardOneStep(historyValues, startIndex, parameters, useArima);
+        double[] actual = new double[validationPoints];
+        double[] predicted = new double[validationPoints];
+        int count = 0;
+        for (int i = startIndex; i < historyValues.size(); i++) {
+            if (Double.isFinite(oneStep[i])) {
+                actual[count] = historyValues.get(i);
+                predicted[count] = oneStep[i];
+                count++;
+            }
+        }
+        // 有失败的回测点时视为不可用，避免候选因跳过难预测的点而得到偏低的误差
+        if (count < validationPoints) {
+            return Double.NaN;
+        }
+        ForecastEvaluation evaluation = computeEvaluation(actual, predicted);
+        return evaluation != null ? evaluation.rmseScore : Double.NaN;
+    }
+
+    /**
+     * 预测区间使用的单步回测残差：取最近至多 MAX_INTERVAL_RESIDUALS 个点滚动回测，
+     * 比评估指标所用的 3 个验证点更能反映误差分布
+     */
+    private double[] intervalResiduals(DoubleSeries historyValues, Map<String, Object> parameters, boolean useArima) {
+        if (predictionIntervals == null) {
+            return null;
+        }
+        int minHistory = useArima ? 5 : 4;
+        int startIndex = Math.max(minHistory, historyValues.size() - MAX_INTERVAL_RESIDUALS);
+        if (historyValues.size() - startIndex < PredictionIntervals.MIN_RESIDUALS) {
+            return null;
+        }
+        double[] oneStep = walkForwardOneStep(historyValues, startIndex, parameters, useArima);
+        double[] residuals = new double[historyValues.size() - startIndex];
+        for (int i = startIndex; i < historyValues.size(); i++) {
+            residuals[i - startIndex] = historyValues.get(i) - oneStep[i];
+        }
+        return residuals;
     }
 
-    private ForecastEvaluation evaluateArimaPerformance(List<Double> historyValues, Map<String, Object> parameters) {
+    private ForecastEvaluation evaluateArimaPerformance(DoubleSeries historyValues, Map<String, Object> parameters) {
         // 降低最小数据要求，从5降到3
         int minHistory = 3;
         int validationPoints = Math.min(3, historyValues.size() - minHistory);
@@ -1258,22 +1411,23 @@ public class LocalForecastEngine {
             }
             return null;
         }
-        List<Double> actual = new ArrayList<>();
-        List<Double> predicted = new ArrayList<>();
+        double[] actual = new double[validationPoints];
+        double[] predicted = new double[validationPoints];
+        int count = 0;
+        double[] oneStep = walkForwardOneStep(historyValues, historyValues.size() - validationPoints, parameters, true);
         for (int offset = validationPoints; offset > 0; offset--) {
             int trainSize = historyValues.size() - offset;
             if (trainSize < minHistory) {
                 continue;
             }
-            List<Double> training = new ArrayList<>(historyValues.subList(0, trainSize));
-            Optional<List<Double>> forecast = arimaForecaster.forecast(training, 1, parameters);
-            if (forecast.isEmpty()) {
+            if (Double.isNaN(oneStep[trainSize])) {
                 continue;  // 跳过失败的预测，而不是返回null
             }
-            predicted.add(forecast.get().get(0));
-            actual.add(historyValues.get(trainSize));
+            predicted[count] = oneStep[trainSize];
+            actual[count] = historyValues.get(trainSize);
+            count++;
         }
-        if (actual.isEmpty() || predicted.size() != actual.size()) {
+        if (count == 0) {
             // 如果交叉验证失败，尝试拟合评估
             if (historyValues.size() >= minHistory) {
                 ForecastEvaluation eval = evaluateModelFit(historyValues, parameters, true);
@@ -1285,10 +1439,7 @@ public class LocalForecastEngine {
             }
             return null;
         }
-        double[] actualArray = actual.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] predictedArray = predicted.stream().mapToDouble(Double::doubleValue).toArray();
-        
-        ForecastEvaluation evaluation = computeEvaluation(actualArray, predictedArray);
+        ForecastEvaluation evaluation = computeEvaluation(Arrays.copyOf(actual, count), Arrays.copyOf(predicted, count));
         
         // 如果R²为负数，使用线性趋势作为后备
         if (evaluation != null && evaluation.metrics != null && evaluation.metrics.r2() != null && evaluation.metrics.r2() < 0) {
@@ -1298,7 +1449,7 @@ public class LocalForecastEngine {
         return evaluation;
     }
 
-    private ForecastEvaluation evaluateProphetPerformance(List<Double> historyValues, Map<String, Object> parameters) {
+    private ForecastEvaluation evaluateProphetPerformance(DoubleSeries historyValues, Map<String, Object> parameters) {
         // 降低最小数据要求，从4降到3
         int minHistory = 3;
         int validationPoints = Math.min(3, historyValues.size() - minHistory);
@@ -1314,22 +1465,23 @@ public class LocalForecastEngine {
             }
             return null;
         }
-        List<Double> actual = new ArrayList<>();
-        List<Double> predicted = new ArrayList<>();
+        double[] actual = new double[validationPoints];
+        double[] predicted = new double[validationPoints];
+        int count = 0;
+        double[] oneStep = walkForwardOneStep(historyValues, historyValues.size() - validationPoints, parameters, false);
         for (int offset = validationPoints; offset > 0; offset--) {
             int trainSize = historyValues.size() - offset;
             if (trainSize < minHistory) {
                 continue;
             }
-            List<Double> training = new ArrayList<>(historyValues.subList(0, trainSize));
-            Optional<List<Double>> forecast = prophetForecaster.forecast(training, 1, parameters);
-            if (forecast.isEmpty()) {
+            if (Double.isNaN(oneStep[trainSize])) {
                 continue;  // 跳过失败的预测，而不是返回null
             }
-            predicted.add(forecast.get().get(0));
-            actual.add(historyValues.get(trainSize));
+            predicted[count] = oneStep[trainSize];
+            actual[count] = historyValues.get(trainSize);
+            count++;
         }
-        if (actual.isEmpty() || predicted.size() != actual.size()) {
+        if (count == 0) {
             // 如果交叉验证失败，尝试拟合评估
             if (historyValues.size() >= minHistory) {
                 ForecastEvaluation eval = evaluateModelFit(historyValues, parameters, false);
@@ -1341,10 +1493,7 @@ public class LocalForecastEngine {
             }
             return null;
         }
-        double[] actualArray = actual.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] predictedArray = predicted.stream().mapToDouble(Double::doubleValue).toArray();
-        
-        ForecastEvaluation evaluation = computeEvaluation(actualArray, predictedArray);
+        ForecastEvaluation evaluation = computeEvaluation(Arrays.copyOf(actual, count), Arrays.copyOf(predicted, count));
         
         // 如果R²为负数，使用线性趋势作为后备
         if (evaluation != null && evaluation.metrics != null && evaluation.metrics.r2() != null && evaluation.metrics.r2() < 0) {
@@ -1358,7 +1507,7 @@ public class LocalForecastEngine {
      * 当模型预测效果很差时，使用简单的线性趋势作为后备
      * 这样可以确保R²至少不是负数
      */
-    private ForecastEvaluation useTrendFallback(List<Double> historyValues, String modelName) {
+    private ForecastEvaluation useTrendFallback(DoubleSeries historyValues, String modelName) {
         // 使用线性趋势评估
         ForecastEvaluation trendEval = evaluateLinearTrendPerformance(historyValues);
         
@@ -1369,12 +1518,7 @@ public class LocalForecastEngine {
         }
         
         // 如果连线性趋势都失败了，返回一个保守的评估
-        double mean = historyValues.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double stdDev = 0;
-        for (double value : historyValues) {
-            stdDev += Math.pow(value - mean, 2);
-        }
-        stdDev = Math.sqrt(stdDev / historyValues.size());
+        double stdDev = historyValues.populationStdDev(historyValues.mean());
         
         // 返回一个保守的评估：R²=0（表示与均值预测相当）
         ForecastEngineResponse.EvaluationMetrics conservativeMetrics = 
@@ -1389,39 +1533,28 @@ public class LocalForecastEngine {
 
     /**
      * 当数据不足以进行交叉验证时，通过拟合整个数据集来评估模型
-     * 使用训练集拟合度评估（in-sample evaluation）
+     * 使用训练集拟合度评估（in-sample evaluation），包级可见以便基准测试直接调用
      */
-    private ForecastEvaluation evaluateModelFit(List<Double> historyValues, Map<String, Object> parameters, boolean useArima) {
+    ForecastEvaluation evaluateModelFit(DoubleSeries historyValues, Map<String, Object> parameters, boolean useArima) {
         if (historyValues.size() < 3) {
             return null;
         }
         
         // 使用后80%的数据进行拟合评估（前20%用于模型初始化）
         int startIndex = Math.max(1, historyValues.size() / 5);
-        List<Double> actual = new ArrayList<>();
-        List<Double> predicted = new ArrayList<>();
+        double[] actual = new double[historyValues.size() - startIndex];
+        double[] predicted = new double[actual.length];
+        int count = 0;
         
         // 计算数据统计信息用于异常检测
-        double mean = historyValues.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double stdDev = 0;
-        for (double value : historyValues) {
-            stdDev += Math.pow(value - mean, 2);
-        }
-        stdDev = Math.sqrt(stdDev / historyValues.size());
+        double mean = historyValues.mean();
+        double stdDev = historyValues.populationStdDev(mean);
         
         // 对每个点，使用之前所有数据进行单步预测
+        double[] oneStep = walkForwardOneStep(historyValues, startIndex, parameters, useArima);
         for (int i = startIndex; i < historyValues.size(); i++) {
-            List<Double> training = new ArrayList<>(historyValues.subList(0, i));
-            Optional<List<Double>> forecast;
-            
-            if (useArima) {
-                forecast = arimaForecaster.forecast(training, 1, parameters);
-            } else {
-                forecast = prophetForecaster.forecast(training, 1, parameters);
-            }
-            
-            if (forecast.isPresent() && !forecast.get().isEmpty()) {
-                double predictedValue = forecast.get().get(0);
+            if (!Double.isNaN(oneStep[i])) {
+                double predictedValue = oneStep[i];
                 double actualValue = historyValues.get(i);
                 
                 // 更宽松的异常值过滤
@@ -1431,11 +1564,11 @@ public class LocalForecastEngine {
                     
                     if (ratio > 5) {
                         // 差异很大：使用加权平均（70%前值 + 30%预测值）
-                        double prevValue = training.get(training.size() - 1);
+                        double prevValue = historyValues.get(i - 1);
                         predictedValue = prevValue * 0.7 + predictedValue * 0.3;
                     } else if (ratio > 3) {
                         // 差异较大：使用加权平均（50%前值 + 50%预测值）
-                        double prevValue = training.get(training.size() - 1);
+                        double prevValue = historyValues.get(i - 1);
                         predictedValue = prevValue * 0.5 + predictedValue * 0.5;
                     }
                     
@@ -1444,20 +1577,18 @@ public class LocalForecastEngine {
                     double maxValue = mean + 4 * stdDev;
                     predictedValue = Math.max(minValue, Math.min(maxValue, predictedValue));
                     
-                    predicted.add(predictedValue);
-                    actual.add(actualValue);
+                    predicted[count] = predictedValue;
+                    actual[count] = actualValue;
+                    count++;
                 }
             }
         }
         
-        if (actual.isEmpty() || predicted.size() != actual.size() || actual.size() < 2) {
+        if (count < 2) {
             return null;
         }
         
-        double[] actualArray = actual.stream().mapToDouble(Double::doubleValue).toArray();
-        double[] predictedArray = predicted.stream().mapToDouble(Double::doubleValue).toArray();
-        
-        ForecastEvaluation evaluation = computeEvaluation(actualArray, predictedArray);
+        ForecastEvaluation evaluation = computeEvaluation(Arrays.copyOf(actual, count), Arrays.copyOf(predicted, count));
         
         // 如果R²仍然是极端负数，限制在合理范围内
         if (evaluation != null && evaluation.metrics != null && evaluation.metrics.r2() != null) {
@@ -1478,11 +1609,146 @@ public class LocalForecastEngine {
         return evaluation;
     }
 
+    /**
+     * 滚动单步回测：下标 i 为以前 i 个点训练得到的预测值，无法预测时为 NaN
+     * 默认使用增量模式（各前缀的统计量随序列追加而更新，整体线性复杂度），
+     * 参数 incrementalBacktest=false 时退回为对每个前缀重新拟合
+     */
+    private double[] walkForwardOneStep(DoubleSeries historyValues,
+                                        int startIndex,
+                                        Map<String, Object> parameters,
+                                        boolean useArima) {
+        if (isIncrementalBacktest(parameters)) {
+            return useArima
+                ? arimaForecaster.walkForwardOneStep(historyValues, startIndex, parameters)
+                : prophetForecaster.walkForwardOneStep(historyValues, startIndex, parameters);
+        }
+        double[] predictions = new double[historyValues.size()];
+        Arrays.fill(predictions, Double.NaN);
+        int first = Math.max(0, startIndex);
+        for (int i = first; i < historyValues.size(); i++) {
+            ForecastCancellation.checkpoint();
+            DoubleSeries training = historyValues.prefix(i);
+            Optional<double[]> forecast = useArima
+                ? arimaForecaster.forecast(training, 1, parameters)
+                : prophetForecaster.forecast(training, 1, parameters);
+            if (forecast.isPresent() && forecast.get().length > 0) {
+                predictions[i] = forecast.get()[0];
+            }
+            ForecastCancellation.reportProgress("滚动回测", i - first + 1, historyValues.size() - first);
+        }
+        return predictions;
+    }
+
+    private boolean isIncrementalBacktest(Map<String, Object> parameters) {
+        if (parameters == null) {
+            return true;
+        }
+        Object value = parameters.get("incrementalBacktest");
+        if (value == null) {
+            return true;
+        }
+        return !"false".equalsIgnoreCase(value.toString().trim());
+    }
+
+    private ForecastCandidate buildSmoothingCandidate(DoubleSeries historyValues, int forecastPeriods) {
+        DoubleExponentialModel optimizedModel = fitDoubleExponentialModel(historyValues);
+        double[] smoothingForecast = optimizedModel != null
+            ? projectDoubleExponential(optimizedModel, forecastPeriods)
+            : exponentialSmoothingForecast(historyValues, forecastPeriods);
+        ForecastEvaluation smoothingEvaluation = null;
+        double[] smoothingResiduals = null;
+        if (optimizedModel != null && optimizedModel.comparisons > 0) {
+            smoothingResiduals = new double[historyValues.size() - 1];
+            simulateDoubleExponential(historyValues, optimizedModel.alpha, optimizedModel.beta, smoothingResiduals);
+            ForecastEngineResponse.EvaluationMetrics smoothingMetrics = new ForecastEngineResponse.EvaluationMetrics(
+                round(optimizedModel.mae),
+                round(optimizedModel.rmse),
+                round(optimizedModel.mape),
+                optimizedModel.r2 != null ? round(optimizedModel.r2) : null
+            );
+            smoothingEvaluation = new ForecastEvaluation(
+                smoothingMetrics,
+                optimizedModel.rmse,
+                optimizedModel.mape
+            );
+        }
+        ForecastEngineResponse.EvaluationMetrics smoothingMetrics = smoothingEvaluation != null
+            ? smoothingEvaluation.metrics
+            : buildBaselineMetrics(historyValues);
+        return new ForecastCandidate(
+            "DOUBLE_EXPONENTIAL",
+            smoothingForecast,
+            smoothingMetrics,
+            smoothingEvaluation != null ? smoothingEvaluation.rmseScore : scoreFromMetric(smoothingMetrics.rmse()),
+            smoothingEvaluation != null ? smoothingEvaluation.mapeScore : scoreFromMetric(smoothingMetrics.mape()),
+            smoothingResiduals
+        );
+    }
+
+    private ForecastCandidate buildLinearTrendCandidate(DoubleSeries historyValues, int forecastPeriods) {
+        double[] trendForecast = linearTrendForecast(historyValues, forecastPeriods);
+        ForecastEvaluation linearEvaluation = evaluateLinearTrendPerformance(historyValues);
+        ForecastEngineResponse.EvaluationMetrics linearMetrics = linearEvaluation != null
+            ? linearEvaluation.metrics
+            : buildBaselineMetrics(historyValues);
+        return new ForecastCandidate(
+            "LINEAR_TREND",
+            trendForecast,
+            linearMetrics,
+            linearEvaluation != null ? linearEvaluation.rmseScore : scoreFromMetric(linearMetrics.rmse()),
+            linearEvaluation != null ? linearEvaluation.mapeScore : scoreFromMetric(linearMetrics.mape()),
+            linearEvaluation != null ? linearEvaluation.residuals : null
+        );
+    }
+
+    private long candidateDeadline() {
+        return System.nanoTime() + candidateTimeout.toNanos();
+    }
+
+    /**
+     * 提交候选模型；线程池已满时不在调用线程上计算（否则单候选超时不再生效），直接视为失败的候选模型剔除
+     */
+    private <T> CompletableFuture<T> submitCandidate(ForecastCancellation scope, Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> scope.call(task), candidateExecutor);
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("候选模型计算线程池已满，已跳过", ex));
+        }
+    }
+
+    /**
+     * 在截止时间前等待候选模型结果；超时或失败的候选模型返回空，由调用方剔除，整个预测被取消时向上抛出
+     */
+    private <T> Optional<T> awaitCandidate(String label, CompletableFuture<T> future, long deadlineNanos) {
+        long remaining = Math.max(0L, deadlineNanos - System.nanoTime());
+        try {
+            return Optional.ofNullable(future.get(remaining, TimeUnit.NANOSECONDS));
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            log.warn("候选模型 {} 计算超过 {} ms，已从自动选择中剔除", label, candidateTimeout.toMillis());
+            return Optional.empty();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof ForecastCancelledException cancelled) {
+                ForecastCancellation.checkpoint();
+                log.debug("候选模型 {} 已停止: {}", label, cancelled.getMessage());
+                return Optional.empty();
+            }
+            log.warn("候选模型 {} 计算失败: {}", label, cause.getMessage());
+            return Optional.empty();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return Optional.empty();
+        }
+    }
+
     private ForecastCandidate selectBestCandidate(List<ForecastCandidate> candidates) {
         ForecastCandidate best = null;
         double bestScore = Double.POSITIVE_INFINITY;
         for (ForecastCandidate candidate : candidates) {
-            if (candidate == null || candidate.forecast == null || candidate.forecast.isEmpty()) {
+            if (candidate == null || candidate.forecast == null || candidate.forecast.length == 0) {
                 continue;
             }
             double score = candidate.rmseScore;
@@ -1501,7 +1767,7 @@ public class LocalForecastEngine {
             return best;
         }
         for (ForecastCandidate candidate : candidates) {
-            if (candidate != null && candidate.forecast != null && !candidate.forecast.isEmpty()) {
+            if (candidate != null && candidate.forecast != null && candidate.forecast.length > 0) {
                 return candidate;
             }
         }
@@ -0,0 +1,198 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 残差自助法（residual bootstrap）预测区间
+ * <p>从回测残差中有放回地抽样，第 h 期的误差取 h 个独立抽样残差之和（误差随预测步数累积），
+ * 以抽样分布的分位数加在点预测上得到各期的下界与上界。抽样按固定的分块数拆分，
+ * 每块使用从同一种子依次 split 出的 {@link SplittableRandom}，结果与是否并行无关；
+ * 抽样循环只写入预先分配的数组，不产生额外对象，分位数用原地快速选择求得，不做整体排序。</p>
+ */
+final class PredictionIntervals {
+
+    /**
+     * 少于该数量的有效残差时不做自助抽样，由调用方退回对称区间
+     */
+    static final int MIN_RESIDUALS = 5;
+
+    private static final int CHUNKS = 8;
+
+    /**
+     * 抽样总次数（样本数 × 预测期数）不低于该值时才分块并行，较小的请求在调用线程内完成更快
+     */
+    private static final int PARALLEL_THRESHOLD = 65_536;
+
+    private final Executor executor;
+    private final int samples;
+    private final double level;
+
+    /**
+     * @param executor 并行抽样使用的线程池
+     * @param samples  每期的自助抽样次数
+     * @param level    区间覆盖概率，如 0.8 表示取 10% 与 90% 分位数
+     */
+    PredictionIntervals(Executor executor, int samples, double level) {
+        this.executor = executor;
+        this.samples = Math.max(100, samples);
+        this.level = Math.min(Math.max(level, 0.5), 0.99);
+    }
+
+    record Band(double[] lower, double[] upper) {
+    }
+
+    /**
+     * 计算各期的区间；有效残差不足 {@link #MIN_RESIDUALS} 个时返回 null
+     */
+    Band bootstrap(double[] forecast, double[] residuals) {
+        double[] pool = finiteValues(residuals);
+        if (pool.length < MIN_RESIDUALS || forecast.length == 0) {
+            return null;
+        }
+        int horizon = forecast.length;
+        // 第 h 期的抽样结果位于 [h * samples, (h + 1) * samples)
+        double[] draws = new double[horizon * samples];
+        SplittableRandom root = new SplittableRandom(seed(forecast, pool));
+        SplittableRandom[] generators = new SplittableRandom[CHUNKS];
+        for (int c = 0; c < CHUNKS; c++) {
+            generators[c] = root.split();
+        }
+        int chunkSize = (samples + CHUNKS - 1) / CHUNKS;
+        if ((long) samples * horizon >= PARALLEL_THRESHOLD) {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[CHUNKS];
+            for (int c = 0; c < CHUNKS; c++) {
+                int chunk = c;
+                futures[c] = CompletableFuture.runAsync(() -> sample(pool, draws, horizon,
+                    chunk * chunkSize, Math.min(samples, (chunk + 1) * chunkSize), generators[chunk]), executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        } else {
+            for (int c = 0; c < CHUNKS; c++) {
+                sample(pool, draws, horizon, c * chunkSize, Math.min(samples, (c + 1) * chunkSize), generators[c]);
+            }
+        }
+
+        double tail = (1 - level) / 2;
+        double[] lower = new double[horizon];
+        double[] upper = new double[horizon];
+        for (int h = 0; h < horizon; h++) {
+            int from = h * samples;
+            double low = quantile(draws, from, from + samples, tail, from);
+            // 低分位数所在位置之前的元素都不大于它，高分位数只需在其后的区间内选择
+            double high = quantile(draws, from, from + samples, 1 - tail, lowIndex(from, tail));
+            // 残差有偏时分位数可能整体偏向一侧，区间至少包含点预测本身
+            lower[h] = Math.min(forecast[h], forecast[h] + low);
+            upper[h] = Math.max(forecast[h], forecast[h] + high);
+        }
+        return new Band(lower, upper);
+    }
+
+    private void sample(double[] pool, double[] draws, int horizon, int from, int to, SplittableRandom random) {
+        for (int s = from; s < to; s++) {
+            double cumulative = 0d;
+            for (int h = 0; h < horizon; h++) {
+                cumulative += pool[random.nextInt(pool.length)];
+                draws[h * samples + s] = cumulative;
+            }
+        }
+    }
+
+    private int lowIndex(int from, double probability) {
+        return from + (int) Math.floor(probability * (samples - 1));
+    }
+
+    /**
+     * [from, to) 上线性插值的分位数；search 之前的元素须已不大于目标位置的元素，选择只在 [search, to) 内进行
+     */
+    private static double quantile(double[] values, int from, int to, double probability, int search) {
+        double position = probability * (to - from - 1);
+        int index = from + (int) Math.floor(position);
+        double fraction = position - Math.floor(position);
+        select(values, search, to, index);
+        double value = values[index];
+        if (index + 1 >= to || fraction == 0d) {
+            return value;
+        }
+        // 选择后 index 之后的元素都不小于它，下一个顺序统计量即其后的最小值
+        double next = values[index + 1];
+        for (int i = index + 2; i < to; i++) {
+            next = Math.min(next, values[i]);
+        }
+        return value + fraction * (next - value);
+    }
+
+    /**
+     * 原地快速选择：结束后 values[k] 为 [from, to) 中第 k - from 小的元素，其左侧不大于它、右侧不小于它
+     */
+    private static void select(double[] values, int from, int to, int k) {
+        int left = from;
+        int right = to - 1;
+        while (right > left) {
+            int middle = (left + right) >>> 1;
+            // 三数取中作为枢轴，并把三者按序放好
+            if (values[middle] < values[left]) {
+                swap(values, middle, left);
+            }
+            if (values[right] < values[left]) {
+                swap(values, right, left);
+            }
+            if (values[right] < values[middle]) {
+                swap(values, right, middle);
+            }
+            double pivot = values[middle];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(double[] values, int a, int b) {
+        double tmp = values[a];
+        values[a] = values[b];
+        values[b] = tmp;
+    }
+
+    private static double[] finiteValues(double[] values) {
+        if (values == null) {
+            return new double[0];
+        }
+        double[] result = new double[values.length];
+        int count = 0;
+        for (double value : values) {
+            if (Double.isFinite(value)) {
+                result[count++] = value;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 以点预测与残差确定种子，相同请求得到相同区间
+     */
+    private static long seed(double[] forecast, double[] residuals) {
+        long seed = 31L * Arrays.hashCode(forecast) + Arrays.hashCode(residuals);
+        return seed * 0x9E3779B97F4A7C15L;
+    }
+}
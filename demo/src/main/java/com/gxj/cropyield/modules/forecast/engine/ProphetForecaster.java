@@ -1,6 +1,7 @@
 package com.gxj.cropyield.modules.forecast.engine;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -32,8 +33,31 @@ class ProphetForecaster {
         if (historyValues == null || historyValues.size() < MIN_HISTORY) {
             return Optional.empty();
         }
-        if (periods <= 0) {
-            periods = 1;
+        return forecast(DoubleSeries.of(historyValues), periods, parameters).map(DoubleSeries::boxed);
+    }
+
+    /**
+     * 执行Prophet预测（原始类型序列）
+     *
+     * @param history 历史数据
+     * @param periods 预测期数
+     * @param parameters 参数配置
+     * @return 预测结果
+     */
+    Optional<double[]> forecast(DoubleSeries history, int periods, Map<String, Object> parameters) {
+        return fit(history, parameters).flatMap(fitted -> forecast(history, periods, fitted));
+    }
+
+    /**
+     * 拟合趋势与季节性组件，得到可单独保存并复用的模型
+     *
+     * @param history 历史数据
+     * @param parameters 参数配置
+     * @return 拟合结果，数据不足或拟合失败时为空
+     */
+    Optional<Fitted> fit(DoubleSeries history, Map<String, Object> parameters) {
+        if (history == null || history.size() < MIN_HISTORY) {
+            return Optional.empty();
         }
 
         try {
@@ -43,17 +67,42 @@ class ProphetForecaster {
             int seasonalityMode = extractIntParameter(parameters, "seasonalityPeriod", 0);  // 0表示自动检测
             
             // 1. 分解趋势
-            TrendComponent trend = fitTrend(historyValues, changepointPriorScale);
+            TrendComponent trend = fitTrend(history, changepointPriorScale);
             
             // 2. 提取季节性
-            SeasonalityComponent seasonality = fitSeasonality(historyValues, trend, seasonalityMode, seasonalityPriorScale);
-            
+            SeasonalityComponent seasonality = fitSeasonality(history, trend, seasonalityMode, seasonalityPriorScale);
+            return Optional.of(new Fitted(trend, seasonality));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 使用已拟合的组件预测，不再重新分解；history 须与拟合时使用的序列一致
+     *
+     * @param history 历史数据
+     * @param periods 预测期数
+     * @param fitted 已拟合的模型
+     * @return 预测结果
+     */
+    Optional<double[]> forecast(DoubleSeries history, int periods, Fitted fitted) {
+        if (history == null || history.size() < MIN_HISTORY || fitted == null) {
+            return Optional.empty();
+        }
+        if (periods <= 0) {
+            periods = 1;
+        }
+
+        try {
+            TrendComponent trend = fitted.trend();
+            SeasonalityComponent seasonality = fitted.seasonality();
+
             // 3. 生成预测
-            List<Double> forecast = new ArrayList<>();
-            int n = historyValues.size();
-            double lastActual = historyValues.get(historyValues.size() - 1);
-            double mean = historyValues.stream().mapToDouble(Double::doubleValue).average().orElse(lastActual);
-            double stdDev = calculateStdDev(historyValues, mean);
+            double[] forecast = new double[periods];
+            int n = history.size();
+            double lastActual = history.last();
+            double mean = history.mean();
+            double stdDev = history.populationStdDev(mean);
             
             for (int step = 1; step <= periods; step++) {
                 int t = n + step;
@@ -84,13 +133,13 @@ class ProphetForecaster {
                     }
                 } else {
                     // 后续预测值不应该与前一个预测值相差太大
-                    double prevForecast = forecast.get(forecast.size() - 1);
+                    double prevForecast = forecast[step - 2];
                     if (Math.abs(prediction - prevForecast) > maxChange) {
                         prediction = prevForecast + Math.signum(prediction - prevForecast) * maxChange;
                     }
                 }
                 
-                forecast.add(prediction);
+                forecast[step - 1] = prediction;
             }
             
             return Optional.of(forecast);
@@ -100,20 +149,41 @@ class ProphetForecaster {
     }
     
     /**
-     * 计算标准差
+     * 增量滚动回测：对每个 i ∈ [startIndex, n)，以前 i 个点为训练集做单步预测
+     * 结果与逐个前缀调用 {@code forecast(historyValues.subList(0, i), 1, parameters)} 一致（浮点误差内），
+     * 趋势回归、去趋势自相关和季节性分组均值所需的累加量随序列追加而更新，整体复杂度与历史长度成线性关系
+     *
+     * @param historyValues 历史数据
+     * @param startIndex 第一个被预测点的下标
+     * @param parameters 参数配置
+     * @return 长度为 n 的数组，下标 i 为以前 i 个点训练得到的预测值；无法预测时为 NaN
      */
-    private double calculateStdDev(List<Double> data, double mean) {
-        double sumSq = 0;
-        for (double value : data) {
-            sumSq += Math.pow(value - mean, 2);
+    double[] walkForwardOneStep(List<Double> historyValues, int startIndex, Map<String, Object> parameters) {
+        return walkForwardOneStep(DoubleSeries.of(historyValues), startIndex, parameters);
+    }
+
+    double[] walkForwardOneStep(DoubleSeries history, int startIndex, Map<String, Object> parameters) {
+        int n = history == null ? 0 : history.size();
+        double[] predictions = new double[n];
+        Arrays.fill(predictions, Double.NaN);
+        if (n < MIN_HISTORY) {
+            return predictions;
+        }
+        int seasonalityMode = extractIntParameter(parameters, "seasonalityPeriod", 0);
+        IncrementalDecomposition state = new IncrementalDecomposition(n, history.get(0), seasonalityMode);
+        for (int i = 0; i < n; i++) {
+            if (i >= Math.max(startIndex, MIN_HISTORY)) {
+                predictions[i] = state.predictNext(seasonalityMode);
+            }
+            state.append(history.get(i));
         }
-        return Math.sqrt(sumSq / data.size());
+        return predictions;
     }
 
     /**
      * 拟合趋势组件（分段线性趋势）
      */
-    private TrendComponent fitTrend(List<Double> data, double changepointPriorScale) {
+    private TrendComponent fitTrend(DoubleSeries data, double changepointPriorScale) {
         int n = data.size();
         
         // 检测变点（简化版：使用固定间隔）
@@ -135,8 +205,9 @@ class ProphetForecaster {
         double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
         for (int i = 0; i < n; i++) {
             sumX += i;
-            sumY += data.get(i);
-            sumXY += i * data.get(i);
+            double y = data.get(i);
+            sumY += y;
+            sumXY += i * y;
             sumXX += i * i;
         }
         
@@ -158,14 +229,14 @@ class ProphetForecaster {
     /**
      * 拟合季节性组件
      */
-    private SeasonalityComponent fitSeasonality(List<Double> data, TrendComponent trend, int period, double priorScale) {
+    private SeasonalityComponent fitSeasonality(DoubleSeries data, TrendComponent trend, int period, double priorScale) {
         int n = data.size();
         
         // 去除趋势
-        List<Double> detrended = new ArrayList<>();
+        double[] detrended = new double[n];
         for (int i = 0; i < n; i++) {
             double trendValue = trend.intercept + trend.slopes[0] * i;
-            detrended.add(data.get(i) - trendValue);
+            detrended[i] = data.get(i) - trendValue;
         }
         
         // 自动检测周期
@@ -182,9 +253,9 @@ class ProphetForecaster {
         double[] seasonalPattern = new double[period];
         int[] counts = new int[period];
         
-        for (int i = 0; i < detrended.size(); i++) {
+        for (int i = 0; i < detrended.length; i++) {
             int seasonIndex = i % period;
-            seasonalPattern[seasonIndex] += detrended.get(i);
+            seasonalPattern[seasonIndex] += detrended[i];
             counts[seasonIndex]++;
         }
         
@@ -212,8 +283,8 @@ class ProphetForecaster {
     /**
      * 检测季节性周期
      */
-    private int detectSeasonalityPeriod(List<Double> data) {
-        int n = data.size();
+    private int detectSeasonalityPeriod(double[] data) {
+        int n = data.length;
         int maxPeriod = Math.min(12, n / 2);
         
         if (maxPeriod < 2) {
@@ -224,8 +295,13 @@ class ProphetForecaster {
         double maxAcf = 0;
         int bestPeriod = 0;
         
-        double mean = data.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double variance = data.stream().mapToDouble(v -> Math.pow(v - mean, 2)).sum() / n;
+        double mean = DoubleSeries.wrap(data).mean();
+        double variance = 0;
+        for (double value : data) {
+            double diff = value - mean;
+            variance += diff * diff;
+        }
+        variance /= n;
         
         if (variance == 0) {
             return 0;
@@ -236,7 +312,7 @@ class ProphetForecaster {
             int count = 0;
             
             for (int i = 0; i < n - period; i++) {
-                acf += (data.get(i) - mean) * (data.get(i + period) - mean);
+                acf += (data[i] - mean) * (data[i + period] - mean);
                 count++;
             }
             
@@ -302,10 +378,16 @@ class ProphetForecaster {
         }
     }
 
+    /**
+     * 已拟合的Prophet模型：趋势组件与季节性组件
+     */
+    record Fitted(TrendComponent trend, SeasonalityComponent seasonality) {
+    }
+
     /**
      * 趋势组件
      */
-    private static class TrendComponent {
+    static final class TrendComponent {
         final double intercept;
         final double[] slopes;
         final List<Integer> changepoints;
@@ -322,7 +404,7 @@ class ProphetForecaster {
     /**
      * 季节性组件
      */
-    private static class SeasonalityComponent {
+    static final class SeasonalityComponent {
         final int period;
         final double[] pattern;
         final double priorScale;
@@ -333,4 +415,155 @@ class ProphetForecaster {
             this.priorScale = priorScale;
         }
     }
+
+    /**
+     * 增量分解状态：维护 Σz、Σz²、Σi·z、滞后乘积 Σz_t·z_{t+L} 以及每个候选周期的分组累加量
+     * （z 为减去首个值后的序列，去趋势结果对平移不变），据此在 O(1) 时间内复现 fitTrend、
+     * detectSeasonalityPeriod 与 fitSeasonality 对当前前缀的结果
+     */
+    private static final class IncrementalDecomposition {
+        private static final int MAX_DETECTED_PERIOD = 12;
+
+        private final double shift;
+        private final double[] values;
+        private final double[] prefixSum;
+        private final double[] prefixIndexSum;
+        private final double[] laggedProducts = new double[MAX_DETECTED_PERIOD + 1];
+        private final double[][] seasonSums;
+        private final double[][] seasonIndexSums;
+        private final int[][] seasonCounts;
+        private int size;
+        private double sum;
+        private double sumSq;
+        private double indexSum;
+
+        IncrementalDecomposition(int capacity, double shift, int fixedPeriod) {
+            this.shift = shift;
+            this.values = new double[capacity];
+            this.prefixSum = new double[capacity + 1];
+            this.prefixIndexSum = new double[capacity + 1];
+            int maxPeriod = Math.max(MAX_DETECTED_PERIOD, fixedPeriod);
+            this.seasonSums = new double[maxPeriod + 1][];
+            this.seasonIndexSums = new double[maxPeriod + 1][];
+            this.seasonCounts = new int[maxPeriod + 1][];
+            for (int period = 2; period <= maxPeriod; period++) {
+                if (fixedPeriod != 0 && period != fixedPeriod) {
+                    continue;
+                }
+                seasonSums[period] = new double[period];
+                seasonIndexSums[period] = new double[period];
+                seasonCounts[period] = new int[period];
+            }
+        }
+
+        void append(double value) {
+            int index = size;
+            double z = value - shift;
+            values[index] = z;
+            for (int lag = 1; lag <= MAX_DETECTED_PERIOD && lag <= index; lag++) {
+                laggedProducts[lag] += values[index - lag] * z;
+            }
+            for (int period = 2; period < seasonSums.length; period++) {
+                if (seasonSums[period] == null) {
+                    continue;
+                }
+                int seasonIndex = index % period;
+                seasonSums[period][seasonIndex] += z;
+                seasonIndexSums[period][seasonIndex] += index;
+                seasonCounts[period][seasonIndex]++;
+            }
+            sum += z;
+            sumSq += z * z;
+            indexSum += index * z;
+            size++;
+            prefixSum[size] = sum;
+            prefixIndexSum[size] = indexSum;
+        }
+
+        double predictNext(int seasonalityMode) {
+            int n = size;
+            double sumX = n * (n - 1) / 2d;
+            double sumXX = (n - 1) * (double) n * (2 * n - 1) / 6d;
+            double slope = (n * indexSum - sumX * sum) / (n * sumXX - sumX * sumX);
+            double intercept = (sum - slope * sumX) / n;
+
+            int period = seasonalityMode != 0 ? seasonalityMode : detectPeriod(intercept, slope);
+            int t = n + 1;
+            double prediction = shift + intercept + slope * t;
+            if (period > 1 && period <= n / 2 && seasonSums[period] != null) {
+                double[] pattern = new double[period];
+                double patternMean = 0;
+                for (int k = 0; k < period; k++) {
+                    int count = seasonCounts[period][k];
+                    if (count > 0) {
+                        pattern[k] = (seasonSums[period][k] - intercept * count - slope * seasonIndexSums[period][k]) / count;
+                    }
+                    patternMean += pattern[k];
+                }
+                patternMean /= period;
+                prediction += pattern[t % period] - patternMean;
+            }
+
+            double lastActual = values[n - 1] + shift;
+            double mean = sum / n;
+            double stdDev = Math.sqrt(Math.max(0, sumSq / n - mean * mean));
+            if (!Double.isFinite(prediction)) {
+                prediction = lastActual;
+            }
+            prediction = Math.max(0, prediction);
+            double maxChange = stdDev * 3;
+            if (Math.abs(prediction - lastActual) > maxChange) {
+                prediction = lastActual + Math.signum(prediction - lastActual) * maxChange;
+            }
+            return prediction;
+        }
+
+        /**
+         * 与 detectSeasonalityPeriod(去趋势序列) 一致，去趋势项 d_i = z_i - a - b·i 的各项和由累加量展开得到
+         */
+        private int detectPeriod(double a, double b) {
+            int n = size;
+            int maxPeriod = Math.min(MAX_DETECTED_PERIOD, n / 2);
+            if (maxPeriod < 2) {
+                return 0;
+            }
+            double sumX = n * (n - 1) / 2d;
+            double sumXX = (n - 1) * (double) n * (2 * n - 1) / 6d;
+            double mean = (sum - n * a - b * sumX) / n;
+            double sumSqDetrended = sumSq - 2 * a * sum - 2 * b * indexSum
+                + n * a * a + 2 * a * b * sumX + b * b * sumXX;
+            double variance = sumSqDetrended / n - mean * mean;
+            if (variance <= 1e-12 * Math.max(1d, sumSq / n)) {
+                return 0;
+            }
+
+            double maxAcf = 0;
+            int bestPeriod = 0;
+            for (int lag = 2; lag <= maxPeriod; lag++) {
+                int count = n - lag;
+                double head = prefixSum[count];
+                double headIndex = prefixIndexSum[count];
+                double tail = sum - prefixSum[lag];
+                double tailIndex = indexSum - prefixIndexSum[lag];
+                double countX = count * (count - 1) / 2d;
+                double countXX = (count - 1) * (double) count * (2 * count - 1) / 6d;
+                double shifted = a + b * lag;
+
+                double cross = laggedProducts[lag]
+                    - (shifted * head + b * headIndex)
+                    - (a * tail + b * (tailIndex - lag * tail))
+                    + count * a * shifted + (a * b + b * shifted) * countX + b * b * countXX;
+                double headDetrended = head - count * a - b * countX;
+                double tailDetrended = tail - count * a - b * (sumX - lag * (lag - 1) / 2d);
+                double centered = cross - mean * (headDetrended + tailDetrended) + count * mean * mean;
+
+                double acf = centered / (count * variance);
+                if (acf > maxAcf) {
+                    maxAcf = acf;
+                    bestPeriod = lag;
+                }
+            }
+            return maxAcf > 0.3 ? bestPeriod : 0;
+        }
+    }
 }
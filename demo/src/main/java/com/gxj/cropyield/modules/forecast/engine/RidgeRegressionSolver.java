@@ -0,0 +1,171 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+/**
+ * 岭回归闭式求解器：XᵀX 与 Xᵀy 只在构造时累加一次，之后每个 λ 只做一次 Cholesky 分解
+ * <p>留一交叉验证不再为每个折重建设计矩阵，而是对已分解的 XᵀX + λI 做秩一降阶（Sherman–Morrison），
+ * 单个折的代价从 O(n·p² + p³) 降为 O(p²)。截距列（第 0 列）不参与正则化。</p>
+ */
+final class RidgeRegressionSolver {
+
+    /**
+     * 主元下限，与原高斯消元的奇异判定保持一致
+     */
+    private static final double PIVOT_TOLERANCE = 1e-9;
+
+    private final double[][] design;
+    private final double[] outputs;
+    private final int columns;
+    private final double[] gram;
+    private final double[] moment;
+
+    RidgeRegressionSolver(double[][] design, double[] outputs) {
+        this.design = design;
+        this.outputs = outputs;
+        this.columns = design.length == 0 ? 0 : design[0].length;
+        this.gram = new double[columns * columns];
+        this.moment = new double[columns];
+        for (int i = 0; i < design.length; i++) {
+            double[] row = design[i];
+            double y = outputs[i];
+            for (int j = 0; j < columns; j++) {
+                double xj = row[j];
+                if (xj == 0d) {
+                    continue;
+                }
+                moment[j] += xj * y;
+                int offset = j * columns;
+                for (int k = j; k < columns; k++) {
+                    gram[offset + k] += xj * row[k];
+                }
+            }
+        }
+        for (int j = 0; j < columns; j++) {
+            for (int k = j + 1; k < columns; k++) {
+                gram[k * columns + j] = gram[j * columns + k];
+            }
+        }
+    }
+
+    double[] outputs() {
+        return outputs;
+    }
+
+    /**
+     * 使用全部样本求解系数，矩阵奇异时返回 null
+     */
+    double[] solve(double lambda) {
+        Factorization factorization = factorize(lambda);
+        return factorization != null ? factorization.solve(moment) : null;
+    }
+
+    /**
+     * 留一交叉验证：返回全样本系数与每个样本被留出时的预测值，任一折奇异时返回 null
+     */
+    CrossValidation crossValidate(double lambda) {
+        if (design.length < 2) {
+            return null;
+        }
+        Factorization factorization = factorize(lambda);
+        if (factorization == null) {
+            return null;
+        }
+        double[] coefficients = factorization.solve(moment);
+        double[] predictions = new double[design.length];
+        for (int i = 0; i < design.length; i++) {
+            double[] row = design[i];
+            double[] u = factorization.solve(row);
+            double leverage = dot(row, u);
+            double denominator = 1d - leverage;
+            if (denominator < PIVOT_TOLERANCE) {
+                return null;
+            }
+            // 留出第 i 行后的系数 β₋ᵢ = β - yᵢ·u + u·(xᵢᵀβ - yᵢ·h) / (1 - h)，其中 u = A⁻¹xᵢ，h = xᵢᵀu
+            double y = outputs[i];
+            double fitted = dot(row, coefficients);
+            double scale = (fitted - y * leverage) / denominator;
+            double prediction = 0d;
+            for (int j = 0; j < columns; j++) {
+                prediction += row[j] * (coefficients[j] - y * u[j] + u[j] * scale);
+            }
+            predictions[i] = prediction;
+        }
+        return new CrossValidation(coefficients, predictions);
+    }
+
+    private Factorization factorize(double lambda) {
+        if (columns == 0) {
+            return null;
+        }
+        double[] lower = new double[columns * columns];
+        for (int j = 0; j < columns; j++) {
+            int rowJ = j * columns;
+            double diagonal = gram[rowJ + j] + (j == 0 ? 0d : lambda);
+            for (int k = 0; k < j; k++) {
+                double value = lower[rowJ + k];
+                diagonal -= value * value;
+            }
+            if (diagonal <= PIVOT_TOLERANCE) {
+                return null;
+            }
+            double pivot = Math.sqrt(diagonal);
+            lower[rowJ + j] = pivot;
+            for (int i = j + 1; i < columns; i++) {
+                int rowI = i * columns;
+                double sum = gram[rowI + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= lower[rowI + k] * lower[rowJ + k];
+                }
+                lower[rowI + j] = sum / pivot;
+            }
+        }
+        return new Factorization(lower, columns);
+    }
+
+    private static double dot(double[] left, double[] right) {
+        double sum = 0d;
+        for (int i = 0; i < left.length; i++) {
+            sum += left[i] * right[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 留一交叉验证结果
+     */
+    record CrossValidation(double[] coefficients, double[] predictions) {
+    }
+
+    /**
+     * XᵀX + λI 的 Cholesky 因子 L（行主序的下三角），A = L·Lᵀ
+     */
+    private static final class Factorization {
+
+        private final double[] lower;
+        private final int size;
+
+        private Factorization(double[] lower, int size) {
+            this.lower = lower;
+            this.size = size;
+        }
+
+        double[] solve(double[] rhs) {
+            double[] result = new double[size];
+            for (int i = 0; i < size; i++) {
+                int row = i * size;
+                double sum = rhs[i];
+                for (int k = 0; k < i; k++) {
+                    sum -= lower[row + k] * result[k];
+                }
+                result[i] = sum / lower[row + i];
+            }
+            for (int i = size - 1; i >= 0; i--) {
+                double sum = result[i];
+                for (int k = i + 1; k < size; k++) {
+                    sum -= lower[k * size + i] * result[k];
+                }
+                result[i] = sum / lower[i * size + i];
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+/**
+ * 本地预测引擎一次训练的产出：预测结果，以及可持久化复用的模型制品（模型无法序列化或训练回退时为 null）。
+ */
+public record TrainedForecast(ForecastEngineResponse response, ForecastArtefact artefact) {
+}
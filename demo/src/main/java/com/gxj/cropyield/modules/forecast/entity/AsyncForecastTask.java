@@ -91,6 +91,12 @@ public class AsyncForecastTask {
     @Column(columnDefinition = "TEXT")
     private String errorMessage;
     
+    /**
+     * 批量预测任务的结果（ForecastBatchResponse 的 JSON）
+     */
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String resultPayload;
+    
     /**
      * 开始时间
      */
@@ -215,6 +221,14 @@ public class AsyncForecastTask {
         this.errorMessage = errorMessage;
     }
 
+    public String getResultPayload() {
+        return resultPayload;
+    }
+
+    public void setResultPayload(String resultPayload) {
+        this.resultPayload = resultPayload;
+    }
+
     public LocalDateTime getStartTime() {
         return startTime;
     }
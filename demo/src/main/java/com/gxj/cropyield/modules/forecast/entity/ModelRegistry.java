@@ -27,6 +27,12 @@ public class ModelRegistry extends BaseEntity {
     @Column(length = 1024)
     private String metricsJson;
 
+    /**
+     * 二进制模型制品对应的训练请求指纹（唯一键），JSON 快照为空
+     */
+    @Column(length = 64)
+    private String fingerprint;
+
     public String getModelName() {
         return modelName;
     }
@@ -58,4 +64,12 @@ public class ModelRegistry extends BaseEntity {
     public void setMetricsJson(String metricsJson) {
         this.metricsJson = metricsJson;
     }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
 }
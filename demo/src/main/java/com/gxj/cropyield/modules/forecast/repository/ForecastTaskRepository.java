@@ -2,7 +2,12 @@ package com.gxj.cropyield.modules.forecast.repository;
 
 import com.gxj.cropyield.modules.forecast.entity.ForecastTask;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 /**
@@ -17,5 +22,19 @@ public interface ForecastTaskRepository extends JpaRepository<ForecastTask, Long
 
     Optional<ForecastTask> findByModelIdAndCropIdAndRegionId(Long modelId, Long cropId, Long regionId);
 
+    List<ForecastTask> findByModelIdInAndCropIdInAndRegionIdIn(Collection<Long> modelIds,
+                                                              Collection<Long> cropIds,
+                                                              Collection<Long> regionIds);
+
     List<ForecastTask> findByStatus(ForecastTask.TaskStatus status);
+
+    /**
+     * 仅当任务仍处于预期状态时才更新，多个实例同时派发时只有一个能成功，返回受影响行数
+     */
+    @Modifying
+    @Transactional
+    @Query("update ForecastTask task set task.status = :target where task.id = :id and task.status = :expected")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expected") ForecastTask.TaskStatus expected,
+                            @Param("target") ForecastTask.TaskStatus target);
 }
@@ -3,8 +3,16 @@ package com.gxj.cropyield.modules.forecast.repository;
 import com.gxj.cropyield.modules.forecast.entity.ModelRegistry;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * 模型仓库表的持久层接口。
  */
 public interface ModelRegistryRepository extends JpaRepository<ModelRegistry, Long> {
+
+    Optional<ModelRegistry> findFirstByFingerprintOrderByIdDesc(String fingerprint);
+
+    List<ModelRegistry> findByFingerprintIsNotNullAndUpdatedAtBefore(LocalDateTime cutoff);
 }
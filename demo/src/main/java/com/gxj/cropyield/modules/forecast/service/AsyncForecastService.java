@@ -2,7 +2,10 @@ package com.gxj.cropyield.modules.forecast.service;
 
 import com.gxj.cropyield.modules.forecast.dto.AsyncTaskResponse;
 import com.gxj.cropyield.modules.forecast.dto.AsyncTaskStatusResponse;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchRequest;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchResponse;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * 异步预测服务接口
@@ -20,6 +23,22 @@ public interface AsyncForecastService {
      */
     AsyncTaskResponse submitForecastTask(ForecastExecutionRequest request);
     
+    /**
+     * 异步执行批量预测任务，进度、订阅与取消与单个预测任务相同
+     * 
+     * @param request 批量预测请求
+     * @return 任务ID和初始状态
+     */
+    AsyncTaskResponse submitBatchTask(ForecastBatchRequest request);
+    
+    /**
+     * 读取已完成的批量预测任务的结果
+     * 
+     * @param taskId 任务ID
+     * @return 按提交顺序排列的各组合结果
+     */
+    ForecastBatchResponse getBatchResult(String taskId);
+    
     /**
      * 查询任务状态
      * 
@@ -28,6 +47,14 @@ public interface AsyncForecastService {
      */
     AsyncTaskStatusResponse getTaskStatus(String taskId);
     
+    /**
+     * 订阅任务进度（SSE），任务结束后连接自动关闭
+     * 
+     * @param taskId 任务ID
+     * @return 进度事件流
+     */
+    SseEmitter subscribeProgress(String taskId);
+    
     /**
      * 取消任务
      * 
@@ -1,13 +1,24 @@
 package com.gxj.cropyield.modules.forecast.service;
 
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchRequest;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchResponse;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionResponse;
+import com.gxj.cropyield.modules.forecast.engine.ForecastCancellation;
+import com.gxj.cropyield.modules.forecast.engine.ForecastProgressListener;
 /**
  * 预测管理模块的业务接口（接口），定义预测管理相关的核心业务操作。
- * <p>核心方法：runForecast。</p>
+ * <p>核心方法：runForecast、runBatchForecast。</p>
  */
 
 public interface ForecastExecutionService {
 
     ForecastExecutionResponse runForecast(ForecastExecutionRequest request);
+
+    /**
+     * 执行批量预测，取消或超过 cancellation 的截止时间后未完成的组合记为失败；每完成一个组合回调一次 progress
+     */
+    ForecastBatchResponse runBatchForecast(ForecastBatchRequest request,
+                                           ForecastCancellation cancellation,
+                                           ForecastProgressListener progress);
 }
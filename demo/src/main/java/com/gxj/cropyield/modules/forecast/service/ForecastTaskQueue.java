@@ -2,9 +2,33 @@ package com.gxj.cropyield.modules.forecast.service;
 
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
 
+import java.time.Duration;
+
 public interface ForecastTaskQueue {
 
-    void publish(ForecastExecutionRequest request);
+    /**
+     * 发布任务；队列已满且在等待时限内仍无空位时返回 false，由调用方稍后重试
+     */
+    boolean publish(ForecastExecutionRequest request);
+
+    /**
+     * 阻塞等待下一个任务，超时返回 null
+     */
+    QueuedForecastTask poll(Duration timeout) throws InterruptedException;
+
+    /**
+     * 任务执行成功后确认，持久化队列据此删除任务
+     */
+    default void acknowledge(QueuedForecastTask task) {
+    }
+
+    /**
+     * 任务执行失败，持久化队列据此安排重试或标记为最终失败
+     */
+    default void fail(QueuedForecastTask task, String errorMessage) {
+    }
+
+    int size();
 
-    ForecastExecutionRequest poll();
+    int capacity();
 }
@@ -3,7 +3,27 @@ package com.gxj.cropyield.modules.forecast.service;
 import com.gxj.cropyield.modules.forecast.entity.ForecastModel;
 import com.gxj.cropyield.modules.forecast.entity.ModelRegistry;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 public interface ModelRegistryService {
 
     ModelRegistry registerSnapshot(ForecastModel model, String storageUri, String metricsJson);
+
+    /**
+     * 登记已拟合模型的二进制制品，fingerprint 为训练请求指纹；同一指纹只保留一条登记（唯一键），重新训练时覆盖原登记，
+     * 并发登记按指纹依次执行。返回被本次登记覆盖的旧制品地址，首次登记时为空；事务提交后调用方方可删除旧制品
+     */
+    Optional<String> registerArtefact(ForecastModel model, String fingerprint, String storageUri, String metricsJson);
+
+    /**
+     * 按训练请求指纹查找最近登记的模型制品
+     */
+    Optional<ModelRegistry> findLatestArtefact(String fingerprint);
+
+    /**
+     * 删除截止时间之前最后一次训练的制品登记（不含运行快照），返回被删除的登记以便清理其存储对象
+     */
+    List<ModelRegistry> pruneArtefacts(LocalDateTime cutoff);
 }
@@ -0,0 +1,13 @@
+package com.gxj.cropyield.modules.forecast.service;
+
+import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
+
+/**
+ * 从任务队列领取到的一条预测任务
+ *
+ * @param id      队列中的任务标识，内存队列为 null
+ * @param request 预测请求
+ * @param attempt 当前是第几次执行
+ */
+public record QueuedForecastTask(Long id, ForecastExecutionRequest request, int attempt) {
+}
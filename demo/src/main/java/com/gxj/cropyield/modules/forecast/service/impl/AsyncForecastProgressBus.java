@@ -0,0 +1,160 @@
+package com.gxj.cropyield.modules.forecast.service.impl;
+
+import com.gxj.cropyield.modules.forecast.dto.AsyncTaskStatusResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 异步预测任务的内存进度总线
+ * <p>执行中的任务在此保存最新进度并推送给 SSE 订阅者，进度变化不再逐步写库；
+ * 任务进入终态后推送最后一次事件并关闭所有订阅。同一任务的中间进度推送频率受限，避免逐轮训练刷屏。</p>
+ */
+@Component
+public class AsyncForecastProgressBus {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncForecastProgressBus.class);
+
+    static final String EVENT_NAME = "progress";
+
+    private static final long MIN_PUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * 登记新任务的初始状态
+     */
+    public void open(AsyncTaskStatusResponse status) {
+        Channel channel = new Channel();
+        channel.latest = status;
+        channels.put(status.taskId(), channel);
+    }
+
+    /**
+     * 更新任务进度；force 为 false 时距上次推送不足限频间隔的更新只保存、不推送
+     */
+    public void publish(AsyncTaskStatusResponse status, boolean force) {
+        Channel channel = channels.get(status.taskId());
+        if (channel == null) {
+            return;
+        }
+        List<SseEmitter> targets;
+        synchronized (channel) {
+            if (channel.closed) {
+                return;
+            }
+            channel.latest = status;
+            long now = System.nanoTime();
+            if (!force && now - channel.lastPushNanos < MIN_PUSH_INTERVAL_NANOS) {
+                return;
+            }
+            channel.lastPushNanos = now;
+            targets = List.copyOf(channel.emitters);
+        }
+        for (SseEmitter emitter : targets) {
+            if (!send(emitter, status)) {
+                channel.emitters.remove(emitter);
+            }
+        }
+    }
+
+    /**
+     * 推送终态并关闭该任务的所有订阅
+     */
+    public void complete(AsyncTaskStatusResponse status) {
+        Channel channel = channels.remove(status.taskId());
+        if (channel == null) {
+            return;
+        }
+        List<SseEmitter> targets;
+        synchronized (channel) {
+            channel.closed = true;
+            channel.latest = status;
+            targets = List.copyOf(channel.emitters);
+            channel.emitters.clear();
+        }
+        for (SseEmitter emitter : targets) {
+            send(emitter, status);
+            emitter.complete();
+        }
+    }
+
+    /**
+     * 丢弃任务通道（如任务未能提交），直接关闭订阅
+     */
+    public void discard(String taskId) {
+        Channel channel = channels.remove(taskId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            channel.closed = true;
+            channel.emitters.forEach(SseEmitter::complete);
+            channel.emitters.clear();
+        }
+    }
+
+    public Optional<AsyncTaskStatusResponse> latest(String taskId) {
+        Channel channel = channels.get(taskId);
+        return channel != null ? Optional.ofNullable(channel.latest) : Optional.empty();
+    }
+
+    /**
+     * 订阅任务进度：立即推送当前状态；任务不在本实例执行时推送 fallback 后关闭
+     */
+    public SseEmitter subscribe(String taskId, AsyncTaskStatusResponse fallback, long timeoutMillis) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Channel channel = channels.get(taskId);
+        AsyncTaskStatusResponse current = null;
+        if (channel != null) {
+            synchronized (channel) {
+                if (!channel.closed) {
+                    channel.emitters.add(emitter);
+                    current = channel.latest;
+                }
+            }
+        }
+        if (current == null) {
+            // 任务已结束或不在本实例执行，推送一次当前状态后关闭
+            send(emitter, fallback);
+            emitter.complete();
+            return emitter;
+        }
+        emitter.onCompletion(() -> channel.emitters.remove(emitter));
+        emitter.onTimeout(() -> channel.emitters.remove(emitter));
+        emitter.onError(ex -> channel.emitters.remove(emitter));
+        if (!send(emitter, current)) {
+            channel.emitters.remove(emitter);
+        }
+        return emitter;
+    }
+
+    private boolean send(SseEmitter emitter, AsyncTaskStatusResponse status) {
+        if (status == null) {
+            return true;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(status));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("SSE subscriber for task {} disconnected: {}", status.taskId(), ex.getMessage());
+            emitter.completeWithError(ex);
+            return false;
+        }
+    }
+
+    private static final class Channel {
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile AsyncTaskStatusResponse latest;
+        private long lastPushNanos;
+        private boolean closed;
+    }
+}
@@ -1,41 +1,97 @@
 package com.gxj.cropyield.modules.forecast.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gxj.cropyield.common.audit.AuditLog;
 import com.gxj.cropyield.common.exception.BusinessException;
 import com.gxj.cropyield.common.response.ResultCode;
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
 import com.gxj.cropyield.modules.forecast.dto.AsyncTaskResponse;
 import com.gxj.cropyield.modules.forecast.dto.AsyncTaskStatusResponse;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchRequest;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchResponse;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionResponse;
+import com.gxj.cropyield.modules.forecast.engine.ForecastCancellation;
 import com.gxj.cropyield.modules.forecast.entity.AsyncForecastTask;
 import com.gxj.cropyield.modules.forecast.repository.AsyncForecastTaskRepository;
 import com.gxj.cropyield.modules.forecast.service.AsyncForecastService;
 import com.gxj.cropyield.modules.forecast.service.ForecastExecutionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 异步预测任务服务实现类 - 异步执行预测任务
+ *
+ * 每个任务持有一个取消令牌，取消请求与执行超时会传递到预测引擎的训练轮次与回测折，
+ * 使计算线程尽快释放给其他任务。执行中的进度只写入内存进度总线并通过 SSE 推送，
+ * 任务记录仅在提交与进入终态时写库。线程池队列已满时任务直接记为失败并返回 429，
+ * 不会退回到请求线程上训练模型。批量预测同样以任务执行，请求线程只登记任务，结果在任务完成后按任务ID读取
  */
 @Service
 public class AsyncForecastServiceImpl implements AsyncForecastService {
     
     private static final Logger log = LoggerFactory.getLogger(AsyncForecastServiceImpl.class);
     
+    /**
+     * 预测引擎阶段在整体进度中所占的区间
+     */
+    private static final int ENGINE_PROGRESS_START = 30;
+    private static final int ENGINE_PROGRESS_END = 90;
+    
+    /**
+     * SSE 订阅在任务超时之外额外保留的时间
+     */
+    private static final long SUBSCRIPTION_GRACE_MILLIS = 60_000L;
+    
+    private static final String BATCH_TASK_TYPE = "BATCH_FORECAST";
+    
     private final AsyncForecastTaskRepository asyncTaskRepository;
     private final ForecastExecutionService forecastExecutionService;
+    private final ForecastEngineProperties forecastEngineProperties;
+    private final Executor forecastExecutor;
+    private final AsyncForecastProgressBus progressBus;
+    private final TransactionTemplate requiresNewTransaction;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * 本实例上尚未结束的任务及其取消令牌
+     */
+    private final Map<String, ForecastCancellation> runningTasks = new ConcurrentHashMap<>();
     
     public AsyncForecastServiceImpl(
             AsyncForecastTaskRepository asyncTaskRepository,
-            ForecastExecutionService forecastExecutionService) {
+            ForecastExecutionService forecastExecutionService,
+            ForecastEngineProperties forecastEngineProperties,
+            @Qualifier("forecastExecutor") Executor forecastExecutor,
+            AsyncForecastProgressBus progressBus,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper) {
         this.asyncTaskRepository = asyncTaskRepository;
         this.forecastExecutionService = forecastExecutionService;
+        this.forecastEngineProperties = forecastEngineProperties;
+        this.forecastExecutor = forecastExecutor;
+        this.progressBus = progressBus;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
     }
     
     @Override
@@ -64,8 +120,9 @@ public class AsyncForecastServiceImpl implements AsyncForecastService {
         
         asyncTaskRepository.save(task);
         
-        // 异步执行预测任务
-        executeForecastAsync(taskId, request);
+        // 截止时间从提交时起算，包含在线程池中排队的时间
+        ForecastCancellation cancellation = ForecastCancellation.withTimeout(forecastEngineProperties.getAsyncTaskTimeout());
+        schedule(task, cancellation, () -> runForecastTask(taskId, request, cancellation));
         
         log.info("异步预测任务已提交 - 任务ID: {}", taskId);
         
@@ -76,33 +133,130 @@ public class AsyncForecastServiceImpl implements AsyncForecastService {
         );
     }
     
+    @Override
+    @Transactional
+    @AuditLog(operation = "SUBMIT_BATCH_FORECAST", module = "预测管理", description = "提交批量预测任务")
+    public AsyncTaskResponse submitBatchTask(ForecastBatchRequest request) {
+        log.info("提交批量预测任务 - 组合数: {}", request.items().size());
+        
+        String taskId = UUID.randomUUID().toString();
+        AsyncForecastTask task = new AsyncForecastTask();
+        task.setTaskId(taskId);
+        task.setStatus("PENDING");
+        task.setTaskType(BATCH_TASK_TYPE);
+        task.setProgress(0);
+        task.setCurrentStep("等待执行");
+        task.setCreatedAt(LocalDateTime.now());
+        task.setUpdatedAt(LocalDateTime.now());
+        asyncTaskRepository.save(task);
+        
+        ForecastCancellation cancellation = ForecastCancellation.withTimeout(forecastEngineProperties.getBatchTaskTimeout());
+        schedule(task, cancellation, () -> runBatchTask(taskId, request, cancellation));
+        
+        log.info("批量预测任务已提交 - 任务ID: {}", taskId);
+        
+        return new AsyncTaskResponse(
+            taskId,
+            "PENDING",
+            "批量预测任务已提交，正在处理中"
+        );
+    }
+    
+    /**
+     * 登记取消令牌与进度，在提交事务提交后交给预测线程池执行
+     */
+    private void schedule(AsyncForecastTask task, ForecastCancellation cancellation, Runnable body) {
+        String taskId = task.getTaskId();
+        runningTasks.put(taskId, cancellation);
+        progressBus.open(toStatusResponse(task));
+        
+        // 事务提交后再异步执行，保证执行线程能读取到任务记录
+        Runnable execution = () -> executeAsync(taskId, cancellation, body);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(task, execution);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        runningTasks.remove(taskId);
+                        progressBus.discard(taskId);
+                    }
+                }
+            });
+        } else {
+            dispatch(task, execution);
+        }
+    }
+    
+    /**
+     * 交给预测线程池执行；队列已满时任务记为失败并以 429 拒绝
+     * <p>提交事务此时已提交，失败状态在新事务中写入</p>
+     */
+    private void dispatch(AsyncForecastTask task, Runnable execution) {
+        try {
+            forecastExecutor.execute(execution);
+        } catch (RejectedExecutionException ex) {
+            log.warn("预测线程池已满，拒绝异步预测任务 - 任务ID: {}", task.getTaskId());
+            runningTasks.remove(task.getTaskId());
+            task.setStatus("FAILED");
+            task.setCurrentStep("系统繁忙");
+            task.setErrorMessage("预测任务队列已满，请稍后重试");
+            task.setEndTime(LocalDateTime.now());
+            task.setUpdatedAt(LocalDateTime.now());
+            requiresNewTransaction.executeWithoutResult(status -> asyncTaskRepository.save(task));
+            progressBus.complete(toStatusResponse(task));
+            throw new BusinessException(ResultCode.TOO_MANY_REQUESTS, "预测任务队列已满，请稍后重试");
+        }
+    }
+    
     /**
      * 异步执行预测任务
      * 
-     * 使用@Async注解，在独立线程中执行
-     * 使用forecastExecutor线程池
+     * 在forecastExecutor线程池中执行，取消或超时后在下一个训练轮次或回测折处停止
      */
-    @Async("forecastExecutor")
-    public void executeForecastAsync(String taskId, ForecastExecutionRequest request) {
+    private void executeAsync(String taskId, ForecastCancellation cancellation, Runnable body) {
+        try {
+            if (cancellation.isCancelled()) {
+                log.info("异步预测任务在排队期间已取消 - 任务ID: {}", taskId);
+                return;
+            }
+            body.run();
+        } finally {
+            runningTasks.remove(taskId);
+            // 正常结束时已推送终态，此处仅兜底关闭残留的订阅
+            progressBus.discard(taskId);
+        }
+    }
+    
+    private void runForecastTask(String taskId, ForecastExecutionRequest request, ForecastCancellation cancellation) {
         log.info("开始执行异步预测任务 - 任务ID: {}", taskId);
         
         AsyncForecastTask task = asyncTaskRepository.findByTaskId(taskId)
             .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "任务不存在"));
         
         long startTime = System.currentTimeMillis();
+        task.setStartTime(LocalDateTime.now());
         
         try {
-            // 更新任务状态为运行中
-            updateTaskStatus(task, "RUNNING", 10, "加载历史数据");
+            // 进度只推送到内存总线，不再逐步写库
+            publishProgress(task, 10, "加载历史数据", true);
             
             // 执行预测
             log.debug("执行预测 - 任务ID: {}", taskId);
-            updateTaskStatus(task, "RUNNING", 30, "执行预测模型");
-            
-            ForecastExecutionResponse response = forecastExecutionService.runForecast(request);
+            publishProgress(task, ENGINE_PROGRESS_START, "执行预测模型", true);
             
-            // 更新任务状态为完成
-            updateTaskStatus(task, "RUNNING", 90, "保存预测结果");
+            cancellation.onProgress((stage, completed, total) -> publishProgress(task,
+                ENGINE_PROGRESS_START + (ENGINE_PROGRESS_END - ENGINE_PROGRESS_START) * completed / total, stage, false));
+            ForecastExecutionResponse response = cancellation.call(() -> forecastExecutionService.runForecast(request));
+            if (cancellation.isCancelled()) {
+                // 取消请求在计算结束后才到达，保留取消状态
+                log.info("异步预测任务已取消，忽略计算结果 - 任务ID: {}", taskId);
+                return;
+            }
             
             long executionTime = System.currentTimeMillis() - startTime;
             
@@ -114,52 +268,102 @@ public class AsyncForecastServiceImpl implements AsyncForecastService {
             task.setExecutionTime(executionTime);
             task.setUpdatedAt(LocalDateTime.now());
             asyncTaskRepository.save(task);
+            progressBus.complete(toStatusResponse(task));
             
             log.info("异步预测任务完成 - 任务ID: {}, 结果ID: {}, 耗时: {}ms", 
                     taskId, response.runId(), executionTime);
             
         } catch (Exception e) {
-            long executionTime = System.currentTimeMillis() - startTime;
+            finishWithError(task, cancellation, e, startTime);
+        }
+    }
+    
+    /**
+     * 执行批量预测：取消或超时后未完成的组合记为失败，已完成的组合照常保存并随结果返回
+     */
+    private void runBatchTask(String taskId, ForecastBatchRequest request, ForecastCancellation cancellation) {
+        log.info("开始执行批量预测任务 - 任务ID: {}, 组合数: {}", taskId, request.items().size());
+        
+        AsyncForecastTask task = asyncTaskRepository.findByTaskId(taskId)
+            .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "任务不存在"));
+        
+        long startTime = System.currentTimeMillis();
+        task.setStartTime(LocalDateTime.now());
+        
+        try {
+            publishProgress(task, ENGINE_PROGRESS_START, "执行批量预测", true);
+            ForecastBatchResponse response = forecastExecutionService.runBatchForecast(request, cancellation,
+                (stage, completed, total) -> publishProgress(task,
+                    ENGINE_PROGRESS_START + (ENGINE_PROGRESS_END - ENGINE_PROGRESS_START) * completed / total,
+                    stage + " " + completed + "/" + total, false));
+            if (cancellation.isCancelled()) {
+                log.info("批量预测任务已取消，忽略计算结果 - 任务ID: {}", taskId);
+                return;
+            }
             
-            log.error("异步预测任务失败 - 任务ID: {}, 错误: {}", taskId, e.getMessage(), e);
+            long executionTime = System.currentTimeMillis() - startTime;
             
-            task.setStatus("FAILED");
-            task.setProgress(0);
-            task.setCurrentStep("执行失败");
-            task.setErrorMessage(e.getMessage());
+            task.setStatus("COMPLETED");
+            task.setProgress(100);
+            task.setCurrentStep("批量预测完成：成功 " + response.succeeded() + "，失败 " + response.failed());
+            task.setErrorMessage(cancellation.isExpired() ? "批量预测执行超时，未完成的组合已记为失败" : null);
+            task.setResultPayload(objectMapper.writeValueAsString(response));
             task.setEndTime(LocalDateTime.now());
             task.setExecutionTime(executionTime);
             task.setUpdatedAt(LocalDateTime.now());
             asyncTaskRepository.save(task);
+            progressBus.complete(toStatusResponse(task));
+            
+            log.info("批量预测任务完成 - 任务ID: {}, 成功: {}, 失败: {}, 耗时: {}ms",
+                    taskId, response.succeeded(), response.failed(), executionTime);
+            
+        } catch (Exception e) {
+            finishWithError(task, cancellation, e, startTime);
         }
     }
     
-    /**
-     * 更新任务状态
-     */
-    private void updateTaskStatus(AsyncForecastTask task, String status, int progress, String step) {
-        task.setStatus(status);
-        task.setProgress(progress);
-        task.setCurrentStep(step);
-        task.setUpdatedAt(LocalDateTime.now());
+    private void finishWithError(AsyncForecastTask task, ForecastCancellation cancellation, Exception e, long startTime) {
+        long executionTime = System.currentTimeMillis() - startTime;
         
-        if ("RUNNING".equals(status) && task.getStartTime() == null) {
-            task.setStartTime(LocalDateTime.now());
+        if (cancellation.isCancelled()) {
+            // 状态已由 cancelTask 写入，不再覆盖
+            log.info("异步预测任务已停止 - 任务ID: {}, 耗时: {}ms", task.getTaskId(), executionTime);
+            return;
         }
         
+        boolean timedOut = cancellation.isExpired();
+        if (timedOut) {
+            log.warn("异步预测任务超时 - 任务ID: {}, 耗时: {}ms", task.getTaskId(), executionTime);
+        } else {
+            log.error("异步预测任务失败 - 任务ID: {}, 错误: {}", task.getTaskId(), e.getMessage(), e);
+        }
+        
+        task.setStatus("FAILED");
+        task.setProgress(0);
+        task.setCurrentStep(timedOut ? "执行超时" : "执行失败");
+        task.setErrorMessage(timedOut ? "预测任务执行超时" : e.getMessage());
+        task.setEndTime(LocalDateTime.now());
+        task.setExecutionTime(executionTime);
+        task.setUpdatedAt(LocalDateTime.now());
         asyncTaskRepository.save(task);
-        log.debug("任务状态更新 - 任务ID: {}, 进度: {}%, 步骤: {}", 
-                task.getTaskId(), progress, step);
+        progressBus.complete(toStatusResponse(task));
     }
     
-    @Override
-    @Transactional(readOnly = true)
-    public AsyncTaskStatusResponse getTaskStatus(String taskId) {
-        log.debug("查询任务状态 - 任务ID: {}", taskId);
-        
-        AsyncForecastTask task = asyncTaskRepository.findByTaskId(taskId)
-            .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "任务不存在"));
-        
+    /**
+     * 推送运行中进度；进度只增不减，避免并行阶段交错上报时回退
+     */
+    private void publishProgress(AsyncForecastTask task, int progress, String step, boolean force) {
+        synchronized (task) {
+            int current = task.getProgress() != null ? task.getProgress() : 0;
+            task.setStatus("RUNNING");
+            task.setProgress(Math.max(current, Math.min(progress, ENGINE_PROGRESS_END)));
+            task.setCurrentStep(step);
+            progressBus.publish(toStatusResponse(task), force);
+        }
+        log.debug("任务进度更新 - 任务ID: {}, 进度: {}%, 步骤: {}", task.getTaskId(), progress, step);
+    }
+    
+    private AsyncTaskStatusResponse toStatusResponse(AsyncForecastTask task) {
         return new AsyncTaskStatusResponse(
             task.getTaskId(),
             task.getStatus(),
@@ -174,6 +378,48 @@ public class AsyncForecastServiceImpl implements AsyncForecastService {
         );
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public AsyncTaskStatusResponse getTaskStatus(String taskId) {
+        log.debug("查询任务状态 - 任务ID: {}", taskId);
+        
+        // 本实例执行中的任务直接返回内存中的最新进度
+        return progressBus.latest(taskId).orElseGet(() -> toStatusResponse(
+            asyncTaskRepository.findByTaskId(taskId)
+                .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "任务不存在"))));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public SseEmitter subscribeProgress(String taskId) {
+        AsyncForecastTask task = asyncTaskRepository.findByTaskId(taskId)
+            .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "任务不存在"));
+        Duration taskTimeout = BATCH_TASK_TYPE.equals(task.getTaskType())
+            ? forecastEngineProperties.getBatchTaskTimeout()
+            : forecastEngineProperties.getAsyncTaskTimeout();
+        long timeoutMillis = taskTimeout.toMillis() + SUBSCRIPTION_GRACE_MILLIS;
+        return progressBus.subscribe(taskId, toStatusResponse(task), timeoutMillis);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public ForecastBatchResponse getBatchResult(String taskId) {
+        AsyncForecastTask task = asyncTaskRepository.findByTaskId(taskId)
+            .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "任务不存在"));
+        if (!BATCH_TASK_TYPE.equals(task.getTaskType())) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "该任务不是批量预测任务");
+        }
+        if (!"COMPLETED".equals(task.getStatus()) || task.getResultPayload() == null) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "批量预测任务尚未完成");
+        }
+        try {
+            return objectMapper.readValue(task.getResultPayload(), ForecastBatchResponse.class);
+        } catch (JsonProcessingException ex) {
+            log.error("批量预测结果解析失败 - 任务ID: {}", taskId, ex);
+            throw new BusinessException(ResultCode.SERVER_ERROR, "批量预测结果解析失败");
+        }
+    }
+    
     @Override
     @Transactional
     @AuditLog(operation = "CANCEL_ASYNC_FORECAST", module = "预测管理", description = "取消异步预测任务")
@@ -192,6 +438,13 @@ public class AsyncForecastServiceImpl implements AsyncForecastService {
         task.setEndTime(LocalDateTime.now());
         task.setUpdatedAt(LocalDateTime.now());
         asyncTaskRepository.save(task);
+        progressBus.complete(toStatusResponse(task));
+        
+        // 通知执行线程在下一个训练轮次或回测折处停止
+        ForecastCancellation cancellation = runningTasks.get(taskId);
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
         
         log.info("异步预测任务已取消 - 任务ID: {}", taskId);
     }
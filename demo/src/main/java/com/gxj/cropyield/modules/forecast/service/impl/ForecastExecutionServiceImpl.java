@@ -10,12 +10,17 @@ import com.gxj.cropyield.modules.base.repository.RegionRepository;
 import com.gxj.cropyield.modules.dataset.entity.YieldRecord;
 import com.gxj.cropyield.modules.dataset.entity.WeatherRecord;
 import com.gxj.cropyield.modules.dataset.repository.YieldRecordRepository;
-import com.gxj.cropyield.modules.dataset.repository.WeatherRecordRepository;
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineConfiguration;
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchRequest;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchResponse;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionResponse;
-import com.gxj.cropyield.modules.forecast.engine.ForecastEngineClient;
+import com.gxj.cropyield.modules.forecast.engine.ForecastCancellation;
 import com.gxj.cropyield.modules.forecast.engine.ForecastEngineRequest;
 import com.gxj.cropyield.modules.forecast.engine.ForecastEngineResponse;
+import com.gxj.cropyield.modules.forecast.engine.ForecastModelCache;
+import com.gxj.cropyield.modules.forecast.engine.ForecastProgressListener;
 import com.gxj.cropyield.modules.forecast.entity.ForecastModel;
 import com.gxj.cropyield.modules.forecast.entity.ForecastResult;
 import com.gxj.cropyield.modules.forecast.entity.ForecastRun;
@@ -35,15 +40,23 @@ import com.gxj.cropyield.modules.weather.service.WeatherLocationResolver;
 import com.gxj.cropyield.modules.storage.ObjectStorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -52,9 +65,18 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 /**
  * 预测管理模块的业务实现类，负责落实预测管理领域的业务处理逻辑。
- * <p>核心方法：runForecast、persistForecastResults、resolveForecastTask、updateTaskFromRun、createTaskFromRun、buildTaskParameters、buildEvaluationSummary、formatMetricValue。</p>
+ * <p>核心方法：runForecast、runBatchForecast、persistForecastResults、resolveForecastTask、updateTaskFromRun、createTaskFromRun、buildTaskParameters、buildEvaluationSummary、formatMetricValue。</p>
  */
 
 /**
@@ -65,6 +87,20 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
 
     private static final Logger log = LoggerFactory.getLogger(ForecastExecutionServiceImpl.class);
 
+    /**
+     * 批量预测时每个事务写入的运行记录数
+     */
+    private static final int BATCH_PERSIST_CHUNK_SIZE = 100;
+
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 512;
+
+    /**
+     * 等待在途许可时检查取消与截止时间的间隔
+     */
+    private static final long BATCH_SLOT_POLL_MILLIS = 200L;
+
     private final RegionRepository regionRepository;
     private final CropRepository cropRepository;
     private final ForecastModelRepository forecastModelRepository;
@@ -74,12 +110,28 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
     private final ForecastSnapshotRepository forecastSnapshotRepository;
     private final ForecastTaskRepository forecastTaskRepository;
     private final ForecastResultRepository forecastResultRepository;
-    private final ForecastEngineClient forecastEngineClient;
-    private final WeatherRecordRepository weatherRecordRepository;
+    private final ModelArtefactStore modelArtefactStore;
+    private final WeatherFeatureStore weatherFeatureStore;
     private final QWeatherForecastClient qWeatherForecastClient;
     private final WeatherLocationResolver weatherLocationResolver;
     private final ObjectStorageService objectStorageService;
     private final ModelRegistryService modelRegistryService;
+    private final ForecastModelCache forecastModelCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor forecastBatchExecutor;
+    private final Executor ioTaskExecutor;
+
+    /**
+     * 所有批量请求共享的在途组合许可，数量等于批量线程池的线程数与队列容量之和，
+     * 使批量线程池不会因队列溢出而拒绝任务
+     */
+    private final Semaphore batchSlots;
+
+    /**
+     * 单个批量请求最多占用的在途许可数，一个大批量请求不会独占全部许可
+     */
+    private final int batchRequestSlots;
 
     public ForecastExecutionServiceImpl(RegionRepository regionRepository,
                                         CropRepository cropRepository,
@@ -90,12 +142,18 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
                                         ForecastSnapshotRepository forecastSnapshotRepository,
                                         ForecastTaskRepository forecastTaskRepository,
                                         ForecastResultRepository forecastResultRepository,
-                                        ForecastEngineClient forecastEngineClient,
-                                        WeatherRecordRepository weatherRecordRepository,
+                                        ModelArtefactStore modelArtefactStore,
+                                        WeatherFeatureStore weatherFeatureStore,
                                         QWeatherForecastClient qWeatherForecastClient,
                                         WeatherLocationResolver weatherLocationResolver,
                                         ObjectStorageService objectStorageService,
-                                        ModelRegistryService modelRegistryService) {
+                                        ModelRegistryService modelRegistryService,
+                                        ForecastModelCache forecastModelCache,
+                                        JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        ForecastEngineProperties forecastEngineProperties,
+                                        @Qualifier("forecastBatchExecutor") Executor forecastBatchExecutor,
+                                        @Qualifier("ioTaskExecutor") Executor ioTaskExecutor) {
         this.regionRepository = regionRepository;
         this.cropRepository = cropRepository;
         this.forecastModelRepository = forecastModelRepository;
@@ -105,12 +163,19 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
         this.forecastSnapshotRepository = forecastSnapshotRepository;
         this.forecastTaskRepository = forecastTaskRepository;
         this.forecastResultRepository = forecastResultRepository;
-        this.forecastEngineClient = forecastEngineClient;
-        this.weatherRecordRepository = weatherRecordRepository;
+        this.modelArtefactStore = modelArtefactStore;
+        this.weatherFeatureStore = weatherFeatureStore;
         this.qWeatherForecastClient = qWeatherForecastClient;
         this.weatherLocationResolver = weatherLocationResolver;
         this.objectStorageService = objectStorageService;
         this.modelRegistryService = modelRegistryService;
+        this.forecastModelCache = forecastModelCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.forecastBatchExecutor = forecastBatchExecutor;
+        this.ioTaskExecutor = ioTaskExecutor;
+        this.batchSlots = new Semaphore(ForecastEngineConfiguration.batchExecutorCapacity(forecastEngineProperties), true);
+        this.batchRequestSlots = ForecastEngineConfiguration.batchRequestSlots(forecastEngineProperties);
     }
 
     @Override
@@ -125,6 +190,233 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
 
         List<YieldRecord> historyRecords = yieldRecordRepository
             .findByRegionIdAndCropIdOrderByYearAsc(region.getId(), crop.getId());
+        PreparedForecast prepared = prepareForecast(request, region, crop, model, historyRecords);
+        ForecastRun run = prepared.run();
+        forecastRunRepository.save(run);
+
+        ForecastEngineResponse response = invokeEngine(prepared.history(), run, request.parameters());
+
+        applyEngineResponse(run, response);
+        forecastRunRepository.save(run);
+
+        forecastRunSeriesRepository.saveAll(buildRunSeries(run, prepared.history(), response));
+
+        List<ForecastSnapshot> snapshots = buildSnapshots(prepared, response);
+        Long primaryResultId = null;
+        if (!snapshots.isEmpty()) {
+            try {
+                forecastSnapshotRepository.saveAll(snapshots);
+            } catch (DataAccessException ex) {
+                log.warn("Failed to persist forecast snapshots for run {}", run.getId(), ex);
+            }
+            primaryResultId = persistForecastResults(run, snapshots);
+        }
+
+        return buildExecutionResponse(prepared, response, primaryResultId);
+    }
+
+    /**
+     * 批量预测：先以少量集合查询预取所有组合所需的区域、作物、模型、历史产量与气象数据，
+     * 再将引擎计算分发到批量线程池并行执行，最后按块批量写入运行记录、序列与快照。
+     * 由异步任务线程调用：每个组合提交前先取得本请求的份额与全局在途许可，引擎计算始终在批量线程上执行，
+     * 且绑定 cancellation，取消或超时后尚未提交的组合不再计算，执行中的组合在下一个训练轮次处停止。
+     * 单个组合失败不影响其他组合，失败原因随结果按提交顺序返回，已完成的组合照常保存。
+     */
+    @Override
+    public ForecastBatchResponse runBatchForecast(ForecastBatchRequest request,
+                                                  ForecastCancellation cancellation,
+                                                  ForecastProgressListener progress) {
+        long startTime = System.currentTimeMillis();
+        List<ForecastExecutionRequest> items = request.items();
+        int size = items.size();
+        PreparedForecast[] prepared = new PreparedForecast[size];
+        ForecastEngineResponse[] responses = new ForecastEngineResponse[size];
+        Long[] primaryResultIds = new Long[size];
+        String[] errors = new String[size];
+
+        Map<Long, Region> regions = indexById(regionRepository.findAllById(collectIds(items, ForecastExecutionRequest::regionId)), Region::getId);
+        Map<Long, Crop> crops = indexById(cropRepository.findAllById(collectIds(items, ForecastExecutionRequest::cropId)), Crop::getId);
+        Map<Long, ForecastModel> models = indexById(forecastModelRepository.findAllById(collectIds(items, ForecastExecutionRequest::modelId)), ForecastModel::getId);
+
+        Map<List<Long>, List<YieldRecord>> historyByScope = new HashMap<>();
+        if (!regions.isEmpty() && !crops.isEmpty()) {
+            for (YieldRecord record : yieldRecordRepository.findByRegionIdInAndCropIdInOrderByYearAsc(regions.keySet(), crops.keySet())) {
+                historyByScope.computeIfAbsent(List.of(record.getRegion().getId(), record.getCrop().getId()), key -> new ArrayList<>())
+                    .add(record);
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            ForecastExecutionRequest item = items.get(i);
+            try {
+                Region region = requireEntity(regions.get(item.regionId()), "区域不存在");
+                Crop crop = requireEntity(crops.get(item.cropId()), "作物不存在");
+                ForecastModel model = requireEntity(models.get(item.modelId()), "模型不存在");
+                List<YieldRecord> historyRecords = historyByScope.getOrDefault(List.of(region.getId(), crop.getId()), List.of());
+                prepared[i] = prepareForecast(item, region, crop, model, historyRecords);
+            } catch (BusinessException ex) {
+                errors[i] = ex.getMessage();
+            }
+        }
+
+        Set<Long> weatherRegionIds = new HashSet<>();
+        int weatherFromYear = Integer.MAX_VALUE;
+        int weatherToYear = Integer.MIN_VALUE;
+        for (PreparedForecast item : prepared) {
+            if (item == null || item.run().getModel().getType() != ForecastModel.ModelType.WEATHER_REGRESSION) {
+                continue;
+            }
+            weatherRegionIds.add(item.run().getRegion().getId());
+            for (HistoryObservation observation : item.history()) {
+                int year = observation.record().getYear();
+                weatherFromYear = Math.min(weatherFromYear, year);
+                weatherToYear = Math.max(weatherToYear, year + Math.max(item.run().getForecastPeriods(), 0));
+            }
+        }
+        // 批次内所有气象回归任务共用一次月汇总查询，年份区间取各任务的并集
+        Map<Long, List<WeatherFeatureStore.MonthlyWeather>> weatherByRegion = weatherRegionIds.isEmpty()
+            ? Collections.emptyMap()
+            : weatherFeatureStore.loadMonthly(weatherRegionIds, weatherFromYear, weatherToYear);
+        // 同一区域的远程天气预报在整个批次内只拉取一次
+        Map<Long, CompletableFuture<List<WeatherRecord>>> remoteForecasts = new ConcurrentHashMap<>();
+
+        // 组装请求时可能调用远程天气预报，优先在 I/O 执行器上完成；其队列已满时改由批量计算线程发起调用
+        Executor requestExecutor = task -> {
+            try {
+                ioTaskExecutor.execute(task);
+            } catch (RejectedExecutionException ex) {
+                forecastBatchExecutor.execute(task);
+            }
+        };
+        Semaphore requestSlots = new Semaphore(batchRequestSlots);
+        AtomicInteger completed = new AtomicInteger();
+        int submittable = (int) Arrays.stream(prepared).filter(Objects::nonNull).count();
+        List<CompletableFuture<ForecastEngineResponse>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            PreparedForecast item = prepared[i];
+            if (item == null) {
+                futures.add(null);
+                continue;
+            }
+            String stopped = acquireBatchSlot(requestSlots, cancellation);
+            if (stopped != null) {
+                for (int j = i; j < size; j++) {
+                    futures.add(prepared[j] == null ? null
+                        : CompletableFuture.failedFuture(new IllegalStateException(stopped)));
+                }
+                break;
+            }
+            CompletableFuture<ForecastEngineResponse> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> buildEngineRequest(item.history(), item.run(),
+                        item.request().parameters(),
+                        (region, fromYear, toYear) -> weatherByRegion.getOrDefault(region.getId(), List.of()),
+                        region -> fetchRemoteWeatherForecastOnce(remoteForecasts, region)), requestExecutor)
+                    .thenApplyAsync(engineRequest -> cancellation.call(() -> callEngine(item.run(), engineRequest)),
+                        forecastBatchExecutor);
+            } catch (RejectedExecutionException ex) {
+                future = CompletableFuture.failedFuture(ex);
+            }
+            future.whenComplete((response, error) -> {
+                batchSlots.release();
+                requestSlots.release();
+                progress.onProgress("批量预测", completed.incrementAndGet(), submittable);
+            });
+            futures.add(future);
+        }
+
+        List<Integer> persistable = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            CompletableFuture<ForecastEngineResponse> future = futures.get(i);
+            if (future == null) {
+                continue;
+            }
+            ForecastRun run = prepared[i].run();
+            try {
+                responses[i] = future.join();
+                applyEngineResponse(run, responses[i]);
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                log.warn("Batch forecast failed for region {} crop {} model {}: {}",
+                    run.getRegion().getId(), run.getCrop().getId(), run.getModel().getId(), cause.getMessage());
+                errors[i] = "预测引擎调用失败: " + cause.getMessage();
+                run.setStatus(ForecastRun.RunStatus.FAILED);
+                run.setErrorMessage(truncate(cause.getMessage(), ERROR_MESSAGE_MAX_LENGTH));
+            }
+            persistable.add(i);
+        }
+
+        for (int from = 0; from < persistable.size(); from += BATCH_PERSIST_CHUNK_SIZE) {
+            List<Integer> chunk = persistable.subList(from, Math.min(from + BATCH_PERSIST_CHUNK_SIZE, persistable.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    persistBatchChunk(chunk, prepared, responses, primaryResultIds));
+            } catch (RuntimeException ex) {
+                log.error("Failed to persist batch forecast chunk of {} runs", chunk.size(), ex);
+                for (int index : chunk) {
+                    if (errors[index] == null) {
+                        errors[index] = "保存预测结果失败: " + ex.getMessage();
+                    }
+                }
+            }
+        }
+
+        List<ForecastBatchResponse.ItemResult> results = new ArrayList<>(size);
+        int succeeded = 0;
+        for (int i = 0; i < size; i++) {
+            ForecastExecutionRequest item = items.get(i);
+            if (errors[i] == null && responses[i] != null) {
+                succeeded++;
+                results.add(new ForecastBatchResponse.ItemResult(item.regionId(), item.cropId(), item.modelId(), true, null,
+                    buildExecutionResponse(prepared[i], responses[i], primaryResultIds[i])));
+            } else {
+                results.add(new ForecastBatchResponse.ItemResult(item.regionId(), item.cropId(), item.modelId(), false,
+                    errors[i], null));
+            }
+        }
+        log.info("批量预测完成 - 总数: {}, 成功: {}, 失败: {}, 耗时: {}ms",
+            size, succeeded, size - succeeded, System.currentTimeMillis() - startTime);
+        return new ForecastBatchResponse(size, succeeded, size - succeeded, results);
+    }
+
+    /**
+     * 依次取得本请求的份额许可与全局在途许可，期间定期检查取消与截止时间；
+     * 成功返回 null，批量任务已停止时返回失败原因
+     */
+    private String acquireBatchSlot(Semaphore requestSlots, ForecastCancellation cancellation) {
+        try {
+            while (!requestSlots.tryAcquire(BATCH_SLOT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (cancellation.isCancelled() || cancellation.isExpired()) {
+                    return batchStopReason(cancellation);
+                }
+            }
+            while (!batchSlots.tryAcquire(BATCH_SLOT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (cancellation.isCancelled() || cancellation.isExpired()) {
+                    requestSlots.release();
+                    return batchStopReason(cancellation);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "批量预测已中断";
+        }
+        if (cancellation.isCancelled() || cancellation.isExpired()) {
+            batchSlots.release();
+            requestSlots.release();
+            return batchStopReason(cancellation);
+        }
+        return null;
+    }
+
+    private String batchStopReason(ForecastCancellation cancellation) {
+        return cancellation.isCancelled() ? "批量预测已取消" : "批量预测超时，组合未开始计算";
+    }
+
+    private PreparedForecast prepareForecast(ForecastExecutionRequest request,
+                                             Region region,
+                                             Crop crop,
+                                             ForecastModel model,
+                                             List<YieldRecord> historyRecords) {
         MeasurementType measurementType = resolveMeasurementType(historyRecords);
         List<HistoryObservation> usableHistory = historyRecords.stream()
             .map(record -> mapObservation(record, measurementType))
@@ -156,10 +448,10 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
         run.setStatus(ForecastRun.RunStatus.RUNNING);
         run.setMeasurementLabel(measurementType.valueLabel());
         run.setMeasurementUnit(measurementType.valueUnit());
-        forecastRunRepository.save(run);
-
-        ForecastEngineResponse response = invokeEngine(limitedHistory, run, request.parameters());
+        return new PreparedForecast(request, run, measurementType, limitedHistory);
+    }
 
+    private void applyEngineResponse(ForecastRun run, ForecastEngineResponse response) {
         run.setStatus(ForecastRun.RunStatus.SUCCESS);
         run.setExternalRequestId(response.requestId());
         if (response.metrics() != null) {
@@ -168,10 +460,13 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
             run.setMape(response.metrics().mape());
             run.setR2(response.metrics().r2());
         }
-        forecastRunRepository.save(run);
+    }
 
-        List<ForecastRunSeries> series = new ArrayList<>();
-        for (HistoryObservation observation : limitedHistory) {
+    private List<ForecastRunSeries> buildRunSeries(ForecastRun run,
+                                                   List<HistoryObservation> history,
+                                                   ForecastEngineResponse response) {
+        List<ForecastRunSeries> series = new ArrayList<>(history.size() + response.forecast().size());
+        for (HistoryObservation observation : history) {
             ForecastRunSeries item = new ForecastRunSeries();
             item.setRun(run);
             item.setPeriod(String.valueOf(observation.record().getYear()));
@@ -192,23 +487,22 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
             item.setHistorical(Boolean.FALSE);
             series.add(item);
         }
-        forecastRunSeriesRepository.saveAll(series);
+        return series;
+    }
 
-        YieldRecord referenceRecord = limitedHistory.isEmpty() ? null : limitedHistory.get(limitedHistory.size() - 1).record();
-        List<ForecastSnapshot> snapshots = response.forecast().stream()
-            .map(point -> buildSnapshot(run, point, measurementType, referenceRecord))
+    private List<ForecastSnapshot> buildSnapshots(PreparedForecast prepared, ForecastEngineResponse response) {
+        List<HistoryObservation> history = prepared.history();
+        YieldRecord referenceRecord = history.isEmpty() ? null : history.get(history.size() - 1).record();
+        return response.forecast().stream()
+            .map(point -> buildSnapshot(prepared.run(), point, prepared.measurementType(), referenceRecord))
             .toList();
-        Long primaryResultId = null;
-        if (!snapshots.isEmpty()) {
-            try {
-                forecastSnapshotRepository.saveAll(snapshots);
-            } catch (DataAccessException ex) {
-                log.warn("Failed to persist forecast snapshots for run {}", run.getId(), ex);
-            }
-            primaryResultId = persistForecastResults(run, snapshots);
-        }
+    }
 
-        List<ForecastExecutionResponse.SeriesPoint> history = limitedHistory.stream()
+    private ForecastExecutionResponse buildExecutionResponse(PreparedForecast prepared,
+                                                             ForecastEngineResponse response,
+                                                             Long primaryResultId) {
+        ForecastRun run = prepared.run();
+        List<ForecastExecutionResponse.SeriesPoint> history = prepared.history().stream()
             .map(observation -> new ForecastExecutionResponse.SeriesPoint(
                 String.valueOf(observation.record().getYear()),
                 observation.value(),
@@ -226,10 +520,10 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
             .toList();
 
         ForecastExecutionResponse.Metadata metadata = new ForecastExecutionResponse.Metadata(
-            region.getName(),
-            crop.getName(),
-            model.getName(),
-            model.getType().name(),
+            run.getRegion().getName(),
+            run.getCrop().getName(),
+            run.getModel().getName(),
+            run.getModel().getType().name(),
             run.getFrequency(),
             run.getForecastPeriods(),
             run.getUpdatedAt(),
@@ -246,6 +540,150 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
         return new ForecastExecutionResponse(run.getId(), metadata, history, forecast, metrics, primaryResultId);
     }
 
+    private void persistBatchChunk(List<Integer> indices,
+                                   PreparedForecast[] prepared,
+                                   ForecastEngineResponse[] responses,
+                                   Long[] primaryResultIds) {
+        List<ForecastRun> runs = new ArrayList<>(indices.size());
+        for (int index : indices) {
+            runs.add(prepared[index].run());
+        }
+        forecastRunRepository.saveAll(runs);
+
+        List<ForecastRunSeries> series = new ArrayList<>();
+        List<ForecastSnapshot> snapshots = new ArrayList<>();
+        Map<Integer, List<ForecastSnapshot>> snapshotsByIndex = new LinkedHashMap<>();
+        for (int index : indices) {
+            ForecastEngineResponse response = responses[index];
+            if (response == null) {
+                continue;
+            }
+            series.addAll(buildRunSeries(prepared[index].run(), prepared[index].history(), response));
+            List<ForecastSnapshot> runSnapshots = buildSnapshots(prepared[index], response);
+            if (!runSnapshots.isEmpty()) {
+                snapshots.addAll(runSnapshots);
+                snapshotsByIndex.put(index, runSnapshots);
+            }
+        }
+        insertRunSeries(series);
+        try {
+            insertSnapshots(snapshots);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to persist {} forecast snapshots in batch", snapshots.size(), ex);
+        }
+        persistBatchForecastResults(snapshotsByIndex, prepared, primaryResultIds);
+    }
+
+    private void insertRunSeries(List<ForecastRunSeries> series) {
+        if (series.isEmpty()) {
+            return;
+        }
+        String sql = """
+                INSERT INTO forecast_run_series (run_id, period, value, lower_bound, upper_bound, historical, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, NOW(), NOW())
+                """;
+        jdbcTemplate.batchUpdate(sql, series, JDBC_BATCH_SIZE, (preparedStatement, item) -> {
+            preparedStatement.setLong(1, item.getRun().getId());
+            preparedStatement.setString(2, item.getPeriod());
+            preparedStatement.setObject(3, item.getValue(), Types.DOUBLE);
+            setNullableDouble(preparedStatement, 4, item.getLowerBound());
+            setNullableDouble(preparedStatement, 5, item.getUpperBound());
+            preparedStatement.setBoolean(6, Boolean.TRUE.equals(item.getHistorical()));
+        });
+    }
+
+    private void insertSnapshots(List<ForecastSnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        String sql = """
+                INSERT INTO forecast_snapshot (run_id, period, year, measurement_value, measurement_label, measurement_unit,
+                                               predicted_production, predicted_yield, sown_area, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())
+                """;
+        jdbcTemplate.batchUpdate(sql, snapshots, JDBC_BATCH_SIZE, (preparedStatement, snapshot) -> {
+            preparedStatement.setLong(1, snapshot.getRun().getId());
+            preparedStatement.setString(2, snapshot.getPeriod());
+            preparedStatement.setObject(3, snapshot.getYear());
+            setNullableDouble(preparedStatement, 4, snapshot.getMeasurementValue());
+            preparedStatement.setString(5, snapshot.getMeasurementLabel());
+            preparedStatement.setString(6, snapshot.getMeasurementUnit());
+            setNullableDouble(preparedStatement, 7, snapshot.getPredictedProduction());
+            setNullableDouble(preparedStatement, 8, snapshot.getPredictedYield());
+            setNullableDouble(preparedStatement, 9, snapshot.getSownArea());
+        });
+    }
+
+    private void persistBatchForecastResults(Map<Integer, List<ForecastSnapshot>> snapshotsByIndex,
+                                             PreparedForecast[] prepared,
+                                             Long[] primaryResultIds) {
+        if (snapshotsByIndex.isEmpty()) {
+            return;
+        }
+        Set<Long> modelIds = new HashSet<>();
+        Set<Long> cropIds = new HashSet<>();
+        Set<Long> regionIds = new HashSet<>();
+        for (int index : snapshotsByIndex.keySet()) {
+            ForecastRun run = prepared[index].run();
+            modelIds.add(run.getModel().getId());
+            cropIds.add(run.getCrop().getId());
+            regionIds.add(run.getRegion().getId());
+        }
+        Map<List<Long>, ForecastTask> tasks = new HashMap<>();
+        for (ForecastTask task : forecastTaskRepository.findByModelIdInAndCropIdInAndRegionIdIn(modelIds, cropIds, regionIds)) {
+            tasks.putIfAbsent(List.of(task.getModel().getId(), task.getCrop().getId(), task.getRegion().getId()), task);
+        }
+
+        Map<Integer, ForecastTask> taskByIndex = new LinkedHashMap<>();
+        for (int index : snapshotsByIndex.keySet()) {
+            ForecastRun run = prepared[index].run();
+            List<Long> key = List.of(run.getModel().getId(), run.getCrop().getId(), run.getRegion().getId());
+            ForecastTask task = tasks.get(key);
+            if (task == null) {
+                task = new ForecastTask();
+                task.setModel(run.getModel());
+                task.setCrop(run.getCrop());
+                task.setRegion(run.getRegion());
+                tasks.put(key, task);
+            }
+            task.setStatus(ForecastTask.TaskStatus.SUCCESS);
+            task.setParameters(buildTaskParameters(run));
+            taskByIndex.put(index, task);
+        }
+        forecastTaskRepository.saveAll(new LinkedHashSet<>(taskByIndex.values()));
+
+        List<Long> taskIds = taskByIndex.values().stream().map(ForecastTask::getId).distinct().toList();
+        Map<List<Long>, ForecastResult> existingResults = new HashMap<>();
+        for (ForecastResult result : forecastResultRepository.findByTaskIdIn(taskIds)) {
+            if (result.getTargetYear() != null) {
+                existingResults.putIfAbsent(List.of(result.getTask().getId(), result.getTargetYear().longValue()), result);
+            }
+        }
+
+        Map<Integer, ForecastResult> primaryResults = new LinkedHashMap<>();
+        List<ForecastResult> pending = new ArrayList<>();
+        for (Map.Entry<Integer, List<ForecastSnapshot>> entry : snapshotsByIndex.entrySet()) {
+            ForecastRun run = prepared[entry.getKey()].run();
+            ForecastTask task = taskByIndex.get(entry.getKey());
+            String evaluation = buildEvaluationSummary(run);
+            for (ForecastSnapshot snapshot : entry.getValue()) {
+                if (!hasResultValues(snapshot)) {
+                    continue;
+                }
+                ForecastResult result = existingResults.computeIfAbsent(
+                    List.of(task.getId(), snapshot.getYear().longValue()), key -> new ForecastResult());
+                fillForecastResult(result, task, snapshot, evaluation);
+                pending.add(result);
+                primaryResults.putIfAbsent(entry.getKey(), result);
+            }
+            if (evaluation != null) {
+                registerModelSnapshot(run, evaluation);
+            }
+        }
+        forecastResultRepository.saveAll(new LinkedHashSet<>(pending));
+        primaryResults.forEach((index, result) -> primaryResultIds[index] = result.getId());
+    }
+
     private Long persistForecastResults(ForecastRun run,
                                         List<ForecastSnapshot> snapshots) {
         ForecastTask task = resolveForecastTask(run);
@@ -255,42 +693,58 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
         String evaluation = buildEvaluationSummary(run);
         Long primaryResultId = null;
         for (ForecastSnapshot snapshot : snapshots) {
-            Integer targetYear = snapshot.getYear();
-            if (targetYear == null) {
-                continue;
-            }
-            Double measurementValue = snapshot.getMeasurementValue();
-            Double predictedYield = snapshot.getPredictedYield();
-            if (predictedYield == null) {
-                predictedYield = deriveYieldFromSnapshot(snapshot);
-            }
-            Double predictedProduction = snapshot.getPredictedProduction();
-            if (measurementValue == null && predictedYield == null && predictedProduction == null) {
+            if (!hasResultValues(snapshot)) {
                 continue;
             }
             ForecastResult result = forecastResultRepository
-                .findByTaskIdAndTargetYear(task.getId(), targetYear)
+                .findByTaskIdAndTargetYear(task.getId(), snapshot.getYear())
                 .orElseGet(ForecastResult::new);
-            result.setTask(task);
-            result.setTargetYear(targetYear);
-            result.setPredictedYield(predictedYield);
-            result.setPredictedProduction(predictedProduction);
-            result.setMeasurementValue(measurementValue != null ? measurementValue : predictedYield);
-            result.setMeasurementLabel(snapshot.getMeasurementLabel());
-            result.setMeasurementUnit(snapshot.getMeasurementUnit());
-            result.setEvaluation(evaluation);
+            fillForecastResult(result, task, snapshot, evaluation);
             ForecastResult saved = forecastResultRepository.save(result);
             if (primaryResultId == null) {
                 primaryResultId = saved.getId();
             }
         }
         if (evaluation != null) {
-            String storageUri = objectStorageService.saveText("models", "forecast-run-" + run.getId(), evaluation);
-            modelRegistryService.registerSnapshot(run.getModel(), storageUri, evaluation);
+            registerModelSnapshot(run, evaluation);
         }
         return primaryResultId;
     }
 
+    private boolean hasResultValues(ForecastSnapshot snapshot) {
+        if (snapshot.getYear() == null) {
+            return false;
+        }
+        return snapshot.getMeasurementValue() != null
+            || snapshot.getPredictedYield() != null
+            || deriveYieldFromSnapshot(snapshot) != null
+            || snapshot.getPredictedProduction() != null;
+    }
+
+    private void fillForecastResult(ForecastResult result,
+                                    ForecastTask task,
+                                    ForecastSnapshot snapshot,
+                                    String evaluation) {
+        Double measurementValue = snapshot.getMeasurementValue();
+        Double predictedYield = snapshot.getPredictedYield();
+        if (predictedYield == null) {
+            predictedYield = deriveYieldFromSnapshot(snapshot);
+        }
+        result.setTask(task);
+        result.setTargetYear(snapshot.getYear());
+        result.setPredictedYield(predictedYield);
+        result.setPredictedProduction(snapshot.getPredictedProduction());
+        result.setMeasurementValue(measurementValue != null ? measurementValue : predictedYield);
+        result.setMeasurementLabel(snapshot.getMeasurementLabel());
+        result.setMeasurementUnit(snapshot.getMeasurementUnit());
+        result.setEvaluation(evaluation);
+    }
+
+    private void registerModelSnapshot(ForecastRun run, String evaluation) {
+        String storageUri = objectStorageService.saveText("models", "forecast-run-" + run.getId(), evaluation);
+        modelRegistryService.registerSnapshot(run.getModel(), storageUri, evaluation);
+    }
+
     private ForecastTask resolveForecastTask(ForecastRun run) {
         return forecastTaskRepository.findByModelIdAndCropIdAndRegionId(
                 run.getModel().getId(),
@@ -424,6 +878,37 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
     private ForecastEngineResponse invokeEngine(List<HistoryObservation> history,
                                                 ForecastRun run,
                                                 Map<String, Object> userParameters) {
+        ForecastEngineRequest engineRequest = buildEngineRequest(history, run, userParameters,
+            (region, fromYear, toYear) -> weatherFeatureStore.loadMonthly(List.of(region.getId()), fromYear, toYear)
+                .getOrDefault(region.getId(), List.of()),
+            this::fetchRemoteWeatherForecast);
+        try {
+            return callEngine(run, engineRequest);
+        } catch (Exception ex) {
+            run.setStatus(ForecastRun.RunStatus.FAILED);
+            run.setErrorMessage(ex.getMessage());
+            forecastRunRepository.save(run);
+            throw new BusinessException(ResultCode.SERVER_ERROR, "预测引擎调用失败: " + ex.getMessage());
+        }
+    }
+
+    private ForecastEngineResponse callEngine(ForecastRun run, ForecastEngineRequest engineRequest) {
+        return forecastModelCache.getOrCompute(
+            run.getRegion() != null ? run.getRegion().getId() : null,
+            run.getCrop() != null ? run.getCrop().getId() : null,
+            engineRequest,
+            () -> modelArtefactStore.forecast(run.getModel(), engineRequest)
+        );
+    }
+
+    /**
+     * 组装引擎请求；气象数据的来源由调用方提供，单次预测按区域即时查询，批量预测使用预取结果
+     */
+    private ForecastEngineRequest buildEngineRequest(List<HistoryObservation> history,
+                                                     ForecastRun run,
+                                                     Map<String, Object> userParameters,
+                                                     MonthlyWeatherLoader weatherLoader,
+                                                     Function<Region, List<WeatherRecord>> remoteForecastLoader) {
         Map<String, Object> parameters = new HashMap<>();
         if (userParameters != null && !userParameters.isEmpty()) {
             parameters.putAll(userParameters);
@@ -436,7 +921,8 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
         boolean userProvidedFutureFeatures =
                 userParameters != null && userParameters.containsKey("futureWeatherFeatures");
         if (run.getModel() != null && run.getModel().getType() == ForecastModel.ModelType.WEATHER_REGRESSION) {
-            WeatherFeatureBundle bundle = buildWeatherFeatureBundle(run.getRegion(), run.getCrop(), history, run.getForecastPeriods());
+            WeatherFeatureBundle bundle = buildWeatherFeatureBundle(run.getRegion(), run.getCrop(), history,
+                run.getForecastPeriods(), weatherLoader, remoteForecastLoader);
             weatherFeatures = bundle.historyFeatures();
             if (!userProvidedFutureFeatures && !bundle.futureFeatures().isEmpty()) {
                 Map<String, Map<String, Double>> mapped = new LinkedHashMap<>();
@@ -463,27 +949,47 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
             })
             .toList();
 
-        ForecastEngineRequest engineRequest = new ForecastEngineRequest(
+        return new ForecastEngineRequest(
             run.getModel().getType().name(),
             run.getFrequency(),
             run.getForecastPeriods(),
             historyPoints,
             parameters
         );
+    }
+
+    private List<WeatherRecord> fetchRemoteWeatherForecast(Region region) {
+        Optional<WeatherLocationResolver.Coordinate> coordinate = weatherLocationResolver.resolve(region);
+        if (coordinate.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return qWeatherForecastClient.fetchDailyForecast(coordinate.get().longitude(), coordinate.get().latitude());
+    }
+
+    /**
+     * 批次内每个区域只拉取一次远程天气预报；HTTP 调用不在 ConcurrentHashMap 的桶锁内进行，并发的同区域请求等待同一结果
+     */
+    private List<WeatherRecord> fetchRemoteWeatherForecastOnce(Map<Long, CompletableFuture<List<WeatherRecord>>> fetched,
+                                                               Region region) {
+        CompletableFuture<List<WeatherRecord>> created = new CompletableFuture<>();
+        CompletableFuture<List<WeatherRecord>> existing = fetched.putIfAbsent(region.getId(), created);
+        if (existing != null) {
+            return existing.join();
+        }
         try {
-            return forecastEngineClient.runForecast(engineRequest);
-        } catch (Exception ex) {
-            run.setStatus(ForecastRun.RunStatus.FAILED);
-            run.setErrorMessage(ex.getMessage());
-            forecastRunRepository.save(run);
-            throw new BusinessException(ResultCode.SERVER_ERROR, "预测引擎调用失败: " + ex.getMessage());
+            created.complete(fetchRemoteWeatherForecast(region));
+        } catch (RuntimeException ex) {
+            created.completeExceptionally(ex);
         }
+        return created.join();
     }
 
     private WeatherFeatureBundle buildWeatherFeatureBundle(Region region,
                                                            Crop crop,
                                                            List<HistoryObservation> history,
-                                                           int forecastPeriods) {
+                                                           int forecastPeriods,
+                                                           MonthlyWeatherLoader weatherLoader,
+                                                           Function<Region, List<WeatherRecord>> remoteForecastLoader) {
         if (region == null || history.isEmpty()) {
             return WeatherFeatureBundle.empty();
         }
@@ -504,78 +1010,21 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
             ? crop.getHarvestSeason()
             : HarvestSeason.ANNUAL;
 
-        List<WeatherRecord> weatherRecords = weatherRecordRepository.findByRegionId(region.getId());
-        Map<Integer, List<WeatherRecord>> historyGrouped = new HashMap<>();
-        for (WeatherRecord record : weatherRecords) {
-            LocalDate date = record.getRecordDate();
-            if (date == null) {
-                continue;
-            }
-            Integer targetYear = resolveWeatherTargetYear(date, season);
-            if (targetYear == null) {
-                continue;
-            }
-            if (historyYears.contains(targetYear)) {
-                historyGrouped.computeIfAbsent(targetYear, key -> new ArrayList<>()).add(record);
-            }
-        }
-
-        Map<Integer, Map<String, Double>> historyFeatures = new HashMap<>();
-        for (Map.Entry<Integer, List<WeatherRecord>> entry : historyGrouped.entrySet()) {
-            Map<String, Double> features = summarizeWeatherFeatures(entry.getValue(), season);
-            if (!features.isEmpty()) {
-                historyFeatures.put(entry.getKey(), features);
-            }
-        }
-
         Set<Integer> futureYears = new LinkedHashSet<>();
-        if (lastYear != Integer.MIN_VALUE) {
-            for (int i = 1; i <= Math.max(forecastPeriods, 0); i++) {
-                futureYears.add(lastYear + i);
-            }
+        for (int i = 1; i <= Math.max(forecastPeriods, 0); i++) {
+            futureYears.add(lastYear + i);
         }
-        Map<Integer, List<WeatherRecord>> futureGrouped = new HashMap<>();
-        if (!futureYears.isEmpty()) {
-            for (WeatherRecord record : weatherRecords) {
-                LocalDate date = record.getRecordDate();
-                if (date == null) {
-                    continue;
-                }
-                Integer targetYear = resolveWeatherTargetYear(date, season);
-                if (targetYear == null || !futureYears.contains(targetYear)) {
-                    continue;
-                }
-                futureGrouped.computeIfAbsent(targetYear, key -> new ArrayList<>()).add(record);
-            }
-
-            Set<Integer> missingFutureYears = new LinkedHashSet<>(futureYears);
-            missingFutureYears.removeAll(futureGrouped.keySet());
-            if (!missingFutureYears.isEmpty()) {
-                Optional<WeatherLocationResolver.Coordinate> coordinate = weatherLocationResolver.resolve(region);
-                if (coordinate.isPresent()) {
-                    List<WeatherRecord> forecastRecords = qWeatherForecastClient.fetchDailyForecast(
-                        coordinate.get().longitude(), coordinate.get().latitude());
-                    for (WeatherRecord record : forecastRecords) {
-                        LocalDate date = record.getRecordDate();
-                        if (date == null) {
-                            continue;
-                        }
-                        Integer targetYear = resolveWeatherTargetYear(date, season);
-                        if (targetYear == null || !futureYears.contains(targetYear)) {
-                            continue;
-                        }
-                        futureGrouped.computeIfAbsent(targetYear, key -> new ArrayList<>()).add(record);
-                    }
-                }
-            }
-        }
-
-        Map<Integer, Map<String, Double>> futureFeatures = new LinkedHashMap<>();
-        for (Map.Entry<Integer, List<WeatherRecord>> entry : futureGrouped.entrySet()) {
-            Map<String, Double> features = summarizeWeatherFeatures(entry.getValue(), season);
-            if (!features.isEmpty()) {
-                futureFeatures.put(entry.getKey(), features);
-            }
+        int firstYear = Collections.min(historyYears);
+        int finalYear = futureYears.isEmpty() ? lastYear : lastYear + futureYears.size();
+        List<WeatherFeatureStore.MonthlyWeather> months = weatherLoader.load(region, firstYear, finalYear);
+        Map<Integer, Map<String, Double>> historyFeatures = WeatherFeatureStore.summarize(months, season, historyYears);
+
+        Map<Integer, Map<String, Double>> futureFeatures = WeatherFeatureStore.summarize(months, season, futureYears);
+        if (!futureYears.isEmpty() && !futureFeatures.keySet().containsAll(futureYears)) {
+            // 本地气象未覆盖全部预测年份时并入远程天气预报
+            List<WeatherFeatureStore.MonthlyWeather> merged = new ArrayList<>(months);
+            merged.addAll(WeatherFeatureStore.aggregateRecords(remoteForecastLoader.apply(region)));
+            futureFeatures = WeatherFeatureStore.summarize(merged, season, futureYears);
         }
 
         return new WeatherFeatureBundle(historyFeatures, futureFeatures);
@@ -589,148 +1038,12 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
         }
     }
 
-    private Integer resolveWeatherTargetYear(LocalDate recordDate, HarvestSeason season) {
-        int year = recordDate.getYear();
-        if (season == HarvestSeason.SUMMER_GRAIN && recordDate.getMonthValue() >= 10) {
-            return year + 1;
-        }
-        return year;
-    }
-
-    private Map<String, Double> summarizeWeatherFeatures(List<WeatherRecord> records, HarvestSeason season) {
-        if (records == null || records.isEmpty()) {
-            return Collections.emptyMap();
-        }
-        WeatherAccumulator overall = new WeatherAccumulator();
-        WeatherAccumulator winterDormancy = season == HarvestSeason.SUMMER_GRAIN ? new WeatherAccumulator() : null;
-        WeatherAccumulator springRipening = season == HarvestSeason.SUMMER_GRAIN ? new WeatherAccumulator() : null;
-        WeatherAccumulator springSowing = season == HarvestSeason.AUTUMN_GRAIN ? new WeatherAccumulator() : null;
-        WeatherAccumulator summerAutumnGrowth = season == HarvestSeason.AUTUMN_GRAIN ? new WeatherAccumulator() : null;
-
-        for (WeatherRecord record : records) {
-            overall.add(record);
-            String window = classifyWeatherWindow(record.getRecordDate(), season);
-            if (window == null) {
-                continue;
-            }
-            switch (window) {
-                case "winterDormancy" -> {
-                    if (winterDormancy != null) {
-                        winterDormancy.add(record);
-                    }
-                }
-                case "springRipening" -> {
-                    if (springRipening != null) {
-                        springRipening.add(record);
-                    }
-                }
-                case "springSowing" -> {
-                    if (springSowing != null) {
-                        springSowing.add(record);
-                    }
-                }
-                case "summerAutumnGrowth" -> {
-                    if (summerAutumnGrowth != null) {
-                        summerAutumnGrowth.add(record);
-                    }
-                }
-                default -> {
-                }
-            }
-        }
-
-        Map<String, Double> features = new LinkedHashMap<>();
-        overall.writeTo(features, "");
-        if (winterDormancy != null && springRipening != null) {
-            winterDormancy.writeTo(features, "winterDormancy");
-            springRipening.writeTo(features, "springRipening");
-        }
-        if (springSowing != null && summerAutumnGrowth != null) {
-            springSowing.writeTo(features, "springSowing");
-            summerAutumnGrowth.writeTo(features, "summerAutumnGrowth");
-        }
-        features.values().removeIf(value -> value == null || value.isNaN() || value.isInfinite());
-        return features;
-    }
-
-    private String classifyWeatherWindow(LocalDate date, HarvestSeason season) {
-        if (date == null) {
-            return null;
-        }
-        int month = date.getMonthValue();
-        if (season == HarvestSeason.SUMMER_GRAIN) {
-            if (month >= 10 || month <= 2) {
-                return "winterDormancy";
-            }
-            if (month >= 3 && month <= 7) {
-                return "springRipening";
-            }
-        } else if (season == HarvestSeason.AUTUMN_GRAIN) {
-            if (month >= 3 && month <= 5) {
-                return "springSowing";
-            }
-            if (month >= 6 && month <= 10) {
-                return "summerAutumnGrowth";
-            }
-        }
-        return null;
-    }
-
-    private static final class WeatherAccumulator {
-        private double sumMax;
-        private int countMax;
-        private double sumMin;
-        private int countMin;
-        private double sumDiurnal;
-        private int countDiurnal;
-        private double sumSunshine;
-        private int countSunshine;
-
-        private void add(WeatherRecord record) {
-            if (record.getMaxTemperature() != null) {
-                sumMax += record.getMaxTemperature();
-                countMax++;
-            }
-            if (record.getMinTemperature() != null) {
-                sumMin += record.getMinTemperature();
-                countMin++;
-            }
-            if (record.getMaxTemperature() != null && record.getMinTemperature() != null) {
-                sumDiurnal += record.getMaxTemperature() - record.getMinTemperature();
-                countDiurnal++;
-            }
-            if (record.getSunshineHours() != null) {
-                sumSunshine += record.getSunshineHours();
-                countSunshine++;
-            }
-        }
-
-        private void writeTo(Map<String, Double> target, String prefix) {
-            Double avgMax = countMax > 0 ? sumMax / countMax : null;
-            Double avgMin = countMin > 0 ? sumMin / countMin : null;
-            Double avgDiurnal = countDiurnal > 0 ? sumDiurnal / countDiurnal : null;
-            Double totalSunshine = countSunshine > 0 ? sumSunshine : null;
-
-            String base = prefix == null ? "" : prefix;
-            if (base.isEmpty()) {
-                target.put("avgMaxTemperature", roundStatic(avgMax));
-                target.put("avgMinTemperature", roundStatic(avgMin));
-                target.put("avgDiurnalRange", roundStatic(avgDiurnal));
-                target.put("totalSunshineHours", roundStatic(totalSunshine));
-            } else {
-                target.put(base + "AvgMaxTemperature", roundStatic(avgMax));
-                target.put(base + "AvgMinTemperature", roundStatic(avgMin));
-                target.put(base + "AvgDiurnalRange", roundStatic(avgDiurnal));
-                target.put(base + "TotalSunshineHours", roundStatic(totalSunshine));
-            }
-        }
-
-        private Double roundStatic(Double value) {
-            if (value == null) {
-                return null;
-            }
-            return Math.round(value * 100d) / 100d;
-        }
+    /**
+     * 按区域与目标年份区间读取气象月汇总
+     */
+    @FunctionalInterface
+    private interface MonthlyWeatherLoader {
+        List<WeatherFeatureStore.MonthlyWeather> load(Region region, int fromYear, int toYear);
     }
 
     private MeasurementType resolveMeasurementType(List<YieldRecord> records) {
@@ -801,4 +1114,51 @@ public class ForecastExecutionServiceImpl implements ForecastExecutionService {
     }
 
     private record HistoryObservation(YieldRecord record, double value) { }
+
+    private record PreparedForecast(ForecastExecutionRequest request,
+                                    ForecastRun run,
+                                    MeasurementType measurementType,
+                                    List<HistoryObservation> history) { }
+
+    private static Set<Long> collectIds(List<ForecastExecutionRequest> items,
+                                        Function<ForecastExecutionRequest, Long> extractor) {
+        Set<Long> ids = new HashSet<>();
+        for (ForecastExecutionRequest item : items) {
+            Long id = extractor.apply(item);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static <T> Map<Long, T> indexById(List<T> entities, Function<T, Long> idExtractor) {
+        Map<Long, T> index = new HashMap<>();
+        for (T entity : entities) {
+            index.put(idExtractor.apply(entity), entity);
+        }
+        return index;
+    }
+
+    private static <T> T requireEntity(T entity, String message) {
+        if (entity == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND, message);
+        }
+        return entity;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength);
+    }
+
+    private static void setNullableDouble(PreparedStatement statement, int index, Double value) throws SQLException {
+        if (value == null) {
+            statement.setObject(index, null);
+        } else {
+            statement.setDouble(index, value);
+        }
+    }
 }
@@ -1,39 +1,126 @@
 package com.gxj.cropyield.modules.forecast.service.impl;
 
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
+import com.gxj.cropyield.modules.forecast.dto.ForecastWorkerStatsResponse;
 import com.gxj.cropyield.modules.forecast.service.ForecastExecutionService;
 import com.gxj.cropyield.modules.forecast.service.ForecastTaskQueue;
+import com.gxj.cropyield.modules.forecast.service.QueuedForecastTask;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
 /**
  * 消费内部消息队列的任务并触发预测执行。
+ * <p>启动后在专用线程池上常驻固定数量的消费线程，每个线程阻塞等待队列中的下一个任务，
+ * 任务到达即执行，多个任务可同时运行；队列容量与发布等待时限共同构成背压。</p>
  */
 @Component
-public class ForecastTaskWorker {
+public class ForecastTaskWorker implements SmartLifecycle {
 
     private static final Logger log = LoggerFactory.getLogger(ForecastTaskWorker.class);
 
+    /**
+     * 阻塞等待的最长时长，到期后重新检查运行状态，便于停机时及时退出
+     */
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
     private final ForecastTaskQueue forecastTaskQueue;
     private final ForecastExecutionService forecastExecutionService;
+    private final Executor forecastWorkerExecutor;
+    private final int parallelism;
+
+    private final AtomicInteger activeConsumers = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean running;
 
     public ForecastTaskWorker(ForecastTaskQueue forecastTaskQueue,
-                              ForecastExecutionService forecastExecutionService) {
+                              ForecastExecutionService forecastExecutionService,
+                              @Qualifier("forecastWorkerExecutor") Executor forecastWorkerExecutor,
+                              ForecastEngineProperties properties) {
         this.forecastTaskQueue = forecastTaskQueue;
         this.forecastExecutionService = forecastExecutionService;
+        this.forecastWorkerExecutor = forecastWorkerExecutor;
+        this.parallelism = Math.max(1, properties.getWorker().getParallelism());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < parallelism; i++) {
+            forecastWorkerExecutor.execute(this::consumeLoop);
+        }
+        log.info("Forecast task worker started with {} consumers", parallelism);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
     }
 
-    @Scheduled(fixedDelay = 10000)
-    public void consume() {
-        ForecastExecutionRequest request;
-        while ((request = forecastTaskQueue.poll()) != null) {
-            try {
-                forecastExecutionService.runForecast(request);
-            } catch (Exception ex) {
-                log.error("Failed to execute scheduled forecast task", ex);
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public ForecastWorkerStatsResponse stats() {
+        return new ForecastWorkerStatsResponse(
+            running,
+            parallelism,
+            activeConsumers.get(),
+            forecastTaskQueue.size(),
+            forecastTaskQueue.capacity(),
+            inFlight.get(),
+            completed.get(),
+            failed.get()
+        );
+    }
+
+    private void consumeLoop() {
+        activeConsumers.incrementAndGet();
+        try {
+            while (running) {
+                QueuedForecastTask task;
+                try {
+                    task = forecastTaskQueue.poll(POLL_TIMEOUT);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (task != null) {
+                    execute(task);
+                }
             }
+        } finally {
+            activeConsumers.decrementAndGet();
+        }
+    }
+
+    private void execute(QueuedForecastTask task) {
+        ForecastExecutionRequest request = task.request();
+        inFlight.incrementAndGet();
+        try {
+            forecastExecutionService.runForecast(request);
+            completed.incrementAndGet();
+            forecastTaskQueue.acknowledge(task);
+        } catch (Exception ex) {
+            failed.incrementAndGet();
+            log.error("Failed to execute scheduled forecast task for region {} crop {} model {} (attempt {})",
+                request.regionId(), request.cropId(), request.modelId(), task.attempt(), ex);
+            forecastTaskQueue.fail(task, ex.getMessage());
+        } finally {
+            inFlight.decrementAndGet();
         }
     }
 }
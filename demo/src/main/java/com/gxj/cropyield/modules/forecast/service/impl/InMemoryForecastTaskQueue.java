@@ -1,25 +1,60 @@
 package com.gxj.cropyield.modules.forecast.service.impl;
 
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
 import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
 import com.gxj.cropyield.modules.forecast.service.ForecastTaskQueue;
+import com.gxj.cropyield.modules.forecast.service.QueuedForecastTask;
+import java.time.Duration;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+/**
+ * 单实例部署使用的内存任务队列，重启后未执行的任务会丢失
+ */
 @Component
+@ConditionalOnProperty(prefix = "forecast.engine.worker", name = "queue-type", havingValue = "memory", matchIfMissing = true)
 public class InMemoryForecastTaskQueue implements ForecastTaskQueue {
 
-    private final BlockingQueue<ForecastExecutionRequest> queue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<ForecastExecutionRequest> queue;
+    private final int capacity;
+    private final Duration publishTimeout;
+
+    public InMemoryForecastTaskQueue(ForecastEngineProperties properties) {
+        ForecastEngineProperties.Worker worker = properties.getWorker();
+        this.capacity = Math.max(1, worker.getQueueCapacity());
+        this.publishTimeout = worker.getPublishTimeout() != null ? worker.getPublishTimeout() : Duration.ZERO;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
 
     @Override
-    public void publish(ForecastExecutionRequest request) {
-        if (request != null) {
-            queue.offer(request);
+    public boolean publish(ForecastExecutionRequest request) {
+        if (request == null) {
+            return true;
+        }
+        try {
+            return queue.offer(request, publishTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
     @Override
-    public ForecastExecutionRequest poll() {
-        return queue.poll();
+    public QueuedForecastTask poll(Duration timeout) throws InterruptedException {
+        ForecastExecutionRequest request = queue.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return request != null ? new QueuedForecastTask(null, request, 1) : null;
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
     }
 }
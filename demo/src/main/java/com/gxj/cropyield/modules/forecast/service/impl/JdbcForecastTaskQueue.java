@@ -0,0 +1,367 @@
+package com.gxj.cropyield.modules.forecast.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
+import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
+import com.gxj.cropyield.modules.forecast.service.ForecastTaskQueue;
+import com.gxj.cropyield.modules.forecast.service.QueuedForecastTask;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 基于 MySQL 的持久化任务队列，可在多个应用实例之间共享。
+ * <p>节点以 {@code SELECT ... FOR UPDATE SKIP LOCKED} 批量领取待执行任务并写入租约，
+ * 持有期间每隔租约时长的三分之一续约；执行成功后删除任务，失败则按指数退避重新入队，超过最大次数后标记为失败。
+ * 节点宕机时租约到期，任务由其他节点重新领取。</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "forecast.engine.worker", name = "queue-type", havingValue = "jdbc")
+public class JdbcForecastTaskQueue implements ForecastTaskQueue, SchedulingConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcForecastTaskQueue.class);
+
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 512;
+
+    /**
+     * 退避时间的上限倍数，避免多次失败后等待过久
+     */
+    private static final int MAX_BACKOFF_MULTIPLIER = 32;
+
+    /**
+     * 租约时长下限，过短的租约在一次续约延迟后即可能到期
+     */
+    static final Duration MIN_LEASE_DURATION = Duration.ofSeconds(15);
+
+    /**
+     * 每个租约周期内的续约次数
+     */
+    private static final int RENEWALS_PER_LEASE = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+    private final int capacity;
+    private final int claimBatchSize;
+    private final int maxAttempts;
+    private final long leaseSeconds;
+    private final Duration renewalInterval;
+    private final Duration retryBackoff;
+    private final Duration idlePollInterval;
+
+    /**
+     * 已领取但尚未交给消费线程的任务
+     */
+    private final BlockingQueue<QueuedForecastTask> claimed = new LinkedBlockingQueue<>();
+
+    /**
+     * 本节点持有租约的任务（含缓冲中与执行中），用于续约
+     */
+    private final Set<Long> leased = ConcurrentHashMap.newKeySet();
+
+    private final Object claimLock = new Object();
+    private long nextClaimAt;
+
+    public JdbcForecastTaskQueue(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 ForecastEngineProperties properties) {
+        ForecastEngineProperties.Worker worker = properties.getWorker();
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.nodeId = resolveNodeId();
+        this.capacity = Math.max(1, worker.getQueueCapacity());
+        this.claimBatchSize = Math.max(1, worker.getClaimBatchSize());
+        this.maxAttempts = Math.max(1, worker.getMaxAttempts());
+        Duration leaseDuration = worker.getLeaseDuration();
+        if (leaseDuration == null || leaseDuration.compareTo(MIN_LEASE_DURATION) < 0) {
+            throw new IllegalStateException("forecast.engine.worker.lease-duration 不能小于 "
+                + MIN_LEASE_DURATION.toSeconds() + " 秒，当前为 " + leaseDuration);
+        }
+        this.leaseSeconds = leaseDuration.toSeconds();
+        this.renewalInterval = leaseDuration.dividedBy(RENEWALS_PER_LEASE);
+        this.retryBackoff = worker.getRetryBackoff();
+        this.idlePollInterval = worker.getIdlePollInterval();
+        log.info("Forecast task queue backed by database, node id {}", nodeId);
+    }
+
+    @Override
+    public boolean publish(ForecastExecutionRequest request) {
+        if (request == null) {
+            return true;
+        }
+        if (size() >= capacity) {
+            return false;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("序列化预测任务失败", ex);
+        }
+        jdbcTemplate.update("""
+                INSERT INTO forecast_task_queue (region_id, crop_id, model_id, payload, status, attempts, available_at, created_at, updated_at)
+                VALUES (?, ?, ?, ?, 'PENDING', 0, NOW(3), NOW(), NOW())
+                """,
+            request.regionId(), request.cropId(), request.modelId(), payload);
+        return true;
+    }
+
+    @Override
+    public QueuedForecastTask poll(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            QueuedForecastTask task = claimed.poll();
+            if (task != null) {
+                return task;
+            }
+            claimIfDue();
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return claimed.poll();
+            }
+            task = claimed.poll(Math.min(remaining, idlePollInterval.toNanos()), TimeUnit.NANOSECONDS);
+            if (task != null) {
+                return task;
+            }
+        }
+    }
+
+    @Override
+    public void acknowledge(QueuedForecastTask task) {
+        try {
+            jdbcTemplate.update("DELETE FROM forecast_task_queue WHERE id = ? AND lease_owner = ?", task.id(), nodeId);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to acknowledge forecast task {}, it will be retried after its lease expires", task.id(), ex);
+        } finally {
+            leased.remove(task.id());
+        }
+    }
+
+    @Override
+    public void fail(QueuedForecastTask task, String errorMessage) {
+        String error = truncate(errorMessage);
+        try {
+            if (task.attempt() >= maxAttempts) {
+                jdbcTemplate.update("""
+                        UPDATE forecast_task_queue
+                        SET status = 'FAILED', last_error = ?, lease_owner = NULL, lease_expires_at = NULL
+                        WHERE id = ? AND lease_owner = ?
+                        """, error, task.id(), nodeId);
+                log.warn("Forecast task {} failed after {} attempts", task.id(), task.attempt());
+            } else {
+                long backoffSeconds = retryBackoff.toSeconds()
+                    * Math.min(MAX_BACKOFF_MULTIPLIER, 1L << Math.min(task.attempt() - 1, 30));
+                jdbcTemplate.update("""
+                        UPDATE forecast_task_queue
+                        SET status = 'PENDING', last_error = ?, lease_owner = NULL, lease_expires_at = NULL,
+                            available_at = TIMESTAMPADD(SECOND, ?, NOW(3))
+                        WHERE id = ? AND lease_owner = ?
+                        """, error, backoffSeconds, task.id(), nodeId);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Failed to record failure of forecast task {}, it will be retried after its lease expires", task.id(), ex);
+        } finally {
+            leased.remove(task.id());
+        }
+    }
+
+    @Override
+    public int size() {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM forecast_task_queue WHERE status IN ('PENDING', 'LEASED')", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 按租约时长的三分之一注册续约任务，使续约间隔随 lease-duration 调整
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::maintainLeases, renewalInterval);
+    }
+
+    /**
+     * 为本节点持有的任务续约，并将其他节点遗留的过期租约重新放回队列
+     */
+    public void maintainLeases() {
+        try {
+            List<Long> held = new ArrayList<>(leased);
+            if (!held.isEmpty()) {
+                List<Object> params = new ArrayList<>(held.size() + 2);
+                params.add(leaseSeconds);
+                params.add(nodeId);
+                params.addAll(held);
+                jdbcTemplate.update("UPDATE forecast_task_queue SET lease_expires_at = TIMESTAMPADD(SECOND, ?, NOW(3)) "
+                    + "WHERE lease_owner = ? AND status = 'LEASED' AND id IN (" + placeholders(held.size()) + ")",
+                    params.toArray());
+            }
+            int requeued = jdbcTemplate.update("""
+                    UPDATE forecast_task_queue
+                    SET status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'PENDING' END,
+                        last_error = '租约过期，执行节点可能已下线',
+                        lease_owner = NULL, lease_expires_at = NULL, available_at = NOW(3)
+                    WHERE status = 'LEASED' AND lease_expires_at <= NOW(3)
+                    """, maxAttempts);
+            if (requeued > 0) {
+                log.warn("Requeued {} forecast tasks with expired leases", requeued);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Failed to maintain forecast task leases", ex);
+        }
+    }
+
+    /**
+     * 停机时归还尚未开始执行的任务，使其他节点可以立即领取
+     */
+    @PreDestroy
+    public void releaseBufferedTasks() {
+        List<QueuedForecastTask> buffered = new ArrayList<>();
+        claimed.drainTo(buffered);
+        if (buffered.isEmpty()) {
+            return;
+        }
+        List<Object> params = new ArrayList<>(buffered.size() + 1);
+        params.add(nodeId);
+        for (QueuedForecastTask task : buffered) {
+            params.add(task.id());
+            leased.remove(task.id());
+        }
+        try {
+            jdbcTemplate.update("UPDATE forecast_task_queue SET status = 'PENDING', attempts = attempts - 1, "
+                + "lease_owner = NULL, lease_expires_at = NULL WHERE lease_owner = ? AND id IN ("
+                + placeholders(buffered.size()) + ")", params.toArray());
+        } catch (DataAccessException ex) {
+            log.warn("Failed to release {} buffered forecast tasks, they will be requeued after lease expiry", buffered.size(), ex);
+        }
+    }
+
+    /**
+     * 本地缓冲为空时领取一批任务；队列为空时在空闲间隔内不再重复查询数据库
+     */
+    private void claimIfDue() {
+        synchronized (claimLock) {
+            if (!claimed.isEmpty()) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - nextClaimAt < 0) {
+                return;
+            }
+            List<QueuedForecastTask> tasks;
+            try {
+                tasks = claimBatch();
+            } catch (DataAccessException ex) {
+                log.warn("Failed to claim forecast tasks", ex);
+                tasks = Collections.emptyList();
+            }
+            if (tasks.isEmpty()) {
+                nextClaimAt = now + idlePollInterval.toNanos();
+                return;
+            }
+            for (QueuedForecastTask task : tasks) {
+                leased.add(task.id());
+            }
+            claimed.addAll(tasks);
+        }
+    }
+
+    private List<QueuedForecastTask> claimBatch() {
+        List<QueuedForecastTask> tasks = transactionTemplate.execute(status -> {
+            List<ClaimedRow> rows = jdbcTemplate.query("""
+                    SELECT id, attempts, payload FROM forecast_task_queue
+                    WHERE status = 'PENDING' AND available_at <= NOW(3)
+                    ORDER BY available_at, id
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                    """,
+                (resultSet, rowNum) -> new ClaimedRow(
+                    resultSet.getLong("id"),
+                    resultSet.getInt("attempts"),
+                    resultSet.getString("payload")
+                ),
+                claimBatchSize);
+            if (rows.isEmpty()) {
+                return Collections.<QueuedForecastTask>emptyList();
+            }
+            List<QueuedForecastTask> claimedTasks = new ArrayList<>(rows.size());
+            List<Long> corrupted = new ArrayList<>();
+            for (ClaimedRow row : rows) {
+                try {
+                    ForecastExecutionRequest request = objectMapper.readValue(row.payload(), ForecastExecutionRequest.class);
+                    claimedTasks.add(new QueuedForecastTask(row.id(), request, row.attempts() + 1));
+                } catch (JsonProcessingException ex) {
+                    log.error("Discarding forecast task {} with unreadable payload", row.id(), ex);
+                    corrupted.add(row.id());
+                }
+            }
+            if (!corrupted.isEmpty()) {
+                jdbcTemplate.update("UPDATE forecast_task_queue SET status = 'FAILED', last_error = '任务内容无法解析' "
+                    + "WHERE id IN (" + placeholders(corrupted.size()) + ")", corrupted.toArray());
+            }
+            if (!claimedTasks.isEmpty()) {
+                List<Object> params = new ArrayList<>(claimedTasks.size() + 2);
+                params.add(nodeId);
+                params.add(leaseSeconds);
+                claimedTasks.forEach(task -> params.add(task.id()));
+                jdbcTemplate.update("UPDATE forecast_task_queue SET status = 'LEASED', lease_owner = ?, "
+                    + "lease_expires_at = TIMESTAMPADD(SECOND, ?, NOW(3)), attempts = attempts + 1 "
+                    + "WHERE id IN (" + placeholders(claimedTasks.size()) + ")", params.toArray());
+            }
+            return claimedTasks;
+        });
+        return tasks != null ? tasks : Collections.emptyList();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String truncate(String value) {
+        if (value == null || value.length() <= ERROR_MESSAGE_MAX_LENGTH) {
+            return value;
+        }
+        return value.substring(0, ERROR_MESSAGE_MAX_LENGTH);
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private record ClaimedRow(long id, int attempts, String payload) {
+    }
+}
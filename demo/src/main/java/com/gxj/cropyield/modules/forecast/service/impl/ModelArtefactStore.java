@@ -0,0 +1,242 @@
+package com.gxj.cropyield.modules.forecast.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gxj.cropyield.common.admission.AdmissionController;
+import com.gxj.cropyield.common.config.AdmissionProperties;
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
+import com.gxj.cropyield.modules.forecast.engine.ForecastArtefact;
+import com.gxj.cropyield.modules.forecast.engine.ForecastCancellation;
+import com.gxj.cropyield.modules.forecast.engine.ForecastEngineClient;
+import com.gxj.cropyield.modules.forecast.engine.ForecastEngineRequest;
+import com.gxj.cropyield.modules.forecast.engine.ForecastEngineResponse;
+import com.gxj.cropyield.modules.forecast.engine.ForecastModelCache;
+import com.gxj.cropyield.modules.forecast.engine.TrainedForecast;
+import com.gxj.cropyield.modules.forecast.entity.ForecastModel;
+import com.gxj.cropyield.modules.forecast.entity.ModelRegistry;
+import com.gxj.cropyield.modules.forecast.service.ModelRegistryService;
+import com.gxj.cropyield.modules.storage.ObjectStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * 已拟合模型制品的持久化与加载：训练得到的 ARIMA 系数、Prophet 组件与 LSTM 权重以二进制写入对象存储，
+ * 并以训练请求指纹登记到模型仓库（model_registry.storage_uri）
+ * <p>预测时先按指纹在内存 LRU 中查找，未命中再从模型仓库与对象存储加载；制品在有效期内且能给出预测时直接使用，
+ * 不再训练与回测，否则重新训练并覆盖同一指纹的登记（指纹唯一，并发登记依次执行），
+ * 登记提交后再删除被覆盖的旧制品文件。制品读写失败只记录日志，退回训练流程。</p>
+ * <p>每日清理超过保留时长未重新训练的制品登记及其文件，避免历史数据变化后遗留的旧指纹制品无限累积。</p>
+ * <p>训练前按模型类型、历史长度与是否调参预估代价，向 {@link AdmissionController} 申请计算预算；
+ * 用制品直接预测的开销很小，不占用预算。</p>
+ */
+@Component
+public class ModelArtefactStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelArtefactStore.class);
+
+    private static final String ARTEFACT_FOLDER = "models/artefacts";
+
+    /**
+     * 历史序列每多出该数量的点，训练代价加一
+     */
+    private static final int HISTORY_POINTS_PER_UNIT = 100;
+
+    private final ForecastEngineClient forecastEngineClient;
+    private final ModelRegistryService modelRegistryService;
+    private final ObjectStorageService objectStorageService;
+    private final AdmissionController admissionController;
+    private final AdmissionProperties admissionProperties;
+    private final boolean tuningEnabled;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final Duration retention;
+    private final Cache<String, ForecastArtefact> cache;
+
+    public ModelArtefactStore(ForecastEngineClient forecastEngineClient,
+                              ModelRegistryService modelRegistryService,
+                              ObjectStorageService objectStorageService,
+                              AdmissionController admissionController,
+                              AdmissionProperties admissionProperties,
+                              ForecastEngineProperties properties) {
+        ForecastEngineProperties.Artefact config = properties.getArtefact();
+        this.forecastEngineClient = forecastEngineClient;
+        this.modelRegistryService = modelRegistryService;
+        this.objectStorageService = objectStorageService;
+        this.admissionController = admissionController;
+        this.admissionProperties = admissionProperties;
+        this.tuningEnabled = properties.getTuning().isEnabled();
+        this.enabled = config.isEnabled();
+        this.maxAge = config.getMaxAge();
+        this.retention = config.getRetention();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(Math.max(config.getCacheSize(), 0L))
+            .build();
+    }
+
+    /**
+     * 有新鲜制品时免训练预测，否则训练并持久化新制品；配置外部模型服务时直接调用外部服务
+     */
+    public ForecastEngineResponse forecast(ForecastModel model, ForecastEngineRequest request) {
+        if (!enabled || forecastEngineClient.isRemoteEnabled()) {
+            try (AdmissionController.Permit ignored = admit(request)) {
+                return forecastEngineClient.runForecast(request);
+            }
+        }
+        String fingerprint = ForecastModelCache.fingerprint(request);
+        Optional<ForecastEngineResponse> scored = find(fingerprint)
+            .filter(this::isFresh)
+            .flatMap(artefact -> forecastEngineClient.score(request, artefact));
+        if (scored.isPresent()) {
+            log.debug("使用已持久化的模型制品预测: model={}, fingerprint={}", request.modelCode(), fingerprint);
+            return scored.get();
+        }
+        TrainedForecast trained;
+        try (AdmissionController.Permit ignored = admit(request)) {
+            trained = forecastEngineClient.train(request);
+        }
+        if (trained.artefact() != null) {
+            save(model, trained.artefact());
+        }
+        return trained.response();
+    }
+
+    private AdmissionController.Permit admit(ForecastEngineRequest request) {
+        return admissionController.acquire(AdmissionController.Workload.FORECAST, trainingCost(request),
+            ForecastCancellation::checkpoint);
+    }
+
+    /**
+     * 训练代价：LSTM 高于统计模型，ARIMA / Prophet 开启超参数调优时另加调优代价，长序列按点数递增
+     */
+    private int trainingCost(ForecastEngineRequest request) {
+        ForecastModel.ModelType modelType = resolveModelType(request.modelCode());
+        int cost = modelType == ForecastModel.ModelType.LSTM
+            ? admissionProperties.getLstmCost()
+            : admissionProperties.getModelCost();
+        if (modelType == ForecastModel.ModelType.ARIMA || modelType == ForecastModel.ModelType.PROPHET) {
+            Object autoTune = request.parameters() != null ? request.parameters().get("autoTune") : null;
+            boolean tuning = autoTune != null ? !"false".equalsIgnoreCase(autoTune.toString().trim()) : tuningEnabled;
+            if (tuning) {
+                cost += admissionProperties.getTuningCost();
+            }
+        }
+        int historySize = request.history() != null ? request.history().size() : 0;
+        return cost + historySize / HISTORY_POINTS_PER_UNIT;
+    }
+
+    /**
+     * 与本地引擎一致：未知或缺省的模型编码按 LSTM 处理
+     */
+    private static ForecastModel.ModelType resolveModelType(String code) {
+        if (code == null) {
+            return ForecastModel.ModelType.LSTM;
+        }
+        try {
+            return ForecastModel.ModelType.valueOf(code.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return ForecastModel.ModelType.LSTM;
+        }
+    }
+
+    private Optional<ForecastArtefact> find(String fingerprint) {
+        ForecastArtefact cached = cache.getIfPresent(fingerprint);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<ForecastArtefact> loaded = modelRegistryService.findLatestArtefact(fingerprint)
+            .map(ModelRegistry::getStorageUri)
+            .flatMap(objectStorageService::readBytes)
+            .flatMap(bytes -> decode(fingerprint, bytes));
+        loaded.ifPresent(artefact -> cache.put(fingerprint, artefact));
+        return loaded;
+    }
+
+    private Optional<ForecastArtefact> decode(String fingerprint, byte[] bytes) {
+        try {
+            ForecastArtefact artefact = ForecastArtefact.fromBytes(bytes);
+            return fingerprint.equals(artefact.fingerprint()) ? Optional.of(artefact) : Optional.empty();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("模型制品反序列化失败，将重新训练: fingerprint={}, reason={}", fingerprint, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private boolean isFresh(ForecastArtefact artefact) {
+        return !artefact.trainedAt().plus(maxAge).isBefore(Instant.now());
+    }
+
+    private void save(ForecastModel model, ForecastArtefact artefact) {
+        cache.put(artefact.fingerprint(), artefact);
+        String storageUri = null;
+        try {
+            String prefix = artefact.modelType().name().toLowerCase(Locale.ROOT) + "-" + artefact.fingerprint();
+            storageUri = objectStorageService.saveBytes(ARTEFACT_FOLDER, prefix, artefact.toBytes(), "bin");
+            if (storageUri == null) {
+                return;
+            }
+            Optional<String> replacedUri = modelRegistryService.registerArtefact(model, artefact.fingerprint(),
+                storageUri, describeMetrics(artefact.metrics()));
+            // 登记事务已提交，本次写入的制品已生效，此时才删除被覆盖的旧制品；登记失败时只删除本次写入的文件
+            replacedUri.ifPresent(objectStorageService::delete);
+        } catch (IOException | RuntimeException ex) {
+            if (storageUri != null) {
+                objectStorageService.delete(storageUri);
+            }
+            log.warn("模型制品持久化失败: model={}, fingerprint={}, reason={}",
+                artefact.modelType(), artefact.fingerprint(), ex.getMessage());
+        }
+    }
+
+    /**
+     * 删除超过保留时长未重新训练的制品登记及其文件
+     */
+    @Scheduled(cron = "0 15 3 * * ?")
+    public void pruneExpiredArtefacts() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<ModelRegistry> expired = modelRegistryService.pruneArtefacts(LocalDateTime.now().minus(retention));
+            for (ModelRegistry registry : expired) {
+                cache.invalidate(registry.getFingerprint());
+                objectStorageService.delete(registry.getStorageUri());
+            }
+            if (!expired.isEmpty()) {
+                log.info("已清理过期模型制品 {} 个", expired.size());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("清理过期模型制品失败: {}", ex.getMessage());
+        }
+    }
+
+    private static String describeMetrics(ForecastEngineResponse.EvaluationMetrics metrics) {
+        if (metrics == null) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        if (metrics.mae() != null) {
+            parts.add("MAE=" + String.format(Locale.ROOT, "%.3f", metrics.mae()));
+        }
+        if (metrics.rmse() != null) {
+            parts.add("RMSE=" + String.format(Locale.ROOT, "%.3f", metrics.rmse()));
+        }
+        if (metrics.mape() != null) {
+            parts.add("MAPE=" + String.format(Locale.ROOT, "%.3f", metrics.mape()) + "%");
+        }
+        if (metrics.r2() != null) {
+            parts.add("R²=" + String.format(Locale.ROOT, "%.3f", metrics.r2()));
+        }
+        return parts.isEmpty() ? null : String.join(" | ", parts);
+    }
+}
@@ -6,18 +6,41 @@ import com.gxj.cropyield.modules.forecast.repository.ModelRegistryRepository;
 import com.gxj.cropyield.modules.forecast.service.ModelRegistryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Service
 public class ModelRegistryServiceImpl implements ModelRegistryService {
 
     private static final Logger log = LoggerFactory.getLogger(ModelRegistryServiceImpl.class);
 
+    /**
+     * 指纹唯一：不存在时插入，已存在时不改动内容，仅对该行加排他锁，使同一指纹的并发登记依次执行
+     */
+    private static final String INSERT_ARTEFACT = """
+            INSERT INTO model_registry (model_name, model_type, storage_uri, metrics_json, fingerprint,
+                created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, NOW(), NOW())
+            ON DUPLICATE KEY UPDATE id = id
+            """;
+
+    private static final String UPDATE_ARTEFACT = """
+            UPDATE model_registry
+            SET model_name = ?, model_type = ?, storage_uri = ?, metrics_json = ?, updated_at = NOW()
+            WHERE fingerprint = ?
+            """;
+
     private final ModelRegistryRepository modelRegistryRepository;
+    private final JdbcTemplate jdbcTemplate;
 
-    public ModelRegistryServiceImpl(ModelRegistryRepository modelRegistryRepository) {
+    public ModelRegistryServiceImpl(ModelRegistryRepository modelRegistryRepository, JdbcTemplate jdbcTemplate) {
         this.modelRegistryRepository = modelRegistryRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -34,4 +57,43 @@ public class ModelRegistryServiceImpl implements ModelRegistryService {
         registry.setMetricsJson(metricsJson);
         return modelRegistryRepository.save(registry);
     }
+
+    @Override
+    @Transactional
+    public Optional<String> registerArtefact(ForecastModel model, String fingerprint, String storageUri,
+                                             String metricsJson) {
+        if (model == null || storageUri == null || fingerprint == null) {
+            log.warn("Skip registering model artefact due to missing model, fingerprint or storage uri");
+            return Optional.empty();
+        }
+        String modelType = model.getType().name();
+        jdbcTemplate.update(INSERT_ARTEFACT, model.getName(), modelType, storageUri, metricsJson, fingerprint);
+        // 行锁已由上一条语句持有：读到的是本事务插入的地址或上一次登记的地址
+        String previousUri = jdbcTemplate.queryForObject(
+                "SELECT storage_uri FROM model_registry WHERE fingerprint = ? FOR UPDATE", String.class, fingerprint);
+        if (storageUri.equals(previousUri)) {
+            return Optional.empty();
+        }
+        jdbcTemplate.update(UPDATE_ARTEFACT, model.getName(), modelType, storageUri, metricsJson, fingerprint);
+        return Optional.ofNullable(previousUri);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ModelRegistry> findLatestArtefact(String fingerprint) {
+        if (fingerprint == null) {
+            return Optional.empty();
+        }
+        return modelRegistryRepository.findFirstByFingerprintOrderByIdDesc(fingerprint);
+    }
+
+    @Override
+    @Transactional
+    public List<ModelRegistry> pruneArtefacts(LocalDateTime cutoff) {
+        List<ModelRegistry> expired = modelRegistryRepository.findByFingerprintIsNotNullAndUpdatedAtBefore(cutoff);
+        if (!expired.isEmpty()) {
+            modelRegistryRepository.deleteAllInBatch(expired);
+        }
+        return expired;
+    }
 }
@@ -0,0 +1,377 @@
+package com.gxj.cropyield.modules.forecast.service.impl;
+
+import com.gxj.cropyield.modules.base.enums.HarvestSeason;
+import com.gxj.cropyield.modules.dataset.entity.WeatherRecord;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * 气象回归特征的预计算存储：按 区域 × 年 × 月 保存逐日气象的求和与计数（weather_monthly_aggregate）
+ * <p>所有生长期窗口与目标年份的归属都按整月划分，因此任意目标年份、任意窗口的特征都能由月汇总精确还原，
+ * 预测时只需读取几十行汇总数据而不必加载区域的全部逐日记录。汇总行由气象导入与数据集删除增量维护。</p>
+ */
+@Component
+public class WeatherFeatureStore {
+
+    private static final String AGGREGATE_COLUMNS = """
+            SUM(max_temperature), COUNT(max_temperature),
+            SUM(min_temperature), COUNT(min_temperature),
+            SUM(max_temperature - min_temperature), COUNT(max_temperature - min_temperature),
+            SUM(sunshine_hours), COUNT(sunshine_hours)
+            """;
+
+    private static final String INSERT_PREFIX = """
+            INSERT INTO weather_monthly_aggregate (region_id, year, month,
+                sum_max_temperature, count_max_temperature,
+                sum_min_temperature, count_min_temperature,
+                sum_diurnal_range, count_diurnal_range,
+                sum_sunshine_hours, count_sunshine_hours)
+            SELECT region_id, YEAR(record_date), MONTH(record_date),
+            """ + AGGREGATE_COLUMNS + " FROM dataset_weather_record ";
+
+    private static final String INSERT_SUFFIX = """
+             GROUP BY region_id, YEAR(record_date), MONTH(record_date)
+            ON DUPLICATE KEY UPDATE
+                sum_max_temperature = VALUES(sum_max_temperature),
+                count_max_temperature = VALUES(count_max_temperature),
+                sum_min_temperature = VALUES(sum_min_temperature),
+                count_min_temperature = VALUES(count_min_temperature),
+                sum_diurnal_range = VALUES(sum_diurnal_range),
+                count_diurnal_range = VALUES(count_diurnal_range),
+                sum_sunshine_hours = VALUES(sum_sunshine_hours),
+                count_sunshine_hours = VALUES(count_sunshine_hours),
+                updated_at = NOW()
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WeatherFeatureStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 重新汇总指定区域的指定月份；连续月份合并为一次范围删除与一次 INSERT…SELECT
+     */
+    @Transactional
+    public void refreshMonths(Map<Long, ? extends Collection<YearMonth>> monthsByRegion) {
+        if (monthsByRegion == null || monthsByRegion.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, ? extends Collection<YearMonth>> entry : monthsByRegion.entrySet()) {
+            Long regionId = entry.getKey();
+            if (regionId == null || entry.getValue() == null || entry.getValue().isEmpty()) {
+                continue;
+            }
+            for (YearMonth[] run : contiguousRuns(entry.getValue())) {
+                YearMonth start = run[0];
+                YearMonth end = run[1];
+                jdbcTemplate.update(
+                        "DELETE FROM weather_monthly_aggregate WHERE region_id = ? AND year * 100 + month BETWEEN ? AND ?",
+                        regionId, monthKey(start), monthKey(end));
+                jdbcTemplate.update(INSERT_PREFIX + "WHERE region_id = ? AND record_date BETWEEN ? AND ?" + INSERT_SUFFIX,
+                        regionId, java.sql.Date.valueOf(start.atDay(1)), java.sql.Date.valueOf(end.atEndOfMonth()));
+            }
+        }
+    }
+
+    /**
+     * 整体重建指定区域的汇总，用于删除数据集等无法精确定位月份的场景
+     */
+    @Transactional
+    public void rebuildRegions(Collection<Long> regionIds) {
+        if (regionIds == null || regionIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(regionIds));
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(","));
+        Object[] params = ids.toArray();
+        jdbcTemplate.update("DELETE FROM weather_monthly_aggregate WHERE region_id IN (" + placeholders + ")", params);
+        jdbcTemplate.update(INSERT_PREFIX + "WHERE region_id IN (" + placeholders + ")" + INSERT_SUFFIX, params);
+    }
+
+    /**
+     * 汇总表为空而逐日记录已存在时执行一次全量回填，返回写入的汇总行数
+     */
+    @Transactional
+    public int rebuildIfEmpty() {
+        boolean aggregated = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM weather_monthly_aggregate)", Boolean.class));
+        if (aggregated) {
+            return 0;
+        }
+        boolean hasRecords = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM dataset_weather_record)", Boolean.class));
+        if (!hasRecords) {
+            return 0;
+        }
+        return jdbcTemplate.update(INSERT_PREFIX + INSERT_SUFFIX);
+    }
+
+    /**
+     * 读取覆盖目标年份区间的月汇总；夏粮的目标年份包含上一年 10 月起的月份，因此向前多取一年
+     */
+    public Map<Long, List<MonthlyWeather>> loadMonthly(Collection<Long> regionIds, int fromTargetYear, int toTargetYear) {
+        if (regionIds == null || regionIds.isEmpty() || fromTargetYear > toTargetYear) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(regionIds));
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(","));
+        String sql = """
+                SELECT region_id, year, month,
+                       sum_max_temperature, count_max_temperature,
+                       sum_min_temperature, count_min_temperature,
+                       sum_diurnal_range, count_diurnal_range,
+                       sum_sunshine_hours, count_sunshine_hours
+                FROM weather_monthly_aggregate
+                WHERE region_id IN (%s) AND year BETWEEN ? AND ?
+                ORDER BY region_id, year, month
+                """.formatted(placeholders);
+        List<Object> params = new ArrayList<>(ids);
+        params.add(fromTargetYear - 1);
+        params.add(toTargetYear);
+        Map<Long, List<MonthlyWeather>> result = new HashMap<>();
+        jdbcTemplate.query(sql, resultSet -> {
+            result.computeIfAbsent(resultSet.getLong("region_id"), key -> new ArrayList<>())
+                    .add(mapMonthly(resultSet));
+        }, params.toArray());
+        return result;
+    }
+
+    /**
+     * 将逐日记录（如远程天气预报）按月汇总，便于与存储的月汇总一并计算特征
+     */
+    public static List<MonthlyWeather> aggregateRecords(List<WeatherRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<YearMonth, Accumulator> grouped = new TreeMap<>();
+        for (WeatherRecord record : records) {
+            LocalDate date = record.getRecordDate();
+            if (date == null) {
+                continue;
+            }
+            grouped.computeIfAbsent(YearMonth.from(date), key -> new Accumulator()).add(record);
+        }
+        List<MonthlyWeather> months = new ArrayList<>(grouped.size());
+        grouped.forEach((month, accumulator) -> months.add(accumulator.toMonthly(month)));
+        return months;
+    }
+
+    /**
+     * 按生长期计算各目标年份的气象特征：整体均值以及夏粮/秋粮的分窗口均值，保留两位小数
+     */
+    public static Map<Integer, Map<String, Double>> summarize(List<MonthlyWeather> months,
+                                                             HarvestSeason season,
+                                                             Set<Integer> targetYears) {
+        if (months == null || months.isEmpty() || targetYears == null || targetYears.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        boolean summerGrain = season == HarvestSeason.SUMMER_GRAIN;
+        boolean autumnGrain = season == HarvestSeason.AUTUMN_GRAIN;
+        Map<Integer, Map<String, Accumulator>> grouped = new LinkedHashMap<>();
+        for (MonthlyWeather monthly : months) {
+            int targetYear = resolveTargetYear(monthly, season);
+            if (!targetYears.contains(targetYear)) {
+                continue;
+            }
+            Map<String, Accumulator> windows = grouped.computeIfAbsent(targetYear, key -> {
+                Map<String, Accumulator> created = new LinkedHashMap<>();
+                created.put("", new Accumulator());
+                if (summerGrain) {
+                    created.put("winterDormancy", new Accumulator());
+                    created.put("springRipening", new Accumulator());
+                } else if (autumnGrain) {
+                    created.put("springSowing", new Accumulator());
+                    created.put("summerAutumnGrowth", new Accumulator());
+                }
+                return created;
+            });
+            windows.get("").add(monthly);
+            String window = classifyWindow(monthly.month(), season);
+            if (window != null) {
+                windows.get(window).add(monthly);
+            }
+        }
+
+        Map<Integer, Map<String, Double>> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Map<String, Accumulator>> entry : grouped.entrySet()) {
+            Map<String, Double> features = new LinkedHashMap<>();
+            entry.getValue().forEach((prefix, accumulator) -> accumulator.writeTo(features, prefix));
+            features.values().removeIf(value -> value == null || value.isNaN() || value.isInfinite());
+            if (!features.isEmpty()) {
+                result.put(entry.getKey(), features);
+            }
+        }
+        return result;
+    }
+
+    private static int resolveTargetYear(MonthlyWeather monthly, HarvestSeason season) {
+        if (season == HarvestSeason.SUMMER_GRAIN && monthly.month() >= 10) {
+            return monthly.year() + 1;
+        }
+        return monthly.year();
+    }
+
+    private static String classifyWindow(int month, HarvestSeason season) {
+        if (season == HarvestSeason.SUMMER_GRAIN) {
+            if (month >= 10 || month <= 2) {
+                return "winterDormancy";
+            }
+            if (month >= 3 && month <= 7) {
+                return "springRipening";
+            }
+        } else if (season == HarvestSeason.AUTUMN_GRAIN) {
+            if (month >= 3 && month <= 5) {
+                return "springSowing";
+            }
+            if (month >= 6 && month <= 10) {
+                return "summerAutumnGrowth";
+            }
+        }
+        return null;
+    }
+
+    private static List<YearMonth[]> contiguousRuns(Collection<YearMonth> months) {
+        List<YearMonth[]> runs = new ArrayList<>();
+        YearMonth start = null;
+        YearMonth end = null;
+        for (YearMonth month : new TreeSet<>(months)) {
+            if (start != null && end.plusMonths(1).equals(month)) {
+                end = month;
+                continue;
+            }
+            if (start != null) {
+                runs.add(new YearMonth[]{start, end});
+            }
+            start = month;
+            end = month;
+        }
+        if (start != null) {
+            runs.add(new YearMonth[]{start, end});
+        }
+        return runs;
+    }
+
+    private static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private static MonthlyWeather mapMonthly(ResultSet resultSet) throws SQLException {
+        return new MonthlyWeather(
+                resultSet.getInt("year"),
+                resultSet.getInt("month"),
+                resultSet.getDouble("sum_max_temperature"),
+                resultSet.getInt("count_max_temperature"),
+                resultSet.getDouble("sum_min_temperature"),
+                resultSet.getInt("count_min_temperature"),
+                resultSet.getDouble("sum_diurnal_range"),
+                resultSet.getInt("count_diurnal_range"),
+                resultSet.getDouble("sum_sunshine_hours"),
+                resultSet.getInt("count_sunshine_hours")
+        );
+    }
+
+    /**
+     * 单个区域单月的气象求和与计数
+     */
+    public record MonthlyWeather(int year,
+                                 int month,
+                                 double sumMaxTemperature,
+                                 int countMaxTemperature,
+                                 double sumMinTemperature,
+                                 int countMinTemperature,
+                                 double sumDiurnalRange,
+                                 int countDiurnalRange,
+                                 double sumSunshineHours,
+                                 int countSunshineHours) {
+    }
+
+    private static final class Accumulator {
+        private double sumMax;
+        private int countMax;
+        private double sumMin;
+        private int countMin;
+        private double sumDiurnal;
+        private int countDiurnal;
+        private double sumSunshine;
+        private int countSunshine;
+
+        private void add(WeatherRecord record) {
+            if (record.getMaxTemperature() != null) {
+                sumMax += record.getMaxTemperature();
+                countMax++;
+            }
+            if (record.getMinTemperature() != null) {
+                sumMin += record.getMinTemperature();
+                countMin++;
+            }
+            if (record.getMaxTemperature() != null && record.getMinTemperature() != null) {
+                sumDiurnal += record.getMaxTemperature() - record.getMinTemperature();
+                countDiurnal++;
+            }
+            if (record.getSunshineHours() != null) {
+                sumSunshine += record.getSunshineHours();
+                countSunshine++;
+            }
+        }
+
+        private void add(MonthlyWeather monthly) {
+            sumMax += monthly.sumMaxTemperature();
+            countMax += monthly.countMaxTemperature();
+            sumMin += monthly.sumMinTemperature();
+            countMin += monthly.countMinTemperature();
+            sumDiurnal += monthly.sumDiurnalRange();
+            countDiurnal += monthly.countDiurnalRange();
+            sumSunshine += monthly.sumSunshineHours();
+            countSunshine += monthly.countSunshineHours();
+        }
+
+        private MonthlyWeather toMonthly(YearMonth month) {
+            return new MonthlyWeather(month.getYear(), month.getMonthValue(),
+                    sumMax, countMax, sumMin, countMin, sumDiurnal, countDiurnal, sumSunshine, countSunshine);
+        }
+
+        private void writeTo(Map<String, Double> target, String prefix) {
+            Double avgMax = countMax > 0 ? sumMax / countMax : null;
+            Double avgMin = countMin > 0 ? sumMin / countMin : null;
+            Double avgDiurnal = countDiurnal > 0 ? sumDiurnal / countDiurnal : null;
+            Double totalSunshine = countSunshine > 0 ? sumSunshine : null;
+
+            if (prefix.isEmpty()) {
+                target.put("avgMaxTemperature", round(avgMax));
+                target.put("avgMinTemperature", round(avgMin));
+                target.put("avgDiurnalRange", round(avgDiurnal));
+                target.put("totalSunshineHours", round(totalSunshine));
+            } else {
+                target.put(prefix + "AvgMaxTemperature", round(avgMax));
+                target.put(prefix + "AvgMinTemperature", round(avgMin));
+                target.put(prefix + "AvgDiurnalRange", round(avgDiurnal));
+                target.put(prefix + "TotalSunshineHours", round(totalSunshine));
+            }
+        }
+
+        private static Double round(Double value) {
+            if (value == null) {
+                return null;
+            }
+            return Math.round(value * 100d) / 100d;
+        }
+    }
+}
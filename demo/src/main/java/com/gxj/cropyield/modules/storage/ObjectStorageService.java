@@ -6,6 +6,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -31,16 +32,60 @@ public class ObjectStorageService {
     }
 
     public String saveText(String folder, String filenamePrefix, String content) {
+        byte[] bytes = (content == null ? "" : content).getBytes(StandardCharsets.UTF_8);
+        return saveBytes(folder, filenamePrefix, bytes, "json");
+    }
+
+    /**
+     * 保存二进制对象，返回可交给 {@link #readBytes} 读取的存储路径，失败时返回 null
+     */
+    public String saveBytes(String folder, String filenamePrefix, byte[] content, String extension) {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
         Path targetFolder = basePath.resolve(folder);
         try {
             Files.createDirectories(targetFolder);
-            Path targetFile = targetFolder.resolve(filenamePrefix + "-" + timestamp + ".json");
-            Files.writeString(targetFile, content == null ? "" : content, StandardCharsets.UTF_8);
+            Path targetFile = targetFolder.resolve(filenamePrefix + "-" + timestamp + "." + extension);
+            Files.write(targetFile, content == null ? new byte[0] : content);
             return targetFile.toAbsolutePath().toString();
         } catch (IOException ex) {
             log.error("Failed to persist object to {}", targetFolder, ex);
             return null;
         }
     }
+
+    /**
+     * 删除 saveText / saveBytes 返回的存储路径，对象不存在时视为已删除，失败时返回 false
+     */
+    public boolean delete(String storageUri) {
+        if (storageUri == null || storageUri.isBlank()) {
+            return true;
+        }
+        Path file = Path.of(storageUri);
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException ex) {
+            log.warn("Failed to delete object {}", file, ex);
+            return false;
+        }
+    }
+
+    /**
+     * 读取 saveText / saveBytes 返回的存储路径，对象不存在或读取失败时返回空
+     */
+    public Optional<byte[]> readBytes(String storageUri) {
+        if (storageUri == null || storageUri.isBlank()) {
+            return Optional.empty();
+        }
+        Path file = Path.of(storageUri);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Files.readAllBytes(file));
+        } catch (IOException ex) {
+            log.warn("Failed to read object {}", file, ex);
+            return Optional.empty();
+        }
+    }
 }
@@ -0,0 +1,14 @@
+-- ============================================
+-- 模型仓库制品指纹唯一约束迁移脚本
+-- 版本: V10
+-- 创建日期: 2026-10-18
+-- 说明: 同一训练请求指纹只保留一条制品登记，并发训练以 INSERT ... ON DUPLICATE KEY UPDATE 登记；
+--       加唯一键前删除并发登记遗留的重复行，只保留每个指纹最新的一条
+-- ============================================
+
+DELETE older FROM model_registry older
+    JOIN model_registry newer ON newer.fingerprint = older.fingerprint AND newer.id > older.id;
+
+ALTER TABLE model_registry
+    DROP KEY idx_model_registry_fingerprint,
+    ADD UNIQUE KEY uq_model_registry_fingerprint (fingerprint);
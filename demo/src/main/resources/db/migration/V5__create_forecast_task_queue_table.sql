@@ -0,0 +1,25 @@
+-- ============================================
+-- 预测任务持久化队列表创建脚本
+-- 版本: V5
+-- 创建日期: 2026-10-17
+-- 说明: 多实例部署时以数据库作为预测任务队列，通过 SKIP LOCKED 租约领取任务
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS forecast_task_queue (
+    id BIGINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+    region_id BIGINT UNSIGNED NOT NULL,
+    crop_id BIGINT UNSIGNED NOT NULL,
+    model_id BIGINT UNSIGNED NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    available_at DATETIME(3) NOT NULL,
+    lease_owner VARCHAR(128),
+    lease_expires_at DATETIME(3),
+    last_error VARCHAR(512),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    KEY idx_task_queue_claim (status, available_at),
+    KEY idx_task_queue_lease (status, lease_expires_at),
+    KEY idx_task_queue_owner (lease_owner)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '预测任务持久化队列';
@@ -0,0 +1,38 @@
+-- ============================================
+-- 地区逐月气象汇总表创建脚本
+-- 版本: V6
+-- 创建日期: 2026-10-17
+-- 说明: 按 区域 × 年 × 月 预先汇总逐日气象记录，气象回归预测直接读取汇总行而不再扫描逐日数据
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS weather_monthly_aggregate (
+    id BIGINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+    region_id BIGINT UNSIGNED NOT NULL,
+    year INT NOT NULL,
+    month TINYINT NOT NULL,
+    sum_max_temperature DOUBLE,
+    count_max_temperature INT NOT NULL DEFAULT 0,
+    sum_min_temperature DOUBLE,
+    count_min_temperature INT NOT NULL DEFAULT 0,
+    sum_diurnal_range DOUBLE,
+    count_diurnal_range INT NOT NULL DEFAULT 0,
+    sum_sunshine_hours DOUBLE,
+    count_sunshine_hours INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uq_weather_monthly_region_month (region_id, year, month),
+    CONSTRAINT fk_weather_monthly_region FOREIGN KEY (region_id) REFERENCES base_region (id) ON DELETE CASCADE
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '地区逐月气象汇总（气象回归特征预计算）';
+
+-- 回填已有的逐日气象记录（应用启动时若汇总表为空也会自动回填）
+INSERT INTO weather_monthly_aggregate (region_id, year, month,
+                                       sum_max_temperature, count_max_temperature,
+                                       sum_min_temperature, count_min_temperature,
+                                       sum_diurnal_range, count_diurnal_range,
+                                       sum_sunshine_hours, count_sunshine_hours)
+SELECT region_id, YEAR(record_date), MONTH(record_date),
+       SUM(max_temperature), COUNT(max_temperature),
+       SUM(min_temperature), COUNT(min_temperature),
+       SUM(max_temperature - min_temperature), COUNT(max_temperature - min_temperature),
+       SUM(sunshine_hours), COUNT(sunshine_hours)
+FROM dataset_weather_record
+GROUP BY region_id, YEAR(record_date), MONTH(record_date);
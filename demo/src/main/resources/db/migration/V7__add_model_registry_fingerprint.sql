@@ -0,0 +1,10 @@
+-- ============================================
+-- 模型仓库制品指纹字段迁移脚本
+-- 版本: V7
+-- 创建日期: 2026-10-17
+-- 说明: 模型仓库登记已拟合模型的二进制制品，按训练请求指纹查找最新制品，预测时免于重新训练
+-- ============================================
+
+ALTER TABLE model_registry
+    ADD COLUMN fingerprint VARCHAR(64) NULL AFTER metrics_json,
+    ADD KEY idx_model_registry_fingerprint (fingerprint);
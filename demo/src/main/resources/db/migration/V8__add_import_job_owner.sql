@@ -0,0 +1,11 @@
+-- ============================================
+-- 导入任务归属节点字段迁移脚本
+-- 版本: V8
+-- 创建日期: 2026-10-18
+-- 说明: 上传文件保存在提交节点的本地磁盘，任务记录归属节点及其心跳，只有归属节点或接管下线节点的实例才会执行排队任务
+-- ============================================
+
+ALTER TABLE data_import_job
+    ADD COLUMN owner_node VARCHAR(128) NULL AFTER storage_path,
+    ADD COLUMN owner_heartbeat_at DATETIME NULL AFTER owner_node,
+    ADD KEY idx_import_owner_status (owner_node, status);
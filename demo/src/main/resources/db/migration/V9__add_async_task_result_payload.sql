@@ -0,0 +1,9 @@
+-- ============================================
+-- 异步预测任务结果字段迁移脚本
+-- 版本: V9
+-- 创建日期: 2026-10-18
+-- 说明: 批量预测改为异步任务执行，任务结束时把各组合的结果以 JSON 保存在任务记录中，供结果查询接口读取
+-- ============================================
+
+ALTER TABLE async_forecast_task
+    ADD COLUMN result_payload MEDIUMTEXT NULL COMMENT '批量预测结果(JSON)' AFTER error_message;
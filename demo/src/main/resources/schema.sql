@@ -65,6 +65,8 @@ CREATE TABLE IF NOT EXISTS data_import_job (
     status VARCHAR(32) NOT NULL,
     original_filename VARCHAR(256),
     storage_path VARCHAR(512),
+    owner_node VARCHAR(128),
+    owner_heartbeat_at DATETIME,
     total_rows INT,
     processed_rows INT,
     inserted_rows INT,
@@ -82,9 +84,25 @@ CREATE TABLE IF NOT EXISTS data_import_job (
     UNIQUE KEY uq_import_task (task_id),
     KEY idx_import_status (status),
     KEY idx_import_dataset_file (dataset_file_id),
+    KEY idx_import_owner_status (owner_node, status),
     CONSTRAINT fk_import_dataset_file FOREIGN KEY (dataset_file_id) REFERENCES dataset_file (id) ON DELETE SET NULL
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '数据导入任务记录';
 
+SET @ddl := (
+    SELECT IF(
+        COUNT(*) = 0,
+        'ALTER TABLE data_import_job ADD COLUMN owner_node VARCHAR(128) NULL AFTER storage_path, ADD COLUMN owner_heartbeat_at DATETIME NULL AFTER owner_node, ADD KEY idx_import_owner_status (owner_node, status)',
+        'SELECT 1'
+    )
+    FROM information_schema.columns
+    WHERE table_schema = @current_schema
+      AND table_name = 'data_import_job'
+      AND column_name = 'owner_node'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
 CREATE TABLE IF NOT EXISTS data_import_job_error (
     id BIGINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
     job_id BIGINT UNSIGNED NOT NULL,
@@ -140,6 +158,24 @@ CREATE TABLE IF NOT EXISTS dataset_weather_record (
     CONSTRAINT fk_weather_region FOREIGN KEY (region_id) REFERENCES base_region (id) ON DELETE CASCADE
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '地区逐日气象记录';
 
+CREATE TABLE IF NOT EXISTS weather_monthly_aggregate (
+    id BIGINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+    region_id BIGINT UNSIGNED NOT NULL,
+    year INT NOT NULL,
+    month TINYINT NOT NULL,
+    sum_max_temperature DOUBLE,
+    count_max_temperature INT NOT NULL DEFAULT 0,
+    sum_min_temperature DOUBLE,
+    count_min_temperature INT NOT NULL DEFAULT 0,
+    sum_diurnal_range DOUBLE,
+    count_diurnal_range INT NOT NULL DEFAULT 0,
+    sum_sunshine_hours DOUBLE,
+    count_sunshine_hours INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uq_weather_monthly_region_month (region_id, year, month),
+    CONSTRAINT fk_weather_monthly_region FOREIGN KEY (region_id) REFERENCES base_region (id) ON DELETE CASCADE
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '地区逐月气象汇总（气象回归特征预计算）';
+
 CREATE TABLE IF NOT EXISTS forecast_model (
     id BIGINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(128) NOT NULL,
@@ -172,11 +208,46 @@ CREATE TABLE IF NOT EXISTS model_registry (
     model_type VARCHAR(32) NOT NULL,
     storage_uri VARCHAR(255) NOT NULL,
     metrics_json VARCHAR(1024),
+    fingerprint VARCHAR(64),
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    KEY idx_model_registry_type (model_type)
+    KEY idx_model_registry_type (model_type),
+    UNIQUE KEY uq_model_registry_fingerprint (fingerprint)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '预测模型产出与元数据登记';
 
+SET @ddl := (
+    SELECT IF(
+        COUNT(*) = 0,
+        'ALTER TABLE model_registry ADD COLUMN fingerprint VARCHAR(64) NULL AFTER metrics_json, ADD UNIQUE KEY uq_model_registry_fingerprint (fingerprint)',
+        'SELECT 1'
+    )
+    FROM information_schema.columns
+    WHERE table_schema = @current_schema
+      AND table_name = 'model_registry'
+      AND column_name = 'fingerprint'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+DELETE older FROM model_registry older
+    JOIN model_registry newer ON newer.fingerprint = older.fingerprint AND newer.id > older.id;
+
+SET @ddl := (
+    SELECT IF(
+        COUNT(*) = 0,
+        'ALTER TABLE model_registry DROP KEY idx_model_registry_fingerprint, ADD UNIQUE KEY uq_model_registry_fingerprint (fingerprint)',
+        'SELECT 1'
+    )
+    FROM information_schema.statistics
+    WHERE table_schema = @current_schema
+      AND table_name = 'model_registry'
+      AND index_name = 'uq_model_registry_fingerprint'
+);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
 CREATE TABLE IF NOT EXISTS forecast_task (
     id BIGINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
     model_id BIGINT UNSIGNED NOT NULL,
@@ -195,6 +266,25 @@ CREATE TABLE IF NOT EXISTS forecast_task (
     CONSTRAINT fk_task_region FOREIGN KEY (region_id) REFERENCES base_region (id) ON DELETE CASCADE
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '预测任务配置';
 
+CREATE TABLE IF NOT EXISTS forecast_task_queue (
+    id BIGINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+    region_id BIGINT UNSIGNED NOT NULL,
+    crop_id BIGINT UNSIGNED NOT NULL,
+    model_id BIGINT UNSIGNED NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    available_at DATETIME(3) NOT NULL,
+    lease_owner VARCHAR(128),
+    lease_expires_at DATETIME(3),
+    last_error VARCHAR(512),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    KEY idx_task_queue_claim (status, available_at),
+    KEY idx_task_queue_lease (status, lease_expires_at),
+    KEY idx_task_queue_owner (lease_owner)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '预测任务持久化队列';
+
 CREATE TABLE IF NOT EXISTS forecast_run (
     id BIGINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
     model_id BIGINT UNSIGNED NOT NULL,
@@ -0,0 +1,79 @@
+package com.gxj.cropyield.common.admission;
+
+import com.gxj.cropyield.common.config.AdmissionProperties;
+import com.gxj.cropyield.common.exception.BusinessException;
+import com.gxj.cropyield.common.response.ResultCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * 计算任务准入控制单元测试
+ */
+@DisplayName("计算任务准入控制测试")
+class AdmissionControllerTest {
+
+    @Test
+    @DisplayName("预算耗尽时等待超时后以 429 拒绝，归还后可再次申请")
+    void testAcquire_whenBudgetExhausted_shouldRejectWithTooManyRequests() {
+        // Given: 预算为 4、最长等待 50ms 的准入控制，LSTM 任务已占满预算
+        AdmissionController controller = new AdmissionController(properties(4, Duration.ofMillis(50)));
+        AdmissionController.Permit lstm = controller.acquire(AdmissionController.Workload.FORECAST, 4);
+
+        // When: 再申请 1 个单位
+        Throwable rejected = catchThrowable(() -> controller.acquire(AdmissionController.Workload.IMPORT, 1));
+
+        // Then: 被拒绝，错误码为 429
+        assertThat(rejected).isInstanceOf(BusinessException.class).hasMessageContaining("请稍后重试");
+        assertThat(((BusinessException) rejected).getCode()).isEqualTo(ResultCode.TOO_MANY_REQUESTS);
+
+        // When / Then: 重复关闭只归还一次预算，之后可以再次申请，超过总预算的代价按总预算计
+        lstm.close();
+        lstm.close();
+        assertThat(controller.availableUnits()).isEqualTo(4);
+        try (AdmissionController.Permit permit = controller.acquire(AdmissionController.Workload.FORECAST, 10)) {
+            assertThat(permit.units()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    @DisplayName("排队中的任务在预算归还后获得许可，排队期间可被取消")
+    void testAcquire_shouldQueueUntilReleasedAndHonourCheckpoint() throws Exception {
+        // Given: 预算为 2、最长等待 5 秒，已占满预算
+        AdmissionController controller = new AdmissionController(properties(2, Duration.ofSeconds(5)));
+        AdmissionController.Permit holder = controller.acquire(AdmissionController.Workload.FORECAST, 2);
+
+        // When: 另一个线程排队申请，随后归还预算
+        CompletableFuture<Integer> waiting = CompletableFuture.supplyAsync(() -> {
+            try (AdmissionController.Permit permit = controller.acquire(AdmissionController.Workload.FORECAST, 1)) {
+                return permit.units();
+            }
+        });
+        Thread.sleep(100);
+        assertThat(waiting.isDone()).isFalse();
+        holder.close();
+
+        // Then: 排队的任务获得许可；检查点抛出异常时立即放弃等待
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        AdmissionController.Permit full = controller.acquire(AdmissionController.Workload.FORECAST, 2);
+        assertThatThrownBy(() -> controller.acquire(AdmissionController.Workload.FORECAST, 1, () -> {
+            throw new IllegalStateException("已取消");
+        })).isInstanceOf(IllegalStateException.class);
+        full.close();
+    }
+
+    private AdmissionProperties properties(int capacity, Duration maxWait) {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setCapacity(capacity);
+        properties.setRequestMaxWait(maxWait);
+        properties.setBackgroundMaxWait(maxWait);
+        return properties;
+    }
+}
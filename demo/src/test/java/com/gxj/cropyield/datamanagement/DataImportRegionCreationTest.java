@@ -0,0 +1,174 @@
+package com.gxj.cropyield.datamanagement;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gxj.cropyield.common.admission.AdmissionController;
+import com.gxj.cropyield.common.config.AdmissionProperties;
+import com.gxj.cropyield.datamanagement.config.DataImportProperties;
+import com.gxj.cropyield.datamanagement.repository.DataImportJobRepository;
+import com.gxj.cropyield.modules.base.entity.Region;
+import com.gxj.cropyield.modules.base.repository.CropRepository;
+import com.gxj.cropyield.modules.base.repository.RegionRepository;
+import com.gxj.cropyield.modules.dataset.repository.DatasetFileRepository;
+import com.gxj.cropyield.modules.forecast.engine.ForecastModelCache;
+import com.gxj.cropyield.modules.forecast.service.impl.WeatherFeatureStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 导入时自动新建地区单元测试：地区仓库与 JdbcTemplate 均为模拟对象，记录批量插入的地区
+ */
+@DisplayName("导入自动新建地区测试")
+class DataImportRegionCreationTest {
+
+    private RegionRepository regionRepository;
+    private JdbcTemplate jdbcTemplate;
+    private DataImportService service;
+    private final List<Region> inserted = new ArrayList<>();
+    private int batchUpdates;
+
+    @BeforeEach
+    void setUp() {
+        regionRepository = Mockito.mock(RegionRepository.class);
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(regionRepository.findAll()).thenReturn(List.of(region("CHAOYANG", "朝阳区")));
+        Mockito.when(regionRepository.findByNameIn(ArgumentMatchers.any())).thenReturn(List.of());
+        Mockito.when(regionRepository.findByCodeIn(ArgumentMatchers.any())).thenAnswer(invocation -> List.copyOf(inserted));
+        Mockito.when(jdbcTemplate.batchUpdate(ArgumentMatchers.anyString(),
+                ArgumentMatchers.<Collection<Region>>any(), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<Region>>any()))
+            .thenAnswer(invocation -> {
+                batchUpdates++;
+                inserted.addAll(invocation.getArgument(1));
+                return new int[0][];
+            });
+        service = new DataImportService(
+                Mockito.mock(CropRepository.class),
+                regionRepository,
+                Mockito.mock(DatasetFileRepository.class),
+                Mockito.mock(DataImportJobRepository.class),
+                jdbcTemplate,
+                new ObjectMapper(),
+                new ForecastModelCache(),
+                Mockito.mock(WeatherFeatureStore.class),
+                new AdmissionController(new AdmissionProperties()),
+                new AdmissionProperties(),
+                new DataImportProperties(),
+                Runnable::run,
+                Runnable::run,
+                Mockito.mock(PlatformTransactionManager.class)
+        );
+    }
+
+    @Test
+    @DisplayName("同一批次中仅后缀不同或重复出现的地区只新建一次，上级地区先于下级创建")
+    void testAddMissingRegions_shouldDeduplicateSuffixVariantsAndCreateParentFirst() throws Exception {
+        // Given: 基础库已有“朝阳区”；批次中下级“海淀”排在上级“北京市”之前，且“海淀区”“北京”“海淀”重复出现
+        mockExistingCodes();
+        Object index = dimensionIndex();
+        List<Object> specs = List.of(
+                spec(2, "海淀", "COUNTY", "北京市"),
+                spec(3, "北京市", "PROVINCE", null),
+                spec(4, "海淀区", "COUNTY", "北京市"),
+                spec(5, "朝阳", "COUNTY", "北京市"),
+                spec(6, "北京", "PROVINCE", null),
+                spec(7, "海淀", "COUNTY", "北京"));
+        List<String> warnings = new ArrayList<>();
+
+        // When: 补齐缺失的地区
+        addMissingRegions(index, specs, warnings);
+
+        // Then: 一次批量插入只写入“北京市”与“海淀”，上级在前，下级引用本批为上级分配的编码
+        assertThat(batchUpdates).isEqualTo(1);
+        assertThat(inserted).extracting(Region::getName).containsExactly("北京市", "海淀");
+        Region beijing = inserted.get(0);
+        Region haidian = inserted.get(1);
+        assertThat(beijing.getParentCode()).isNull();
+        assertThat(haidian.getParentCode()).isEqualTo(beijing.getCode());
+        assertThat(haidian.getCode()).isEqualTo(beijing.getCode() + "-" + slug("海淀"));
+        assertThat(warnings).hasSize(2);
+
+        // Then: 各后缀变体都解析到新建的地区，已有的“朝阳区”未被重复创建
+        assertThat(region(index, "海淀区")).isSameAs(haidian);
+        assertThat(region(index, "北京")).isSameAs(beijing);
+        assertThat(region(index, "朝阳").getCode()).isEqualTo("CHAOYANG");
+    }
+
+    @Test
+    @DisplayName("编码与基础库中已有编码冲突时追加序号")
+    void testAddMissingRegions_shouldAllocateCodeAroundCollisions() throws Exception {
+        // Given: 基础库中已存在“北京市”按名称生成的编码及其第一个序号
+        mockExistingCodes(slug("北京市"), slug("北京市") + "-1");
+        Object index = dimensionIndex();
+
+        // When: 同一批次新建“北京市”及其下级“海淀区”
+        addMissingRegions(index, List.of(
+                spec(2, "北京市", "PROVINCE", null),
+                spec(3, "海淀区", "COUNTY", "北京市")), new ArrayList<>());
+
+        // Then: 上级编码跳过已占用的编码取第 2 个序号，下级以该编码为前缀
+        assertThat(inserted).extracting(Region::getCode)
+            .containsExactly(slug("北京市") + "-2", slug("北京市") + "-2-" + slug("海淀区"));
+    }
+
+    private void mockExistingCodes(String... codes) {
+        List<String> existing = new ArrayList<>(List.of("CHAOYANG"));
+        existing.addAll(List.of(codes));
+        Mockito.when(jdbcTemplate.queryForList("SELECT code FROM base_region", String.class)).thenReturn(existing);
+    }
+
+    /**
+     * 中文名称没有字母数字时，编码取名称哈希值的十六进制大写形式
+     */
+    private String slug(String name) {
+        return Integer.toHexString(name.hashCode()).toUpperCase(Locale.ROOT);
+    }
+
+    private Region region(String code, String name) {
+        Region region = new Region();
+        region.setCode(code);
+        region.setName(name);
+        return region;
+    }
+
+    private Object dimensionIndex() throws Exception {
+        Class<?> type = Class.forName(DataImportService.class.getName() + "$DimensionIndex");
+        Constructor<?> constructor = type.getDeclaredConstructor(DataImportService.class, boolean.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(service, false);
+    }
+
+    private Object spec(int rowNumber, String name, String level, String parentName) throws Exception {
+        Class<?> type = Class.forName(DataImportService.class.getName() + "$RegionSpec");
+        Constructor<?> constructor = type.getDeclaredConstructor(
+                int.class, String.class, String.class, String.class, String.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(rowNumber, name, level, parentName, null);
+    }
+
+    private void addMissingRegions(Object index, List<Object> specs, List<String> warnings) throws Exception {
+        Method method = index.getClass().getDeclaredMethod("addMissingRegions", List.class, List.class);
+        method.setAccessible(true);
+        method.invoke(index, specs, warnings);
+    }
+
+    private Region region(Object index, String name) throws Exception {
+        Method method = index.getClass().getDeclaredMethod("region", String.class);
+        method.setAccessible(true);
+        return (Region) method.invoke(index, name);
+    }
+}
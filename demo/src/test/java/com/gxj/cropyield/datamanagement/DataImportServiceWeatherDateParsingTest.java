@@ -1,21 +1,29 @@
 package com.gxj.cropyield.datamanagement;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gxj.cropyield.common.admission.AdmissionController;
+import com.gxj.cropyield.common.config.AdmissionProperties;
+import com.gxj.cropyield.datamanagement.config.DataImportProperties;
 import com.gxj.cropyield.modules.base.repository.CropRepository;
 import com.gxj.cropyield.modules.base.repository.RegionRepository;
 import com.gxj.cropyield.modules.dataset.repository.DatasetFileRepository;
 import com.gxj.cropyield.datamanagement.repository.DataImportJobRepository;
+import com.gxj.cropyield.modules.forecast.engine.ForecastModelCache;
+import com.gxj.cropyield.modules.forecast.service.impl.WeatherFeatureStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -31,16 +39,25 @@ class DataImportServiceWeatherDateParsingTest {
                 Mockito.mock(DatasetFileRepository.class),
                 Mockito.mock(DataImportJobRepository.class),
                 Mockito.mock(JdbcTemplate.class),
-                new ObjectMapper()
+                new ObjectMapper(),
+                new ForecastModelCache(),
+                Mockito.mock(WeatherFeatureStore.class),
+                new AdmissionController(new AdmissionProperties()),
+                new AdmissionProperties(),
+                new DataImportProperties(),
+                Runnable::run,
+                Runnable::run,
+                Mockito.mock(PlatformTransactionManager.class)
         );
     }
 
     @SuppressWarnings("unchecked")
     @Test
     void parsesIsoDateFromSampleCsv() throws Exception {
-        Method parseCsv = DataImportService.class.getDeclaredMethod("parseCsv", Path.class);
+        Method parseCsv = DataImportService.class.getDeclaredMethod("parseCsv", Path.class, Consumer.class);
         parseCsv.setAccessible(true);
-        List<?> records = (List<?>) parseCsv.invoke(service, resolveSampleCsv());
+        List<Object> records = new ArrayList<>();
+        parseCsv.invoke(service, resolveSampleCsv(), (Consumer<Object>) records::add);
         assertThat(records).isNotEmpty();
         Object first = records.get(0);
         Method valuesAccessor = first.getClass().getDeclaredMethod("values");
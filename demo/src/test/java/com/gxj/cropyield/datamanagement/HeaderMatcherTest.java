@@ -0,0 +1,87 @@
+package com.gxj.cropyield.datamanagement;
+
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 导入列名匹配器单元测试
+ */
+@DisplayName("导入列名匹配器测试")
+class HeaderMatcherTest {
+
+    private static final Map<String, List<String>> SYNONYMS = new LinkedHashMap<>();
+
+    static {
+        SYNONYMS.put("regionName", List.of("region", "regionname", "地区", "区域", "州", "市"));
+        SYNONYMS.put("production", List.of("production", "产量", "总产量"));
+        SYNONYMS.put("yieldPerHectare", List.of("yield", "yieldperhectare", "单产", "产量面积"));
+        SYNONYMS.put("maxTemperature", List.of("maxtemperature", "maxtemp", "最高温", "最高气温"));
+        SYNONYMS.put("sunshineHours", List.of("sunshine", "sunshinehours", "日照时长"));
+    }
+
+    @Test
+    @DisplayName("精确、包含与相似度三级匹配的结果与逐个扫描别名一致")
+    void testMatch_shouldAgreeWithSequentialScan() {
+        // Given: 预编译的匹配器与覆盖各匹配级别的表头
+        HeaderMatcher matcher = new HeaderMatcher(SYNONYMS, 100);
+        List<String> headers = List.of("产量", "总产量万吨", "产", "平均单产", "所属州市", "地区名称",
+                "maxtempreature", "sunshinhours", "最高", "yieldperhectar", "完全无关", "region", "量面");
+
+        // When / Then: 每个表头的结果与按别名顺序逐个扫描的实现相同，重复匹配命中缓存后结果不变
+        for (String header : headers) {
+            String expected = sequentialScan(header);
+            assertThat(matcher.match(header)).as(header).isEqualTo(expected);
+            assertThat(matcher.match(header)).as(header).isEqualTo(expected);
+        }
+        assertThat(matcher.match("总产量万吨")).isEqualTo("production");
+        assertThat(matcher.match("量面")).isEqualTo("yieldPerHectare");
+        assertThat(matcher.match("maxtempreature")).isEqualTo("maxTemperature");
+    }
+
+    @Test
+    @DisplayName("包含多个别名时取序号靠前的字段，空表头不匹配任何字段")
+    void testMatch_shouldPreferEarlierAliasAndIgnoreBlank() {
+        // Given: 同时包含“市”（地区）与“产量”（产量）的表头
+        HeaderMatcher matcher = new HeaderMatcher(SYNONYMS, 100);
+
+        // When / Then: 地区字段排在前面，优先命中；空表头返回 null
+        assertThat(matcher.match("市产量")).isEqualTo("regionName");
+        assertThat(matcher.match("")).isNull();
+        assertThat(matcher.match(null)).isNull();
+    }
+
+    private String sequentialScan(String normalized) {
+        for (Map.Entry<String, List<String>> entry : SYNONYMS.entrySet()) {
+            if (entry.getValue().contains(normalized)) {
+                return entry.getKey();
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : SYNONYMS.entrySet()) {
+            for (String alias : entry.getValue()) {
+                if (normalized.contains(alias) || alias.contains(normalized)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        JaroWinklerSimilarity similarity = new JaroWinklerSimilarity();
+        double bestScore = 0;
+        String bestKey = null;
+        for (Map.Entry<String, List<String>> entry : SYNONYMS.entrySet()) {
+            for (String alias : entry.getValue()) {
+                double score = similarity.apply(normalized, alias);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestKey = entry.getKey();
+                }
+            }
+        }
+        return bestScore >= HeaderMatcher.SIMILARITY_THRESHOLD ? bestKey : null;
+    }
+}
@@ -0,0 +1,103 @@
+package com.gxj.cropyield.datamanagement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 数据导入分阶段流水线单元测试
+ */
+@DisplayName("数据导入分阶段流水线测试")
+class ImportPipelineTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("各阶段并发执行，批次按数据源发出的顺序到达写入阶段")
+    void testRunInto_shouldPreserveOrderAcrossStages() throws Exception {
+        // Given: 发出 200 个批次的数据源，经过两个中间阶段，阶段间队列容量为 2
+        List<String> written = new ArrayList<>();
+
+        // When: 在调用线程上执行写入阶段
+        ImportPipeline.<Integer>from(emitter -> IntStream.range(0, 200).forEach(emitter::accept))
+                .then("加倍", value -> value * 2)
+                .then("格式化", value -> "#" + value)
+                .runInto(written::add, executor, 2);
+
+        // Then: 所有批次按顺序处理完毕
+        assertThat(written).hasSize(200);
+        assertThat(written.get(0)).isEqualTo("#0");
+        assertThat(written.get(199)).isEqualTo("#398");
+    }
+
+    @Test
+    @DisplayName("并行阶段中先提交的批次处理更慢时，输出仍保持数据源顺序")
+    void testThenParallel_shouldEmitInSourceOrder() throws Exception {
+        // Given: 4 个工作线程的 ForkJoin 池，偶数批次处理耗时更长
+        ForkJoinPool workers = new ForkJoinPool(4);
+        List<Integer> written = new ArrayList<>();
+        Set<String> workerThreads = ConcurrentHashMap.newKeySet();
+
+        try {
+            // When: 50 个批次经过最多 4 个批次同时处理的并行阶段
+            ImportPipeline.<Integer>from(emitter -> IntStream.range(0, 50).forEach(emitter::accept))
+                    .thenParallel("校验", value -> {
+                        workerThreads.add(Thread.currentThread().getName());
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(value % 2 == 0 ? 5 : 1));
+                        return value;
+                    }, workers, 4)
+                    .runInto(written::add, executor, 2);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        // Then: 顺序与数据源一致，且确实由多个工作线程处理
+        assertThat(written).containsExactlyElementsOf(IntStream.range(0, 50).boxed().toList());
+        assertThat(workerThreads.size()).isGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("中间阶段失败时抛出其异常，数据源因队列有界而提前停止")
+    void testRunInto_whenStageFails_shouldPropagateAndStopSource() {
+        // Given: 可发出 100000 个批次的数据源，中间阶段处理第 5 个批次时失败
+        AtomicInteger emitted = new AtomicInteger();
+        ImportPipeline<Integer> pipeline = ImportPipeline.<Integer>from(emitter -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        emitter.accept(i);
+                        emitted.incrementAndGet();
+                    }
+                })
+                .then("校验", value -> {
+                    if (value == 5) {
+                        throw new IllegalStateException("第5批校验失败");
+                    }
+                    return value;
+                });
+
+        // When / Then: 异常原样抛出，数据源只发出了少量批次
+        assertThatThrownBy(() -> pipeline.runInto(value -> { }, executor, 2))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("第5批校验失败");
+        assertThat(emitted.get()).isLessThan(100_000);
+    }
+}
@@ -0,0 +1,202 @@
+package com.gxj.cropyield.datamanagement;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gxj.cropyield.common.admission.AdmissionController;
+import com.gxj.cropyield.common.config.AdmissionProperties;
+import com.gxj.cropyield.datamanagement.config.DataImportProperties;
+import com.gxj.cropyield.datamanagement.repository.DataImportJobRepository;
+import com.gxj.cropyield.modules.base.repository.CropRepository;
+import com.gxj.cropyield.modules.base.repository.RegionRepository;
+import com.gxj.cropyield.modules.dataset.repository.DatasetFileRepository;
+import com.gxj.cropyield.modules.forecast.engine.ForecastModelCache;
+import com.gxj.cropyield.modules.forecast.service.impl.WeatherFeatureStore;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * XLSX 流式读取单元测试：用 XSSFWorkbook 写出文件后分别以流式与 Workbook 方式读回
+ */
+@DisplayName("XLSX 流式读取测试")
+class XlsxStreamingReaderTest {
+
+    private static final List<String> HEADERS = List.of("地区", "作物", "年份", "播种面积", "产量", "单产", "采集日期");
+
+    @TempDir
+    Path tempDir;
+
+    private DataImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DataImportService(
+                Mockito.mock(CropRepository.class),
+                Mockito.mock(RegionRepository.class),
+                Mockito.mock(DatasetFileRepository.class),
+                Mockito.mock(DataImportJobRepository.class),
+                Mockito.mock(JdbcTemplate.class),
+                new ObjectMapper(),
+                new ForecastModelCache(),
+                Mockito.mock(WeatherFeatureStore.class),
+                new AdmissionController(new AdmissionProperties()),
+                new AdmissionProperties(),
+                new DataImportProperties(),
+                Runnable::run,
+                Runnable::run,
+                Mockito.mock(PlatformTransactionManager.class)
+        );
+    }
+
+    @Test
+    @DisplayName("日期、大数与科学计数法、公式缓存值与缺失列按原始值读出，空行不丢失行号")
+    void testRead_shouldReturnPlainCellValues() throws Exception {
+        // Given: 含各类单元格、列缺口与空行的工作簿
+        Path file = writeWorkbook();
+
+        // When: 流式读取全部行
+        Map<Integer, List<String>> rows = new LinkedHashMap<>();
+        XlsxStreamingReader.read(file, (rowNumber, cells) -> {
+            if (cells.stream().anyMatch(Objects::nonNull)) {
+                rows.put(rowNumber, cells);
+            }
+        });
+
+        // Then: 行号从 1 开始并跳过未写出的第 4、5 行，缺失的单元格为 null
+        assertThat(rows.keySet()).containsExactly(1, 2, 3, 6, 7);
+        assertThat(rows.get(1)).containsExactlyElementsOf(HEADERS);
+        assertThat(rows.get(2)).containsExactly(
+                "北京", "小麦", "2020.0", "12345678901234", "0.00000015", "6.5", "2021-03-15");
+        assertThat(rows.get(3)).containsExactly(
+                "天津", "玉米", "2021.0", null, "250.0", "125.0", "2020-01-02");
+        assertThat(rows.get(6)).containsExactly("河北", null, "2022.0", "100000000000000000000");
+        assertThat(rows.get(7)).containsExactly("", "");
+    }
+
+    @Test
+    @DisplayName("流式读取与 Workbook 读取得到相同的行号与字段值")
+    void testParseXlsx_shouldMatchParseExcel() throws Exception {
+        // Given: 同一个工作簿文件
+        Path file = writeWorkbook();
+
+        // When: 分别按流式与 Workbook 方式解析
+        List<Object> streamed = parse("parseXlsx", file);
+        List<Object> loaded = parse("parseExcel", file);
+
+        // Then: 空行与全空白行均被跳过，行号与 Excel 中一致，字段值逐行相同
+        assertThat(rowNumbers(streamed)).containsExactly(2, 3, 6);
+        assertThat(rowNumbers(loaded)).containsExactlyElementsOf(rowNumbers(streamed));
+        for (int i = 0; i < streamed.size(); i++) {
+            assertThat(values(streamed.get(i))).isEqualTo(values(loaded.get(i)));
+        }
+        Map<String, String> first = values(streamed.get(0));
+        assertThat(first.get("sownArea")).isEqualTo("12345678901234");
+        assertThat(first.get("yieldPerHectare")).isEqualTo("6.5");
+        assertThat(first.get("collectedAt")).isEqualTo("2021-03-15");
+        assertThat(values(streamed.get(1)).get("sownArea")).isNull();
+    }
+
+    /**
+     * 第 1 行表头；第 2、3 行为完整数据，第 3 行缺少第 4 列；第 4 行为没有单元格的空行，第 5 行未创建；
+     * 第 6 行缺少第 2 列且只写到第 4 列；第 7 行只有空字符串
+     */
+    private Path writeWorkbook() throws Exception {
+        Path file = tempDir.resolve("import.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream output = Files.newOutputStream(file)) {
+            CellStyle isoDate = workbook.createCellStyle();
+            isoDate.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+            CellStyle builtinDate = workbook.createCellStyle();
+            builtinDate.setDataFormat((short) 14);
+
+            Sheet sheet = workbook.createSheet("产量");
+            Row header = sheet.createRow(0);
+            for (int column = 0; column < HEADERS.size(); column++) {
+                header.createCell(column).setCellValue(HEADERS.get(column));
+            }
+
+            Row beijing = sheet.createRow(1);
+            beijing.createCell(0).setCellValue("北京");
+            beijing.createCell(1).setCellValue("小麦");
+            beijing.createCell(2).setCellValue(2020);
+            beijing.createCell(3).setCellValue(12345678901234d);
+            beijing.createCell(4).setCellValue(1.5e-7);
+            beijing.createCell(5).setCellFormula("2*3.25");
+            beijing.createCell(6).setCellValue(LocalDate.of(2021, 3, 15));
+            beijing.getCell(6).setCellStyle(isoDate);
+
+            Row tianjin = sheet.createRow(2);
+            tianjin.createCell(0).setCellValue("天津");
+            tianjin.createCell(1).setCellValue("玉米");
+            tianjin.createCell(2).setCellValue(2021);
+            tianjin.createCell(4).setCellValue(250);
+            tianjin.createCell(5).setCellFormula("E3/2");
+            tianjin.createCell(6).setCellValue(LocalDate.of(2020, 1, 2));
+            tianjin.getCell(6).setCellStyle(builtinDate);
+
+            sheet.createRow(3);
+
+            Row hebei = sheet.createRow(5);
+            hebei.createCell(0).setCellValue("河北");
+            hebei.createCell(2).setCellValue(2022);
+            hebei.createCell(3).setCellValue(1e20);
+
+            Row blank = sheet.createRow(6);
+            blank.createCell(0).setCellValue("");
+            blank.createCell(1).setCellValue("");
+
+            // 写出公式的缓存结果，流式读取只读取缓存值
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            workbook.write(output);
+        }
+        return file;
+    }
+
+    private List<Object> parse(String methodName, Path file) throws Exception {
+        Method method = DataImportService.class.getDeclaredMethod(methodName, Path.class, Consumer.class);
+        method.setAccessible(true);
+        List<Object> records = new ArrayList<>();
+        method.invoke(service, file, (Consumer<Object>) records::add);
+        return records;
+    }
+
+    private List<Integer> rowNumbers(List<Object> records) throws Exception {
+        Integer[] numbers = new Integer[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            numbers[i] = (Integer) accessor(records.get(i), "rowNumber");
+        }
+        return Arrays.asList(numbers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> values(Object record) throws Exception {
+        return (Map<String, String>) accessor(record, "values");
+    }
+
+    private Object accessor(Object record, String name) throws Exception {
+        Method method = record.getClass().getDeclaredMethod(name);
+        method.setAccessible(true);
+        return method.invoke(record);
+    }
+}
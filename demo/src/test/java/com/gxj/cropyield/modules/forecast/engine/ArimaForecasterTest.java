@@ -13,6 +13,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * ARIMA预测器单元测试
@@ -259,4 +260,35 @@ class ArimaForecasterTest {
         assertThat(result2).isPresent();
         assertThat(result1.get()).isEqualTo(result2.get());
     }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1, 1",
+        "2, 0, 1",
+        "0, 2, 2",
+        "3, 1, 3"
+    })
+    @DisplayName("增量滚动回测应与逐前缀重新拟合结果一致")
+    void testWalkForwardOneStep_shouldMatchRefitPerPrefix(int p, int d, int q) {
+        // Given: 带趋势和波动的历史数据
+        List<Double> history = Arrays.asList(
+            100.0, 105.0, 110.0, 108.0, 115.0, 120.0, 118.0, 125.0, 130.0, 128.0,
+            135.0, 140.0, 138.0, 145.0, 150.0, 148.0, 155.0, 160.0, 158.0, 165.0
+        );
+        Map<String, Object> params = Map.of("p", p, "d", d, "q", q);
+
+        // When: 一次性执行增量回测
+        double[] walkForward = forecaster.walkForwardOneStep(history, 1, params);
+
+        // Then: 每个前缀的单步预测应与重新拟合一致
+        assertThat(walkForward).hasSize(history.size());
+        for (int i = 1; i < history.size(); i++) {
+            Optional<List<Double>> refit = forecaster.forecast(history.subList(0, i), 1, params);
+            if (refit.isPresent()) {
+                assertThat(walkForward[i]).isCloseTo(refit.get().get(0), within(1e-6));
+            } else {
+                assertThat(walkForward[i]).isNaN();
+            }
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.gxj.cropyield.modules.forecast.engine;
 
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -381,4 +382,48 @@ class Dl4jLstmForecasterTest {
             "预测值应在合理范围内"
         );
     }
+
+    @Test
+    @DisplayName("从上一折网络热启动应返回有效预测")
+    void testForecast_withWarmStart_shouldReuseNetwork() {
+        // Given: 先在较短前缀上训练得到的网络
+        DoubleSeries history = DoubleSeries.wrap(new double[] {
+            100.0, 105.0, 110.0, 108.0, 115.0,
+            120.0, 118.0, 125.0, 130.0, 128.0
+        });
+        Map<String, Object> params = Map.of("learningRate", 0.01, "seed", 42, "warmStartEpochs", 2);
+        Optional<Dl4jLstmForecaster.FittedForecast> fold = forecaster.forecast(history.prefix(8), 1, params, null);
+        assertThat(fold).isPresent();
+        assertThat(fold.get().warmStart()).isNotNull();
+
+        // When: 以该网络热启动在完整数据上预测
+        Optional<Dl4jLstmForecaster.FittedForecast> result = forecaster.forecast(history, 3, params, fold.get().warmStart());
+
+        // Then: 应返回有效预测，且不修改原网络
+        assertThat(result).isPresent();
+        assertThat(result.get().values()).hasSize(3);
+        assertThat(Arrays.stream(result.get().values())).allMatch(Double::isFinite, "所有预测值应为有限数");
+        assertThat(result.get().warmStart().network()).isNotSameAs(fold.get().warmStart().network());
+    }
+
+    @Test
+    @DisplayName("未配置 BLAS 线程数时按所有训练线程池的线程总数分摊核心")
+    void testSettings_shouldDivideCoresByAllTrainingSlots() {
+        // Given: 候选 2、批量 4、异步 5、队列消费 3，共 14 个可同时训练的线程
+        ForecastEngineProperties properties = new ForecastEngineProperties();
+        properties.setCandidateParallelism(2);
+        properties.setBatchParallelism(4);
+        properties.setAsyncParallelism(5);
+        properties.getWorker().setParallelism(3);
+
+        // When / Then: 32 核每次训练 2 个 BLAS 线程，核数少于线程总数时至少 1 个
+        assertThat(Dl4jLstmForecaster.Settings.defaultBlasThreads(32, properties)).isEqualTo(2);
+        assertThat(Dl4jLstmForecaster.Settings.defaultBlasThreads(8, properties)).isEqualTo(1);
+        assertThat(Dl4jLstmForecaster.Settings.of(properties).blasThreads())
+            .isEqualTo(Math.max(1, Runtime.getRuntime().availableProcessors() / 14));
+
+        // When / Then: 显式配置时直接使用配置值
+        properties.getLstm().setBlasThreads(6);
+        assertThat(Dl4jLstmForecaster.Settings.of(properties).blasThreads()).isEqualTo(6);
+    }
 }
@@ -0,0 +1,66 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import com.gxj.cropyield.modules.forecast.entity.ForecastModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 已拟合模型制品单元测试
+ */
+@DisplayName("模型制品测试")
+class ForecastArtefactTest {
+
+    private final LocalForecastEngine engine = new LocalForecastEngine();
+
+    @Test
+    @DisplayName("ARIMA 制品序列化往返后免训练预测，结果与训练时一致")
+    void testScore_withArimaArtefact_shouldMatchTrainedForecast() throws Exception {
+        // Given: 训练 ARIMA 并得到制品
+        ForecastEngineRequest request = request("ARIMA");
+        TrainedForecast trained = engine.train(request);
+        assertThat(trained.artefact()).isNotNull();
+
+        // When: 制品序列化再反序列化后预测
+        ForecastArtefact restored = ForecastArtefact.fromBytes(trained.artefact().toBytes());
+        ForecastEngineResponse scored = engine.score(request, restored).orElseThrow();
+
+        // Then: 指纹与模型类型保持不变，预测值、区间与评估指标和训练时相同
+        assertThat(restored.modelType()).isEqualTo(ForecastModel.ModelType.ARIMA);
+        assertThat(restored.fingerprint()).isEqualTo(ForecastModelCache.fingerprint(request));
+        assertThat(scored.forecast()).isEqualTo(trained.response().forecast());
+        assertThat(scored.metrics()).isEqualTo(trained.response().metrics());
+    }
+
+    @Test
+    @DisplayName("Prophet 制品往返后预测一致，模型类型不符时不使用制品")
+    void testScore_withProphetArtefact_shouldMatchTrainedForecast() throws Exception {
+        // Given: 训练 Prophet 并得到制品
+        ForecastEngineRequest request = request("PROPHET");
+        TrainedForecast trained = engine.train(request);
+
+        // When: 制品往返后分别按 Prophet 与 ARIMA 请求预测
+        ForecastArtefact restored = ForecastArtefact.fromBytes(trained.artefact().toBytes());
+
+        // Then: Prophet 请求得到相同预测，ARIMA 请求不使用该制品
+        assertThat(engine.score(request, restored).orElseThrow().forecast())
+            .isEqualTo(trained.response().forecast());
+        assertThat(engine.score(request("ARIMA"), restored)).isEmpty();
+    }
+
+    private ForecastEngineRequest request(String modelCode) {
+        double[] values = {
+            100, 104, 101, 108, 112, 109, 115, 120, 117, 123, 128, 124, 131, 136, 133, 139
+        };
+        List<ForecastEngineRequest.HistoryPoint> history = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            history.add(new ForecastEngineRequest.HistoryPoint(String.valueOf(2008 + i), values[i], null));
+        }
+        return new ForecastEngineRequest(modelCode, "YEARLY", 3, history, Map.of());
+    }
+}
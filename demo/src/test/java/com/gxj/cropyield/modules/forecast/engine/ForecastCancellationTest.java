@@ -0,0 +1,128 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 预测取消令牌单元测试
+ */
+@DisplayName("预测取消令牌测试")
+class ForecastCancellationTest {
+
+    @Test
+    @DisplayName("已取消的令牌应中止预测计算")
+    void testForecast_withCancelledToken_shouldStop() {
+        // Given: 已取消的令牌
+        ForecastCancellation cancellation = ForecastCancellation.withTimeout(null);
+        cancellation.cancel();
+        LocalForecastEngine engine = new LocalForecastEngine();
+
+        // Then: 在令牌上下文中执行预测会抛出取消异常
+        assertThatThrownBy(() -> cancellation.call(() -> engine.forecast(request())))
+            .isInstanceOf(ForecastCancelledException.class)
+            .hasMessageContaining("取消");
+    }
+
+    @Test
+    @DisplayName("超过截止时间的令牌应报告超时")
+    void testCheckpoint_withExpiredDeadline_shouldTimeOut() throws InterruptedException {
+        // Given: 1 毫秒后到期的令牌
+        ForecastCancellation cancellation = ForecastCancellation.withTimeout(Duration.ofMillis(1));
+        Thread.sleep(5);
+
+        // Then: 检查点抛出超时异常，且子令牌同样失效
+        assertThat(cancellation.isExpired()).isTrue();
+        assertThat(cancellation.child().isExpired()).isTrue();
+        assertThatThrownBy(() -> cancellation.call(() -> {
+            ForecastCancellation.checkpoint();
+            return null;
+        })).isInstanceOf(ForecastCancelledException.class).hasMessageContaining("超时");
+    }
+
+    @Test
+    @DisplayName("取消子令牌不应影响父令牌，执行结束后恢复线程上下文")
+    void testChild_cancelShouldNotPropagateUpwards() {
+        // Given: 父令牌与其子令牌
+        ForecastCancellation parent = ForecastCancellation.withTimeout(Duration.ofMinutes(1));
+        ForecastCancellation child = parent.child();
+
+        // When: 仅取消子令牌
+        child.cancel();
+
+        // Then: 父令牌仍可用，且调用结束后线程不再绑定令牌
+        assertThat(parent.isCancelled()).isFalse();
+        assertThat(child.isCancelled()).isTrue();
+        ForecastCancellation bound = parent.call(ForecastCancellation::current);
+        assertThat(bound).isSameAs(parent);
+        assertThat(ForecastCancellation.current().isCancelled()).isFalse();
+        assertThat(ForecastCancellation.current()).isNotEqualTo(parent);
+    }
+
+    @Test
+    @DisplayName("子步骤内的进度应折算为整体进度")
+    void testWithinStep_shouldScaleNestedProgress() {
+        // Given: 记录进度的令牌
+        List<String> reported = new ArrayList<>();
+        ForecastCancellation cancellation = ForecastCancellation.withTimeout(null)
+            .onProgress((stage, completed, total) -> reported.add(stage + ":" + completed + "/" + total));
+
+        // When: 在共 4 个子步骤中的第 2 个（下标 1）里上报 5 轮中的第 5 轮
+        cancellation.call(() -> ForecastCancellation.withinStep(1, 4, () -> {
+            ForecastCancellation.reportProgress("LSTM训练", 5, 5);
+            return null;
+        }));
+
+        // Then: 折算为整体的 10/20
+        assertThat(reported).containsExactly("LSTM训练:10/20");
+    }
+
+    @Test
+    @DisplayName("并行子步骤交替上报时整体进度按完成比例求和且不回退，取消范围令牌后子步骤停止")
+    void testParallelSteps_shouldSumInterleavedProgress() {
+        // Given: 记录进度的令牌与其上的 4 个并行子步骤
+        List<String> reported = new ArrayList<>();
+        ForecastCancellation cancellation = ForecastCancellation.withTimeout(null)
+            .onProgress((stage, completed, total) -> reported.add(stage + ":" + completed + "/" + total));
+        ForecastCancellation.ParallelSteps steps = ForecastCancellation.parallelSteps(cancellation, 4);
+
+        // When: 最后一个子步骤完成一半后第一个子步骤全部完成，随后最后一个子步骤完成
+        steps.run(3, () -> {
+            ForecastCancellation.reportProgress("LSTM训练", 5, 10);
+            return null;
+        });
+        steps.run(0, () -> {
+            ForecastCancellation.reportProgress("LSTM训练", 10, 10);
+            return null;
+        });
+        steps.run(3, () -> {
+            ForecastCancellation.reportProgress("LSTM训练", 10, 10);
+            return null;
+        });
+
+        // Then: 整体进度依次为 0.5、1.5、2 个子步骤
+        assertThat(reported).containsExactly("LSTM训练:500/4000", "LSTM训练:1500/4000", "LSTM训练:2000/4000");
+
+        // Then: 取消后子步骤在检查点处停止
+        cancellation.cancel();
+        assertThatThrownBy(() -> steps.run(1, () -> {
+            ForecastCancellation.checkpoint();
+            return null;
+        })).isInstanceOf(ForecastCancelledException.class);
+    }
+
+    private ForecastEngineRequest request() {
+        return new ForecastEngineRequest("ARIMA", "YEARLY", 1, List.of(
+            new ForecastEngineRequest.HistoryPoint("2021", 90.0, null),
+            new ForecastEngineRequest.HistoryPoint("2022", 95.0, null),
+            new ForecastEngineRequest.HistoryPoint("2023", 100.0, null)
+        ), Map.of());
+    }
+}
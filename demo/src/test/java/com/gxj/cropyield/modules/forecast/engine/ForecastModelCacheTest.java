@@ -0,0 +1,129 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 已训练模型缓存单元测试
+ */
+@DisplayName("预测模型缓存测试")
+class ForecastModelCacheTest {
+
+    private ForecastModelCache cache;
+    private AtomicInteger trainings;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ForecastModelCache();
+        trainings = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("相同序列的重复请求应命中缓存")
+    void testGetOrCompute_withSameSeries_shouldReuseFittedResult() {
+        // Given: 两个参数顺序不同但语义相同的请求
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("p", 1);
+        first.put("d", 1);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("d", 1);
+        second.put("p", 1);
+
+        // When: 依次执行
+        ForecastEngineResponse a = cache.getOrCompute(1L, 2L, request(first, 100.0), this::train);
+        ForecastEngineResponse b = cache.getOrCompute(1L, 2L, request(second, 100.0), this::train);
+
+        // Then: 只训练一次，并返回同一结果
+        assertThat(trainings.get()).isEqualTo(1);
+        assertThat(b).isSameAs(a);
+    }
+
+    @Test
+    @DisplayName("相同指纹的并发请求只训练一次，其余请求等待其结果")
+    void testGetOrCompute_withConcurrentCallers_shouldTrainOnce() throws Exception {
+        // Given: 第一个请求进入训练后阻塞
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ForecastEngineResponse> first = CompletableFuture.supplyAsync(() ->
+            cache.getOrCompute(1L, 2L, request(Map.of("p", 1), 100.0), () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return train();
+            }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When: 训练期间第二个相同请求到达，随后第一个请求完成训练
+        CompletableFuture<ForecastEngineResponse> second = CompletableFuture.supplyAsync(() ->
+            cache.getOrCompute(1L, 2L, request(Map.of("p", 1), 100.0), this::train));
+        release.countDown();
+
+        // Then: 只训练一次，两个请求得到同一结果
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        assertThat(trainings.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("历史数据变化应生成新的指纹")
+    void testFingerprint_withChangedHistory_shouldDiffer() {
+        // Given: 仅最后一年产量不同的两个请求
+        ForecastEngineRequest original = request(Map.of("p", 1), 100.0);
+        ForecastEngineRequest changed = request(Map.of("p", 1), 101.0);
+
+        // Then: 指纹不同
+        assertThat(ForecastModelCache.fingerprint(original))
+            .isNotEqualTo(ForecastModelCache.fingerprint(changed));
+    }
+
+    @Test
+    @DisplayName("失效区域作物后应重新训练")
+    void testInvalidate_shouldEvictScope() {
+        // Given: 两个区域作物各缓存一个模型
+        cache.getOrCompute(1L, 2L, request(Map.of("p", 1), 100.0), this::train);
+        cache.getOrCompute(3L, 2L, request(Map.of("p", 2), 100.0), this::train);
+
+        // When: 失效其中一个
+        cache.invalidate(1L, 2L);
+        cache.getOrCompute(1L, 2L, request(Map.of("p", 1), 100.0), this::train);
+        cache.getOrCompute(3L, 2L, request(Map.of("p", 2), 100.0), this::train);
+
+        // Then: 仅被失效的范围重新训练
+        assertThat(trainings.get()).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ForecastEngineResponse train() {
+        trainings.incrementAndGet();
+        return new ForecastEngineResponse(
+            "req-" + trainings.get(),
+            List.of(new ForecastEngineResponse.ForecastPoint("2024", 120.0, null, null)),
+            new ForecastEngineResponse.EvaluationMetrics(1.0, 1.0, 1.0, 0.9)
+        );
+    }
+
+    private ForecastEngineRequest request(Map<String, Object> parameters, double lastValue) {
+        return new ForecastEngineRequest("ARIMA", "YEARLY", 1, List.of(
+            new ForecastEngineRequest.HistoryPoint("2021", 90.0, null),
+            new ForecastEngineRequest.HistoryPoint("2022", 95.0, null),
+            new ForecastEngineRequest.HistoryPoint("2023", lastValue, null)
+        ), parameters);
+    }
+}
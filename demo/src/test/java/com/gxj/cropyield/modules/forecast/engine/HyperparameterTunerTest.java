@@ -0,0 +1,60 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import com.gxj.cropyield.modules.forecast.entity.ForecastModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 超参数自动搜索单元测试
+ */
+@DisplayName("超参数自动搜索测试")
+class HyperparameterTunerTest {
+
+    private static final DoubleSeries HISTORY = DoubleSeries.wrap(new double[]{
+        100, 102, 105, 103, 108, 110, 111, 115, 117, 116, 120, 123, 125, 124, 128, 131
+    });
+
+    @Test
+    @DisplayName("请求中显式给出的参数不参与搜索，默认阶数排在首位")
+    void testSearchSpace_withFixedOrder_shouldKeepGivenParameters() {
+        // When: 固定 d = 1 生成 ARIMA 搜索空间
+        List<Map<String, Object>> space = HyperparameterTuner.searchSpace(
+            ForecastModel.ModelType.ARIMA, Map.of("d", 1), HISTORY.size());
+
+        // Then: 只在 p、q 上搜索，且 (1, 1) 排在首位
+        assertThat(space).hasSize(12);
+        assertThat(space.stream().noneMatch(candidate -> candidate.containsKey("d"))).isTrue();
+        assertThat(space.get(0)).isEqualTo(Map.of("p", 1, "q", 1));
+    }
+
+    @Test
+    @DisplayName("逐次减半应选出评分最低的候选，并对相同序列复用搜索结果")
+    void testTune_withHalving_shouldPickBestAndCacheResult() {
+        // Given: 以 |p - 2| + |q - 0| 为分数的评分函数，最优为 p = 2, q = 0
+        AtomicInteger evaluations = new AtomicInteger();
+        HyperparameterTuner.Scorer scorer = (parameters, window) -> {
+            evaluations.incrementAndGet();
+            return Math.abs(((Integer) parameters.get("p")) - 2) + (Integer) parameters.get("q");
+        };
+        HyperparameterTuner tuner = new HyperparameterTuner(Runnable::run, 10);
+
+        // When: 固定 d = 1 连续调参两次
+        Map<String, Object> first = tuner.tune(ForecastModel.ModelType.ARIMA, HISTORY, Map.of("d", 1),
+            HyperparameterTuner.Strategy.HALVING, 8, scorer);
+        int afterFirst = evaluations.get();
+        Map<String, Object> second = tuner.tune(ForecastModel.ModelType.ARIMA, HISTORY, Map.of("d", 1),
+            HyperparameterTuner.Strategy.HALVING, 8, scorer);
+
+        // Then: 保留固定参数并选中最优阶数，淘汰后评估次数少于全网格三轮，第二次直接命中缓存
+        assertThat(first).isEqualTo(Map.of("p", 2, "d", 1, "q", 0));
+        assertThat(second).isEqualTo(first);
+        assertThat(afterFirst).isLessThan(12 * 3);
+        assertThat(evaluations.get()).isEqualTo(afterFirst);
+    }
+}
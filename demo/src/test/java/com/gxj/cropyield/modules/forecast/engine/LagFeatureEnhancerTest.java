@@ -117,6 +117,32 @@ class LagFeatureEnhancerTest {
         System.out.println("总特征数: " + features.size());
     }
 
+    @Test
+    void testEnhanceWithMissingValuesAndOverlappingFeatures() {
+        // 测试缺失值与同名特征：滑动窗口跳过缺失值，滞后特征覆盖同名的原有特征
+        List<ForecastEngineRequest.HistoryPoint> history = new ArrayList<>();
+        history.add(createHistoryPoint("2019", 4500.0));
+        history.add(createHistoryPoint("2020", null));
+        Map<String, Double> stale = new HashMap<>();
+        stale.put("lag2_yield", 1.0);
+        stale.put("temperature", 25.0);
+        history.add(new ForecastEngineRequest.HistoryPoint("2021", 4800.0, stale));
+
+        List<ForecastEngineRequest.HistoryPoint> enhanced =
+            LagFeatureEnhancer.enhanceWithLagFeatures(history);
+
+        Map<String, Double> features = enhanced.get(2).features();
+        assertEquals(4500.0, features.get("lag2_yield"), 0.01);
+        assertEquals(25.0, features.get("temperature"), 0.01);
+        assertFalse(features.containsKey("lag1_yield"));
+        assertFalse(features.containsKey("yield_change_rate"));
+        assertEquals(4650.0, features.get("moving_avg_3"), 0.01);
+        assertEquals(150.0, features.get("yield_volatility_3"), 0.01);
+        assertEquals((4800.0 - 4500.0) / (2 * 4500.0), features.get("avg_change_rate_2"), 0.0001);
+        assertEquals(5, features.size());
+        assertEquals(features.keySet(), new HashMap<>(features).keySet());
+    }
+
     private ForecastEngineRequest.HistoryPoint createHistoryPoint(String period, Double value) {
         return new ForecastEngineRequest.HistoryPoint(period, value, new HashMap<>());
     }
@@ -0,0 +1,58 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 残差自助法预测区间单元测试
+ */
+@DisplayName("自助法预测区间测试")
+class PredictionIntervalsTest {
+
+    private static final double[] RESIDUALS = {-12.0, 8.5, -3.0, 15.0, -7.5, 2.0, -1.0, 9.0, -14.0, 4.0};
+
+    @Test
+    @DisplayName("区间应包含点预测，且随预测步数变宽")
+    void testBootstrap_shouldWidenWithHorizon() {
+        // Given: 三期点预测与一组回测残差
+        double[] forecast = {100.0, 105.0, 110.0};
+        PredictionIntervals intervals = new PredictionIntervals(Runnable::run, 4_000, 0.8);
+
+        // When: 计算区间
+        PredictionIntervals.Band band = intervals.bootstrap(forecast, RESIDUALS);
+
+        // Then: 每期都包含点预测，误差累积使区间逐期变宽
+        for (int h = 0; h < forecast.length; h++) {
+            assertThat(band.lower()[h]).isLessThan(forecast[h]);
+            assertThat(band.upper()[h]).isGreaterThan(forecast[h]);
+        }
+        assertThat(band.upper()[2] - band.lower()[2]).isGreaterThan(band.upper()[0] - band.lower()[0]);
+    }
+
+    @Test
+    @DisplayName("并行分块抽样与单线程结果一致，残差不足时返回 null")
+    void testBootstrap_shouldBeDeterministicAcrossExecutors() {
+        // Given: 抽样次数超过并行阈值的两个实例，分别在调用线程与 ForkJoin 池中抽样
+        double[] forecast = {200.0, 210.0, 220.0};
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PredictionIntervals sequential = new PredictionIntervals(Runnable::run, 40_000, 0.9);
+            PredictionIntervals parallel = new PredictionIntervals(pool, 40_000, 0.9);
+
+            // When: 对相同输入计算区间
+            PredictionIntervals.Band expected = sequential.bootstrap(forecast, RESIDUALS);
+            PredictionIntervals.Band actual = parallel.bootstrap(forecast, RESIDUALS);
+
+            // Then: 上下界完全相同；只有 4 个有效残差时不做抽样
+            assertThat(actual.lower()).isEqualTo(expected.lower());
+            assertThat(actual.upper()).isEqualTo(expected.upper());
+            assertThat(sequential.bootstrap(forecast, new double[]{1.0, Double.NaN, -2.0, 3.0, 0.5})).isNull();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -13,6 +13,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * Prophet预测器单元测试
@@ -328,4 +329,33 @@ class ProphetForecasterTest {
         assertThat(result).isPresent();
         assertThat(result.get()).allMatch(v -> v >= 0, "预测值不应为负数");
     }
+
+    @ParameterizedTest
+    @CsvSource({
+        "0",
+        "4"
+    })
+    @DisplayName("增量滚动回测应与逐前缀重新拟合结果一致")
+    void testWalkForwardOneStep_shouldMatchRefitPerPrefix(int seasonalityPeriod) {
+        // Given: 带趋势和季节性的历史数据
+        List<Double> history = Arrays.asList(
+            100.0, 120.0, 90.0, 110.0, 105.0, 125.0, 95.0, 115.0,
+            110.0, 130.0, 100.0, 120.0, 115.0, 135.0, 105.0, 125.0
+        );
+        Map<String, Object> params = Map.of("seasonalityPeriod", seasonalityPeriod);
+
+        // When: 一次性执行增量回测
+        double[] walkForward = forecaster.walkForwardOneStep(history, 1, params);
+
+        // Then: 每个前缀的单步预测应与重新拟合一致
+        assertThat(walkForward).hasSize(history.size());
+        for (int i = 1; i < history.size(); i++) {
+            Optional<List<Double>> refit = forecaster.forecast(history.subList(0, i), 1, params);
+            if (refit.isPresent()) {
+                assertThat(walkForward[i]).isCloseTo(refit.get().get(0), within(1e-6));
+            } else {
+                assertThat(walkForward[i]).isNaN();
+            }
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package com.gxj.cropyield.modules.forecast.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 岭回归求解器单元测试：与逐折重建正规方程的朴素实现对比
+ */
+@DisplayName("岭回归求解器测试")
+class RidgeRegressionSolverTest {
+
+    @Test
+    @DisplayName("留一交叉验证结果应与逐折重新求解一致")
+    void testCrossValidate_shouldMatchRefitPerFold() {
+        // Given: 带截距列的随机设计矩阵
+        double[][] design = design(30, 12);
+        double[] outputs = outputs(design);
+        RidgeRegressionSolver solver = new RidgeRegressionSolver(design, outputs);
+
+        for (double lambda : new double[] {0d, 0.1d, 1d}) {
+            // When: 降阶求解
+            RidgeRegressionSolver.CrossValidation validation = solver.crossValidate(lambda);
+
+            // Then: 系数与每折预测值均与朴素实现吻合
+            assertThat(validation).isNotNull();
+            double[] expected = naiveSolve(design, outputs, lambda, -1);
+            for (int j = 0; j < expected.length; j++) {
+                assertThat(validation.coefficients()[j]).isCloseTo(expected[j], within(1e-8));
+            }
+            for (int i = 0; i < design.length; i++) {
+                double[] foldCoefficients = naiveSolve(design, outputs, lambda, i);
+                double prediction = 0d;
+                for (int j = 0; j < foldCoefficients.length; j++) {
+                    prediction += design[i][j] * foldCoefficients[j];
+                }
+                assertThat(validation.predictions()[i]).isCloseTo(prediction, within(1e-6));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("特征多于样本且不加正则时应判定为奇异")
+    void testSolve_withUnderdeterminedSystem_shouldReturnNull() {
+        // Given: 5 个样本、8 个特征
+        double[][] design = design(5, 8);
+        RidgeRegressionSolver solver = new RidgeRegressionSolver(design, outputs(design));
+
+        // Then: λ = 0 时无解，加入正则后可解
+        assertThat(solver.solve(0d)).isNull();
+        assertThat(solver.solve(0.5d)).isNotNull();
+    }
+
+    private double[][] design(int samples, int features) {
+        Random random = new Random(7L);
+        double[][] design = new double[samples][features + 1];
+        for (double[] row : design) {
+            row[0] = 1d;
+            for (int j = 1; j <= features; j++) {
+                row[j] = random.nextGaussian();
+            }
+        }
+        return design;
+    }
+
+    private double[] outputs(double[][] design) {
+        Random random = new Random(11L);
+        double[] outputs = new double[design.length];
+        for (int i = 0; i < design.length; i++) {
+            double value = 500d;
+            for (int j = 1; j < design[i].length; j++) {
+                value += design[i][j] * j * 3d;
+            }
+            outputs[i] = value + random.nextGaussian();
+        }
+        return outputs;
+    }
+
+    private double[] naiveSolve(double[][] design, double[] outputs, double lambda, int skip) {
+        int n = design[0].length;
+        double[][] augmented = new double[n][n + 1];
+        for (int i = 0; i < design.length; i++) {
+            if (i == skip) {
+                continue;
+            }
+            for (int j = 0; j < n; j++) {
+                augmented[j][n] += design[i][j] * outputs[i];
+                for (int k = 0; k < n; k++) {
+                    augmented[j][k] += design[i][j] * design[i][k];
+                }
+            }
+        }
+        for (int j = 1; j < n; j++) {
+            augmented[j][j] += lambda;
+        }
+        for (int pivot = 0; pivot < n; pivot++) {
+            for (int row = 0; row < n; row++) {
+                if (row == pivot) {
+                    continue;
+                }
+                double factor = augmented[row][pivot] / augmented[pivot][pivot];
+                for (int col = pivot; col <= n; col++) {
+                    augmented[row][col] -= factor * augmented[pivot][col];
+                }
+            }
+        }
+        double[] solution = new double[n];
+        Arrays.setAll(solution, i -> augmented[i][n] / augmented[i][i]);
+        return solution;
+    }
+}
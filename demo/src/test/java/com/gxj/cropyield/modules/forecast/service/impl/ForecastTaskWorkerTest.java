@@ -0,0 +1,122 @@
+package com.gxj.cropyield.modules.forecast.service.impl;
+
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchRequest;
+import com.gxj.cropyield.modules.forecast.dto.ForecastBatchResponse;
+import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
+import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionResponse;
+import com.gxj.cropyield.modules.forecast.engine.ForecastCancellation;
+import com.gxj.cropyield.modules.forecast.engine.ForecastProgressListener;
+import com.gxj.cropyield.modules.forecast.service.ForecastExecutionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 预测任务消费者单元测试
+ */
+@DisplayName("预测任务消费者测试")
+class ForecastTaskWorkerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private ForecastTaskWorker worker;
+
+    @AfterEach
+    void tearDown() {
+        if (worker != null) {
+            worker.stop();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("多个任务应被并发执行而不是等待轮询")
+    void testWorker_shouldExecuteTasksConcurrently() throws Exception {
+        // Given: 三个消费线程，每个任务阻塞直到全部任务都已开始
+        ForecastEngineProperties properties = properties(3, 10);
+        InMemoryForecastTaskQueue queue = new InMemoryForecastTaskQueue(properties);
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        worker = new ForecastTaskWorker(queue, new BlockingExecutionService(started, release), executor, properties);
+        worker.start();
+
+        // When: 连续发布三个任务
+        for (long i = 1; i <= 3; i++) {
+            assertThat(queue.publish(request(i))).isTrue();
+        }
+
+        // Then: 三个任务同时处于执行中，放行后全部完成
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(worker.stats().inFlight()).isEqualTo(3);
+        assertThat(worker.stats().queueDepth()).isZero();
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (worker.stats().completed() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(worker.stats().completed()).isEqualTo(3);
+        assertThat(worker.stats().inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("队列已满时发布应被拒绝")
+    void testPublish_whenQueueFull_shouldReject() {
+        // Given: 容量为1且不等待的队列
+        InMemoryForecastTaskQueue queue = new InMemoryForecastTaskQueue(properties(1, 1));
+
+        // When & Then: 第二个任务被拒绝
+        assertThat(queue.publish(request(1L))).isTrue();
+        assertThat(queue.publish(request(2L))).isFalse();
+        assertThat(queue.size()).isEqualTo(1);
+    }
+
+    private ForecastEngineProperties properties(int parallelism, int capacity) {
+        ForecastEngineProperties properties = new ForecastEngineProperties();
+        properties.getWorker().setParallelism(parallelism);
+        properties.getWorker().setQueueCapacity(capacity);
+        properties.getWorker().setPublishTimeout(Duration.ZERO);
+        return properties;
+    }
+
+    private ForecastExecutionRequest request(Long regionId) {
+        return new ForecastExecutionRequest(regionId, 1L, 1L, 1, 3, "YEARLY", Map.of());
+    }
+
+    private static final class BlockingExecutionService implements ForecastExecutionService {
+
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        private BlockingExecutionService(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public ForecastExecutionResponse runForecast(ForecastExecutionRequest request) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        @Override
+        public ForecastBatchResponse runBatchForecast(ForecastBatchRequest request,
+                                                      ForecastCancellation cancellation,
+                                                      ForecastProgressListener progress) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.gxj.cropyield.modules.forecast.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gxj.cropyield.modules.forecast.config.ForecastEngineProperties;
+import com.gxj.cropyield.modules.forecast.dto.ForecastExecutionRequest;
+import com.gxj.cropyield.modules.forecast.service.QueuedForecastTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 数据库任务队列单元测试，使用 MySQL 兼容模式的 H2 内存库
+ */
+@DisplayName("数据库任务队列测试")
+class JdbcForecastTaskQueueTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:task_queue_" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE forecast_task_queue (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    region_id BIGINT NOT NULL,
+                    crop_id BIGINT NOT NULL,
+                    model_id BIGINT NOT NULL,
+                    payload TEXT NOT NULL,
+                    status VARCHAR(16) NOT NULL,
+                    attempts INT NOT NULL DEFAULT 0,
+                    available_at DATETIME(3) NOT NULL,
+                    lease_owner VARCHAR(128),
+                    lease_expires_at DATETIME(3),
+                    last_error VARCHAR(512),
+                    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    @DisplayName("领取时跳过被其他事务锁定的任务，锁释放后可由其他节点领取")
+    void testPoll_shouldSkipLockedRows() throws Exception {
+        // Given: 三个待执行任务，第一个被另一个事务持有行锁
+        JdbcForecastTaskQueue queue = queue(properties(Duration.ofMinutes(1), 3, 2));
+        for (long i = 1; i <= 3; i++) {
+            assertThat(queue.publish(request(i))).isTrue();
+        }
+        Long lockedId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM forecast_task_queue", Long.class);
+
+        try (Connection locker = dataSource.getConnection()) {
+            locker.setAutoCommit(false);
+            try (PreparedStatement statement = locker.prepareStatement(
+                    "SELECT id FROM forecast_task_queue WHERE id = ? FOR UPDATE")) {
+                statement.setLong(1, lockedId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    assertThat(resultSet.next()).isTrue();
+                }
+            }
+
+            // When: 本节点领取一批（两个）任务
+            QueuedForecastTask first = queue.poll(Duration.ZERO);
+            QueuedForecastTask second = queue.poll(Duration.ZERO);
+
+            // Then: 被锁定的任务未被领取，其余两个以第 1 次执行的身份被租用
+            assertThat(List.of(first.id(), second.id())).doesNotContain(lockedId);
+            assertThat(first.attempt()).isEqualTo(1);
+            assertThat(first.request().regionId()).isEqualTo(2L);
+            assertThat(status(lockedId)).isEqualTo("PENDING");
+            assertThat(status(first.id())).isEqualTo("LEASED");
+            locker.rollback();
+        }
+
+        // Then: 行锁释放后另一个节点领取到剩余任务
+        QueuedForecastTask remaining = queue(properties(Duration.ofMinutes(1), 3, 2)).poll(Duration.ZERO);
+        assertThat(remaining.id()).isEqualTo(lockedId);
+        assertThat(queue.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("失败的任务按退避时间重新入队，达到最大次数后标记为失败")
+    void testFail_shouldBackOffThenGiveUp() throws Exception {
+        // Given: 退避 60 秒、最多执行 2 次的队列
+        ForecastEngineProperties properties = properties(Duration.ofMinutes(1), 2, 1);
+        properties.getWorker().setRetryBackoff(Duration.ofSeconds(60));
+        JdbcForecastTaskQueue queue = queue(properties);
+        queue.publish(request(1));
+
+        // When: 第一次执行失败
+        QueuedForecastTask task = queue.poll(Duration.ZERO);
+        queue.fail(task, "引擎异常");
+
+        // Then: 任务回到待执行状态并释放租约，退避期内不会被再次领取
+        assertThat(status(task.id())).isEqualTo("PENDING");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM forecast_task_queue WHERE id = ? "
+                + "AND lease_owner IS NULL AND last_error = '引擎异常' AND available_at > TIMESTAMPADD(SECOND, 50, NOW(3))",
+            Integer.class, task.id())).isEqualTo(1);
+        assertThat(queue.poll(Duration.ZERO)).isNull();
+
+        // When: 退避结束后第二次执行仍失败
+        jdbcTemplate.update("UPDATE forecast_task_queue SET available_at = NOW(3)");
+        QueuedForecastTask retry = queue.poll(Duration.ZERO);
+        queue.fail(retry, "引擎异常");
+
+        // Then: 第 2 次执行即达到上限，任务标记为失败且不再计入队列长度
+        assertThat(retry.id()).isEqualTo(task.id());
+        assertThat(retry.attempt()).isEqualTo(2);
+        assertThat(status(task.id())).isEqualTo("FAILED");
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("持有节点续约租约，节点下线后过期租约被其他节点重新入队")
+    void testMaintainLeases_shouldRenewAndRequeueExpired() throws Exception {
+        // Given: 节点 A 领取了一个任务
+        JdbcForecastTaskQueue nodeA = queue(properties(Duration.ofSeconds(30), 3, 1));
+        JdbcForecastTaskQueue nodeB = queue(properties(Duration.ofSeconds(30), 3, 1));
+        nodeA.publish(request(1));
+        QueuedForecastTask task = nodeA.poll(Duration.ZERO);
+
+        // When: A 续约
+        jdbcTemplate.update("UPDATE forecast_task_queue SET lease_expires_at = TIMESTAMPADD(SECOND, 1, NOW(3))");
+        nodeA.maintainLeases();
+
+        // Then: 租约延长到完整的租约时长
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM forecast_task_queue "
+            + "WHERE lease_expires_at > TIMESTAMPADD(SECOND, 20, NOW(3))", Integer.class)).isEqualTo(1);
+
+        // When: A 停止续约直至租约过期，B 执行租约维护后领取
+        jdbcTemplate.update("UPDATE forecast_task_queue SET lease_expires_at = TIMESTAMPADD(SECOND, -1, NOW(3))");
+        nodeB.maintainLeases();
+        assertThat(status(task.id())).isEqualTo("PENDING");
+        QueuedForecastTask requeued = nodeB.poll(Duration.ZERO);
+
+        // Then: 任务以第 2 次执行交给 B，A 迟到的确认不会删除 B 持有的任务
+        assertThat(requeued.id()).isEqualTo(task.id());
+        assertThat(requeued.attempt()).isEqualTo(2);
+        nodeA.acknowledge(task);
+        assertThat(nodeB.size()).isEqualTo(1);
+        nodeB.acknowledge(requeued);
+        assertThat(nodeB.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("续约间隔取租约时长的三分之一，过短的租约在启动时被拒绝")
+    void testLeaseDuration_shouldDriveRenewalInterval() {
+        // Given: 租约 1 分钟的队列
+        JdbcForecastTaskQueue queue = queue(properties(Duration.ofMinutes(1), 3, 1));
+        ScheduledTaskRegistrar registrar = new ScheduledTaskRegistrar();
+
+        // When: 注册定时任务
+        queue.configureTasks(registrar);
+
+        // Then: 每 20 秒续约一次；10 秒的租约无法创建队列
+        assertThat(registrar.getFixedDelayTaskList()).hasSize(1);
+        assertThat(registrar.getFixedDelayTaskList().get(0).getIntervalDuration()).isEqualTo(Duration.ofSeconds(20));
+        assertThatThrownBy(() -> queue(properties(Duration.ofSeconds(10), 3, 1)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("lease-duration");
+    }
+
+    private JdbcForecastTaskQueue queue(ForecastEngineProperties properties) {
+        return new JdbcForecastTaskQueue(jdbcTemplate, transactionManager, new ObjectMapper(), properties);
+    }
+
+    private String status(Long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM forecast_task_queue WHERE id = ?", String.class, id);
+    }
+
+    private ForecastEngineProperties properties(Duration leaseDuration, int maxAttempts, int claimBatchSize) {
+        ForecastEngineProperties properties = new ForecastEngineProperties();
+        ForecastEngineProperties.Worker worker = properties.getWorker();
+        worker.setQueueType("jdbc");
+        worker.setLeaseDuration(leaseDuration);
+        worker.setMaxAttempts(maxAttempts);
+        worker.setClaimBatchSize(claimBatchSize);
+        worker.setIdlePollInterval(Duration.ZERO);
+        return properties;
+    }
+
+    private ForecastExecutionRequest request(long regionId) {
+        return new ForecastExecutionRequest(regionId, 1L, 1L, 1, 5, "YEARLY", Map.of());
+    }
+}
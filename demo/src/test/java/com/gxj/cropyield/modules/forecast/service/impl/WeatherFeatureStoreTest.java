@@ -0,0 +1,71 @@
+package com.gxj.cropyield.modules.forecast.service.impl;
+
+import com.gxj.cropyield.modules.base.enums.HarvestSeason;
+import com.gxj.cropyield.modules.dataset.entity.WeatherRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 气象特征预计算存储单元测试
+ */
+@DisplayName("气象特征预计算存储测试")
+class WeatherFeatureStoreTest {
+
+    @Test
+    @DisplayName("夏粮的 10 月起气象应归入次年，并按越冬期与返青成熟期分窗口汇总")
+    void testSummarize_shouldAssignSummerGrainWindows() {
+        // Given: 2020 年 11 月与 2021 年 4 月的逐日气象，以及缺失最低气温的一天
+        List<WeatherRecord> records = new ArrayList<>();
+        records.add(record(LocalDate.of(2020, 11, 1), 10d, 2d, 5d));
+        records.add(record(LocalDate.of(2020, 11, 2), 12d, null, 6d));
+        records.add(record(LocalDate.of(2021, 4, 1), 20d, 10d, 8d));
+
+        // When: 按月汇总后计算 2021 目标年份的特征
+        Map<Integer, Map<String, Double>> features = WeatherFeatureStore.summarize(
+                WeatherFeatureStore.aggregateRecords(records), HarvestSeason.SUMMER_GRAIN, Set.of(2021));
+
+        // Then: 整体与分窗口的均值、日较差和日照合计与逐日计算一致
+        assertThat(features).containsOnlyKeys(2021);
+        Map<String, Double> year = features.get(2021);
+        assertThat(year.get("avgMaxTemperature")).isEqualTo(14d);
+        assertThat(year.get("avgMinTemperature")).isEqualTo(6d);
+        assertThat(year.get("avgDiurnalRange")).isEqualTo(9d);
+        assertThat(year.get("totalSunshineHours")).isEqualTo(19d);
+        assertThat(year.get("winterDormancyAvgMaxTemperature")).isEqualTo(11d);
+        assertThat(year.get("winterDormancyAvgDiurnalRange")).isEqualTo(8d);
+        assertThat(year.get("springRipeningTotalSunshineHours")).isEqualTo(8d);
+    }
+
+    @Test
+    @DisplayName("不在目标年份内或没有有效数值的月份不应产生特征")
+    void testSummarize_shouldSkipYearsWithoutValues() {
+        // Given: 2019 年的有效气象与 2020 年全部缺测的一天
+        List<WeatherRecord> records = List.of(
+                record(LocalDate.of(2019, 6, 1), 30d, 20d, 9d),
+                record(LocalDate.of(2020, 6, 1), null, null, null));
+
+        // When: 只请求 2020 年的特征
+        Map<Integer, Map<String, Double>> features = WeatherFeatureStore.summarize(
+                WeatherFeatureStore.aggregateRecords(records), HarvestSeason.AUTUMN_GRAIN, Set.of(2020));
+
+        // Then: 2019 年被过滤，2020 年没有任何可用数值
+        assertThat(features).isEmpty();
+    }
+
+    private WeatherRecord record(LocalDate date, Double max, Double min, Double sunshine) {
+        WeatherRecord record = new WeatherRecord();
+        record.setRecordDate(date);
+        record.setMaxTemperature(max);
+        record.setMinTemperature(min);
+        record.setSunshineHours(sunshine);
+        return record;
+    }
+}